@@ -0,0 +1,67 @@
+package health.zaed.identity.client;
+
+import org.jspecify.annotations.Nullable;
+
+import java.util.UUID;
+
+/**
+ * Principal stored in the SecurityContext of a downstream service after token verification.
+ *
+ * <p>Same shape as the identity service's own principal, so controllers can be moved
+ * between services unchanged.
+ *
+ * @param subject the subject claim (user ID or phone:number)
+ * @param tokenType the type of token (access, temp)
+ * @param role the user role (for access tokens)
+ * @param partnerId the partner ID (for partner users)
+ * @param context the OTP context (for temp tokens)
+ * @param referenceId the reference ID (for temp tokens)
+ * @param trackingCode the tracking code (for temp tokens)
+ */
+public record AuthPrincipal(
+    String subject,
+    String tokenType,
+    @Nullable String role,
+    @Nullable String partnerId,
+    @Nullable String context,
+    @Nullable String referenceId,
+    @Nullable String trackingCode
+) {
+    public @Nullable UUID getUserId() {
+        if (!subject.startsWith("phone:")) {
+            return parseUuid(subject);
+        }
+        return null;
+    }
+
+    public @Nullable String getPhone() {
+        if (subject.startsWith("phone:")) {
+            return subject.substring(6);
+        }
+        return null;
+    }
+
+    public @Nullable UUID getPartnerIdAsUUID() {
+        return partnerId != null ? parseUuid(partnerId) : null;
+    }
+
+    public @Nullable UUID getReferenceIdAsUUID() {
+        return referenceId != null ? parseUuid(referenceId) : null;
+    }
+
+    public boolean isTempToken() {
+        return "temp".equals(tokenType);
+    }
+
+    public boolean isAccessToken() {
+        return "access".equals(tokenType);
+    }
+
+    private static @Nullable UUID parseUuid(String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
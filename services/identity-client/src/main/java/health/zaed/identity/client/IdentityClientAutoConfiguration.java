@@ -0,0 +1,106 @@
+package health.zaed.identity.client;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.web.client.RestClient;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Auto-configuration for local identity token verification.
+ *
+ * <p>Active when {@code zaed.identity.client.jwks-uri} is set. Provides:
+ * <ul>
+ *   <li>{@link JwksKeySource} - background-refreshed JWKS cache</li>
+ *   <li>{@link RevocationView} - fed from Redis pub/sub when a Redis connection exists</li>
+ *   <li>{@link TokenVerifier} and {@link IdentityClientAuthenticationFilter}</li>
+ * </ul>
+ *
+ * <p>The filter is not registered with the servlet container; add it to the service's
+ * security chain, as described on {@link IdentityClientAuthenticationFilter}.
+ */
+@AutoConfiguration(afterName = "org.springframework.boot.data.redis.autoconfigure.DataRedisAutoConfiguration")
+@ConditionalOnProperty(prefix = "zaed.identity.client", name = "jwks-uri")
+@EnableConfigurationProperties(IdentityClientProperties.class)
+public class IdentityClientAutoConfiguration {
+
+    @Bean(initMethod = "start")
+    @ConditionalOnMissingBean
+    public JwksKeySource identityJwksKeySource(
+            IdentityClientProperties properties,
+            ObjectProvider<RestClient.Builder> restClientBuilder) {
+        return new JwksKeySource(
+            restClientBuilder.getIfAvailable(RestClient::builder).build(),
+            Objects.requireNonNull(properties.getJwksUri()),
+            Duration.ofSeconds(properties.getJwksRefreshInterval()),
+            Duration.ofSeconds(properties.getJwksMinRefreshInterval()));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RevocationView identityRevocationView(IdentityClientProperties properties) {
+        return new RevocationView(Duration.ofSeconds(properties.getRevocationRetention()));
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public TokenVerifier identityTokenVerifier(
+            JwksKeySource keySource,
+            RevocationView revocationView,
+            IdentityClientProperties properties) {
+        return new TokenVerifier(keySource, revocationView, properties);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public IdentityClientAuthenticationFilter identityClientAuthenticationFilter(TokenVerifier tokenVerifier) {
+        return new IdentityClientAuthenticationFilter(tokenVerifier);
+    }
+
+    /**
+     * Disables the container registration Boot would otherwise create for the filter bean,
+     * where it would run after the security chain (or twice, once added to it).
+     */
+    @Bean
+    public FilterRegistrationBean<IdentityClientAuthenticationFilter> identityClientAuthenticationFilterRegistration(
+            IdentityClientAuthenticationFilter filter) {
+        FilterRegistrationBean<IdentityClientAuthenticationFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    /**
+     * Subscribes the revocation view to the identity service's revocation channel.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(RedisMessageListenerContainer.class)
+    @ConditionalOnBean(RedisConnectionFactory.class)
+    static class RevocationFeedConfiguration {
+
+        @Bean
+        public RedisMessageListenerContainer identityRevocationListenerContainer(
+                RedisConnectionFactory connectionFactory,
+                RevocationView revocationView,
+                IdentityClientProperties properties) {
+            RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+            container.setConnectionFactory(connectionFactory);
+            container.addMessageListener(
+                (message, pattern) -> revocationView.onMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(properties.getRevocationChannel()));
+            return container;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package health.zaed.identity.client;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Identity client configuration properties.
+ *
+ * <p>Setting {@code zaed.identity.client.jwks-uri} enables the auto-configuration.
+ */
+@ConfigurationProperties(prefix = "zaed.identity.client")
+public class IdentityClientProperties {
+
+    /**
+     * JWKS endpoint of the identity service, e.g. https://auth.zaed.org/.well-known/jwks.json.
+     */
+    private @Nullable String jwksUri;
+
+    /**
+     * Required token issuer claim.
+     */
+    private String issuer = "zaed.org";
+
+    /**
+     * Background JWKS refresh interval in seconds (default: 5 minutes).
+     */
+    private int jwksRefreshInterval = 300;
+
+    /**
+     * Minimum seconds between refreshes triggered by an unknown kid.
+     */
+    private int jwksMinRefreshInterval = 30;
+
+    /**
+     * Allowed clock skew in seconds between the identity service and this service.
+     */
+    private int clockSkew = 30;
+
+    /**
+     * Redis pub/sub channel carrying subject revocations from the identity service.
+     */
+    private String revocationChannel = "zaed:identity:revocations";
+
+    /**
+     * How long a revocation is remembered in seconds. Must cover the access token lifetime.
+     */
+    private int revocationRetention = 3600;
+
+    public @Nullable String getJwksUri() {
+        return jwksUri;
+    }
+
+    public void setJwksUri(@Nullable String jwksUri) {
+        this.jwksUri = jwksUri;
+    }
+
+    public String getIssuer() {
+        return issuer;
+    }
+
+    public void setIssuer(String issuer) {
+        this.issuer = issuer;
+    }
+
+    public int getJwksRefreshInterval() {
+        return jwksRefreshInterval;
+    }
+
+    public void setJwksRefreshInterval(int jwksRefreshInterval) {
+        this.jwksRefreshInterval = jwksRefreshInterval;
+    }
+
+    public int getJwksMinRefreshInterval() {
+        return jwksMinRefreshInterval;
+    }
+
+    public void setJwksMinRefreshInterval(int jwksMinRefreshInterval) {
+        this.jwksMinRefreshInterval = jwksMinRefreshInterval;
+    }
+
+    public int getClockSkew() {
+        return clockSkew;
+    }
+
+    public void setClockSkew(int clockSkew) {
+        this.clockSkew = clockSkew;
+    }
+
+    public String getRevocationChannel() {
+        return revocationChannel;
+    }
+
+    public void setRevocationChannel(String revocationChannel) {
+        this.revocationChannel = revocationChannel;
+    }
+
+    public int getRevocationRetention() {
+        return revocationRetention;
+    }
+
+    public void setRevocationRetention(int revocationRetention) {
+        this.revocationRetention = revocationRetention;
+    }
+}
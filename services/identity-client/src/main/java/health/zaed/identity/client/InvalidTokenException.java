@@ -0,0 +1,11 @@
+package health.zaed.identity.client;
+
+/**
+ * Thrown when a bearer token fails local verification.
+ */
+public class InvalidTokenException extends RuntimeException {
+
+    public InvalidTokenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,158 @@
+package health.zaed.identity.client;
+
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClient;
+
+import java.security.PublicKey;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory copy of the identity service's public signing keys, refreshed in the background.
+ *
+ * <ul>
+ *   <li>Lookups are a map read; no network call happens on the request path</li>
+ *   <li>Refreshes send {@code If-None-Match}, so an unchanged key set costs a 304</li>
+ *   <li>An unknown kid schedules an early refresh, at most once per minimum interval,
+ *       which picks up a rotated key without waiting for the next tick</li>
+ *   <li>Fetch failures keep the last good key set</li>
+ * </ul>
+ */
+public class JwksKeySource implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(JwksKeySource.class);
+
+    private final RestClient restClient;
+    private final String jwksUri;
+    private final Duration refreshInterval;
+    private final long minRefreshNanos;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+
+    private volatile Map<String, PublicKey> keys = Map.of();
+    private volatile @Nullable String etag;
+    private volatile long lastFetchNanos;
+
+    public JwksKeySource(RestClient restClient, String jwksUri, Duration refreshInterval, Duration minRefreshInterval) {
+        this.restClient = restClient;
+        this.jwksUri = jwksUri;
+        this.refreshInterval = refreshInterval;
+        this.minRefreshNanos = minRefreshInterval.toNanos();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("identity-jwks-refresh").daemon().factory());
+    }
+
+    /**
+     * Fetches the key set once, then refreshes it every {@code refreshInterval}.
+     */
+    public void start() {
+        refreshQuietly();
+        long seconds = refreshInterval.toSeconds();
+        scheduler.scheduleWithFixedDelay(this::refreshQuietly, seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns the public key for a kid, or null if unknown. Unknown kids trigger an
+     * asynchronous refresh.
+     */
+    public @Nullable PublicKey get(String kid) {
+        PublicKey key = keys.get(kid);
+        if (key == null) {
+            requestRefresh();
+        }
+        return key;
+    }
+
+    /**
+     * Number of keys currently known.
+     */
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * Fetches the JWKS now.
+     *
+     * @return true if the key set is current (updated or not modified)
+     */
+    public boolean refresh() {
+        lastFetchNanos = System.nanoTime();
+        RestClient.RequestHeadersSpec<?> request = restClient.get().uri(jwksUri);
+        String currentEtag = etag;
+        if (currentEtag != null) {
+            request = request.header("If-None-Match", currentEtag);
+        }
+        ResponseEntity<String> response = request.retrieve().toEntity(String.class);
+        if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            return true;
+        }
+        String body = response.getBody();
+        if (body == null) {
+            return false;
+        }
+        int loaded = applyJwks(body);
+        etag = response.getHeaders().getETag();
+        log.debug("Loaded {} signing keys from {}", loaded, jwksUri);
+        return true;
+    }
+
+    /**
+     * Replaces the key set with the public keys in a JWKS document. Keys without a kid
+     * and non-public keys are ignored.
+     *
+     * @return the number of keys loaded
+     */
+    public int applyJwks(String json) {
+        JwkSet jwkSet = Jwks.setParser().build().parse(json);
+        Map<String, PublicKey> parsed = new HashMap<>();
+        for (Jwk<?> jwk : jwkSet.getKeys()) {
+            if (jwk instanceof PublicJwk<?> publicJwk && jwk.getId() != null) {
+                parsed.put(jwk.getId(), publicJwk.toKey());
+            }
+        }
+        this.keys = Map.copyOf(parsed);
+        return parsed.size();
+    }
+
+    private void requestRefresh() {
+        long lastFetch = lastFetchNanos;
+        if (lastFetch != 0 && System.nanoTime() - lastFetch < minRefreshNanos) {
+            return;
+        }
+        if (refreshScheduled.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                try {
+                    refreshQuietly();
+                } finally {
+                    refreshScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("JWKS refresh from {} failed, keeping {} cached keys: {}", jwksUri, keys.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,89 @@
+package health.zaed.identity.client;
+
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local view of subjects whose sessions were revoked by the identity service.
+ *
+ * <p>A revocation rejects every token of the subject issued at or before the revocation
+ * time; tokens from a later login stay valid. Revocations and issue times are compared to
+ * the millisecond, so a login in the same second as the revocation is accepted. Tokens
+ * that only carry a whole-second {@code iat} are rejected for the whole revocation second.
+ * Entries are kept for the retention period (the access token lifetime), after which all
+ * affected tokens have expired anyway.
+ *
+ * <p>Fed from the identity service's revocation channel; messages are
+ * {@code "<subject> <epochMillis>"}. Timestamps small enough to be epoch seconds, as sent
+ * by older identity service instances, are read as the end of that second.
+ */
+public class RevocationView {
+
+    private static final Logger log = LoggerFactory.getLogger(RevocationView.class);
+
+    /** Epoch seconds stay below this until the year 5138; epoch millis passed it in 1973. */
+    private static final long MIN_EPOCH_MILLIS = 100_000_000_000L;
+
+    private final ConcurrentHashMap<String, Instant> revokedAt = new ConcurrentHashMap<>();
+    private final Duration retention;
+
+    public RevocationView(Duration retention) {
+        this.retention = retention;
+    }
+
+    public void revokeSubject(String subject, Instant at) {
+        revokedAt.merge(subject, at, (existing, incoming) -> incoming.isAfter(existing) ? incoming : existing);
+        purgeExpired();
+    }
+
+    /**
+     * Checks if a token issued at {@code issuedAt} for {@code subject} has been revoked.
+     * {@code issuedAt} should be the token's millisecond issue time where it has one.
+     * Tokens without {@code iat} are treated as revoked once the subject is revoked.
+     */
+    public boolean isRevoked(String subject, @Nullable Date issuedAt) {
+        if (revokedAt.isEmpty()) {
+            return false;
+        }
+        Instant revoked = revokedAt.get(subject);
+        if (revoked == null) {
+            return false;
+        }
+        return issuedAt == null || !issuedAt.toInstant().isAfter(revoked);
+    }
+
+    /**
+     * Applies a revocation message; malformed messages are logged and ignored.
+     */
+    public void onMessage(String message) {
+        int separator = message.lastIndexOf(' ');
+        if (separator <= 0) {
+            log.warn("Ignoring malformed revocation message: {}", message);
+            return;
+        }
+        try {
+            long timestamp = Long.parseLong(message.substring(separator + 1).trim());
+            Instant at = timestamp < MIN_EPOCH_MILLIS
+                ? Instant.ofEpochSecond(timestamp).plusMillis(999)
+                : Instant.ofEpochMilli(timestamp);
+            revokeSubject(message.substring(0, separator), at);
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed revocation message: {}", message);
+        }
+    }
+
+    public int size() {
+        return revokedAt.size();
+    }
+
+    private void purgeExpired() {
+        Instant threshold = Instant.now().minus(retention);
+        revokedAt.values().removeIf(at -> at.isBefore(threshold));
+    }
+}
@@ -0,0 +1,123 @@
+package health.zaed.identity.client;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import org.jspecify.annotations.Nullable;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Key;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Verifies identity-service tokens locally against the cached JWKS.
+ *
+ * <p>Only asymmetric, kid-bearing access and temp tokens are accepted; HS256 tokens cannot
+ * be verified outside the identity service. Verification is CPU-only: the signature is
+ * checked with a cached public key, then the subject is checked against the local
+ * {@link RevocationView}.
+ *
+ * <p>Permission claims repeat across tokens (one list per role or OTP context), so each
+ * distinct list is mapped to authorities once and shared.
+ */
+public class TokenVerifier {
+
+    private static final int MAX_CACHED_PERMISSION_SETS = 256;
+
+    private final JwtParser parser;
+    private final RevocationView revocationView;
+    private final ConcurrentHashMap<List<String>, List<GrantedAuthority>> authoritiesByPermissions =
+        new ConcurrentHashMap<>();
+
+    public TokenVerifier(JwksKeySource keySource, RevocationView revocationView, IdentityClientProperties properties) {
+        this.revocationView = revocationView;
+        this.parser = Jwts.parser()
+            .keyLocator(new LocatorAdapter<>() {
+                @Override
+                protected @Nullable Key locate(JwsHeader header) {
+                    String kid = header.getKeyId();
+                    // Null key: JJWT rejects the token
+                    return kid != null ? keySource.get(kid) : null;
+                }
+            })
+            .requireIssuer(properties.getIssuer())
+            .clockSkewSeconds(properties.getClockSkew())
+            .build();
+    }
+
+    /**
+     * Verifies a bearer token.
+     *
+     * @throws InvalidTokenException if the signature, issuer, expiry, type or revocation check fails
+     */
+    public VerifiedToken verify(String token) {
+        Claims claims;
+        try {
+            claims = parser.parseSignedClaims(token).getPayload();
+        } catch (ExpiredJwtException e) {
+            throw new InvalidTokenException("Token has expired");
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new InvalidTokenException("Invalid token");
+        }
+
+        String tokenType = claims.get("type", String.class);
+        if (!"access".equals(tokenType) && !"temp".equals(tokenType)) {
+            throw new InvalidTokenException("Unsupported token type: " + tokenType);
+        }
+        String subject = claims.getSubject();
+        if (subject == null) {
+            throw new InvalidTokenException("Token has no subject");
+        }
+        if (revocationView.isRevoked(subject, issuedAt(claims))) {
+            throw new InvalidTokenException("Token has been revoked");
+        }
+
+        AuthPrincipal principal = new AuthPrincipal(
+            subject,
+            tokenType,
+            claims.get("role", String.class),
+            claims.get("partnerId", String.class),
+            claims.get("context", String.class),
+            claims.get("referenceId", String.class),
+            claims.get("trackingCode", String.class)
+        );
+        Instant expiresAt = claims.getExpiration() != null ? claims.getExpiration().toInstant() : Instant.EPOCH;
+        return new VerifiedToken(principal, authorities(claims), expiresAt);
+    }
+
+    /**
+     * Issue time at millisecond precision from {@code iat_ms}, falling back to the
+     * whole-second {@code iat} for tokens issued before the claim was added.
+     */
+    private static @Nullable Date issuedAt(Claims claims) {
+        Long issuedAtMillis = claims.get("iat_ms", Long.class);
+        return issuedAtMillis != null ? new Date(issuedAtMillis) : claims.getIssuedAt();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<GrantedAuthority> authorities(Claims claims) {
+        List<String> permissions = claims.get("permissions", List.class);
+        if (permissions == null || permissions.isEmpty()) {
+            return List.of();
+        }
+        List<GrantedAuthority> shared = authoritiesByPermissions.get(permissions);
+        if (shared != null) {
+            return shared;
+        }
+        List<GrantedAuthority> authorities = permissions.stream()
+            .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+            .toList();
+        if (authoritiesByPermissions.size() < MAX_CACHED_PERMISSION_SETS) {
+            authoritiesByPermissions.putIfAbsent(List.copyOf(permissions), authorities);
+        }
+        return authorities;
+    }
+}
@@ -0,0 +1,19 @@
+package health.zaed.identity.client;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Result of a successful local token verification.
+ *
+ * @param principal the principal built from the token claims
+ * @param authorities the granted authorities built from the permissions claim
+ * @param expiresAt the token's {@code exp} claim
+ */
+public record VerifiedToken(
+    AuthPrincipal principal,
+    List<GrantedAuthority> authorities,
+    Instant expiresAt
+) {}
@@ -0,0 +1,14 @@
+/**
+ * Zaed Identity Client - local verification of identity-service tokens.
+ *
+ * <p>Downstream services verify bearer tokens against the identity service's JWKS
+ * without calling it per request. This package and all subpackages are null-marked
+ * by default, meaning all types are non-null unless explicitly annotated with
+ * {@code @Nullable}.
+ *
+ * @see org.jspecify.annotations.NullMarked
+ */
+@NullMarked
+package health.zaed.identity.client;
+
+import org.jspecify.annotations.NullMarked;
@@ -0,0 +1,57 @@
+package health.zaed.identity.client;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("IdentityClientAutoConfiguration")
+class IdentityClientAutoConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+        .withConfiguration(AutoConfigurations.of(IdentityClientAutoConfiguration.class));
+
+    @Test
+    @DisplayName("should stay inactive without a JWKS URI")
+    void shouldBackOffWithoutJwksUri() {
+        contextRunner.run(context -> {
+            assertThat(context).doesNotHaveBean(TokenVerifier.class);
+            assertThat(context).doesNotHaveBean(IdentityClientAuthenticationFilter.class);
+        });
+    }
+
+    @Test
+    @DisplayName("should create verifier and filter when JWKS URI is set")
+    void shouldCreateBeans() {
+        contextRunner
+            .withPropertyValues(
+                "zaed.identity.client.jwks-uri=http://localhost:1/.well-known/jwks.json",
+                "zaed.identity.client.clock-skew=5")
+            .run(context -> {
+                assertThat(context).hasSingleBean(JwksKeySource.class);
+                assertThat(context).hasSingleBean(RevocationView.class);
+                assertThat(context).hasSingleBean(TokenVerifier.class);
+                assertThat(context).hasSingleBean(IdentityClientAuthenticationFilter.class);
+                assertThat(context.getBean(IdentityClientProperties.class).getClockSkew()).isEqualTo(5);
+                // No Redis connection factory: revocations are not subscribed
+                assertThat(context).doesNotHaveBean(RedisMessageListenerContainer.class);
+            });
+    }
+
+    @Test
+    @DisplayName("should keep the filter out of the servlet container")
+    void shouldDisableContainerRegistration() {
+        contextRunner
+            .withPropertyValues("zaed.identity.client.jwks-uri=http://localhost:1/.well-known/jwks.json")
+            .run(context -> {
+                FilterRegistrationBean<?> registration = context.getBean(
+                    "identityClientAuthenticationFilterRegistration", FilterRegistrationBean.class);
+                assertThat(registration.getFilter()).isSameAs(context.getBean(IdentityClientAuthenticationFilter.class));
+                assertThat(registration.isEnabled()).isFalse();
+            });
+    }
+}
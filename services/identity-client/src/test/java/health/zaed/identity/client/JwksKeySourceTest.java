@@ -0,0 +1,116 @@
+package health.zaed.identity.client;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+@DisplayName("JwksKeySource")
+class JwksKeySourceTest {
+
+    private static final String JWKS_URI = "https://auth.zaed.org/.well-known/jwks.json";
+
+    private final TestKeys active = TestKeys.generate("ES256", "zaed-20260101-active");
+    private final TestKeys next = TestKeys.generate("ES256", "zaed-20260201-next");
+
+    private MockRestServiceServer server;
+    private JwksKeySource keySource;
+
+    @BeforeEach
+    void setUp() {
+        RestClient.Builder builder = RestClient.builder();
+        server = MockRestServiceServer.bindTo(builder).build();
+        keySource = new JwksKeySource(builder.build(), JWKS_URI, Duration.ofMinutes(5), Duration.ZERO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        keySource.close();
+    }
+
+    @Test
+    @DisplayName("should load public keys by kid")
+    void shouldLoadKeys() {
+        server.expect(requestTo(JWKS_URI))
+            .andRespond(withSuccess(TestKeys.jwks(active, next), MediaType.APPLICATION_JSON));
+
+        assertThat(keySource.refresh()).isTrue();
+
+        assertThat(keySource.size()).isEqualTo(2);
+        assertThat(keySource.get(active.kid())).isNotNull();
+        assertThat(keySource.get(next.kid())).isNotNull();
+        server.verify();
+    }
+
+    @Test
+    @DisplayName("should revalidate with If-None-Match and keep keys on 304")
+    void shouldRevalidateWithEtag() {
+        server.expect(requestTo(JWKS_URI))
+            .andRespond(withSuccess(TestKeys.jwks(active), MediaType.APPLICATION_JSON).header("ETag", "\"v1\""));
+        server.expect(requestTo(JWKS_URI))
+            .andExpect(header("If-None-Match", "\"v1\""))
+            .andRespond(withStatus(HttpStatus.NOT_MODIFIED));
+
+        keySource.refresh();
+        assertThat(keySource.refresh()).isTrue();
+
+        assertThat(keySource.get(active.kid())).isNotNull();
+        server.verify();
+    }
+
+    @Test
+    @DisplayName("should keep last good key set when fetch fails")
+    void shouldKeepKeysOnFailure() {
+        server.expect(requestTo(JWKS_URI))
+            .andRespond(withSuccess(TestKeys.jwks(active), MediaType.APPLICATION_JSON));
+        server.expect(requestTo(JWKS_URI)).andRespond(withServerError());
+
+        keySource.refresh();
+        assertThatThrownBy(keySource::refresh).isInstanceOf(RestClientException.class);
+
+        assertThat(keySource.get(active.kid())).isNotNull();
+    }
+
+    @Test
+    @DisplayName("should refresh in background when an unknown kid is requested")
+    void shouldRefreshOnUnknownKid() throws InterruptedException {
+        server.expect(requestTo(JWKS_URI))
+            .andRespond(withSuccess(TestKeys.jwks(active), MediaType.APPLICATION_JSON));
+        server.expect(requestTo(JWKS_URI))
+            .andRespond(withSuccess(TestKeys.jwks(active, next), MediaType.APPLICATION_JSON));
+        keySource.refresh();
+
+        assertThat(keySource.get(next.kid())).isNull();
+
+        server.verify(Duration.ofSeconds(5));
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (keySource.size() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(keySource.get(next.kid())).isNotNull();
+    }
+
+    @Test
+    @DisplayName("should ignore keys without kid")
+    void shouldIgnoreKeysWithoutKid() {
+        String withoutKid = TestKeys.jwks(active).replace("\"kid\":\"" + active.kid() + "\",", "");
+
+        assertThat(keySource.applyJwks(withoutKid)).isZero();
+        assertThat(keySource.size()).isZero();
+    }
+}
@@ -0,0 +1,90 @@
+package health.zaed.identity.client;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("RevocationView")
+class RevocationViewTest {
+
+    private final RevocationView view = new RevocationView(Duration.ofHours(1));
+
+    @Test
+    @DisplayName("should apply revocation message")
+    void shouldApplyMessage() {
+        Instant revokedAt = Instant.now().minusSeconds(10);
+
+        view.onMessage("user-1 " + revokedAt.toEpochMilli());
+
+        assertThat(view.isRevoked("user-1", Date.from(revokedAt.minusSeconds(5)))).isTrue();
+        assertThat(view.isRevoked("user-1", Date.from(revokedAt.plusSeconds(5)))).isFalse();
+    }
+
+    @Test
+    @DisplayName("should accept a re-login in the same second as the revocation")
+    void shouldAcceptSameSecondRelogin() {
+        Instant revokedAt = Instant.now().truncatedTo(ChronoUnit.SECONDS).minusSeconds(10).plusMillis(400);
+
+        view.onMessage("user-1 " + revokedAt.toEpochMilli());
+
+        assertThat(view.isRevoked("user-1", Date.from(revokedAt.plusMillis(300)))).isFalse();
+        assertThat(view.isRevoked("user-1", Date.from(revokedAt.minusMillis(100)))).isTrue();
+        // Whole-second iat: cannot tell whether the token came before or after the revocation
+        assertThat(view.isRevoked("user-1", Date.from(revokedAt.truncatedTo(ChronoUnit.SECONDS)))).isTrue();
+    }
+
+    @Test
+    @DisplayName("should read epoch-second messages as revoking the whole second")
+    void shouldApplyEpochSecondMessage() {
+        Instant revokedAt = Instant.now().truncatedTo(ChronoUnit.SECONDS).minusSeconds(10);
+
+        view.onMessage("user-1 " + revokedAt.getEpochSecond());
+
+        assertThat(view.isRevoked("user-1", Date.from(revokedAt.plusMillis(900)))).isTrue();
+        assertThat(view.isRevoked("user-1", Date.from(revokedAt.plusSeconds(1)))).isFalse();
+    }
+
+    @Test
+    @DisplayName("should treat tokens without iat as revoked")
+    void shouldTreatMissingIatAsRevoked() {
+        view.revokeSubject("user-1", Instant.now());
+
+        assertThat(view.isRevoked("user-1", null)).isTrue();
+        assertThat(view.isRevoked("user-2", null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("should keep latest revocation time")
+    void shouldKeepLatestRevocation() {
+        Instant later = Instant.now();
+        view.revokeSubject("user-1", later);
+        view.revokeSubject("user-1", later.minusSeconds(60));
+
+        assertThat(view.isRevoked("user-1", Date.from(later.minusSeconds(30)))).isTrue();
+    }
+
+    @Test
+    @DisplayName("should ignore malformed messages")
+    void shouldIgnoreMalformedMessages() {
+        view.onMessage("user-1");
+        view.onMessage("user-1 not-a-number");
+
+        assertThat(view.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("should purge revocations older than retention")
+    void shouldPurgeExpired() {
+        view.revokeSubject("old", Instant.now().minus(Duration.ofHours(2)));
+        view.revokeSubject("recent", Instant.now());
+
+        assertThat(view.size()).isEqualTo(1);
+        assertThat(view.isRevoked("old", null)).isFalse();
+    }
+}
@@ -0,0 +1,137 @@
+package health.zaed.identity.client;
+
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Signing key pair standing in for the identity service: renders its JWK and signs
+ * tokens shaped like identity-service tokens.
+ */
+public final class TestKeys {
+
+    public static final String ISSUER = "zaed.org";
+
+    private final String kid;
+    private final String algorithm;
+    private final KeyPair keyPair;
+
+    private TestKeys(String kid, String algorithm, KeyPair keyPair) {
+        this.kid = kid;
+        this.algorithm = algorithm;
+        this.keyPair = keyPair;
+    }
+
+    /**
+     * Generates a key pair for RS256, ES256 or EdDSA (Ed25519).
+     */
+    public static TestKeys generate(String algorithm, String kid) {
+        try {
+            KeyPairGenerator generator = switch (algorithm) {
+                case "RS256" -> {
+                    KeyPairGenerator rsa = KeyPairGenerator.getInstance("RSA");
+                    rsa.initialize(2048);
+                    yield rsa;
+                }
+                case "ES256" -> {
+                    KeyPairGenerator ec = KeyPairGenerator.getInstance("EC");
+                    ec.initialize(new ECGenParameterSpec("secp256r1"));
+                    yield ec;
+                }
+                case "EdDSA" -> KeyPairGenerator.getInstance("Ed25519");
+                default -> throw new IllegalArgumentException(algorithm);
+            };
+            return new TestKeys(kid, algorithm, generator.generateKeyPair());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static String jwks(TestKeys... keys) {
+        return Stream.of(keys).map(TestKeys::jwk).collect(Collectors.joining(",", "{\"keys\":[", "]}"));
+    }
+
+    public String kid() {
+        return kid;
+    }
+
+    /**
+     * Builder pre-filled with kid, issuer, iat and exp; add claims and call {@link #sign}.
+     */
+    public JwtBuilder builder(String subject, Instant issuedAt, Duration ttl) {
+        return Jwts.builder()
+            .header().keyId(kid).and()
+            .subject(subject)
+            .issuer(ISSUER)
+            .issuedAt(Date.from(issuedAt))
+            .expiration(Date.from(issuedAt.plus(ttl)));
+    }
+
+    public String sign(JwtBuilder builder) {
+        SignatureAlgorithm signatureAlgorithm = switch (algorithm) {
+            case "RS256" -> Jwts.SIG.RS256;
+            case "ES256" -> Jwts.SIG.ES256;
+            default -> Jwts.SIG.EdDSA;
+        };
+        return builder.signWith(keyPair.getPrivate(), signatureAlgorithm).compact();
+    }
+
+    public String accessToken(String subject, List<String> permissions) {
+        return sign(builder(subject, Instant.now(), Duration.ofHours(1))
+            .claim("type", "access")
+            .claim("role", "PARTNER_PHARMACY")
+            .claim("permissions", permissions));
+    }
+
+    private String jwk() {
+        StringBuilder json = new StringBuilder("{\"kid\":\"").append(kid).append("\",\"use\":\"sig\",\"alg\":\"")
+            .append(algorithm).append('"');
+        switch (keyPair.getPublic()) {
+            case RSAPublicKey rsa -> json
+                .append(",\"kty\":\"RSA\",\"n\":\"").append(base64Url(unsigned(rsa.getModulus(), 0)))
+                .append("\",\"e\":\"").append(base64Url(unsigned(rsa.getPublicExponent(), 0))).append('"');
+            case ECPublicKey ec -> json
+                .append(",\"kty\":\"EC\",\"crv\":\"P-256\",\"x\":\"").append(base64Url(unsigned(ec.getW().getAffineX(), 32)))
+                .append("\",\"y\":\"").append(base64Url(unsigned(ec.getW().getAffineY(), 32))).append('"');
+            default -> {
+                byte[] encoded = keyPair.getPublic().getEncoded();
+                json.append(",\"kty\":\"OKP\",\"crv\":\"Ed25519\",\"x\":\"")
+                    .append(base64Url(Arrays.copyOfRange(encoded, encoded.length - 32, encoded.length))).append('"');
+            }
+        }
+        return json.append('}').toString();
+    }
+
+    private static byte[] unsigned(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        if (length == 0 || bytes.length == length) {
+            return bytes;
+        }
+        byte[] padded = new byte[length];
+        System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+        return padded;
+    }
+
+    private static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,256 @@
+package health.zaed.identity.client;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+@DisplayName("TokenVerifier")
+class TokenVerifierTest {
+
+    private static final String JWKS_URI = "https://auth.zaed.org/.well-known/jwks.json";
+    private static final String SUBJECT = "7b0f5c1e-3f0a-4f59-9d0c-5a8f3f7f2f10";
+    private static final List<String> PERMISSIONS = List.of("donation:read", "donation:match");
+
+    private final TestKeys rsaKey = TestKeys.generate("RS256", "zaed-20260101-rsa");
+    private final TestKeys ecKey = TestKeys.generate("ES256", "zaed-20260101-ec");
+    private final TestKeys edKey = TestKeys.generate("EdDSA", "zaed-20260101-ed");
+
+    private JwksKeySource keySource;
+    private RevocationView revocationView;
+    private TokenVerifier verifier;
+
+    @BeforeEach
+    void setUp() {
+        RestClient.Builder builder = RestClient.builder();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+        server.expect(requestTo(JWKS_URI))
+            .andRespond(withSuccess(TestKeys.jwks(rsaKey, ecKey, edKey), MediaType.APPLICATION_JSON));
+
+        // Long minimum interval: unknown kids must not trigger further fetches in these tests
+        keySource = new JwksKeySource(builder.build(), JWKS_URI, Duration.ofMinutes(5), Duration.ofHours(1));
+        keySource.refresh();
+        server.verify();
+
+        revocationView = new RevocationView(Duration.ofHours(1));
+        verifier = new TokenVerifier(keySource, revocationView, new IdentityClientProperties());
+    }
+
+    @AfterEach
+    void tearDown() {
+        keySource.close();
+    }
+
+    private TestKeys keyFor(String algorithm) {
+        return switch (algorithm) {
+            case "RS256" -> rsaKey;
+            case "ES256" -> ecKey;
+            default -> edKey;
+        };
+    }
+
+    @Nested
+    @DisplayName("valid tokens")
+    class ValidTokens {
+
+        @ParameterizedTest
+        @ValueSource(strings = {"RS256", "ES256", "EdDSA"})
+        @DisplayName("should verify access token signed with each algorithm")
+        void shouldVerifyAccessToken(String algorithm) {
+            String token = keyFor(algorithm).accessToken(SUBJECT, PERMISSIONS);
+
+            VerifiedToken verified = verifier.verify(token);
+
+            assertThat(verified.principal().subject()).isEqualTo(SUBJECT);
+            assertThat(verified.principal().tokenType()).isEqualTo("access");
+            assertThat(verified.principal().role()).isEqualTo("PARTNER_PHARMACY");
+            assertThat(verified.authorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactlyElementsOf(PERMISSIONS);
+            assertThat(verified.expiresAt()).isAfter(Instant.now());
+        }
+
+        @Test
+        @DisplayName("should verify temp token with OTP context claims")
+        void shouldVerifyTempToken() {
+            String token = ecKey.sign(ecKey.builder("01012345678", Instant.now(), Duration.ofMinutes(15))
+                .claim("type", "temp")
+                .claim("context", "DONATION")
+                .claim("referenceId", "d-42")
+                .claim("trackingCode", "ZD-ABC123")
+                .claim("permissions", List.of("donation:view_own")));
+
+            VerifiedToken verified = verifier.verify(token);
+
+            assertThat(verified.principal().tokenType()).isEqualTo("temp");
+            assertThat(verified.principal().context()).isEqualTo("DONATION");
+            assertThat(verified.principal().referenceId()).isEqualTo("d-42");
+            assertThat(verified.principal().trackingCode()).isEqualTo("ZD-ABC123");
+        }
+
+        @Test
+        @DisplayName("should share authorities between tokens with the same permissions")
+        void shouldShareAuthorities() {
+            VerifiedToken first = verifier.verify(rsaKey.accessToken(SUBJECT, PERMISSIONS));
+            VerifiedToken second = verifier.verify(edKey.accessToken("another-user", PERMISSIONS));
+
+            assertThat(second.authorities()).isSameAs(first.authorities());
+        }
+
+        @Test
+        @DisplayName("should return no authorities when permissions claim is missing")
+        void shouldReturnNoAuthoritiesWithoutPermissions() {
+            String token = rsaKey.sign(rsaKey.builder(SUBJECT, Instant.now(), Duration.ofHours(1))
+                .claim("type", "access"));
+
+            assertThat(verifier.verify(token).authorities()).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("rejected tokens")
+    class RejectedTokens {
+
+        @Test
+        @DisplayName("should reject expired token")
+        void shouldRejectExpiredToken() {
+            String token = rsaKey.sign(rsaKey.builder(SUBJECT, Instant.now().minus(Duration.ofHours(2)), Duration.ofHours(1))
+                .claim("type", "access"));
+
+            assertThatThrownBy(() -> verifier.verify(token))
+                .isInstanceOf(InvalidTokenException.class)
+                .hasMessage("Token has expired");
+        }
+
+        @Test
+        @DisplayName("should reject token signed with unknown kid")
+        void shouldRejectUnknownKid() {
+            TestKeys unknown = TestKeys.generate("ES256", "zaed-20260101-unknown");
+
+            assertThatThrownBy(() -> verifier.verify(unknown.accessToken(SUBJECT, PERMISSIONS)))
+                .isInstanceOf(InvalidTokenException.class)
+                .hasMessage("Invalid token");
+        }
+
+        @Test
+        @DisplayName("should reject token whose signature does not match its kid")
+        void shouldRejectForgedKid() {
+            TestKeys forged = TestKeys.generate("ES256", ecKey.kid());
+
+            assertThatThrownBy(() -> verifier.verify(forged.accessToken(SUBJECT, PERMISSIONS)))
+                .isInstanceOf(InvalidTokenException.class);
+        }
+
+        @Test
+        @DisplayName("should reject HS256 token")
+        void shouldRejectSymmetricToken() {
+            String token = Jwts.builder()
+                .subject(SUBJECT)
+                .issuer(TestKeys.ISSUER)
+                .claim("type", "access")
+                .expiration(Date.from(Instant.now().plus(Duration.ofHours(1))))
+                .signWith(Keys.hmacShaKeyFor("a-legacy-secret-that-is-at-least-32-bytes".getBytes(StandardCharsets.UTF_8)))
+                .compact();
+
+            assertThatThrownBy(() -> verifier.verify(token))
+                .isInstanceOf(InvalidTokenException.class);
+        }
+
+        @Test
+        @DisplayName("should reject token from another issuer")
+        void shouldRejectWrongIssuer() {
+            String token = rsaKey.sign(rsaKey.builder(SUBJECT, Instant.now(), Duration.ofHours(1))
+                .issuer("someone-else")
+                .claim("type", "access"));
+
+            assertThatThrownBy(() -> verifier.verify(token))
+                .isInstanceOf(InvalidTokenException.class);
+        }
+
+        @Test
+        @DisplayName("should reject refresh token")
+        void shouldRejectRefreshToken() {
+            String token = rsaKey.sign(rsaKey.builder(SUBJECT, Instant.now(), Duration.ofDays(7))
+                .claim("type", "refresh"));
+
+            assertThatThrownBy(() -> verifier.verify(token))
+                .isInstanceOf(InvalidTokenException.class)
+                .hasMessageContaining("Unsupported token type");
+        }
+
+        @Test
+        @DisplayName("should reject garbage")
+        void shouldRejectGarbage() {
+            assertThatThrownBy(() -> verifier.verify("not-a-jwt"))
+                .isInstanceOf(InvalidTokenException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("revocation")
+    class Revocation {
+
+        @Test
+        @DisplayName("should reject tokens issued before subject revocation")
+        void shouldRejectTokensIssuedBeforeRevocation() {
+            String token = rsaKey.sign(rsaKey.builder(SUBJECT, Instant.now().minusSeconds(60), Duration.ofHours(1))
+                .claim("type", "access"));
+            revocationView.revokeSubject(SUBJECT, Instant.now());
+
+            assertThatThrownBy(() -> verifier.verify(token))
+                .isInstanceOf(InvalidTokenException.class)
+                .hasMessage("Token has been revoked");
+        }
+
+        @Test
+        @DisplayName("should accept tokens issued after subject revocation")
+        void shouldAcceptTokensIssuedAfterRevocation() {
+            revocationView.revokeSubject(SUBJECT, Instant.now().minusSeconds(60));
+            String token = rsaKey.accessToken(SUBJECT, PERMISSIONS);
+
+            assertThat(verifier.verify(token).principal().subject()).isEqualTo(SUBJECT);
+        }
+
+        @Test
+        @DisplayName("should accept tokens issued in the same second after subject revocation")
+        void shouldAcceptTokensIssuedLaterInRevocationSecond() {
+            Instant revokedAt = Instant.now().truncatedTo(ChronoUnit.SECONDS).plusMillis(200);
+            Instant issuedAt = revokedAt.plusMillis(500);
+            revocationView.revokeSubject(SUBJECT, revokedAt);
+            String token = rsaKey.sign(rsaKey.builder(SUBJECT, issuedAt, Duration.ofHours(1))
+                .claim("type", "access")
+                .claim("iat_ms", issuedAt.toEpochMilli()));
+
+            assertThat(verifier.verify(token).principal().subject()).isEqualTo(SUBJECT);
+        }
+
+        @Test
+        @DisplayName("should not affect other subjects")
+        void shouldNotAffectOtherSubjects() {
+            revocationView.revokeSubject("another-user", Instant.now());
+
+            assertThat(verifier.verify(rsaKey.accessToken(SUBJECT, PERMISSIONS)).principal().subject())
+                .isEqualTo(SUBJECT);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package health.zaed.identity.client.benchmark;
+
+import health.zaed.identity.client.IdentityClientProperties;
+import health.zaed.identity.client.JwksKeySource;
+import health.zaed.identity.client.RevocationView;
+import health.zaed.identity.client.TestKeys;
+import health.zaed.identity.client.TokenVerifier;
+import health.zaed.identity.client.VerifiedToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of local token verification in a downstream service: signature check
+ * against a cached public key, claim checks, revocation lookup and principal construction.
+ * No network call is involved; this replaces a round-trip to the identity service.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenVerifierBenchmark {
+
+    @Param({"RS256", "ES256", "EdDSA"})
+    public String algorithm;
+
+    private JwksKeySource keySource;
+    private TokenVerifier verifier;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        TestKeys keys = TestKeys.generate(algorithm, "bench");
+        keySource = new JwksKeySource(RestClient.create(), "http://localhost/.well-known/jwks.json",
+            Duration.ofMinutes(5), Duration.ofMinutes(5));
+        keySource.applyJwks(TestKeys.jwks(keys));
+
+        RevocationView revocationView = new RevocationView(Duration.ofHours(1));
+        revocationView.revokeSubject("someone-else", Instant.now());
+        verifier = new TokenVerifier(keySource, revocationView, new IdentityClientProperties());
+        token = keys.accessToken(UUID.randomUUID().toString(), List.of("donation:read", "donation:match"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        keySource.close();
+    }
+
+    @Benchmark
+    public VerifiedToken verify() {
+        return verifier.verify(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(TokenVerifierBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,157 @@
+package health.zaed.identity.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import health.zaed.identity.model.enums.AuthEventType;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Auth audit log writer configuration properties.
+ *
+ * <p>Audit events are buffered in memory and inserted in batches by a background thread,
+ * except for {@code durable-events}, which are written synchronously in their own
+ * transaction.
+ *
+ * <p>{@code auth_audit_logs} is partitioned by UTC month; the partition settings control
+ * how far ahead partitions are created and how long they are kept.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "zaed.identity.audit")
+public class AuditConfig {
+
+    /**
+     * Events buffered in memory before new events are dropped.
+     */
+    private int bufferSize = 10_000;
+
+    /**
+     * Maximum rows per multi-row INSERT.
+     */
+    private int batchSize = 500;
+
+    /**
+     * Longest time in milliseconds an event waits in the buffer before it is flushed.
+     */
+    private int flushIntervalMillis = 200;
+
+    /**
+     * Milliseconds a request waits for buffer space before its event is dropped.
+     * 0 drops immediately when the buffer is full.
+     */
+    private int offerTimeoutMillis = 0;
+
+    /**
+     * Events that must not be lost. They bypass the buffer and are committed before the
+     * request continues, even when the request's transaction rolls back.
+     */
+    private Set<AuthEventType> durableEvents = EnumSet.of(
+        AuthEventType.LOGIN_FAILED,
+        AuthEventType.TWO_FACTOR_FAILED,
+        AuthEventType.PASSWORD_CHANGED
+    );
+
+    /**
+     * Monthly partitions kept ready beyond the current month.
+     */
+    private int partitionsAhead = 3;
+
+    /**
+     * Whole months of audit history kept in addition to the current month.
+     */
+    private int retentionMonths = 12;
+
+    /**
+     * What happens to a partition past retention.
+     */
+    private RetentionAction retentionAction = RetentionAction.DROP;
+
+    /**
+     * When partitions are created and expired ones removed (Spring cron, server time zone).
+     * Also runs once at startup.
+     */
+    private String partitionMaintenanceCron = "0 15 3 * * *";
+
+    /**
+     * How expired audit partitions are removed from {@code auth_audit_logs}.
+     */
+    public enum RetentionAction {
+        /** Detach and drop the partition. */
+        DROP,
+        /** Detach the partition and keep it as a standalone table for archiving. */
+        DETACH
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    public void setFlushIntervalMillis(int flushIntervalMillis) {
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    public int getOfferTimeoutMillis() {
+        return offerTimeoutMillis;
+    }
+
+    public void setOfferTimeoutMillis(int offerTimeoutMillis) {
+        this.offerTimeoutMillis = offerTimeoutMillis;
+    }
+
+    public Set<AuthEventType> getDurableEvents() {
+        return durableEvents;
+    }
+
+    public void setDurableEvents(Set<AuthEventType> durableEvents) {
+        this.durableEvents = durableEvents;
+    }
+
+    public int getPartitionsAhead() {
+        return partitionsAhead;
+    }
+
+    public void setPartitionsAhead(int partitionsAhead) {
+        this.partitionsAhead = partitionsAhead;
+    }
+
+    public int getRetentionMonths() {
+        return retentionMonths;
+    }
+
+    public void setRetentionMonths(int retentionMonths) {
+        this.retentionMonths = retentionMonths;
+    }
+
+    public RetentionAction getRetentionAction() {
+        return retentionAction;
+    }
+
+    public void setRetentionAction(RetentionAction retentionAction) {
+        this.retentionAction = retentionAction;
+    }
+
+    public String getPartitionMaintenanceCron() {
+        return partitionMaintenanceCron;
+    }
+
+    public void setPartitionMaintenanceCron(String partitionMaintenanceCron) {
+        this.partitionMaintenanceCron = partitionMaintenanceCron;
+    }
+}
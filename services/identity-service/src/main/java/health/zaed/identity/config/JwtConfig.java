@@ -2,23 +2,28 @@ package health.zaed.identity.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import health.zaed.identity.model.enums.SigningAlgorithm;
 
 /**
  * JWT configuration properties.
  *
- * <p>Phase 1 uses HS256 (symmetric). See ADR-008 for RS256 migration plan.
+ * <p>Phase 1 uses HS256 (symmetric). Phase 2 signs with a rotating asymmetric key ring
+ * published on {@code /.well-known/jwks.json}. See ADR-008.
  */
 @Configuration
 @ConfigurationProperties(prefix = "zaed.identity.jwt")
 public class JwtConfig {
 
     /**
-     * Signing algorithm: HS256 (Phase 1) or RS256 (Phase 2).
+     * Signing algorithm: HS256 (Phase 1) or RS256, ES256, EdDSA (Phase 2 key ring).
      */
-    private String algorithm = "HS256";
+    private SigningAlgorithm algorithm = SigningAlgorithm.HS256;
 
     /**
      * Secret key for HS256 (must be at least 256 bits / 32 bytes).
+     *
+     * <p>With an asymmetric algorithm, a configured secret still verifies HS256 tokens
+     * issued before the switch. Remove it once those tokens have expired.
      */
     private String secret;
 
@@ -52,11 +57,37 @@ public class JwtConfig {
      */
     private int tempTokenExpiry = 900;
 
-    public String getAlgorithm() {
+    /**
+     * Maximum number of verified tokens memoized by the authentication filter (0 disables).
+     */
+    private int verifiedTokenCacheSize = 10_000;
+
+    /**
+     * Base64 AES key encrypting key-ring private keys at rest (required for asymmetric algorithms).
+     */
+    private String keyEncryptionKey;
+
+    /**
+     * How long a key signs before the next key takes over, in seconds (default: 30 days).
+     */
+    private int keyRotationPeriod = 2_592_000;
+
+    /**
+     * How often each instance reloads the key ring and checks for due rotation, in seconds.
+     */
+    private int keyRingRefreshInterval = 60;
+
+    /**
+     * Cache-Control max-age of the JWKS response in seconds. Must stay well below the
+     * rotation period so verifiers fetch the next key before it starts signing.
+     */
+    private int jwksMaxAge = 300;
+
+    public SigningAlgorithm getAlgorithm() {
         return algorithm;
     }
 
-    public void setAlgorithm(String algorithm) {
+    public void setAlgorithm(SigningAlgorithm algorithm) {
         this.algorithm = algorithm;
     }
 
@@ -115,4 +146,44 @@ public class JwtConfig {
     public void setTempTokenExpiry(int tempTokenExpiry) {
         this.tempTokenExpiry = tempTokenExpiry;
     }
+
+    public int getVerifiedTokenCacheSize() {
+        return verifiedTokenCacheSize;
+    }
+
+    public void setVerifiedTokenCacheSize(int verifiedTokenCacheSize) {
+        this.verifiedTokenCacheSize = verifiedTokenCacheSize;
+    }
+
+    public String getKeyEncryptionKey() {
+        return keyEncryptionKey;
+    }
+
+    public void setKeyEncryptionKey(String keyEncryptionKey) {
+        this.keyEncryptionKey = keyEncryptionKey;
+    }
+
+    public int getKeyRotationPeriod() {
+        return keyRotationPeriod;
+    }
+
+    public void setKeyRotationPeriod(int keyRotationPeriod) {
+        this.keyRotationPeriod = keyRotationPeriod;
+    }
+
+    public int getKeyRingRefreshInterval() {
+        return keyRingRefreshInterval;
+    }
+
+    public void setKeyRingRefreshInterval(int keyRingRefreshInterval) {
+        this.keyRingRefreshInterval = keyRingRefreshInterval;
+    }
+
+    public int getJwksMaxAge() {
+        return jwksMaxAge;
+    }
+
+    public void setJwksMaxAge(int jwksMaxAge) {
+        this.jwksMaxAge = jwksMaxAge;
+    }
 }
@@ -26,10 +26,44 @@ public class OtpConfig {
     private int maxAttempts = 3;
 
     /**
-     * Maximum OTPs that can be sent to a phone per hour.
+     * Maximum OTPs that can be sent to a phone in any hour.
      */
     private int rateLimitPerHour = 3;
 
+    /**
+     * Maximum OTPs that can be sent in any hour to phones sharing the first
+     * {@code rate-limit-prefix-length} characters, against sweeps of a number range.
+     */
+    private int rateLimitPerPrefixPerHour = 30;
+
+    /**
+     * Leading characters of the E.164 phone number that form its prefix.
+     */
+    private int rateLimitPrefixLength = 9;
+
+    /**
+     * Maximum OTPs that can be requested from one client IP in any hour.
+     */
+    private int rateLimitPerIpPerHour = 10;
+
+    /**
+     * Seconds during which a repeated send for the same phone, context and reference ID
+     * (or the same {@code Idempotency-Key}) returns the original OTP instead of a new one.
+     * 0 disables deduplication.
+     */
+    private int sendDedupWindowSeconds = 30;
+
+    /**
+     * Maximum OTPs one partner can send in any hour through the bulk endpoint. Takes the
+     * place of the per-IP limit for bulk sends.
+     */
+    private int bulkRateLimitPerSenderPerHour = 2000;
+
+    /**
+     * Server-side secret mixed into OTP hashes (HMAC-SHA256 key, at least 32 characters).
+     */
+    private String hmacPepper;
+
     public int getLength() {
         return length;
     }
@@ -61,4 +95,52 @@ public class OtpConfig {
     public void setRateLimitPerHour(int rateLimitPerHour) {
         this.rateLimitPerHour = rateLimitPerHour;
     }
+
+    public int getRateLimitPerPrefixPerHour() {
+        return rateLimitPerPrefixPerHour;
+    }
+
+    public void setRateLimitPerPrefixPerHour(int rateLimitPerPrefixPerHour) {
+        this.rateLimitPerPrefixPerHour = rateLimitPerPrefixPerHour;
+    }
+
+    public int getRateLimitPrefixLength() {
+        return rateLimitPrefixLength;
+    }
+
+    public void setRateLimitPrefixLength(int rateLimitPrefixLength) {
+        this.rateLimitPrefixLength = rateLimitPrefixLength;
+    }
+
+    public int getRateLimitPerIpPerHour() {
+        return rateLimitPerIpPerHour;
+    }
+
+    public void setRateLimitPerIpPerHour(int rateLimitPerIpPerHour) {
+        this.rateLimitPerIpPerHour = rateLimitPerIpPerHour;
+    }
+
+    public int getSendDedupWindowSeconds() {
+        return sendDedupWindowSeconds;
+    }
+
+    public void setSendDedupWindowSeconds(int sendDedupWindowSeconds) {
+        this.sendDedupWindowSeconds = sendDedupWindowSeconds;
+    }
+
+    public int getBulkRateLimitPerSenderPerHour() {
+        return bulkRateLimitPerSenderPerHour;
+    }
+
+    public void setBulkRateLimitPerSenderPerHour(int bulkRateLimitPerSenderPerHour) {
+        this.bulkRateLimitPerSenderPerHour = bulkRateLimitPerSenderPerHour;
+    }
+
+    public String getHmacPepper() {
+        return hmacPepper;
+    }
+
+    public void setHmacPepper(String hmacPepper) {
+        this.hmacPepper = hmacPepper;
+    }
 }
@@ -3,22 +3,79 @@ package health.zaed.identity.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import health.zaed.identity.security.BCryptCostCalibrator;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Password configuration and encoder bean.
+ *
+ * <p>The encoder stores hashes as {@code {id}hash} and writes new ones with {@code algorithm}.
+ * Hashes without a prefix predate this and are BCrypt. {@link PasswordEncoder#upgradeEncoding}
+ * is true for any hash that is unprefixed, uses another algorithm, or has a BCrypt cost other
+ * than the current one, so login rehashes it with the current policy.
  */
 @Configuration
 @ConfigurationProperties(prefix = "zaed.identity.password")
 public class PasswordConfig {
 
+    public static final String BCRYPT = "bcrypt";
+    public static final String ARGON2 = "argon2";
+
     /**
      * BCrypt strength (cost factor). Higher = slower but more secure.
      * Recommended: 12 for production.
      */
     private int bcryptStrength = 12;
 
+    /**
+     * Per-hash latency budget in milliseconds. When set, the BCrypt cost is measured at
+     * startup as the highest within [bcryptMinStrength, bcryptMaxStrength] that hashes within
+     * the budget, and bcryptStrength is ignored. 0 disables calibration.
+     *
+     * <p>Instances on different hardware may pick different costs and would then rehash each
+     * other's hashes; pin bcryptStrength for a mixed fleet.
+     */
+    private int targetHashMillis = 0;
+
+    /**
+     * Lowest BCrypt cost calibration may choose.
+     */
+    private int bcryptMinStrength = 10;
+
+    /**
+     * Highest BCrypt cost calibration may choose.
+     */
+    private int bcryptMaxStrength = 14;
+
+    /**
+     * Algorithm for new hashes: "bcrypt" or "argon2" (Argon2id). Existing hashes of either
+     * algorithm keep verifying.
+     */
+    private String algorithm = BCRYPT;
+
+    /**
+     * Argon2id memory cost in KiB per hash.
+     */
+    private int argon2MemoryKib = 19_456;
+
+    /**
+     * Argon2id passes over memory.
+     */
+    private int argon2Iterations = 2;
+
+    /**
+     * Argon2id lanes per hash.
+     */
+    private int argon2Parallelism = 1;
+
     /**
      * Minimum password length.
      */
@@ -34,9 +91,35 @@ public class PasswordConfig {
      */
     private boolean requireNumber = true;
 
+    /**
+     * Threads that run password hashing. 0 uses one per available processor.
+     */
+    private int hashingThreads = 0;
+
+    /**
+     * Password checks allowed to wait for a hashing thread. Beyond this, logins are
+     * rejected with 429 instead of queueing.
+     */
+    private int hashingQueueCapacity = 64;
+
+    /**
+     * Retry-After in seconds sent when the hashing queue is full.
+     */
+    private int hashingRetryAfter = 1;
+
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(bcryptStrength);
+        int strength = targetHashMillis > 0
+            ? BCryptCostCalibrator.calibrate(Duration.ofMillis(targetHashMillis), bcryptMinStrength, bcryptMaxStrength)
+            : bcryptStrength;
+        PasswordEncoder bcrypt = new ExactCostBCryptPasswordEncoder(strength);
+        PasswordEncoder argon2 = new Argon2PasswordEncoder(
+            16, 32, argon2Parallelism, argon2MemoryKib, argon2Iterations);
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm,
+            Map.of(BCRYPT, bcrypt, ARGON2, argon2));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
     }
 
     public boolean isValidPassword(String password) {
@@ -60,6 +143,62 @@ public class PasswordConfig {
         this.bcryptStrength = bcryptStrength;
     }
 
+    public int getTargetHashMillis() {
+        return targetHashMillis;
+    }
+
+    public void setTargetHashMillis(int targetHashMillis) {
+        this.targetHashMillis = targetHashMillis;
+    }
+
+    public int getBcryptMinStrength() {
+        return bcryptMinStrength;
+    }
+
+    public void setBcryptMinStrength(int bcryptMinStrength) {
+        this.bcryptMinStrength = bcryptMinStrength;
+    }
+
+    public int getBcryptMaxStrength() {
+        return bcryptMaxStrength;
+    }
+
+    public void setBcryptMaxStrength(int bcryptMaxStrength) {
+        this.bcryptMaxStrength = bcryptMaxStrength;
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public void setAlgorithm(String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    public int getArgon2MemoryKib() {
+        return argon2MemoryKib;
+    }
+
+    public void setArgon2MemoryKib(int argon2MemoryKib) {
+        this.argon2MemoryKib = argon2MemoryKib;
+    }
+
+    public int getArgon2Iterations() {
+        return argon2Iterations;
+    }
+
+    public void setArgon2Iterations(int argon2Iterations) {
+        this.argon2Iterations = argon2Iterations;
+    }
+
+    public int getArgon2Parallelism() {
+        return argon2Parallelism;
+    }
+
+    public void setArgon2Parallelism(int argon2Parallelism) {
+        this.argon2Parallelism = argon2Parallelism;
+    }
+
     public int getMinLength() {
         return minLength;
     }
@@ -83,4 +222,53 @@ public class PasswordConfig {
     public void setRequireNumber(boolean requireNumber) {
         this.requireNumber = requireNumber;
     }
+
+    public int getHashingThreads() {
+        return hashingThreads;
+    }
+
+    public void setHashingThreads(int hashingThreads) {
+        this.hashingThreads = hashingThreads;
+    }
+
+    public int getHashingQueueCapacity() {
+        return hashingQueueCapacity;
+    }
+
+    public void setHashingQueueCapacity(int hashingQueueCapacity) {
+        this.hashingQueueCapacity = hashingQueueCapacity;
+    }
+
+    public int getHashingRetryAfter() {
+        return hashingRetryAfter;
+    }
+
+    public void setHashingRetryAfter(int hashingRetryAfter) {
+        this.hashingRetryAfter = hashingRetryAfter;
+    }
+
+    /**
+     * BCrypt that asks for a rehash whenever the stored cost differs from the configured one,
+     * so lowering the cost also takes effect (Spring's encoder only upgrades).
+     */
+    private static final class ExactCostBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+        private static final Pattern COST = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+
+        private final int strength;
+
+        ExactCostBCryptPasswordEncoder(int strength) {
+            super(strength);
+            this.strength = strength;
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            if (encodedPassword == null) {
+                return false;
+            }
+            Matcher matcher = COST.matcher(encodedPassword);
+            return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+        }
+    }
 }
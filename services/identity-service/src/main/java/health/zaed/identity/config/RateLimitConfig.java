@@ -0,0 +1,165 @@
+package health.zaed.identity.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Request rate limits for the public auth endpoints.
+ *
+ * <p>Each route has token buckets per client IP, per account identity taken from the JSON
+ * body (email or phone) and for the route as a whole. A request takes one token from every
+ * bucket that applies, or from none if any is empty.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "zaed.identity.rate-limit")
+public class RateLimitConfig {
+
+    /**
+     * Enforce the limits. When false every request passes.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum blocked bucket keys remembered per instance, so repeat requests from a
+     * blocked client are rejected without a Redis call.
+     */
+    private int localBlockMaxSize = 100_000;
+
+    /**
+     * Limits keyed by route name, which is used in bucket keys and metric tags.
+     */
+    private Map<String, Route> routes = new LinkedHashMap<>();
+
+    public static class Route {
+
+        /**
+         * Request path the limits apply to. Only POST requests are limited.
+         */
+        private String path;
+
+        /**
+         * JSON body field identifying the account, such as {@code email} or {@code phone}.
+         * Unset for routes without one.
+         */
+        private String identityField;
+
+        /**
+         * Bucket per client IP.
+         */
+        private Bucket ip;
+
+        /**
+         * Bucket per value of {@code identity-field}.
+         */
+        private Bucket identity;
+
+        /**
+         * Bucket shared by all clients of the route.
+         */
+        private Bucket total;
+
+        public String getPath() {
+            return path;
+        }
+
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        public String getIdentityField() {
+            return identityField;
+        }
+
+        public void setIdentityField(String identityField) {
+            this.identityField = identityField;
+        }
+
+        public Bucket getIp() {
+            return ip;
+        }
+
+        public void setIp(Bucket ip) {
+            this.ip = ip;
+        }
+
+        public Bucket getIdentity() {
+            return identity;
+        }
+
+        public void setIdentity(Bucket identity) {
+            this.identity = identity;
+        }
+
+        public Bucket getTotal() {
+            return total;
+        }
+
+        public void setTotal(Bucket total) {
+            this.total = total;
+        }
+    }
+
+    public static class Bucket {
+
+        /**
+         * Burst size: tokens held when the bucket is full.
+         */
+        private int capacity;
+
+        /**
+         * Tokens added per minute, up to {@code capacity}.
+         */
+        private double refillPerMinute;
+
+        public Bucket() {
+        }
+
+        public Bucket(int capacity, double refillPerMinute) {
+            this.capacity = capacity;
+            this.refillPerMinute = refillPerMinute;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public double getRefillPerMinute() {
+            return refillPerMinute;
+        }
+
+        public void setRefillPerMinute(double refillPerMinute) {
+            this.refillPerMinute = refillPerMinute;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getLocalBlockMaxSize() {
+        return localBlockMaxSize;
+    }
+
+    public void setLocalBlockMaxSize(int localBlockMaxSize) {
+        this.localBlockMaxSize = localBlockMaxSize;
+    }
+
+    public Map<String, Route> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(Map<String, Route> routes) {
+        this.routes = routes;
+    }
+}
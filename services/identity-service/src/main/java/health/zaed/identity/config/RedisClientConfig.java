@@ -0,0 +1,104 @@
+package health.zaed.identity.config;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.TimeoutOptions;
+import io.lettuce.core.protocol.CommandType;
+import io.lettuce.core.protocol.RedisCommand;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.data.redis.autoconfigure.LettuceClientConfigurationBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Lettuce client tuning on top of {@code spring.data.redis}.
+ *
+ * <p>All requests share one native connection (no pool). Commands time out after
+ * {@code command-timeout-millis}, except blocking reads such as the outbox workers'
+ * XREADGROUP, which keep {@code spring.data.redis.timeout}. The client reconnects on its
+ * own and rejects commands while disconnected instead of buffering them, so callers fail
+ * fast and fall back where they can.
+ *
+ * <p>Command latency histograms are published as {@code lettuce.command.completion} and
+ * {@code lettuce.command.firstresponse}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "zaed.identity.redis")
+public class RedisClientConfig {
+
+    private static final Set<CommandType> BLOCKING_COMMANDS = EnumSet.of(
+        CommandType.BLPOP, CommandType.BRPOP, CommandType.BRPOPLPUSH, CommandType.BLMOVE, CommandType.BLMPOP,
+        CommandType.BZPOPMIN, CommandType.BZPOPMAX, CommandType.BZMPOP,
+        CommandType.XREAD, CommandType.XREADGROUP, CommandType.WAIT);
+
+    /**
+     * Timeout for non-blocking commands in milliseconds.
+     */
+    private long commandTimeoutMillis = 500;
+
+    /**
+     * Send read-only commands (outbox status lookups, cached reads) to a replica when one
+     * is available, through sentinel, cluster or a master that reports replicas. Replica
+     * reads can trail the master by the replication lag. Scripts always run on the master.
+     */
+    private boolean readFromReplica = false;
+
+    @Bean
+    public LettuceClientConfigurationBuilderCustomizer lettuceClientCustomizer() {
+        return builder -> {
+            LettuceClientConfiguration current = builder.build();
+            ClientOptions.Builder options = current.getClientOptions()
+                .map(ClientOptions::mutate)
+                .orElseGet(ClientOptions::builder);
+            builder.clientOptions(options
+                .autoReconnect(true)
+                .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                .timeoutOptions(TimeoutOptions.builder()
+                    .timeoutCommands()
+                    .timeoutSource(new CommandTimeouts(commandTimeoutMillis, current.getCommandTimeout().toMillis()))
+                    .build())
+                .build());
+            if (readFromReplica) {
+                builder.readFrom(ReadFrom.REPLICA_PREFERRED);
+            }
+        };
+    }
+
+    public long getCommandTimeoutMillis() {
+        return commandTimeoutMillis;
+    }
+
+    public void setCommandTimeoutMillis(long commandTimeoutMillis) {
+        this.commandTimeoutMillis = commandTimeoutMillis;
+    }
+
+    public boolean isReadFromReplica() {
+        return readFromReplica;
+    }
+
+    public void setReadFromReplica(boolean readFromReplica) {
+        this.readFromReplica = readFromReplica;
+    }
+
+    private static final class CommandTimeouts extends TimeoutOptions.TimeoutSource {
+
+        private final long commandTimeoutMillis;
+        private final long blockingTimeoutMillis;
+
+        CommandTimeouts(long commandTimeoutMillis, long blockingTimeoutMillis) {
+            this.commandTimeoutMillis = commandTimeoutMillis;
+            this.blockingTimeoutMillis = blockingTimeoutMillis;
+        }
+
+        @Override
+        public long getTimeout(RedisCommand<?, ?, ?> command) {
+            return command.getType() instanceof CommandType type && BLOCKING_COMMANDS.contains(type)
+                ? blockingTimeoutMillis
+                : commandTimeoutMillis;
+        }
+    }
+}
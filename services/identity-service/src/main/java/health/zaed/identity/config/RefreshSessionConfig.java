@@ -0,0 +1,82 @@
+package health.zaed.identity.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Refresh session store configuration properties.
+ *
+ * <p>Refresh token rotation runs against Redis. Changes are appended to a Redis stream in
+ * the same script call and written to {@code refresh_tokens} in batches by a background
+ * consumer, so a refresh does no Postgres writes of its own.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "zaed.identity.refresh-sessions")
+public class RefreshSessionConfig {
+
+    /**
+     * Consume the write-behind stream on this instance.
+     */
+    private boolean syncEnabled = true;
+
+    /**
+     * Stream entries applied to Postgres per batch.
+     */
+    private int syncBatchSize = 500;
+
+    /**
+     * Milliseconds between write-behind polls.
+     */
+    private int syncIntervalMillis = 200;
+
+    /**
+     * Seconds an entry may stay unacknowledged before another consumer reclaims it.
+     */
+    private int syncReclaimIdle = 60;
+
+    /**
+     * Approximate stream length cap. Applied entries are deleted, so this only bounds a
+     * backlog while Postgres is unavailable.
+     */
+    private long maxStreamLength = 1_000_000;
+
+    public boolean isSyncEnabled() {
+        return syncEnabled;
+    }
+
+    public void setSyncEnabled(boolean syncEnabled) {
+        this.syncEnabled = syncEnabled;
+    }
+
+    public int getSyncBatchSize() {
+        return syncBatchSize;
+    }
+
+    public void setSyncBatchSize(int syncBatchSize) {
+        this.syncBatchSize = syncBatchSize;
+    }
+
+    public int getSyncIntervalMillis() {
+        return syncIntervalMillis;
+    }
+
+    public void setSyncIntervalMillis(int syncIntervalMillis) {
+        this.syncIntervalMillis = syncIntervalMillis;
+    }
+
+    public int getSyncReclaimIdle() {
+        return syncReclaimIdle;
+    }
+
+    public void setSyncReclaimIdle(int syncReclaimIdle) {
+        this.syncReclaimIdle = syncReclaimIdle;
+    }
+
+    public long getMaxStreamLength() {
+        return maxStreamLength;
+    }
+
+    public void setMaxStreamLength(long maxStreamLength) {
+        this.maxStreamLength = maxStreamLength;
+    }
+}
@@ -1,24 +1,69 @@
 package health.zaed.identity.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
 import io.micrometer.observation.ObservationRegistry;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.client.observation.DefaultClientRequestObservationConvention;
 import org.springframework.web.client.RestClient;
 
-import java.time.Duration;
-
 /**
  * Configuration for REST client used by SMS gateways.
  *
  * <p>Includes observability support for distributed tracing and metrics.
+ *
+ * <p>The SMS Misr client runs on a bounded Apache HttpClient 5 connection pool with
+ * keep-alive and explicit connect, response and pool-wait timeouts from
+ * {@link SmsMisrConfig}. Pool usage is exported as {@code httpcomponents.httpclient.pool.*}
+ * with {@code httpclient=smsmisr}. The gauges cover leased, available (idle) and pending
+ * connections.
  */
 @Configuration
 public class RestClientConfig {
 
+    private static final TimeValue VALIDATE_AFTER_INACTIVITY = TimeValue.ofSeconds(2);
+
+    @Bean
+    public CloseableHttpClient smsMisrHttpClient(SmsMisrConfig config, MeterRegistry meterRegistry) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(config.getMaxConnections())
+            .setMaxConnPerRoute(config.getMaxConnections())
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(config.getConnectTimeoutMillis()))
+                .setSocketTimeout(Timeout.ofMilliseconds(config.getReadTimeoutMillis()))
+                .setTimeToLive(TimeValue.ofSeconds(config.getConnectionTtl()))
+                .setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY)
+                .build())
+            .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "smsmisr").bindTo(meterRegistry);
+
+        return HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(config.getPoolTimeoutMillis()))
+                .setResponseTimeout(Timeout.ofMilliseconds(config.getReadTimeoutMillis()))
+                .build())
+            .evictIdleConnections(TimeValue.ofSeconds(config.getIdleTimeout()))
+            .evictExpiredConnections()
+            .build();
+    }
+
     @Bean
-    public RestClient restClient(RestClient.Builder builder, ObservationRegistry observationRegistry) {
-        return builder
+    public RestClient smsMisrRestClient(RestClient.Builder builder,
+                                        ObservationRegistry observationRegistry,
+                                        CloseableHttpClient smsMisrHttpClient) {
+        return builder.clone()
+            .requestFactory(new HttpComponentsClientHttpRequestFactory(smsMisrHttpClient))
             .defaultHeader("Content-Type", "application/x-www-form-urlencoded")
             .observationRegistry(observationRegistry)
             .observationConvention(new DefaultClientRequestObservationConvention())
@@ -0,0 +1,23 @@
+package health.zaed.identity.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables {@code @Scheduled} background jobs.
+ *
+ * <p>Scheduled jobs:
+ * <ul>
+ *   <li>JWT signing key ring refresh and rotation ({@code SigningKeyService})</li>
+ *   <li>Monthly audit log partition creation and retention ({@code AuditPartitionManager})</li>
+ *   <li>Chunked purge of expired refresh tokens ({@code RefreshTokenPurger})</li>
+ *   <li>Write-behind of Redis refresh sessions to Postgres ({@code RefreshSessionSync})</li>
+ * </ul>
+ *
+ * <p>With {@code spring.threads.virtual.enabled=true}, Spring Boot runs scheduled tasks
+ * on virtual threads.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
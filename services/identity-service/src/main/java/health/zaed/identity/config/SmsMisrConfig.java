@@ -17,6 +17,37 @@ public class SmsMisrConfig {
     private String password;
     private String senderId;
 
+    /**
+     * Pooled connections to the SMS Misr API (total and per route). Matches the
+     * provider's {@code sms-routing.providers.smsmisr.max-concurrent}.
+     */
+    private int maxConnections = 10;
+
+    /**
+     * TCP connect timeout in milliseconds.
+     */
+    private int connectTimeoutMillis = 2000;
+
+    /**
+     * Response timeout in milliseconds.
+     */
+    private int readTimeoutMillis = 5000;
+
+    /**
+     * Milliseconds to wait for a free pooled connection.
+     */
+    private int poolTimeoutMillis = 1000;
+
+    /**
+     * Seconds an idle keep-alive connection stays in the pool.
+     */
+    private int idleTimeout = 30;
+
+    /**
+     * Maximum connection lifetime in seconds, so DNS changes are picked up.
+     */
+    private int connectionTtl = 300;
+
     public boolean isConfigured() {
         return username != null && !username.isBlank() &&
                password != null && !password.isBlank() &&
@@ -54,4 +85,52 @@ public class SmsMisrConfig {
     public void setSenderId(String senderId) {
         this.senderId = senderId;
     }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getConnectTimeoutMillis() {
+        return connectTimeoutMillis;
+    }
+
+    public void setConnectTimeoutMillis(int connectTimeoutMillis) {
+        this.connectTimeoutMillis = connectTimeoutMillis;
+    }
+
+    public int getReadTimeoutMillis() {
+        return readTimeoutMillis;
+    }
+
+    public void setReadTimeoutMillis(int readTimeoutMillis) {
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    public int getPoolTimeoutMillis() {
+        return poolTimeoutMillis;
+    }
+
+    public void setPoolTimeoutMillis(int poolTimeoutMillis) {
+        this.poolTimeoutMillis = poolTimeoutMillis;
+    }
+
+    public int getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(int idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public int getConnectionTtl() {
+        return connectionTtl;
+    }
+
+    public void setConnectionTtl(int connectionTtl) {
+        this.connectionTtl = connectionTtl;
+    }
 }
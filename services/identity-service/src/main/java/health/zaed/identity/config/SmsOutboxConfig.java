@@ -0,0 +1,147 @@
+package health.zaed.identity.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * SMS outbox configuration properties.
+ *
+ * <p>OTP messages are queued on a Redis stream and delivered by background workers, so
+ * {@code /otp/send} does not wait for the SMS provider.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "zaed.identity.sms-outbox")
+public class SmsOutboxConfig {
+
+    /**
+     * Start delivery workers in this instance. Disable for instances that only enqueue.
+     */
+    private boolean workersEnabled = true;
+
+    /**
+     * Concurrent delivery workers (stream consumers) per instance.
+     */
+    private int workers = 4;
+
+    /**
+     * Delivery attempts per message before it is dead-lettered. Each attempt already
+     * includes the gateway's own retries.
+     */
+    private int maxDeliveryAttempts = 3;
+
+    /**
+     * Wait before the second delivery attempt in milliseconds; doubled for each further
+     * attempt up to {@code max-retry-backoff-millis}.
+     */
+    private long retryBackoffMillis = 2_000;
+
+    /**
+     * Longest wait between delivery attempts in milliseconds.
+     */
+    private long maxRetryBackoffMillis = 30_000;
+
+    /**
+     * How often due retries are moved back onto the stream, in milliseconds.
+     */
+    private long retryPollMillis = 500;
+
+    /**
+     * Messages read per poll.
+     */
+    private int batchSize = 10;
+
+    /**
+     * Blocking read timeout in seconds.
+     */
+    private int pollTimeout = 2;
+
+    /**
+     * Seconds a delivery may stay unacknowledged before another worker reclaims it.
+     */
+    private int reclaimIdle = 60;
+
+    /**
+     * Approximate stream length cap (older entries are trimmed).
+     */
+    private long maxStreamLength = 100_000;
+
+    public boolean isWorkersEnabled() {
+        return workersEnabled;
+    }
+
+    public void setWorkersEnabled(boolean workersEnabled) {
+        this.workersEnabled = workersEnabled;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public int getMaxDeliveryAttempts() {
+        return maxDeliveryAttempts;
+    }
+
+    public void setMaxDeliveryAttempts(int maxDeliveryAttempts) {
+        this.maxDeliveryAttempts = maxDeliveryAttempts;
+    }
+
+    public long getRetryBackoffMillis() {
+        return retryBackoffMillis;
+    }
+
+    public void setRetryBackoffMillis(long retryBackoffMillis) {
+        this.retryBackoffMillis = retryBackoffMillis;
+    }
+
+    public long getMaxRetryBackoffMillis() {
+        return maxRetryBackoffMillis;
+    }
+
+    public void setMaxRetryBackoffMillis(long maxRetryBackoffMillis) {
+        this.maxRetryBackoffMillis = maxRetryBackoffMillis;
+    }
+
+    public long getRetryPollMillis() {
+        return retryPollMillis;
+    }
+
+    public void setRetryPollMillis(long retryPollMillis) {
+        this.retryPollMillis = retryPollMillis;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getPollTimeout() {
+        return pollTimeout;
+    }
+
+    public void setPollTimeout(int pollTimeout) {
+        this.pollTimeout = pollTimeout;
+    }
+
+    public int getReclaimIdle() {
+        return reclaimIdle;
+    }
+
+    public void setReclaimIdle(int reclaimIdle) {
+        this.reclaimIdle = reclaimIdle;
+    }
+
+    public long getMaxStreamLength() {
+        return maxStreamLength;
+    }
+
+    public void setMaxStreamLength(long maxStreamLength) {
+        this.maxStreamLength = maxStreamLength;
+    }
+}
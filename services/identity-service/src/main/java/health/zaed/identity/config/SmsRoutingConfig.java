@@ -0,0 +1,225 @@
+package health.zaed.identity.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * SMS provider routing configuration properties.
+ *
+ * <p>Each send goes to the healthiest, cheapest enabled provider. A second provider is
+ * tried on failure, or hedged in when the first is still waiting for a free slot after
+ * {@code hedge-delay-millis}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "zaed.identity.sms-routing")
+public class SmsRoutingConfig {
+
+    /**
+     * Providers keyed by name ({@code twilio}, {@code smsmisr}, {@code stub}). Providers
+     * that are not listed here are never used.
+     */
+    private Map<String, Provider> providers = new LinkedHashMap<>();
+
+    /**
+     * Fire a second provider when the first has not reached its provider within
+     * {@code hedge-delay-millis} because all of that provider's slots are busy.
+     */
+    private boolean hedgeEnabled = true;
+
+    /**
+     * Milliseconds to wait for the first provider before hedging.
+     */
+    private long hedgeDelayMillis = 2000;
+
+    /**
+     * Seconds of send outcomes kept per provider for latency and error rate.
+     */
+    private int healthWindow = 60;
+
+    /**
+     * Outcomes needed in the window before a provider can be marked unhealthy.
+     */
+    private int minSamples = 10;
+
+    /**
+     * Error rate (0-1) at which a provider is skipped until its window ages out.
+     */
+    private double maxErrorRate = 0.5;
+
+    /**
+     * Stub provider behaviour.
+     */
+    private Stub stub = new Stub();
+
+    public static class Provider {
+
+        /**
+         * Route traffic to this provider.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Ranking factor: cost is divided by this when ranking, so a provider with weight 2
+         * is ranked as if it cost half as much. Traffic is not split by weight. Must be
+         * positive.
+         */
+        private int weight = 1;
+
+        /**
+         * Cost per SMS in USD. Required for every enabled provider so providers are ranked
+         * in one unit.
+         */
+        private Double cost;
+
+        /**
+         * Calls this provider takes at a time; further sends wait for a slot.
+         */
+        private int maxConcurrent = 10;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        public void setWeight(int weight) {
+            this.weight = weight;
+        }
+
+        public Double getCost() {
+            return cost;
+        }
+
+        public void setCost(Double cost) {
+            this.cost = cost;
+        }
+
+        public int getMaxConcurrent() {
+            return maxConcurrent;
+        }
+
+        public void setMaxConcurrent(int maxConcurrent) {
+            this.maxConcurrent = maxConcurrent;
+        }
+    }
+
+    public static class Stub {
+
+        /**
+         * Base send latency in milliseconds.
+         */
+        private long latencyMillis = 50;
+
+        /**
+         * Random extra latency in milliseconds, added to {@code latency-millis}.
+         */
+        private long jitterMillis = 0;
+
+        /**
+         * Fraction (0-1) of sends that are rejected (return false).
+         */
+        private double failureRate = 0.0;
+
+        /**
+         * Fraction (0-1) of sends that throw a transient {@code SmsDeliveryException}.
+         */
+        private double errorRate = 0.0;
+
+        public long getLatencyMillis() {
+            return latencyMillis;
+        }
+
+        public void setLatencyMillis(long latencyMillis) {
+            this.latencyMillis = latencyMillis;
+        }
+
+        public long getJitterMillis() {
+            return jitterMillis;
+        }
+
+        public void setJitterMillis(long jitterMillis) {
+            this.jitterMillis = jitterMillis;
+        }
+
+        public double getFailureRate() {
+            return failureRate;
+        }
+
+        public void setFailureRate(double failureRate) {
+            this.failureRate = failureRate;
+        }
+
+        public double getErrorRate() {
+            return errorRate;
+        }
+
+        public void setErrorRate(double errorRate) {
+            this.errorRate = errorRate;
+        }
+    }
+
+    public Map<String, Provider> getProviders() {
+        return providers;
+    }
+
+    public void setProviders(Map<String, Provider> providers) {
+        this.providers = providers;
+    }
+
+    public boolean isHedgeEnabled() {
+        return hedgeEnabled;
+    }
+
+    public void setHedgeEnabled(boolean hedgeEnabled) {
+        this.hedgeEnabled = hedgeEnabled;
+    }
+
+    public long getHedgeDelayMillis() {
+        return hedgeDelayMillis;
+    }
+
+    public void setHedgeDelayMillis(long hedgeDelayMillis) {
+        this.hedgeDelayMillis = hedgeDelayMillis;
+    }
+
+    public int getHealthWindow() {
+        return healthWindow;
+    }
+
+    public void setHealthWindow(int healthWindow) {
+        this.healthWindow = healthWindow;
+    }
+
+    public int getMinSamples() {
+        return minSamples;
+    }
+
+    public void setMinSamples(int minSamples) {
+        this.minSamples = minSamples;
+    }
+
+    public double getMaxErrorRate() {
+        return maxErrorRate;
+    }
+
+    public void setMaxErrorRate(double maxErrorRate) {
+        this.maxErrorRate = maxErrorRate;
+    }
+
+    public Stub getStub() {
+        return stub;
+    }
+
+    public void setStub(Stub stub) {
+        this.stub = stub;
+    }
+}
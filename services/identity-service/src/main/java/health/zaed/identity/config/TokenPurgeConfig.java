@@ -0,0 +1,94 @@
+package health.zaed.identity.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Refresh token purge configuration properties.
+ *
+ * <p>Expired refresh tokens are deleted in small chunks with a pause between them, so the
+ * purge never holds row locks or generates WAL in one large burst.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "zaed.identity.token-purge")
+public class TokenPurgeConfig {
+
+    /**
+     * Run the purge on this instance. Only one instance purges at a time regardless.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Seconds between purge runs.
+     */
+    private int interval = 3600;
+
+    /**
+     * Seconds a token is kept after it expires. Revoked tokens are kept until they expire,
+     * so reuse of a rotated token is still detected.
+     */
+    private int expiredGrace = 86400;
+
+    /**
+     * Rows deleted per chunk (one short transaction each).
+     */
+    private int chunkSize = 1000;
+
+    /**
+     * Pause in milliseconds between chunks.
+     */
+    private int chunkPauseMillis = 100;
+
+    /**
+     * Longest time in seconds a single run may take; the rest waits for the next run.
+     */
+    private int maxRunTime = 300;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public void setInterval(int interval) {
+        this.interval = interval;
+    }
+
+    public int getExpiredGrace() {
+        return expiredGrace;
+    }
+
+    public void setExpiredGrace(int expiredGrace) {
+        this.expiredGrace = expiredGrace;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public int getChunkPauseMillis() {
+        return chunkPauseMillis;
+    }
+
+    public void setChunkPauseMillis(int chunkPauseMillis) {
+        this.chunkPauseMillis = chunkPauseMillis;
+    }
+
+    public int getMaxRunTime() {
+        return maxRunTime;
+    }
+
+    public void setMaxRunTime(int maxRunTime) {
+        this.maxRunTime = maxRunTime;
+    }
+}
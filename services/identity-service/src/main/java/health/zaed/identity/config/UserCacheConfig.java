@@ -0,0 +1,68 @@
+package health.zaed.identity.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * User snapshot cache configuration properties.
+ *
+ * <p>Snapshots are held per instance (L1) and shared in Redis (L2). Changes are pushed to
+ * every instance over Redis pub/sub, so the TTLs only bound staleness when an
+ * invalidation message is lost.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "zaed.identity.user-cache")
+public class UserCacheConfig {
+
+    /**
+     * Serve snapshots from the cache. When false every read goes to Postgres.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum snapshots held in memory per instance.
+     */
+    private int localMaxSize = 10_000;
+
+    /**
+     * Seconds a snapshot stays in the per-instance cache.
+     */
+    private int localTtl = 300;
+
+    /**
+     * Seconds a snapshot stays in Redis.
+     */
+    private int sharedTtl = 900;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getLocalMaxSize() {
+        return localMaxSize;
+    }
+
+    public void setLocalMaxSize(int localMaxSize) {
+        this.localMaxSize = localMaxSize;
+    }
+
+    public int getLocalTtl() {
+        return localTtl;
+    }
+
+    public void setLocalTtl(int localTtl) {
+        this.localTtl = localTtl;
+    }
+
+    public int getSharedTtl() {
+        return sharedTtl;
+    }
+
+    public void setSharedTtl(int sharedTtl) {
+        this.sharedTtl = sharedTtl;
+    }
+}
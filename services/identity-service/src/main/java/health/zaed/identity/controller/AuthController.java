@@ -17,6 +17,7 @@ import health.zaed.identity.model.dto.RefreshTokenRequest;
 import health.zaed.identity.model.dto.TokenResponse;
 import health.zaed.identity.model.dto.TwoFactorVerifyRequest;
 import health.zaed.identity.security.AuthPrincipal;
+import health.zaed.identity.security.ClientIp;
 import health.zaed.identity.service.AuthService;
 
 /**
@@ -38,7 +39,7 @@ public class AuthController {
 
     @PostMapping(path = "/login", version = "1")
     public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest request, HttpServletRequest httpRequest) {
-        String ipAddress = getClientIp(httpRequest);
+        String ipAddress = ClientIp.of(httpRequest);
         String userAgent = httpRequest.getHeader("User-Agent");
         log.debug("Login attempt for email: {}", maskEmail(request.email()));
         LoginResponse response = authService.login(request, ipAddress, userAgent);
@@ -48,7 +49,7 @@ public class AuthController {
     @PostMapping(path = "/2fa/verify", version = "1")
     public ResponseEntity<LoginResponse> verify2FA(@Valid @RequestBody TwoFactorVerifyRequest request, @RequestHeader("Authorization") String authHeader, HttpServletRequest httpRequest) {
         String tempToken = extractToken(authHeader);
-        String ipAddress = getClientIp(httpRequest);
+        String ipAddress = ClientIp.of(httpRequest);
         String userAgent = httpRequest.getHeader("User-Agent");
         LoginResponse response = authService.verify2FA(request, tempToken, ipAddress, userAgent);
         return ResponseEntity.ok(response);
@@ -59,14 +60,14 @@ public class AuthController {
      */
     @PostMapping(path = "/refresh", version = "1")
     public ResponseEntity<TokenResponse> refreshToken(@Valid @RequestBody RefreshTokenRequest request, HttpServletRequest httpRequest) {
-        String ipAddress = getClientIp(httpRequest);
+        String ipAddress = ClientIp.of(httpRequest);
         TokenResponse response = authService.refreshToken(request.refreshToken(), ipAddress);
         return ResponseEntity.ok(response);
     }
 
     @PostMapping(path = "/logout", version = "1")
     public ResponseEntity<Void> logout(@Valid @RequestBody RefreshTokenRequest request, HttpServletRequest httpRequest) {
-        String ipAddress = getClientIp(httpRequest);
+        String ipAddress = ClientIp.of(httpRequest);
         String userAgent = httpRequest.getHeader("User-Agent");
 
         authService.logout(request.refreshToken(), ipAddress, userAgent);
@@ -75,7 +76,7 @@ public class AuthController {
 
     @PostMapping(path = "/logout-all", version = "1")
     public ResponseEntity<Void> logoutAll(@AuthenticationPrincipal AuthPrincipal principal, HttpServletRequest httpRequest) {
-        String ipAddress = getClientIp(httpRequest);
+        String ipAddress = ClientIp.of(httpRequest);
         String userAgent = httpRequest.getHeader("User-Agent");
 
         authService.logoutAll(principal.getUserId(), ipAddress, userAgent);
@@ -89,18 +90,6 @@ public class AuthController {
         throw new IllegalArgumentException("Invalid authorization header");
     }
 
-    private String getClientIp(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (xForwardedFor != null && !xForwardedFor.isBlank()) {
-            return xForwardedFor.split(",")[0].trim();
-        }
-        String xRealIp = request.getHeader("X-Real-IP");
-        if (xRealIp != null && !xRealIp.isBlank()) {
-            return xRealIp;
-        }
-        return request.getRemoteAddr();
-    }
-
     private String maskEmail(String email) {
         if (email == null || !email.contains("@")) return "****";
         int atIndex = email.indexOf("@");
@@ -1,21 +1,43 @@
 package health.zaed.identity.controller;
 
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import health.zaed.identity.model.dto.OtpBulkSendRequest;
+import health.zaed.identity.model.dto.OtpBulkSendResponse;
+import health.zaed.identity.model.dto.OtpDeliveryStatusResponse;
 import health.zaed.identity.model.dto.OtpSendRequest;
 import health.zaed.identity.model.dto.OtpSendResponse;
 import health.zaed.identity.model.dto.OtpVerifyRequest;
 import health.zaed.identity.model.dto.OtpVerifyResponse;
+import health.zaed.identity.model.enums.OtpBulkStatus;
 import health.zaed.identity.model.enums.OtpContext;
+import health.zaed.identity.security.AuthPrincipal;
+import health.zaed.identity.security.ClientIp;
 import health.zaed.identity.service.AuthService;
 import health.zaed.identity.service.OtpService;
+import health.zaed.identity.service.SmsOutbox;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * REST controller for OTP-based authentication.
@@ -28,17 +50,29 @@ public class OtpController {
 
     private static final Logger log = LoggerFactory.getLogger(OtpController.class);
 
+    private static final Pattern IDEMPOTENCY_KEY = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
     private final OtpService otpService;
     private final AuthService authService;
+    private final SmsOutbox smsOutbox;
+    private final Validator validator;
 
-    public OtpController(OtpService otpService, AuthService authService) {
+    public OtpController(OtpService otpService, AuthService authService, SmsOutbox smsOutbox, Validator validator) {
         this.otpService = otpService;
         this.authService = authService;
+        this.smsOutbox = smsOutbox;
+        this.validator = validator;
     }
 
+    /**
+     * Sends an OTP. Retries of the same request within the dedup window get the original
+     * response back; an optional {@code Idempotency-Key} header narrows this to retries
+     * carrying the same key. Keys that are not 1-64 URL-safe characters are ignored.
+     */
     @PostMapping(path = "/send", version = "1")
     public ResponseEntity<OtpSendResponse> sendOtp(
         @Valid @RequestBody OtpSendRequest request,
+        @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
         HttpServletRequest httpRequest
     ) {
         log.debug("OTP send request for context: {}, referenceId: {}",
@@ -47,26 +81,91 @@ public class OtpController {
         OtpContext context = OtpContext.valueOf(request.context().toUpperCase());
         String channel = request.channel() != null ? request.channel() : "SMS";
 
-        int expiresIn = otpService.sendOtp(
+        OtpService.OtpDispatch dispatch = otpService.sendOtp(
             request.phone(),
             channel,
             context,
-            request.referenceId()
+            request.referenceId(),
+            ClientIp.of(httpRequest),
+            idempotencyKey != null && IDEMPOTENCY_KEY.matcher(idempotencyKey).matches() ? idempotencyKey : null
         );
 
-        int retryAfter = otpService.getRetryAfter(request.phone());
-        if (retryAfter == 0) {
-            retryAfter = 60;
-        }
-
         return ResponseEntity.ok(new OtpSendResponse(
             "OTP sent successfully",
-            expiresIn,
-            retryAfter,
-            maskPhone(request.phone())
+            dispatch.expiresIn(),
+            dispatch.retryAfter(),
+            maskPhone(request.phone()),
+            dispatch.deliveryId()
         ));
     }
 
+    /**
+     * Sends OTPs for a batch of donors on behalf of a partner, with a result per entry.
+     * Requires {@code OTP_BULK_SEND}. Entries that fail validation are reported as INVALID
+     * and do not fail the rest of the batch.
+     */
+    @PostMapping(path = "/send/bulk", version = "1")
+    public ResponseEntity<OtpBulkSendResponse> sendOtpBulk(
+        @Valid @RequestBody OtpBulkSendRequest request,
+        @AuthenticationPrincipal AuthPrincipal principal
+    ) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        List<OtpSendRequest> requested = request.entries();
+        OtpBulkSendResponse.Result[] results = new OtpBulkSendResponse.Result[requested.size()];
+        List<Integer> indexes = new ArrayList<>(requested.size());
+        List<OtpService.BulkEntry> entries = new ArrayList<>(requested.size());
+        for (int i = 0; i < requested.size(); i++) {
+            OtpSendRequest entry = requested.get(i);
+            String error = validate(entry);
+            if (error != null) {
+                results[i] = new OtpBulkSendResponse.Result(i, OtpBulkStatus.INVALID.name(),
+                    entry != null ? maskPhone(entry.phone()) : null, null, null, null, error);
+                continue;
+            }
+            indexes.add(i);
+            entries.add(new OtpService.BulkEntry(entry.phone(), entry.channel(),
+                OtpContext.valueOf(entry.context().toUpperCase()), entry.referenceId()));
+        }
+
+        String senderId = principal.partnerId() != null ? principal.partnerId() : principal.subject();
+        List<OtpService.BulkOutcome> outcomes = entries.isEmpty() ? List.of() : otpService.sendBulk(entries, senderId);
+
+        int queued = 0;
+        int deduplicated = 0;
+        for (int n = 0; n < outcomes.size(); n++) {
+            int i = indexes.get(n);
+            OtpService.BulkOutcome outcome = outcomes.get(n);
+            OtpService.OtpDispatch dispatch = outcome.dispatch();
+            queued += outcome.status() == OtpBulkStatus.QUEUED ? 1 : 0;
+            deduplicated += outcome.status() == OtpBulkStatus.DEDUPLICATED ? 1 : 0;
+            results[i] = new OtpBulkSendResponse.Result(i, outcome.status().name(), maskPhone(requested.get(i).phone()),
+                dispatch != null ? dispatch.deliveryId() : null,
+                dispatch != null ? dispatch.expiresIn() : null,
+                dispatch != null ? dispatch.retryAfter() : outcome.retryAfter(),
+                null);
+        }
+
+        log.info("Bulk OTP send by {}: {} entries, {} queued, {} deduplicated",
+            senderId, requested.size(), queued, deduplicated);
+        return ResponseEntity.ok(new OtpBulkSendResponse(
+            queued,
+            deduplicated,
+            requested.size() - queued - deduplicated,
+            List.of(results)
+        ));
+    }
+
+    /**
+     * Delivery status of a queued OTP SMS, for clients that want to offer a resend
+     * as soon as delivery has failed.
+     */
+    @GetMapping(path = "/status/{deliveryId}", version = "1")
+    public ResponseEntity<OtpDeliveryStatusResponse> deliveryStatus(@PathVariable UUID deliveryId) {
+        return ResponseEntity.ok(smsOutbox.status(deliveryId));
+    }
+
     @PostMapping(path = "/verify", version = "1")
     public ResponseEntity<OtpVerifyResponse> verifyOtp(
         @Valid @RequestBody OtpVerifyRequest request,
@@ -99,6 +198,20 @@ public class OtpController {
         ));
     }
 
+    private String validate(OtpSendRequest entry) {
+        if (entry == null) {
+            return "Entry is required";
+        }
+        Set<ConstraintViolation<OtpSendRequest>> violations = validator.validate(entry);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+            .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .collect(Collectors.joining(", "));
+    }
+
     private String maskPhone(String phone) {
         if (phone == null || phone.length() < 8) return "****";
         return phone.substring(0, 4) + "****" + phone.substring(phone.length() - 2);
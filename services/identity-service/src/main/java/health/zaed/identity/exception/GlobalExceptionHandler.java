@@ -50,6 +50,15 @@ public class GlobalExceptionHandler {
             .body(ErrorResponse.withRetry(ex.getErrorCode(), ex.getMessage(), ex.getRetryAfterSeconds()));
     }
 
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleServiceUnavailable(ServiceUnavailableException ex) {
+        log.warn("Service unavailable: {}", ex.getMessage());
+        return ResponseEntity
+            .status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header("Retry-After", String.valueOf(ex.getRetryAfterSeconds()))
+            .body(ErrorResponse.withRetry(ex.getErrorCode(), ex.getMessage(), ex.getRetryAfterSeconds()));
+    }
+
     @ExceptionHandler(TwoFactorException.class)
     public ResponseEntity<ErrorResponse> handleTwoFactorException(TwoFactorException ex) {
         log.debug("2FA error: {}", ex.getMessage());
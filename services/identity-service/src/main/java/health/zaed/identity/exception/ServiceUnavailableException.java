@@ -0,0 +1,18 @@
+package health.zaed.identity.exception;
+
+/**
+ * Exception thrown when a backing store the request depends on cannot be reached.
+ */
+public class ServiceUnavailableException extends AuthException {
+
+    private final int retryAfterSeconds;
+
+    public ServiceUnavailableException(String message, int retryAfterSeconds, Throwable cause) {
+        super("SERVICE_UNAVAILABLE", message, cause);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -3,8 +3,8 @@ package health.zaed.identity.exception;
 /**
  * Exception thrown when SMS delivery fails due to transient issues.
  *
- * <p>This exception is designed for use with {@code @Retryable} to trigger
- * automatic retry on transient failures such as:
+ * <p>Thrown by SMS providers so that {@code RoutingSmsGateway} fails over and the
+ * SMS outbox retries the delivery with backoff on transient failures such as:
  * <ul>
  *   <li>Network timeouts</li>
  *   <li>Gateway unavailability</li>
@@ -15,7 +15,7 @@ package health.zaed.identity.exception;
  * <p>Validation errors or permanent failures should NOT use this exception,
  * as they should not be retried.
  *
- * @see health.zaed.identity.config.ResilienceConfig
+ * @see health.zaed.identity.service.SmsOutbox
  */
 public class SmsDeliveryException extends RuntimeException {
 
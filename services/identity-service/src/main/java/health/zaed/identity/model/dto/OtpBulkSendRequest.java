@@ -0,0 +1,21 @@
+package health.zaed.identity.model.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Request to send OTPs to many phones at once, for partner registration drives.
+ *
+ * <p>Entries are validated one by one, so a malformed entry is reported as INVALID
+ * instead of failing the whole batch.
+ *
+ * @param entries the sends, in the order their results are returned
+ */
+public record OtpBulkSendRequest(
+    @NotEmpty(message = "At least one entry is required")
+    @Size(max = 500, message = "At most 500 entries per request")
+    List<OtpSendRequest> entries
+) {
+}
@@ -0,0 +1,45 @@
+package health.zaed.identity.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Response after a bulk OTP send.
+ *
+ * @param queued entries for which a new OTP was queued
+ * @param deduplicated entries answered with an earlier dispatch
+ * @param rejected entries that were rate limited or invalid
+ * @param results one result per request entry, in request order
+ */
+public record OtpBulkSendResponse(
+    int queued,
+    int deduplicated,
+    int rejected,
+    List<Result> results
+) {
+
+    /**
+     * Result of one entry.
+     *
+     * @param index position of the entry in the request
+     * @param status QUEUED, DEDUPLICATED, RATE_LIMITED or INVALID
+     * @param maskedPhone masked phone number, when the entry had one
+     * @param deliveryId SMS delivery ID for {@code GET /otp/status/{deliveryId}}
+     * @param expiresIn seconds until the OTP expires
+     * @param retryAfter seconds until a new OTP can be requested for the entry
+     * @param error validation errors of an INVALID entry
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Result(
+        int index,
+        String status,
+        String maskedPhone,
+        UUID deliveryId,
+        Integer expiresIn,
+        Integer retryAfter,
+        String error
+    ) {
+    }
+}
@@ -0,0 +1,17 @@
+package health.zaed.identity.model.dto;
+
+import java.util.UUID;
+
+/**
+ * Delivery status of an OTP message.
+ *
+ * @param deliveryId the ID returned by the send endpoint
+ * @param status QUEUED, SENDING, SENT, FAILED or EXPIRED
+ * @param attempts delivery attempts made so far
+ */
+public record OtpDeliveryStatusResponse(
+    UUID deliveryId,
+    String status,
+    int attempts
+) {
+}
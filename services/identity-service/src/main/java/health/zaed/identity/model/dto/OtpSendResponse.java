@@ -1,5 +1,7 @@
 package health.zaed.identity.model.dto;
 
+import java.util.UUID;
+
 /**
  * Response after sending an OTP.
  *
@@ -7,14 +9,16 @@ package health.zaed.identity.model.dto;
  * @param expiresIn seconds until the OTP expires
  * @param retryAfter seconds until a new OTP can be requested
  * @param maskedPhone masked phone number for display
+ * @param deliveryId SMS delivery ID for {@code GET /otp/status/{deliveryId}}
  */
 public record OtpSendResponse(
     String message,
     int expiresIn,
     int retryAfter,
-    String maskedPhone
+    String maskedPhone,
+    UUID deliveryId
 ) {
-    public static OtpSendResponse success(int expirySeconds, int retryAfterSeconds, String maskedPhone) {
-        return new OtpSendResponse("OTP sent successfully", expirySeconds, retryAfterSeconds, maskedPhone);
+    public static OtpSendResponse success(int expirySeconds, int retryAfterSeconds, String maskedPhone, UUID deliveryId) {
+        return new OtpSendResponse("OTP sent successfully", expirySeconds, retryAfterSeconds, maskedPhone, deliveryId);
     }
 }
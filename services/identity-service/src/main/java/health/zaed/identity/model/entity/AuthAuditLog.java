@@ -10,6 +10,9 @@ import java.util.UUID;
  * Audit log for authentication events.
  *
  * <p>Captures all auth-related events for security monitoring and compliance.
+ *
+ * <p>The table is partitioned by month on {@code created_at}, so its primary key is
+ * {@code (id, created_at)}; {@code id} alone is still unique in practice.
  */
 @Entity
 @Table(name = "auth_audit_logs", indexes = {
@@ -67,9 +70,9 @@ public class AuthAuditLog {
     private Integer riskScore;
 
     /**
-     * Additional event data as JSON.
+     * Additional event data as JSON, stored as {@code TEXT} since V9.
      */
-    @Column(columnDefinition = "jsonb")
+    @Column(columnDefinition = "TEXT")
     private String metadata;
 
     @Column(name = "created_at", nullable = false, updatable = false)
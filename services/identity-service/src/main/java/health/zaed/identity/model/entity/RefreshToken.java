@@ -1,6 +1,7 @@
 package health.zaed.identity.model.entity;
 
 import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
 
 import java.time.Instant;
 import java.util.UUID;
@@ -20,9 +21,10 @@ import java.util.UUID;
 @Table(name = "refresh_tokens", indexes = {
     @Index(name = "idx_refresh_tokens_user", columnList = "user_id"),
     @Index(name = "idx_refresh_tokens_hash", columnList = "token_hash"),
+    @Index(name = "idx_refresh_family", columnList = "family_id"),
     @Index(name = "idx_refresh_tokens_expires", columnList = "expires_at")
 })
-public class RefreshToken {
+public class RefreshToken implements Persistable<String> {
 
     /**
      * Token ID (jti claim in JWT).
@@ -44,6 +46,13 @@ public class RefreshToken {
     @Column(name = "token_hash", nullable = false)
     private String tokenHash;
 
+    /**
+     * ID of the first token of the rotation chain (the login). Reuse of a rotated token
+     * revokes only this chain.
+     */
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
     /**
      * Device fingerprint for multi-device management.
      */
@@ -80,17 +89,25 @@ public class RefreshToken {
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt = Instant.now();
 
+    /**
+     * The ID is assigned by the caller, so without this flag {@code save} would select the
+     * row to tell an insert from an update.
+     */
+    @Transient
+    private boolean persisted = false;
+
     public RefreshToken() {
         this.createdAt = Instant.now();
     }
 
-    public RefreshToken(String id, UUID userId, User user, String tokenHash, String deviceId,
+    public RefreshToken(String id, UUID userId, User user, String tokenHash, String familyId, String deviceId,
                         String deviceInfo, String ipAddress, Instant lastUsedAt, Instant expiresAt,
                         Instant revokedAt, String revokeReason, Instant createdAt) {
         this.id = id;
         this.userId = userId;
         this.user = user;
         this.tokenHash = tokenHash;
+        this.familyId = familyId;
         this.deviceId = deviceId;
         this.deviceInfo = deviceInfo;
         this.ipAddress = ipAddress;
@@ -106,6 +123,7 @@ public class RefreshToken {
     public UUID getUserId() { return userId; }
     public User getUser() { return user; }
     public String getTokenHash() { return tokenHash; }
+    public String getFamilyId() { return familyId; }
     public String getDeviceId() { return deviceId; }
     public String getDeviceInfo() { return deviceInfo; }
     public String getIpAddress() { return ipAddress; }
@@ -120,6 +138,7 @@ public class RefreshToken {
     public void setUserId(UUID userId) { this.userId = userId; }
     public void setUser(User user) { this.user = user; }
     public void setTokenHash(String tokenHash) { this.tokenHash = tokenHash; }
+    public void setFamilyId(String familyId) { this.familyId = familyId; }
     public void setDeviceId(String deviceId) { this.deviceId = deviceId; }
     public void setDeviceInfo(String deviceInfo) { this.deviceInfo = deviceInfo; }
     public void setIpAddress(String ipAddress) { this.ipAddress = ipAddress; }
@@ -129,6 +148,17 @@ public class RefreshToken {
     public void setRevokeReason(String revokeReason) { this.revokeReason = revokeReason; }
     public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
 
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.persisted = true;
+    }
+
     /**
      * Checks if this token is valid (not expired and not revoked).
      */
@@ -161,6 +191,7 @@ public class RefreshToken {
         private UUID userId;
         private User user;
         private String tokenHash;
+        private String familyId;
         private String deviceId;
         private String deviceInfo;
         private String ipAddress;
@@ -174,6 +205,7 @@ public class RefreshToken {
         public Builder userId(UUID userId) { this.userId = userId; return this; }
         public Builder user(User user) { this.user = user; return this; }
         public Builder tokenHash(String tokenHash) { this.tokenHash = tokenHash; return this; }
+        public Builder familyId(String familyId) { this.familyId = familyId; return this; }
         public Builder deviceId(String deviceId) { this.deviceId = deviceId; return this; }
         public Builder deviceInfo(String deviceInfo) { this.deviceInfo = deviceInfo; return this; }
         public Builder ipAddress(String ipAddress) { this.ipAddress = ipAddress; return this; }
@@ -184,7 +216,7 @@ public class RefreshToken {
         public Builder createdAt(Instant createdAt) { this.createdAt = createdAt; return this; }
 
         public RefreshToken build() {
-            return new RefreshToken(id, userId, user, tokenHash, deviceId, deviceInfo,
+            return new RefreshToken(id, userId, user, tokenHash, familyId, deviceId, deviceInfo,
                     ipAddress, lastUsedAt, expiresAt, revokedAt, revokeReason, createdAt);
         }
     }
@@ -0,0 +1,134 @@
+package health.zaed.identity.model.entity;
+
+import jakarta.persistence.*;
+import health.zaed.identity.model.enums.SigningAlgorithm;
+import health.zaed.identity.model.enums.SigningKeyStatus;
+
+import java.time.Instant;
+
+/**
+ * Asymmetric JWT signing key in the rotating key ring.
+ *
+ * <p>Stored in the database so every identity-service instance signs with the same
+ * active key and publishes the same JWKS. The private key is encrypted at rest.
+ */
+@Entity
+@Table(name = "jwt_signing_keys")
+public class SigningKey {
+
+    /**
+     * Key ID (kid header in JWT, kid member in JWKS).
+     */
+    @Id
+    @Column(length = 64)
+    private String kid;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private SigningAlgorithm algorithm;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private SigningKeyStatus status;
+
+    /**
+     * X.509 SubjectPublicKeyInfo encoding of the public key.
+     */
+    @Column(name = "public_key", nullable = false)
+    private byte[] publicKey;
+
+    /**
+     * AES-GCM encrypted PKCS#8 encoding of the private key.
+     */
+    @Column(name = "private_key_encrypted", nullable = false)
+    private byte[] privateKeyEncrypted;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt = Instant.now();
+
+    @Column(name = "activated_at")
+    private Instant activatedAt;
+
+    @Column(name = "retired_at")
+    private Instant retiredAt;
+
+    public SigningKey() {
+        this.createdAt = Instant.now();
+    }
+
+    public SigningKey(String kid, SigningAlgorithm algorithm, SigningKeyStatus status, byte[] publicKey,
+                      byte[] privateKeyEncrypted, Instant createdAt, Instant activatedAt, Instant retiredAt) {
+        this.kid = kid;
+        this.algorithm = algorithm;
+        this.status = status;
+        this.publicKey = publicKey;
+        this.privateKeyEncrypted = privateKeyEncrypted;
+        this.createdAt = createdAt;
+        this.activatedAt = activatedAt;
+        this.retiredAt = retiredAt;
+    }
+
+    // Getters
+    public String getKid() { return kid; }
+    public SigningAlgorithm getAlgorithm() { return algorithm; }
+    public SigningKeyStatus getStatus() { return status; }
+    public byte[] getPublicKey() { return publicKey; }
+    public byte[] getPrivateKeyEncrypted() { return privateKeyEncrypted; }
+    public Instant getCreatedAt() { return createdAt; }
+    public Instant getActivatedAt() { return activatedAt; }
+    public Instant getRetiredAt() { return retiredAt; }
+
+    // Setters
+    public void setKid(String kid) { this.kid = kid; }
+    public void setAlgorithm(SigningAlgorithm algorithm) { this.algorithm = algorithm; }
+    public void setStatus(SigningKeyStatus status) { this.status = status; }
+    public void setPublicKey(byte[] publicKey) { this.publicKey = publicKey; }
+    public void setPrivateKeyEncrypted(byte[] privateKeyEncrypted) { this.privateKeyEncrypted = privateKeyEncrypted; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+    public void setActivatedAt(Instant activatedAt) { this.activatedAt = activatedAt; }
+    public void setRetiredAt(Instant retiredAt) { this.retiredAt = retiredAt; }
+
+    /**
+     * Promotes this key to sign new tokens.
+     */
+    public void activate() {
+        this.status = SigningKeyStatus.ACTIVE;
+        this.activatedAt = Instant.now();
+    }
+
+    /**
+     * Stops signing with this key; it keeps verifying until deleted.
+     */
+    public void retire() {
+        this.status = SigningKeyStatus.RETIRED;
+        this.retiredAt = Instant.now();
+    }
+
+    // Builder
+    public static Builder builder() { return new Builder(); }
+
+    public static class Builder {
+        private String kid;
+        private SigningAlgorithm algorithm;
+        private SigningKeyStatus status;
+        private byte[] publicKey;
+        private byte[] privateKeyEncrypted;
+        private Instant createdAt = Instant.now();
+        private Instant activatedAt;
+        private Instant retiredAt;
+
+        public Builder kid(String kid) { this.kid = kid; return this; }
+        public Builder algorithm(SigningAlgorithm algorithm) { this.algorithm = algorithm; return this; }
+        public Builder status(SigningKeyStatus status) { this.status = status; return this; }
+        public Builder publicKey(byte[] publicKey) { this.publicKey = publicKey; return this; }
+        public Builder privateKeyEncrypted(byte[] privateKeyEncrypted) { this.privateKeyEncrypted = privateKeyEncrypted; return this; }
+        public Builder createdAt(Instant createdAt) { this.createdAt = createdAt; return this; }
+        public Builder activatedAt(Instant activatedAt) { this.activatedAt = activatedAt; return this; }
+        public Builder retiredAt(Instant retiredAt) { this.retiredAt = retiredAt; return this; }
+
+        public SigningKey build() {
+            return new SigningKey(kid, algorithm, status, publicKey, privateKeyEncrypted,
+                    createdAt, activatedAt, retiredAt);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package health.zaed.identity.model.enums;
+
+/**
+ * Outcome of one entry in a bulk OTP send.
+ */
+public enum OtpBulkStatus {
+
+    /**
+     * A new OTP was stored and its SMS queued.
+     */
+    QUEUED,
+
+    /**
+     * An identical send within the dedup window already queued an OTP; its dispatch is
+     * returned and nothing was sent.
+     */
+    DEDUPLICATED,
+
+    /**
+     * The phone, its number prefix or the sender is at its limit.
+     */
+    RATE_LIMITED,
+
+    /**
+     * The entry failed validation and was skipped.
+     */
+    INVALID
+}
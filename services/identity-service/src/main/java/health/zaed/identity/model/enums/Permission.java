@@ -40,6 +40,7 @@ public enum Permission {
     PARTNER_DASHBOARD_VIEW,
     PARTNER_MANAGE,
     PARTNER_VERIFY,
+    OTP_BULK_SEND,
 
     // Admin permissions
     ADMIN_DASHBOARD_VIEW,
@@ -64,7 +65,15 @@ public enum Permission {
                 REQUEST_CREATE,
                 REQUEST_VIEW_OWN
             );
-            case PARTNER_PHARMACY, PARTNER_NGO, PARTNER_VOLUNTEER -> Set.of(
+            case PARTNER_PHARMACY, PARTNER_NGO -> Set.of(
+                PARTNER_DASHBOARD_VIEW,
+                MATCH_VIEW_ASSIGNED,
+                MATCH_UPDATE_STATUS,
+                MATCH_CONFIRM_PICKUP,
+                MATCH_CONFIRM_DELIVERY,
+                OTP_BULK_SEND
+            );
+            case PARTNER_VOLUNTEER -> Set.of(
                 PARTNER_DASHBOARD_VIEW,
                 MATCH_VIEW_ASSIGNED,
                 MATCH_UPDATE_STATUS,
@@ -0,0 +1,77 @@
+package health.zaed.identity.model.enums;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+
+/**
+ * JWT signing algorithms supported by the identity service.
+ *
+ * <p>HS256 signs with the shared {@code zaed.identity.jwt.secret} (Phase 1). The asymmetric
+ * algorithms sign with a rotating private key whose public half is published on the JWKS
+ * endpoint (Phase 2, see ADR-008).
+ */
+public enum SigningAlgorithm {
+
+    HS256(null, null),
+    RS256("RSA", Jwts.SIG.RS256),
+    ES256("EC", Jwts.SIG.ES256),
+    EdDSA("Ed25519", Jwts.SIG.EdDSA);
+
+    private static final int RSA_KEY_SIZE = 2048;
+
+    private final String keyAlgorithm;
+    private final SignatureAlgorithm signatureAlgorithm;
+
+    SigningAlgorithm(String keyAlgorithm, SignatureAlgorithm signatureAlgorithm) {
+        this.keyAlgorithm = keyAlgorithm;
+        this.signatureAlgorithm = signatureAlgorithm;
+    }
+
+    /**
+     * Checks if this algorithm uses a private/public key pair.
+     */
+    public boolean isAsymmetric() {
+        return this != HS256;
+    }
+
+    /**
+     * JCA key algorithm name used with {@link java.security.KeyFactory}, null for HS256.
+     */
+    public String getKeyAlgorithm() {
+        return keyAlgorithm;
+    }
+
+    /**
+     * JJWT signature algorithm, null for HS256.
+     */
+    public SignatureAlgorithm getSignatureAlgorithm() {
+        return signatureAlgorithm;
+    }
+
+    /**
+     * Generates a fresh key pair for this algorithm.
+     *
+     * @throws IllegalStateException for HS256 or if the JCA provider lacks the algorithm
+     */
+    public KeyPair generateKeyPair() {
+        if (!isAsymmetric()) {
+            throw new IllegalStateException("HS256 does not use key pairs");
+        }
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance(keyAlgorithm);
+            switch (this) {
+                case RS256 -> generator.initialize(RSA_KEY_SIZE);
+                case ES256 -> generator.initialize(new ECGenParameterSpec("secp256r1"));
+                default -> { }
+            }
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot generate " + name() + " key pair", e);
+        }
+    }
+}
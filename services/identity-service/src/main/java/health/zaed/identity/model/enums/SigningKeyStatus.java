@@ -0,0 +1,26 @@
+package health.zaed.identity.model.enums;
+
+/**
+ * Lifecycle of a key in the JWT signing key ring.
+ *
+ * <p>NEXT → ACTIVE → RETIRED → deleted. All three states are published on the JWKS
+ * endpoint so downstream caches learn a key before it signs and keep it until every
+ * token it signed has expired.
+ */
+public enum SigningKeyStatus {
+
+    /**
+     * Published for verification, not yet used for signing.
+     */
+    NEXT,
+
+    /**
+     * Signs all new tokens. Exactly one key is active.
+     */
+    ACTIVE,
+
+    /**
+     * No longer signs, still verifies tokens issued before rotation.
+     */
+    RETIRED
+}
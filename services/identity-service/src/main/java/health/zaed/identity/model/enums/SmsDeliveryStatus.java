@@ -0,0 +1,40 @@
+package health.zaed.identity.model.enums;
+
+/**
+ * Delivery state of a queued OTP message.
+ *
+ * <p>QUEUED → SENDING → SENT, or back to QUEUED for another attempt, or FAILED once
+ * attempts are exhausted. EXPIRED is reported once the message record has outlived the
+ * OTP it carried.
+ */
+public enum SmsDeliveryStatus {
+
+    /**
+     * Waiting for a delivery worker.
+     */
+    QUEUED,
+
+    /**
+     * A worker is handing the message to the SMS provider.
+     */
+    SENDING,
+
+    /**
+     * Accepted by the SMS provider.
+     */
+    SENT,
+
+    /**
+     * Delivery attempts exhausted; the message was dead-lettered.
+     */
+    FAILED,
+
+    /**
+     * Unknown or expired delivery.
+     */
+    EXPIRED;
+
+    public boolean isTerminal() {
+        return this == SENT || this == FAILED || this == EXPIRED;
+    }
+}
@@ -15,13 +15,20 @@ import java.util.UUID;
 
 /**
  * Repository for AuthAuditLog entity operations.
+ *
+ * <p>{@code auth_audit_logs} is partitioned by month on {@code created_at}. Every query
+ * takes a lower bound on {@code createdAt} so Postgres only scans the partitions in range.
  */
 @Repository
 public interface AuthAuditLogRepository extends JpaRepository<AuthAuditLog, UUID> {
 
-    Page<AuthAuditLog> findByUserIdOrderByCreatedAtDesc(UUID userId, Pageable pageable);
+    Page<AuthAuditLog> findByUserIdAndCreatedAtAfterOrderByCreatedAtDesc(
+        UUID userId, Instant since, Pageable pageable
+    );
 
-    Page<AuthAuditLog> findByIpAddressOrderByCreatedAtDesc(String ipAddress, Pageable pageable);
+    Page<AuthAuditLog> findByIpAddressAndCreatedAtAfterOrderByCreatedAtDesc(
+        String ipAddress, Instant since, Pageable pageable
+    );
 
     @Query("SELECT COUNT(a) FROM AuthAuditLog a WHERE a.phone = :phone AND a.eventType = :eventType AND a.createdAt > :since")
     long countByPhoneAndEventTypeSince(
@@ -30,19 +37,6 @@ public interface AuthAuditLogRepository extends JpaRepository<AuthAuditLog, UUID
         @Param("since") Instant since
     );
 
-    @Query("SELECT COUNT(a) FROM AuthAuditLog a WHERE a.ipAddress = :ip AND a.eventType = :eventType AND a.success = false AND a.createdAt > :since")
-    long countFailedAttemptsByIpSince(
-        @Param("ip") String ipAddress,
-        @Param("eventType") AuthEventType eventType,
-        @Param("since") Instant since
-    );
-
-    @Query("SELECT COUNT(a) FROM AuthAuditLog a WHERE a.email = :email AND a.eventType = 'LOGIN_FAILED' AND a.createdAt > :since")
-    long countFailedLoginsByEmailSince(
-        @Param("email") String email,
-        @Param("since") Instant since
-    );
-
     List<AuthAuditLog> findByUserIdAndEventTypeAndCreatedAtAfterOrderByCreatedAtDesc(
         UUID userId, AuthEventType eventType, Instant since
     );
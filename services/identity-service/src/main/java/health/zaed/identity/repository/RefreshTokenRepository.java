@@ -37,9 +37,12 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Stri
     @Query("UPDATE RefreshToken rt SET rt.revokedAt = :now, rt.revokeReason = :reason WHERE rt.id = :id AND rt.revokedAt IS NULL")
     int revokeById(@Param("id") String id, @Param("now") Instant now, @Param("reason") String reason);
 
+    /**
+     * Revokes the live tokens of one rotation chain; served by the partial family index.
+     */
     @Modifying
-    @Query("DELETE FROM RefreshToken rt WHERE rt.expiresAt < :now OR (rt.revokedAt IS NOT NULL AND rt.revokedAt < :threshold)")
-    int deleteExpiredAndRevoked(@Param("now") Instant now, @Param("threshold") Instant threshold);
+    @Query("UPDATE RefreshToken rt SET rt.revokedAt = :now, rt.revokeReason = :reason WHERE rt.familyId = :familyId AND rt.revokedAt IS NULL")
+    int revokeFamily(@Param("familyId") String familyId, @Param("now") Instant now, @Param("reason") String reason);
 
     long countByUserIdAndRevokedAtIsNull(UUID userId);
 }
@@ -0,0 +1,37 @@
+package health.zaed.identity.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import health.zaed.identity.model.entity.SigningKey;
+import health.zaed.identity.model.enums.SigningKeyStatus;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for SigningKey entity operations.
+ */
+@Repository
+public interface SigningKeyRepository extends JpaRepository<SigningKey, String> {
+
+    List<SigningKey> findByStatusIn(List<SigningKeyStatus> statuses);
+
+    Optional<SigningKey> findFirstByStatusOrderByCreatedAtDesc(SigningKeyStatus status);
+
+    /**
+     * Locks the active key row so only one instance rotates at a time.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT k FROM SigningKey k WHERE k.status = health.zaed.identity.model.enums.SigningKeyStatus.ACTIVE")
+    Optional<SigningKey> findActiveForUpdate();
+
+    @Modifying
+    @Query("DELETE FROM SigningKey k WHERE k.status = health.zaed.identity.model.enums.SigningKeyStatus.RETIRED AND k.retiredAt < :threshold")
+    int deleteRetiredBefore(@Param("threshold") Instant threshold);
+}
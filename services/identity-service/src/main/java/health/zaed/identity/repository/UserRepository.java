@@ -1,11 +1,13 @@
 package health.zaed.identity.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import health.zaed.identity.model.entity.User;
 
+import java.time.Instant;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -29,6 +31,33 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.twoFactorAuth WHERE u.id = :id")
     Optional<User> findByIdWith2FA(@Param("id") UUID id);
 
+    /**
+     * Loads a user with everything password login needs in one statement.
+     *
+     * <p>{@code credential} and {@code twoFactorAuth} are the inverse side of their
+     * one-to-ones, so Hibernate cannot proxy them and a plain {@code findByEmail} issues a
+     * select for each.
+     */
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.credential LEFT JOIN FETCH u.twoFactorAuth WHERE u.email = :email")
     Optional<User> findByEmailWithCredentialAnd2FA(@Param("email") String email);
+
+    /**
+     * Loads a user with credential and 2FA settings in one statement, for the 2FA step of login.
+     */
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.credential LEFT JOIN FETCH u.twoFactorAuth WHERE u.id = :id")
+    Optional<User> findByIdWithCredentialAnd2FA(@Param("id") UUID id);
+
+    /**
+     * Records a login without merging the user, which login reads outside the writing transaction.
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.lastLoginAt = :at, u.updatedAt = :at WHERE u.id = :id")
+    int updateLastLoginAt(@Param("id") UUID id, @Param("at") Instant at);
+
+    /**
+     * Stores a rehashed password for a credential loaded outside the writing transaction.
+     */
+    @Modifying
+    @Query("UPDATE UserCredential c SET c.passwordHash = :hash, c.updatedAt = :at WHERE c.userId = :userId")
+    int updatePasswordHash(@Param("userId") UUID userId, @Param("hash") String hash, @Param("at") Instant at);
 }
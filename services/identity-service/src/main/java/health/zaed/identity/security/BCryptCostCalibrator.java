@@ -0,0 +1,65 @@
+package health.zaed.identity.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Picks the BCrypt cost for this machine from a per-hash latency budget.
+ *
+ * <p>Each cost step doubles the work, so costs are timed upwards from the minimum and the
+ * last one that fits the budget wins. A hash is timed as the best of a few runs, which
+ * discards JIT warm-up and scheduling noise. Calibration stops at the first cost over
+ * budget, so startup spends at most a few times the budget.
+ */
+public final class BCryptCostCalibrator {
+
+    private static final Logger log = LoggerFactory.getLogger(BCryptCostCalibrator.class);
+
+    private static final String SAMPLE_PASSWORD = "Calibration-Sample-1";
+    private static final int SAMPLES = 2;
+
+    private BCryptCostCalibrator() {
+    }
+
+    /**
+     * Returns the highest cost in {@code [minCost, maxCost]} whose hash time on this machine
+     * fits {@code budget}, or {@code minCost} if none does.
+     */
+    public static int calibrate(Duration budget, int minCost, int maxCost) {
+        return choose(budget, minCost, maxCost, BCryptCostCalibrator::time);
+    }
+
+    static int choose(Duration budget, int minCost, int maxCost, IntToLongFunction nanosAtCost) {
+        int chosen = minCost;
+        long chosenNanos = 0;
+        for (int cost = minCost; cost <= maxCost; cost++) {
+            long nanos = nanosAtCost.applyAsLong(cost);
+            if (nanos > budget.toNanos()) {
+                if (cost == minCost) {
+                    chosenNanos = nanos;
+                }
+                break;
+            }
+            chosen = cost;
+            chosenNanos = nanos;
+        }
+        log.info("BCrypt cost {} chosen: {} ms per hash, budget {} ms",
+            chosen, Duration.ofNanos(chosenNanos).toMillis(), budget.toMillis());
+        return chosen;
+    }
+
+    private static long time(int cost) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
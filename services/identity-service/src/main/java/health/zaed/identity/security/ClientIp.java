@@ -0,0 +1,22 @@
+package health.zaed.identity.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Resolves the client IP used for rate limits and audit logs.
+ *
+ * <p>Uses the address of the connection's peer. Forwarding headers are never read here: with
+ * {@code server.forward-headers-strategy: native}, Tomcat's {@code RemoteIpValve} replaces
+ * the peer address with the {@code X-Forwarded-For} client only when the request came
+ * through a trusted proxy ({@code server.tomcat.remoteip.internal-proxies}), so clients
+ * cannot choose the address their limits are counted under.
+ */
+public final class ClientIp {
+
+    private ClientIp() {
+    }
+
+    public static String of(HttpServletRequest request) {
+        return request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,147 @@
+package health.zaed.identity.security;
+
+import org.jspecify.annotations.NonNull;
+import health.zaed.identity.model.enums.SigningAlgorithm;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Pre-rendered JSON Web Key Set (RFC 7517) of the public signing keys.
+ *
+ * <p>The JSON body and its ETag are computed once per key ring change, so serving
+ * {@code /.well-known/jwks.json} is a byte copy. Keys are sorted by kid to keep the
+ * ETag stable across instances publishing the same ring.
+ */
+public final class JwkSet {
+
+    private static final JwkSet EMPTY = of(List.of());
+
+    private static final int P256_COORDINATE_LENGTH = 32;
+    private static final int ED25519_KEY_LENGTH = 32;
+
+    private final byte[] json;
+    private final String etag;
+
+    private JwkSet(byte[] json, String etag) {
+        this.json = json;
+        this.etag = etag;
+    }
+
+    /**
+     * A public key published for verification.
+     *
+     * @param kid the key ID
+     * @param algorithm the JWS algorithm the key verifies
+     * @param publicKey the public key
+     */
+    public record PublishedKey(String kid, SigningAlgorithm algorithm, PublicKey publicKey) {}
+
+    public static @NonNull JwkSet empty() {
+        return EMPTY;
+    }
+
+    public static @NonNull JwkSet of(@NonNull List<PublishedKey> keys) {
+        StringBuilder json = new StringBuilder("{\"keys\":[");
+        List<PublishedKey> sorted = keys.stream()
+            .sorted(Comparator.comparing(PublishedKey::kid))
+            .toList();
+        for (int i = 0; i < sorted.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendJwk(json, sorted.get(i));
+        }
+        json.append("]}");
+
+        byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+        return new JwkSet(body, "\"" + base64Url(sha256(body)) + "\"");
+    }
+
+    /**
+     * Returns the JSON body. Callers must not modify the returned array.
+     */
+    public byte[] json() {
+        return json;
+    }
+
+    /**
+     * Strong entity tag of the JSON body, including quotes.
+     */
+    public @NonNull String etag() {
+        return etag;
+    }
+
+    private static void appendJwk(StringBuilder json, PublishedKey key) {
+        json.append('{');
+        switch (key.algorithm()) {
+            case RS256 -> {
+                RSAPublicKey rsa = (RSAPublicKey) key.publicKey();
+                member(json, "kty", "RSA");
+                member(json, "n", base64Url(unsigned(rsa.getModulus())));
+                member(json, "e", base64Url(unsigned(rsa.getPublicExponent())));
+            }
+            case ES256 -> {
+                ECPublicKey ec = (ECPublicKey) key.publicKey();
+                member(json, "kty", "EC");
+                member(json, "crv", "P-256");
+                member(json, "x", base64Url(fixedLength(ec.getW().getAffineX(), P256_COORDINATE_LENGTH)));
+                member(json, "y", base64Url(fixedLength(ec.getW().getAffineY(), P256_COORDINATE_LENGTH)));
+            }
+            case EdDSA -> {
+                // X.509 SubjectPublicKeyInfo for Ed25519 ends with the raw 32-byte key
+                byte[] encoded = key.publicKey().getEncoded();
+                member(json, "kty", "OKP");
+                member(json, "crv", "Ed25519");
+                member(json, "x", base64Url(Arrays.copyOfRange(encoded, encoded.length - ED25519_KEY_LENGTH, encoded.length)));
+            }
+            case HS256 -> throw new IllegalArgumentException("Symmetric keys are never published");
+        }
+        member(json, "use", "sig");
+        member(json, "alg", key.algorithm().name());
+        json.append("\"kid\":\"").append(key.kid()).append("\"}");
+    }
+
+    private static void member(StringBuilder json, String name, String value) {
+        json.append('"').append(name).append("\":\"").append(value).append("\",");
+    }
+
+    private static byte[] unsigned(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            return Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return bytes;
+    }
+
+    private static byte[] fixedLength(BigInteger value, int length) {
+        byte[] bytes = unsigned(value);
+        if (bytes.length == length) {
+            return bytes;
+        }
+        byte[] padded = new byte[length];
+        System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+        return padded;
+    }
+
+    private static String base64Url(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
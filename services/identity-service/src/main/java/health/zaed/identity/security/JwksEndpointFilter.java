@@ -0,0 +1,63 @@
+package health.zaed.identity.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import health.zaed.identity.config.JwtConfig;
+import health.zaed.identity.service.JwtService;
+
+import java.io.IOException;
+
+/**
+ * Serves the public signing keys at {@value #JWKS_PATH} for local token verification
+ * by downstream services.
+ *
+ * <p>Handled as a filter rather than a controller because the path sits outside the
+ * {@code /api/v{n}} path-segment versioning scheme. The body is pre-rendered per key
+ * ring; responses carry a strong ETag and {@code Cache-Control: public, max-age}, and
+ * conditional requests get {@code 304 Not Modified}.
+ */
+@Component
+public class JwksEndpointFilter extends OncePerRequestFilter {
+
+    public static final String JWKS_PATH = "/.well-known/jwks.json";
+
+    private final JwtService jwtService;
+    private final String cacheControl;
+
+    public JwksEndpointFilter(JwtService jwtService, JwtConfig jwtConfig) {
+        this.jwtService = jwtService;
+        this.cacheControl = "public, max-age=" + jwtConfig.getJwksMaxAge();
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        JwkSet jwkSet = jwtService.getJwkSet();
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        if (new ServletWebRequest(request, response).checkNotModified(jwkSet.etag())) {
+            return;
+        }
+
+        byte[] body = jwkSet.json();
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod()) || !JWKS_PATH.equals(request.getServletPath());
+    }
+}
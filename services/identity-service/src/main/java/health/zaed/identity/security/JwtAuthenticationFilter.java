@@ -9,16 +9,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 import health.zaed.identity.exception.InvalidTokenException;
+import health.zaed.identity.security.VerifiedTokenCache.VerifiedToken;
 import health.zaed.identity.service.JwtService;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.util.List;
 
 /**
@@ -30,6 +32,11 @@ import java.util.List;
  *   <li>temp - Temporary tokens for OTP-verified users</li>
  *   <li>2fa_pending - Tokens awaiting 2FA verification</li>
  * </ul>
+ *
+ * <p>Verified access and temp tokens are memoized in {@link VerifiedTokenCache} until
+ * their expiry, so repeat requests with the same token skip signature verification.
+ * Cached and freshly verified tokens alike are rejected once {@link RevocationView} has
+ * revoked their subject at or after their issue time.
  */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -37,12 +44,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     private final JwtService jwtService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final RevocationView revocationView;
 
     private static final String AUTHORIZATION_HEADER = "Authorization";
     private static final String BEARER_PREFIX = "Bearer ";
 
-    public JwtAuthenticationFilter(JwtService jwtService) {
+    public JwtAuthenticationFilter(JwtService jwtService,
+                                   VerifiedTokenCache verifiedTokenCache,
+                                   RevocationView revocationView) {
         this.jwtService = jwtService;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.revocationView = revocationView;
     }
 
     @Override
@@ -56,24 +69,42 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
-                Claims claims = jwtService.validateToken(token);
-                String tokenType = jwtService.getTokenType(claims);
+                VerifiedToken verified = verifiedTokenCache.get(token);
+
+                if (verified == null) {
+                    Claims claims = jwtService.validateToken(token);
+                    String tokenType = jwtService.getTokenType(claims);
+
+                    if (!"access".equals(tokenType) && !"temp".equals(tokenType)) {
+                        log.debug("Invalid token type for authentication: {}", tokenType);
+                        filterChain.doFilter(request, response);
+                        return;
+                    }
+
+                    verified = new VerifiedToken(
+                        buildPrincipal(claims, tokenType),
+                        buildAuthorities(claims),
+                        issuedAt(claims),
+                        expiresAt(claims)
+                    );
+                    if (!isRevoked(verified)) {
+                        verifiedTokenCache.put(token, verified);
+                    }
+                }
 
-                if (!"access".equals(tokenType) && !"temp".equals(tokenType)) {
-                    log.debug("Invalid token type for authentication: {}", tokenType);
+                if (isRevoked(verified)) {
+                    log.debug("Rejected revoked token for {}", verified.principal().subject());
                     filterChain.doFilter(request, response);
                     return;
                 }
 
-                AuthPrincipal principal = buildPrincipal(claims, tokenType);
-                List<SimpleGrantedAuthority> authorities = buildAuthorities(claims);
-
+                AuthPrincipal principal = verified.principal();
                 UsernamePasswordAuthenticationToken authentication =
-                    new UsernamePasswordAuthenticationToken(principal, null, authorities);
+                    new UsernamePasswordAuthenticationToken(principal, null, verified.authorities());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
-                log.debug("Authenticated: {} with type {}", principal.subject(), tokenType);
+                log.debug("Authenticated: {} with type {}", principal.subject(), principal.tokenType());
 
             } catch (InvalidTokenException e) {
                 log.debug("Token validation failed: {}", e.getMessage());
@@ -103,23 +134,46 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         );
     }
 
+    private boolean isRevoked(VerifiedToken verified) {
+        return revocationView.isRevoked(verified.principal().subject(), verified.issuedAt());
+    }
+
+    /**
+     * Issue time at millisecond precision from {@code iat_ms}, falling back to the
+     * whole-second {@code iat}.
+     */
+    private Instant issuedAt(Claims claims) {
+        Long issuedAtMillis = claims.get("iat_ms", Long.class);
+        if (issuedAtMillis != null) {
+            return Instant.ofEpochMilli(issuedAtMillis);
+        }
+        return claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null;
+    }
+
+    private Instant expiresAt(Claims claims) {
+        // Tokens without exp are never cached (VerifiedTokenCache ignores past expiries)
+        return claims.getExpiration() != null ? claims.getExpiration().toInstant() : Instant.EPOCH;
+    }
+
     @SuppressWarnings("unchecked")
-    private List<SimpleGrantedAuthority> buildAuthorities(Claims claims) {
+    private List<GrantedAuthority> buildAuthorities(Claims claims) {
         List<String> permissions = claims.get("permissions", List.class);
         if (permissions == null) {
             return List.of();
         }
-        return permissions.stream()
-            .map(SimpleGrantedAuthority::new)
-            .toList();
+        return PermissionCatalog.authoritiesFor(permissions);
     }
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         String path = request.getServletPath();
-        return path.startsWith("/api/v1/auth/otp") ||
+        // Public OTP routes only; the partner bulk send needs its token
+        return path.equals("/api/v1/auth/otp/send") ||
+               path.equals("/api/v1/auth/otp/verify") ||
+               path.startsWith("/api/v1/auth/otp/status/") ||
                path.startsWith("/api/v1/auth/login") ||
                path.startsWith("/actuator") ||
+               path.equals(JwksEndpointFilter.JWKS_PATH) ||
                path.equals("/api/v1/auth/refresh");
     }
 }
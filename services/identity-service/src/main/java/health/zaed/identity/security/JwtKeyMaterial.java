@@ -0,0 +1,136 @@
+package health.zaed.identity.security;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import health.zaed.identity.config.JwtConfig;
+import health.zaed.identity.security.JwkSet.PublishedKey;
+
+import javax.crypto.SecretKey;
+import java.security.Key;
+import java.security.PrivateKey;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Decoded JWT signing key, the parser built from it and the matching public JWKS.
+ *
+ * <p>Instances are immutable and safe to share across request threads. Key decoding and
+ * parser construction happen once per instance instead of once per token operation.
+ *
+ * <ul>
+ *   <li>HS256: signs and verifies with the shared secret, publishes no keys</li>
+ *   <li>Key ring: signs with the active private key and a {@code kid} header, verifies
+ *       by {@code kid} against every published key</li>
+ * </ul>
+ */
+public final class JwtKeyMaterial {
+
+    private final @Nullable String keyId;
+    private final Key signingKey;
+    private final @Nullable SignatureAlgorithm signatureAlgorithm;
+    private final JwtParser parser;
+    private final JwkSet jwkSet;
+
+    private JwtKeyMaterial(@Nullable String keyId, Key signingKey, @Nullable SignatureAlgorithm signatureAlgorithm,
+                           JwtParser parser, JwkSet jwkSet) {
+        this.keyId = keyId;
+        this.signingKey = signingKey;
+        this.signatureAlgorithm = signatureAlgorithm;
+        this.parser = parser;
+        this.jwkSet = jwkSet;
+    }
+
+    /**
+     * Decodes the configured HS256 secret and builds a parser bound to the configured issuer.
+     */
+    public static @NonNull JwtKeyMaterial from(@NonNull JwtConfig config) {
+        SecretKey key = hmacKey(config);
+        JwtParser parser = Jwts.parser()
+            .verifyWith(key)
+            .requireIssuer(config.getIssuer())
+            .build();
+        return new JwtKeyMaterial(null, key, null, parser, JwkSet.empty());
+    }
+
+    /**
+     * Builds material for the asymmetric key ring.
+     *
+     * <p>If a secret is still configured, tokens without a {@code kid} header are verified
+     * with it, so HS256 tokens issued before the switch stay valid until they expire
+     * (ADR-008 dual validation). Remove the secret to complete the migration.
+     *
+     * @param config JWT configuration (issuer, optional legacy secret)
+     * @param active the signing key; must also appear in {@code published}
+     * @param activePrivateKey private half of the active key
+     * @param published all keys verifiers should accept (active, next and retired)
+     */
+    public static @NonNull JwtKeyMaterial forKeyRing(
+            @NonNull JwtConfig config,
+            @NonNull PublishedKey active,
+            @NonNull PrivateKey activePrivateKey,
+            @NonNull List<PublishedKey> published) {
+        Map<String, Key> verificationKeys = published.stream()
+            .collect(Collectors.toUnmodifiableMap(PublishedKey::kid, PublishedKey::publicKey));
+        SecretKey legacyKey = config.getSecret() != null && !config.getSecret().isBlank() ? hmacKey(config) : null;
+
+        JwtParser parser = Jwts.parser()
+            .keyLocator(new LocatorAdapter<>() {
+                @Override
+                protected Key locate(JwsHeader header) {
+                    String kid = header.getKeyId();
+                    // Unknown kid or missing key: JJWT rejects the token
+                    return kid != null ? verificationKeys.get(kid) : legacyKey;
+                }
+            })
+            .requireIssuer(config.getIssuer())
+            .build();
+        return new JwtKeyMaterial(active.kid(), activePrivateKey, active.algorithm().getSignatureAlgorithm(),
+            parser, JwkSet.of(published));
+    }
+
+    /**
+     * Adds the {@code kid} header (key ring only) and signs with the current key.
+     */
+    public @NonNull JwtBuilder sign(@NonNull JwtBuilder builder) {
+        if (signatureAlgorithm == null) {
+            return builder.signWith(signingKey);
+        }
+        return builder
+            .header().keyId(keyId).and()
+            .signWith((PrivateKey) signingKey, signatureAlgorithm);
+    }
+
+    /**
+     * Key ID of the signing key, null for HS256.
+     */
+    public @Nullable String keyId() {
+        return keyId;
+    }
+
+    /**
+     * Returns the prebuilt parser. JJWT parsers are immutable and thread-safe.
+     */
+    public @NonNull JwtParser parser() {
+        return parser;
+    }
+
+    /**
+     * Public keys to publish on the JWKS endpoint (empty for HS256).
+     */
+    public @NonNull JwkSet jwkSet() {
+        return jwkSet;
+    }
+
+    private static SecretKey hmacKey(JwtConfig config) {
+        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(config.getSecret()));
+    }
+}
@@ -0,0 +1,92 @@
+package health.zaed.identity.security;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Sliding-window counters of failed logins per email and per IP, kept in Redis.
+ *
+ * <p>Each failure is a sorted-set member scored by its time, written by
+ * {@code scripts/login-failure-record.lua} in the same call for both keys. The lockout
+ * check is a single read-only script call, so login cost does not depend on the size of
+ * {@code auth_audit_logs}, which is now written for forensics only.
+ */
+@Component
+public class LoginFailureCounter {
+
+    public static final int MAX_FAILURES_PER_EMAIL = 5;
+    public static final int MAX_FAILURES_PER_IP = MAX_FAILURES_PER_EMAIL * 2;
+    public static final Duration WINDOW = Duration.ofMinutes(15);
+
+    static final String EMAIL_KEY_PREFIX = "login_fail:email:";
+    static final String IP_KEY_PREFIX = "login_fail:ip:";
+
+    static final RedisScript<Long> RECORD_SCRIPT =
+        RedisScript.of(new ClassPathResource("scripts/login-failure-record.lua"), Long.class);
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static final RedisScript<List<Long>> CHECK_SCRIPT =
+        (RedisScript) RedisScript.of(new ClassPathResource("scripts/login-lockout-check.lua"), List.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    public LoginFailureCounter(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Returns how long the email and the IP stay locked.
+     */
+    public Lockout check(String email, String ipAddress) {
+        List<Long> retryAfter = redisTemplate.execute(CHECK_SCRIPT, keys(email, ipAddress),
+            String.valueOf(System.currentTimeMillis()),
+            String.valueOf(WINDOW.toMillis()),
+            String.valueOf(MAX_FAILURES_PER_EMAIL),
+            String.valueOf(MAX_FAILURES_PER_IP));
+        if (retryAfter == null || retryAfter.size() != 2) {
+            throw new IllegalStateException("Unexpected login lockout script result: " + retryAfter);
+        }
+        return new Lockout(toSeconds(retryAfter.get(0)), toSeconds(retryAfter.get(1)));
+    }
+
+    /**
+     * Counts one failed login against both the email and the IP.
+     */
+    public void recordFailure(String email, String ipAddress) {
+        redisTemplate.execute(RECORD_SCRIPT, keys(email, ipAddress),
+            String.valueOf(System.currentTimeMillis()),
+            String.valueOf(WINDOW.toMillis()),
+            UUID.randomUUID().toString(),
+            String.valueOf(MAX_FAILURES_PER_EMAIL),
+            String.valueOf(MAX_FAILURES_PER_IP));
+    }
+
+    private static List<String> keys(String email, String ipAddress) {
+        return List.of(EMAIL_KEY_PREFIX + email, IP_KEY_PREFIX + ipAddress);
+    }
+
+    private static int toSeconds(long millis) {
+        return millis <= 0 ? 0 : (int) Math.max(1, (millis + 999) / 1000);
+    }
+
+    /**
+     * Remaining lockout per dimension, in seconds; 0 when not locked.
+     */
+    public record Lockout(int emailRetryAfterSeconds, int ipRetryAfterSeconds) {
+
+        public static final Lockout NONE = new Lockout(0, 0);
+
+        public boolean emailLocked() {
+            return emailRetryAfterSeconds > 0;
+        }
+
+        public boolean ipLocked() {
+            return ipRetryAfterSeconds > 0;
+        }
+    }
+}
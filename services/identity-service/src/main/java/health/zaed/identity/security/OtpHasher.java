@@ -0,0 +1,89 @@
+package health.zaed.identity.security;
+
+import org.jspecify.annotations.NonNull;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import health.zaed.identity.config.OtpConfig;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Hashes OTP codes for storage in Redis.
+ *
+ * <p>OTPs are short-lived, attempt-limited and never leave Redis, so a slow password hash
+ * buys nothing but CPU. Codes are hashed as {@code HMAC-SHA256(pepper, salt || code)} with
+ * a per-OTP random salt and a server-side pepper, and compared in constant time.
+ *
+ * <p>Stored format: {@code $otp1$<salt>$<mac>} (unpadded Base64url). Values without the
+ * version prefix are BCrypt hashes written before the switch and are checked with the
+ * password encoder until they expire.
+ */
+@Component
+public class OtpHasher {
+
+    static final String VERSION_PREFIX = "$otp1$";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int SALT_LENGTH = 16;
+    private static final int MIN_PEPPER_LENGTH = 32;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKey pepper;
+    private final PasswordEncoder legacyEncoder;
+
+    public OtpHasher(OtpConfig otpConfig, PasswordEncoder passwordEncoder) {
+        String configured = otpConfig.getHmacPepper();
+        if (configured == null || configured.length() < MIN_PEPPER_LENGTH) {
+            throw new IllegalStateException(
+                "zaed.identity.otp.hmac-pepper must be at least " + MIN_PEPPER_LENGTH + " characters");
+        }
+        this.pepper = new SecretKeySpec(configured.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.legacyEncoder = passwordEncoder;
+    }
+
+    public @NonNull String hash(@NonNull String otp) {
+        byte[] salt = new byte[SALT_LENGTH];
+        RANDOM.nextBytes(salt);
+        return VERSION_PREFIX + ENCODER.encodeToString(salt) + "$" + ENCODER.encodeToString(mac(salt, otp));
+    }
+
+    /**
+     * Checks a code against a stored hash of either version.
+     */
+    public boolean matches(@NonNull String otp, @NonNull String storedHash) {
+        if (!storedHash.startsWith(VERSION_PREFIX)) {
+            return legacyEncoder.matches(otp, storedHash);
+        }
+        int separator = storedHash.indexOf('$', VERSION_PREFIX.length());
+        if (separator < 0) {
+            return false;
+        }
+        try {
+            byte[] salt = DECODER.decode(storedHash.substring(VERSION_PREFIX.length(), separator));
+            byte[] expected = DECODER.decode(storedHash.substring(separator + 1));
+            return MessageDigest.isEqual(expected, mac(salt, otp));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private byte[] mac(byte[] salt, String otp) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(pepper);
+            mac.update(salt);
+            return mac.doFinal(otp.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot compute OTP hash", e);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package health.zaed.identity.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.jspecify.annotations.NonNull;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import health.zaed.identity.config.PasswordConfig;
+import health.zaed.identity.exception.RateLimitException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@link PasswordEncoder} work on a fixed pool of platform threads with a bounded queue.
+ *
+ * <p>A BCrypt check at strength 12 is a few hundred milliseconds of CPU that never yields.
+ * Run directly on request virtual threads, a login flood occupies every carrier thread and
+ * stalls all other requests. Here at most {@code hashing-threads} hashes run at once, the
+ * caller's virtual thread parks while it waits, and once {@code hashing-queue-capacity}
+ * checks are waiting new ones fail fast with {@link RateLimitException} (429 with
+ * Retry-After).
+ *
+ * <p>Metrics: {@code password.hashing.queue.depth}, {@code password.hashing.wait} (time
+ * queued before a thread picks the check up) and {@code password.hashing.rejected}.
+ */
+@Component
+public class PasswordHasher {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final int retryAfterSeconds;
+    private final Timer waitTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder, PasswordConfig config, MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        int threads = config.getHashingThreads() > 0
+            ? config.getHashingThreads()
+            : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(config.getHashingQueueCapacity(), 1)),
+            Thread.ofPlatform().name("password-hash-", 0).daemon(true).factory(),
+            new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfterSeconds = config.getHashingRetryAfter();
+
+        Gauge.builder("password.hashing.queue.depth", executor, pool -> pool.getQueue().size())
+            .description("Password checks waiting for a hashing thread")
+            .register(meterRegistry);
+        this.waitTimer = Timer.builder("password.hashing.wait")
+            .description("Time a password check waited for a hashing thread")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("password.hashing.rejected")
+            .description("Password checks rejected because the hashing queue was full")
+            .register(meterRegistry);
+    }
+
+    /**
+     * @throws RateLimitException if the hashing queue is full
+     */
+    public boolean matches(@NonNull CharSequence rawPassword, @NonNull String encodedPassword) {
+        return run(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * @throws RateLimitException if the hashing queue is full
+     */
+    public @NonNull String encode(@NonNull CharSequence rawPassword) {
+        return run(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Whether the hash was made under an older algorithm or cost and should be replaced.
+     * Only parses the hash, so it runs on the caller's thread.
+     */
+    public boolean upgradeEncoding(@NonNull String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return task.call();
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new RateLimitException("Too many sign-in attempts in progress, try again shortly", retryAfterSeconds);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
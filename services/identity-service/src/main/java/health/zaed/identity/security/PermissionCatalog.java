@@ -0,0 +1,108 @@
+package health.zaed.identity.security;
+
+import org.jspecify.annotations.NonNull;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import health.zaed.identity.model.enums.OtpContext;
+import health.zaed.identity.model.enums.Permission;
+import health.zaed.identity.model.enums.UserRole;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, precomputed permission claims and authorities per {@link UserRole} and {@link OtpContext}.
+ *
+ * <p>Built once at class load so that issuing a token reuses the same ordered name list and
+ * authenticating a request reuses shared {@link GrantedAuthority} instances, instead of
+ * streaming {@link Permission} values and allocating authorities on every call.
+ *
+ * <p>Name lists are ordered by {@link Permission} declaration order.
+ */
+public final class PermissionCatalog {
+
+    private static final Map<String, GrantedAuthority> AUTHORITY_BY_NAME;
+    private static final Map<UserRole, List<String>> NAMES_BY_ROLE;
+    private static final Map<OtpContext, List<String>> NAMES_BY_CONTEXT;
+    private static final Map<List<String>, List<GrantedAuthority>> AUTHORITIES_BY_NAMES;
+
+    static {
+        Map<String, GrantedAuthority> authorityByName = new HashMap<>();
+        for (Permission permission : Permission.values()) {
+            authorityByName.put(permission.name(), new SimpleGrantedAuthority(permission.name()));
+        }
+        AUTHORITY_BY_NAME = Map.copyOf(authorityByName);
+
+        Map<UserRole, List<String>> namesByRole = new EnumMap<>(UserRole.class);
+        for (UserRole role : UserRole.values()) {
+            namesByRole.put(role, orderedNames(Permission.getPermissionsForRole(role)));
+        }
+        NAMES_BY_ROLE = namesByRole;
+
+        Map<OtpContext, List<String>> namesByContext = new EnumMap<>(OtpContext.class);
+        for (OtpContext context : OtpContext.values()) {
+            namesByContext.put(context, orderedNames(Arrays.asList(context.getGrantedPermissions())));
+        }
+        NAMES_BY_CONTEXT = namesByContext;
+
+        Map<List<String>, List<GrantedAuthority>> authoritiesByNames = new HashMap<>();
+        namesByRole.values().forEach(names -> authoritiesByNames.putIfAbsent(names, toAuthorities(names)));
+        namesByContext.values().forEach(names -> authoritiesByNames.putIfAbsent(names, toAuthorities(names)));
+        AUTHORITIES_BY_NAMES = Map.copyOf(authoritiesByNames);
+    }
+
+    private PermissionCatalog() {
+    }
+
+    /**
+     * Permission claim values for an access token of the given role.
+     */
+    public static @NonNull List<String> permissionNames(@NonNull UserRole role) {
+        return NAMES_BY_ROLE.get(role);
+    }
+
+    /**
+     * Permission claim values for a temp token issued after OTP verification in the given context.
+     */
+    public static @NonNull List<String> permissionNames(@NonNull OtpContext context) {
+        return NAMES_BY_CONTEXT.get(context);
+    }
+
+    /**
+     * Maps a token's permission claim to authorities.
+     *
+     * <p>Claims issued from this catalog resolve to a shared, prebuilt list. Other claim
+     * values (older tokens, custom ordering) still reuse the shared per-permission instances;
+     * unknown names get a fresh authority.
+     */
+    public static @NonNull List<GrantedAuthority> authoritiesFor(@NonNull List<String> permissionNames) {
+        List<GrantedAuthority> shared = AUTHORITIES_BY_NAMES.get(permissionNames);
+        if (shared != null) {
+            return shared;
+        }
+        return toAuthorities(permissionNames);
+    }
+
+    private static List<String> orderedNames(Collection<Permission> permissions) {
+        if (permissions.isEmpty()) {
+            return List.of();
+        }
+        return EnumSet.copyOf(permissions).stream()
+            .map(Permission::name)
+            .toList();
+    }
+
+    private static List<GrantedAuthority> toAuthorities(List<String> names) {
+        return names.stream()
+            .map(name -> {
+                GrantedAuthority authority = AUTHORITY_BY_NAME.get(name);
+                return authority != null ? authority : new SimpleGrantedAuthority(name);
+            })
+            .toList();
+    }
+}
@@ -0,0 +1,77 @@
+package health.zaed.identity.security;
+
+import org.jspecify.annotations.NonNull;
+import health.zaed.identity.config.JwtConfig;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * AES-GCM encryption of signing private keys at rest.
+ *
+ * <p>Output layout is {@code IV (12 bytes) || ciphertext+tag}. The key ID is bound as
+ * additional authenticated data, so a ciphertext copied to another row fails to decrypt.
+ */
+public final class PrivateKeyCipher {
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final SecretKey key;
+
+    private PrivateKeyCipher(SecretKey key) {
+        this.key = key;
+    }
+
+    /**
+     * Builds a cipher from the Base64-encoded {@code key-encryption-key} (16, 24 or 32 bytes).
+     *
+     * @throws IllegalStateException if the key is missing or has an invalid length
+     */
+    public static @NonNull PrivateKeyCipher from(@NonNull JwtConfig config) {
+        String encoded = config.getKeyEncryptionKey();
+        if (encoded == null || encoded.isBlank()) {
+            throw new IllegalStateException(
+                "zaed.identity.jwt.key-encryption-key is required for " + config.getAlgorithm() + " signing");
+        }
+        byte[] keyBytes = Base64.getDecoder().decode(encoded);
+        if (keyBytes.length != 16 && keyBytes.length != 24 && keyBytes.length != 32) {
+            throw new IllegalStateException("zaed.identity.jwt.key-encryption-key must be a 128, 192 or 256-bit AES key");
+        }
+        return new PrivateKeyCipher(new SecretKeySpec(keyBytes, "AES"));
+    }
+
+    public byte[] encrypt(byte @NonNull [] plaintext, @NonNull String kid) {
+        byte[] iv = new byte[IV_LENGTH];
+        RANDOM.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            byte[] ciphertext = cipher.doFinal(plaintext);
+            return ByteBuffer.allocate(IV_LENGTH + ciphertext.length).put(iv).put(ciphertext).array();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot encrypt private key " + kid, e);
+        }
+    }
+
+    public byte[] decrypt(byte @NonNull [] encrypted, @NonNull String kid) {
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_LENGTH_BITS, encrypted, 0, IV_LENGTH));
+            cipher.updateAAD(kid.getBytes(StandardCharsets.UTF_8));
+            return cipher.doFinal(encrypted, IV_LENGTH, encrypted.length - IV_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot decrypt private key " + kid, e);
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package health.zaed.identity.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tools.jackson.databind.json.JsonMapper;
+import health.zaed.identity.config.RateLimitConfig;
+import health.zaed.identity.config.RateLimitConfig.Bucket;
+import health.zaed.identity.config.RateLimitConfig.Route;
+import health.zaed.identity.model.dto.ErrorResponse;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Token-bucket rate limits for the public auth endpoints, ahead of
+ * {@link JwtAuthenticationFilter}, BCrypt and Postgres.
+ *
+ * <p>Buckets per client IP, per account identity from the JSON body and per route are
+ * checked and drawn in one {@code scripts/rate-limit-token-bucket.lua} call. A denial tells
+ * how long the limiting bucket stays empty; that key is remembered locally until then, so
+ * a client that keeps retrying is turned away without a Redis call. If Redis is down the
+ * filter lets requests through. Login does not rely on that: its lockout check fails closed
+ * and answers 503 with Retry-After until Redis is back.
+ *
+ * <p>Routes are matched on the servlet path, which the container has already decoded and
+ * stripped of path parameters such as {@code ;jsessionid}. Bodies read for the identity are
+ * capped at 16 KB; larger ones are rejected with 413 before reaching the controller.
+ *
+ * <p>Rejections are 429 with Retry-After and counted as
+ * {@code ratelimit.rejected{route, dimension, source=local|redis}}.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    static final String KEY_PREFIX = "rate:";
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static final RedisScript<List<Long>> TOKEN_BUCKET_SCRIPT =
+        (RedisScript) RedisScript.of(new ClassPathResource("scripts/rate-limit-token-bucket.lua"), List.class);
+
+    private static final int MAX_IDENTITY_BODY_BYTES = 16 * 1024;
+    private static final String MESSAGE = "Too many requests. Try again later.";
+    private static final String TOO_LARGE_MESSAGE = "Request body too large";
+
+    private final StringRedisTemplate redisTemplate;
+    private final JsonMapper jsonMapper;
+    private final RateLimitConfig config;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, NamedRoute> routesByPath = new HashMap<>();
+    private final Cache<String, Long> blockedUntil;
+    private final Counter unavailableCounter;
+
+    public RateLimitFilter(StringRedisTemplate redisTemplate,
+                           JsonMapper jsonMapper,
+                           RateLimitConfig config,
+                           MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.jsonMapper = jsonMapper;
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        config.getRoutes().forEach((name, route) -> {
+            validate(name, route.getIp());
+            validate(name, route.getIdentity());
+            validate(name, route.getTotal());
+            routesByPath.put(route.getPath(), new NamedRoute(name, route));
+        });
+        this.blockedUntil = Caffeine.newBuilder()
+            .maximumSize(config.getLocalBlockMaxSize())
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+        this.unavailableCounter = Counter.builder("ratelimit.unavailable")
+            .description("Requests let through because Redis could not be reached")
+            .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        NamedRoute route = routesByPath.get(path(request));
+
+        HttpServletRequest forwarded = request;
+        String identity = null;
+        if (route.route().getIdentityField() != null) {
+            CachedBodyRequest cached = request.getContentLengthLong() > MAX_IDENTITY_BODY_BYTES
+                ? null
+                : new CachedBodyRequest(request);
+            if (cached == null || cached.body.length > MAX_IDENTITY_BODY_BYTES) {
+                log.debug("Rejected {} body over {} bytes", route.name(), MAX_IDENTITY_BODY_BYTES);
+                write(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                    ErrorResponse.of("PAYLOAD_TOO_LARGE", TOO_LARGE_MESSAGE));
+                return;
+            }
+            identity = readIdentity(cached.body, route.route().getIdentityField());
+            forwarded = cached;
+        }
+
+        Denial denial = check(limits(route, ClientIp.of(request), identity));
+        if (denial != null) {
+            reject(response, route.name(), denial);
+            return;
+        }
+        filterChain.doFilter(forwarded, response);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !config.isEnabled()
+            || !"POST".equals(request.getMethod())
+            || !routesByPath.containsKey(path(request));
+    }
+
+    private List<Limit> limits(NamedRoute named, String clientIp, String identity) {
+        Route route = named.route();
+        String prefix = KEY_PREFIX + named.name() + ":";
+        List<Limit> limits = new ArrayList<>(3);
+        if (route.getIp() != null) {
+            limits.add(new Limit(prefix + "ip:" + clientIp, "ip", route.getIp()));
+        }
+        if (route.getIdentity() != null && identity != null) {
+            limits.add(new Limit(prefix + route.getIdentityField() + ":" + identity,
+                route.getIdentityField(), route.getIdentity()));
+        }
+        if (route.getTotal() != null) {
+            limits.add(new Limit(prefix + "route", "route", route.getTotal()));
+        }
+        return limits;
+    }
+
+    private Denial check(List<Limit> limits) {
+        if (limits.isEmpty()) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        for (Limit limit : limits) {
+            Long until = blockedUntil.getIfPresent(limit.key());
+            if (until != null && until > now) {
+                return new Denial(limit, until - now, "local");
+            }
+        }
+
+        List<String> keys = new ArrayList<>(limits.size());
+        String[] args = new String[1 + 2 * limits.size()];
+        args[0] = String.valueOf(now);
+        for (int i = 0; i < limits.size(); i++) {
+            Bucket bucket = limits.get(i).bucket();
+            keys.add(limits.get(i).key());
+            args[1 + 2 * i] = String.valueOf(bucket.getCapacity());
+            args[2 + 2 * i] = String.valueOf(bucket.getRefillPerMinute() / 60_000.0);
+        }
+
+        List<Long> result;
+        try {
+            result = redisTemplate.execute(TOKEN_BUCKET_SCRIPT, keys, (Object[]) args);
+        } catch (DataAccessException e) {
+            unavailableCounter.increment();
+            log.warn("Rate limit check skipped, Redis unavailable: {}", e.getMessage());
+            return null;
+        }
+        if (result == null || result.size() != 3) {
+            throw new IllegalStateException("Unexpected rate limit script result: " + result);
+        }
+        if (result.get(0) == 1) {
+            return null;
+        }
+
+        long retryAfterMillis = result.get(1);
+        Limit limiting = limits.get(result.get(2).intValue() - 1);
+        blockedUntil.put(limiting.key(), now + retryAfterMillis);
+        return new Denial(limiting, retryAfterMillis, "redis");
+    }
+
+    private void reject(HttpServletResponse response, String route, Denial denial) throws IOException {
+        int retryAfter = (int) Math.max(1, (denial.retryAfterMillis() + 999) / 1000);
+        meterRegistry.counter("ratelimit.rejected",
+            "route", route, "dimension", denial.limit().dimension(), "source", denial.source()).increment();
+        log.debug("Rate limited {} on {} for {}s ({})", route, denial.limit().dimension(), retryAfter, denial.source());
+
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        write(response, HttpServletResponse.SC_TOO_MANY_REQUESTS,
+            ErrorResponse.withRetry("RATE_LIMIT_EXCEEDED", MESSAGE, retryAfter));
+    }
+
+    private void write(HttpServletResponse response, int status, ErrorResponse error) throws IOException {
+        byte[] body = jsonMapper.writeValueAsBytes(error);
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private String readIdentity(byte[] body, String field) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            Object value = jsonMapper.readValue(body, Map.class).get(field);
+            return value instanceof String text && !text.isBlank()
+                ? text.trim().toLowerCase(Locale.ROOT)
+                : null;
+        } catch (RuntimeException e) {
+            // Malformed bodies are rejected by the controller
+            return null;
+        }
+    }
+
+    private static void validate(String name, Bucket bucket) {
+        if (bucket != null && (bucket.getCapacity() < 1 || bucket.getRefillPerMinute() <= 0)) {
+            throw new IllegalStateException(
+                "zaed.identity.rate-limit.routes." + name + " buckets need capacity >= 1 and refill-per-minute > 0");
+        }
+    }
+
+    /**
+     * The decoded, normalized path the dispatcher maps on. The raw request URI would let
+     * {@code ;jsessionid=...} or percent-encoded variants of a route skip its limits.
+     */
+    private static String path(HttpServletRequest request) {
+        String pathInfo = request.getPathInfo();
+        return pathInfo != null ? request.getServletPath() + pathInfo : request.getServletPath();
+    }
+
+    private record NamedRoute(String name, Route route) {
+    }
+
+    private record Limit(String key, String dimension, Bucket bucket) {
+    }
+
+    private record Denial(Limit limit, long retryAfterMillis, String source) {
+    }
+
+    /**
+     * Reads the body up front so the identity can be taken from it and the controller can
+     * still read it. Reads at most one byte past the cap, so an oversized body is detected
+     * without buffering it.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readNBytes(MAX_IDENTITY_BODY_BYTES + 1);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException("Async reads are not supported");
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
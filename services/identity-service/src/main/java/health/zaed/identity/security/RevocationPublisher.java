@@ -0,0 +1,44 @@
+package health.zaed.identity.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Broadcasts session revocations to services that verify tokens locally.
+ *
+ * <p>Downstream services using the identity client, and every identity service instance
+ * through {@link RevocationView}, keep a revocation view fed from {@value #CHANNEL}; each
+ * message is {@code "<subject> <epochMillis>"} and rejects the subject's tokens issued up
+ * to that millisecond, so a login straight after the revocation keeps working. The
+ * revocation is applied to this instance's view before publishing. Publishing is best
+ * effort: access tokens still expire on their own if a message is lost.
+ */
+@Component
+public class RevocationPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(RevocationPublisher.class);
+
+    public static final String CHANNEL = "zaed:identity:revocations";
+
+    private final StringRedisTemplate redisTemplate;
+    private final RevocationView revocationView;
+
+    public RevocationPublisher(StringRedisTemplate redisTemplate, RevocationView revocationView) {
+        this.redisTemplate = redisTemplate;
+        this.revocationView = revocationView;
+    }
+
+    public void subjectRevoked(String subject) {
+        Instant now = Instant.now();
+        revocationView.revokeSubject(subject, now);
+        try {
+            redisTemplate.convertAndSend(CHANNEL, subject + " " + now.toEpochMilli());
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish revocation for subject {}: {}", subject, e.getMessage());
+        }
+    }
+}
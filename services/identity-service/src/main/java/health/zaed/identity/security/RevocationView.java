@@ -0,0 +1,109 @@
+package health.zaed.identity.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import health.zaed.identity.config.JwtConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This instance's view of subjects whose sessions were revoked, so
+ * {@link JwtAuthenticationFilter} rejects their access tokens like downstream services do.
+ *
+ * <p>Same rules as the identity client's {@code RevocationView}: a revocation rejects every
+ * token of the subject issued at or before the revocation time, compared to the millisecond,
+ * and tokens from a later login stay valid. Entries are kept for the access token lifetime,
+ * after which all affected tokens have expired anyway.
+ *
+ * <p>Fed from {@value RevocationPublisher#CHANNEL}, so revocations made on any instance
+ * apply here; {@link RevocationPublisher} also applies its own revocations directly.
+ */
+@Component
+public class RevocationView {
+
+    private static final Logger log = LoggerFactory.getLogger(RevocationView.class);
+
+    private final ConcurrentHashMap<String, Instant> revokedAt = new ConcurrentHashMap<>();
+    private final Duration retention;
+    private final RedisConnectionFactory connectionFactory;
+
+    private RedisMessageListenerContainer container;
+
+    public RevocationView(JwtConfig jwtConfig, RedisConnectionFactory connectionFactory) {
+        this.retention = Duration.ofSeconds(jwtConfig.getAccessTokenExpiry());
+        this.connectionFactory = connectionFactory;
+    }
+
+    @PostConstruct
+    void start() {
+        container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+            (message, pattern) -> onMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+            new ChannelTopic(RevocationPublisher.CHANNEL));
+        container.afterPropertiesSet();
+        container.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (container != null) {
+            container.stop();
+        }
+    }
+
+    public void revokeSubject(@NonNull String subject, @NonNull Instant at) {
+        revokedAt.merge(subject, at, (existing, incoming) -> incoming.isAfter(existing) ? incoming : existing);
+        purgeExpired();
+    }
+
+    /**
+     * Checks if a token issued at {@code issuedAt} for {@code subject} has been revoked.
+     * {@code issuedAt} should be the token's millisecond issue time where it has one.
+     * Tokens without an issue time are treated as revoked once the subject is revoked.
+     */
+    public boolean isRevoked(@NonNull String subject, @Nullable Instant issuedAt) {
+        if (revokedAt.isEmpty()) {
+            return false;
+        }
+        Instant revoked = revokedAt.get(subject);
+        if (revoked == null) {
+            return false;
+        }
+        return issuedAt == null || !issuedAt.isAfter(revoked);
+    }
+
+    /**
+     * Applies a {@code "<subject> <epochMillis>"} revocation message; malformed messages are
+     * logged and ignored.
+     */
+    void onMessage(String message) {
+        int separator = message.lastIndexOf(' ');
+        if (separator <= 0) {
+            log.warn("Ignoring malformed revocation message: {}", message);
+            return;
+        }
+        try {
+            Instant at = Instant.ofEpochMilli(Long.parseLong(message.substring(separator + 1).trim()));
+            revokeSubject(message.substring(0, separator), at);
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed revocation message: {}", message);
+        }
+    }
+
+    private void purgeExpired() {
+        Instant threshold = Instant.now().minus(retention);
+        revokedAt.values().removeIf(at -> at.isBefore(threshold));
+    }
+}
@@ -0,0 +1,123 @@
+package health.zaed.identity.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+import health.zaed.identity.config.JwtConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Bounded in-process cache of already verified bearer tokens.
+ *
+ * <p>Clients reuse the same access token many times during its lifetime. Caching the
+ * {@link AuthPrincipal} and authorities built from a verified token lets
+ * {@link JwtAuthenticationFilter} skip the HMAC check and claim parsing on repeat requests.
+ *
+ * <ul>
+ *   <li>Keys are SHA-256 digests of the token, so raw tokens are never held in memory</li>
+ *   <li>Each entry expires at the token's own {@code exp}, never later</li>
+ *   <li>Entries are dropped whenever {@link health.zaed.identity.service.JwtService} swaps
+ *       key material, so a removed key stops verifying at once</li>
+ *   <li>Entries keep the token's issue time; {@link JwtAuthenticationFilter} checks it
+ *       against {@link RevocationView} on every hit</li>
+ *   <li>Hit/miss/eviction metrics are published as {@code cache.*{cache=jwt.verified-tokens}}</li>
+ * </ul>
+ */
+@Component
+public class VerifiedTokenCache {
+
+    static final String CACHE_NAME = "jwt.verified-tokens";
+
+    private final boolean enabled;
+    private final Cache<String, VerifiedToken> cache;
+
+    public VerifiedTokenCache(JwtConfig jwtConfig, MeterRegistry meterRegistry) {
+        this.enabled = jwtConfig.getVerifiedTokenCacheSize() > 0;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(Math.max(jwtConfig.getVerifiedTokenCacheSize(), 0))
+            .expireAfter(new UntilTokenExpiry())
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Returns the cached verification result, or null if absent or past the token's expiry.
+     */
+    public @Nullable VerifiedToken get(@NonNull String token) {
+        if (!enabled) {
+            return null;
+        }
+        VerifiedToken verified = cache.getIfPresent(digest(token));
+        if (verified == null || !verified.expiresAt().isAfter(Instant.now())) {
+            return null;
+        }
+        return verified;
+    }
+
+    public void put(@NonNull String token, @NonNull VerifiedToken verified) {
+        if (enabled && verified.expiresAt().isAfter(Instant.now())) {
+            cache.put(digest(token), verified);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * A verified token's principal and authorities, valid until {@code expiresAt}.
+     *
+     * @param principal the principal built from the token claims
+     * @param authorities the granted authorities built from the permissions claim
+     * @param issuedAt the token's issue time, from {@code iat_ms} where present
+     * @param expiresAt the token's {@code exp} claim
+     */
+    public record VerifiedToken(
+        AuthPrincipal principal,
+        List<GrantedAuthority> authorities,
+        @Nullable Instant issuedAt,
+        Instant expiresAt
+    ) {}
+
+    private static final class UntilTokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            return Math.max(Duration.between(Instant.now(), value.expiresAt()).toNanos(), 0);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
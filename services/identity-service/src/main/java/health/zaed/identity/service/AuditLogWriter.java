@@ -0,0 +1,271 @@
+package health.zaed.identity.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import health.zaed.identity.config.AuditConfig;
+import health.zaed.identity.model.entity.AuthAuditLog;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes auth audit events off the request path.
+ *
+ * <p>Events go into a bounded in-memory buffer drained by a single virtual thread, which
+ * inserts them with multi-row INSERT statements every {@code flush-interval-millis} or
+ * {@code batch-size} events, whichever comes first. When the buffer is full, events are
+ * dropped and counted rather than slowing down logins.
+ *
+ * <p>Buffered events are lost if the process crashes. Event types listed in
+ * {@code durable-events} skip the buffer and are inserted in their own transaction before
+ * the caller continues, so they survive both a crash and a rollback of the request.
+ *
+ * <p>Metrics: {@code audit.buffer.size}, {@code audit.events.written} (by mode),
+ * {@code audit.events.dropped} (by reason), {@code audit.flush} and
+ * {@code audit.flush.batch.size}.
+ */
+@Component
+public class AuditLogWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    private static final String INSERT_PREFIX = "INSERT INTO auth_audit_logs (user_id, email, phone, ip_address, "
+        + "user_agent, event_type, success, failure_reason, details, risk_score, metadata, created_at) VALUES ";
+    private static final String ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int COLUMNS = 12;
+    // Postgres allows 65535 bind parameters per statement
+    private static final int MAX_BATCH_SIZE = 65_535 / COLUMNS;
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+    // Offered on shutdown to wake the drainer from a long poll
+    private static final AuthAuditLog WAKE_UP = new AuthAuditLog();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate durableTransaction;
+    private final AuditConfig config;
+    private final BlockingQueue<AuthAuditLog> buffer;
+    private final int batchSize;
+    private final String batchInsert;
+
+    private final Counter writtenBatched;
+    private final Counter writtenDurable;
+    private final Counter droppedBufferFull;
+    private final Counter droppedWriteError;
+    private final Timer flushTimer;
+    private final DistributionSummary flushBatchSize;
+
+    private volatile boolean running;
+    private Thread drainer;
+
+    public AuditLogWriter(JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          AuditConfig config,
+                          MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.config = config;
+        this.durableTransaction = new TransactionTemplate(transactionManager);
+        this.durableTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.buffer = new ArrayBlockingQueue<>(config.getBufferSize());
+        this.batchSize = Math.clamp(config.getBatchSize(), 1, MAX_BATCH_SIZE);
+        this.batchInsert = insertSql(batchSize);
+
+        Gauge.builder("audit.buffer.size", buffer, BlockingQueue::size)
+            .description("Audit events waiting to be written")
+            .register(meterRegistry);
+        this.writtenBatched = written(meterRegistry, "batched");
+        this.writtenDurable = written(meterRegistry, "durable");
+        this.droppedBufferFull = dropped(meterRegistry, "buffer_full");
+        this.droppedWriteError = dropped(meterRegistry, "write_error");
+        this.flushTimer = Timer.builder("audit.flush")
+            .description("Time to insert one batch of audit events")
+            .register(meterRegistry);
+        this.flushBatchSize = DistributionSummary.builder("audit.flush.batch.size")
+            .description("Audit events per batch insert")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        drainer = Thread.ofVirtual().name("audit-writer").start(this::drain);
+    }
+
+    /**
+     * Stops accepting buffered events and flushes what is left.
+     */
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (drainer == null) {
+            return;
+        }
+        buffer.offer(WAKE_UP);
+        try {
+            if (!drainer.join(SHUTDOWN_TIMEOUT)) {
+                log.warn("Audit writer did not finish within {}; {} events lost", SHUTDOWN_TIMEOUT, buffer.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Records an audit event. Durable event types are committed before this returns; all
+     * others are buffered and written in the background.
+     *
+     * <p>Durable events take a pooled connection of their own, so callers write them after
+     * their transaction has ended rather than while holding its connection.
+     */
+    public void write(AuthAuditLog event) {
+        if (config.getDurableEvents().contains(event.getEventType())) {
+            writeDurable(event);
+            return;
+        }
+        if (!enqueue(event)) {
+            droppedBufferFull.increment();
+            log.debug("Audit buffer full, dropped {} event", event.getEventType());
+        }
+    }
+
+    private boolean enqueue(AuthAuditLog event) {
+        if (!running) {
+            // Shutting down: the drainer may already have taken its last batch
+            writeDurable(event);
+            return true;
+        }
+        if (config.getOfferTimeoutMillis() <= 0) {
+            return buffer.offer(event);
+        }
+        try {
+            return buffer.offer(event, config.getOfferTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void writeDurable(AuthAuditLog event) {
+        durableTransaction.executeWithoutResult(status ->
+            jdbcTemplate.update(INSERT_PREFIX + ROW, parameters(List.of(event))));
+        writtenDurable.increment();
+    }
+
+    private void drain() {
+        List<AuthAuditLog> batch = new ArrayList<>(batchSize);
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getFlushIntervalMillis());
+        while (running) {
+            try {
+                AuthAuditLog first = buffer.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null || first == WAKE_UP) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (running && batch.size() < batchSize) {
+                    buffer.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    AuthAuditLog next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null || next == WAKE_UP) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            flush(batch);
+        }
+
+        // Final drain on shutdown
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            flush(batch);
+        }
+    }
+
+    private void flush(List<AuthAuditLog> batch) {
+        batch.removeIf(event -> event == WAKE_UP);
+        if (batch.isEmpty()) {
+            return;
+        }
+        int size = batch.size();
+        try {
+            String sql = size == batchSize ? batchInsert : insertSql(size);
+            flushTimer.record(() -> {
+                jdbcTemplate.update(sql, parameters(batch));
+            });
+            writtenBatched.increment(size);
+            flushBatchSize.record(size);
+        } catch (RuntimeException e) {
+            droppedWriteError.increment(size);
+            log.warn("Failed to write {} audit events: {}", size, e.getMessage());
+        } finally {
+            batch.clear();
+        }
+    }
+
+    private static Object[] parameters(List<AuthAuditLog> events) {
+        Object[] parameters = new Object[events.size() * COLUMNS];
+        int i = 0;
+        for (AuthAuditLog event : events) {
+            parameters[i++] = event.getUserId();
+            parameters[i++] = event.getEmail();
+            parameters[i++] = event.getPhone();
+            parameters[i++] = event.getIpAddress();
+            parameters[i++] = event.getUserAgent();
+            parameters[i++] = event.getEventType().name();
+            parameters[i++] = event.isSuccess();
+            parameters[i++] = event.getFailureReason();
+            parameters[i++] = event.getDetails();
+            parameters[i++] = event.getRiskScore();
+            parameters[i++] = event.getMetadata();
+            parameters[i++] = Timestamp.from(event.getCreatedAt());
+        }
+        return parameters;
+    }
+
+    private static String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows * (ROW.length() + 2));
+        sql.append(INSERT_PREFIX);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sql.append(", ");
+            }
+            sql.append(ROW);
+        }
+        return sql.toString();
+    }
+
+    private static Counter written(MeterRegistry meterRegistry, String mode) {
+        return Counter.builder("audit.events.written")
+            .description("Audit events inserted")
+            .tag("mode", mode)
+            .register(meterRegistry);
+    }
+
+    private static Counter dropped(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("audit.events.dropped")
+            .description("Audit events that were never written")
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,144 @@
+package health.zaed.identity.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import health.zaed.identity.config.AuditConfig;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the monthly partitions of {@code auth_audit_logs} (see V11).
+ *
+ * <p>Keeps {@code partitions-ahead} future months ready so inserts never fall into the
+ * default partition, and removes months older than {@code retention-months}: dropped, or
+ * detached and left as standalone tables for archiving. Removing a month is a catalog
+ * change instead of a DELETE over millions of rows.
+ *
+ * <p>Runs at startup and on {@code partition-maintenance-cron}. A transaction-scoped
+ * advisory lock ensures only one instance changes partitions at a time.
+ */
+@Component
+public class AuditPartitionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditPartitionManager.class);
+
+    static final String TABLE = "auth_audit_logs";
+    static final String DEFAULT_PARTITION = TABLE + "_default";
+    private static final Pattern PARTITION_NAME = Pattern.compile(TABLE + "_(\\d{4})_(\\d{2})");
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    // Fixed key shared by all instances for pg_try_advisory_xact_lock
+    private static final long LOCK_KEY = 0x5A41_4544_4155_4449L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditConfig config;
+
+    public AuditPartitionManager(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 AuditConfig config) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.config = config;
+    }
+
+    @PostConstruct
+    void init() {
+        try {
+            maintain();
+        } catch (RuntimeException e) {
+            // The default partition catches inserts until the next scheduled run succeeds
+            log.warn("Audit partition maintenance failed at startup: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Creates upcoming monthly partitions and removes expired ones.
+     */
+    @Scheduled(cron = "${zaed.identity.audit.partition-maintenance-cron:0 15 3 * * *}")
+    public void maintain() {
+        maintain(YearMonth.now(ZoneOffset.UTC));
+    }
+
+    void maintain(YearMonth current) {
+        Boolean ran = transactionTemplate.execute(status -> {
+            Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, LOCK_KEY);
+            if (!Boolean.TRUE.equals(locked)) {
+                return false;
+            }
+            createAhead(current);
+            removeExpired(current);
+            return true;
+        });
+        if (!Boolean.TRUE.equals(ran)) {
+            log.debug("Audit partition maintenance running on another instance");
+            return;
+        }
+
+        Boolean misplaced = jdbcTemplate.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM " + DEFAULT_PARTITION + ")", Boolean.class);
+        if (Boolean.TRUE.equals(misplaced)) {
+            log.warn("{} has rows outside the monthly partitions; move them before creating their month",
+                DEFAULT_PARTITION);
+        }
+    }
+
+    private void createAhead(YearMonth current) {
+        for (int i = 0; i <= config.getPartitionsAhead(); i++) {
+            YearMonth month = current.plusMonths(i);
+            String partition = partitionName(month);
+            Boolean exists = jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition);
+            if (Boolean.TRUE.equals(exists)) {
+                continue;
+            }
+            jdbcTemplate.execute("CREATE TABLE " + partition + " PARTITION OF " + TABLE
+                + " FOR VALUES FROM ('" + startOf(month) + "') TO ('" + startOf(month.plusMonths(1)) + "')");
+            log.info("Created audit partition {}", partition);
+        }
+    }
+
+    private void removeExpired(YearMonth current) {
+        YearMonth oldestKept = current.minusMonths(config.getRetentionMonths());
+        List<String> partitions = jdbcTemplate.queryForList(
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                + "WHERE i.inhparent = ?::regclass ORDER BY c.relname",
+            String.class, TABLE);
+
+        for (String partition : partitions) {
+            Matcher matcher = PARTITION_NAME.matcher(partition);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (!month.isBefore(oldestKept)) {
+                continue;
+            }
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition);
+            if (config.getRetentionAction() == AuditConfig.RetentionAction.DROP) {
+                jdbcTemplate.execute("DROP TABLE " + partition);
+                log.info("Dropped expired audit partition {}", partition);
+            } else {
+                log.info("Detached expired audit partition {} for archiving", partition);
+            }
+        }
+    }
+
+    static String partitionName(YearMonth month) {
+        return TABLE + "_" + month.format(SUFFIX);
+    }
+
+    private static String startOf(YearMonth month) {
+        return month.atDay(1) + " 00:00:00+00";
+    }
+}
@@ -5,13 +5,16 @@ import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import health.zaed.identity.config.JwtConfig;
 import health.zaed.identity.exception.AuthException;
 import health.zaed.identity.exception.InvalidTokenException;
 import health.zaed.identity.exception.RateLimitException;
+import health.zaed.identity.exception.ServiceUnavailableException;
 import health.zaed.identity.exception.TwoFactorException;
 import health.zaed.identity.model.dto.LoginRequest;
 import health.zaed.identity.model.dto.LoginResponse;
@@ -20,14 +23,17 @@ import health.zaed.identity.model.dto.TwoFactorVerifyRequest;
 import health.zaed.identity.model.entity.AuthAuditLog;
 import health.zaed.identity.model.entity.RefreshToken;
 import health.zaed.identity.model.entity.User;
+import health.zaed.identity.model.entity.UserCredential;
 import health.zaed.identity.model.enums.AuthEventType;
 import health.zaed.identity.model.enums.OtpContext;
-import health.zaed.identity.repository.AuthAuditLogRepository;
 import health.zaed.identity.repository.RefreshTokenRepository;
 import health.zaed.identity.repository.UserRepository;
+import health.zaed.identity.security.LoginFailureCounter;
+import health.zaed.identity.security.PasswordHasher;
+import health.zaed.identity.security.RevocationPublisher;
 
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -38,34 +44,58 @@ public class AuthService {
 
     private static final Logger log = LoggerFactory.getLogger(AuthService.class);
 
+    private static final int LOCKOUT_UNAVAILABLE_RETRY_AFTER_SECONDS = 5;
+
     private final UserRepository userRepository;
+    private final UserSnapshotCache userSnapshotCache;
     private final RefreshTokenRepository refreshTokenRepository;
-    private final AuthAuditLogRepository auditLogRepository;
+    private final RefreshSessionStore refreshSessionStore;
+    private final AuditLogWriter auditLogWriter;
     private final JwtService jwtService;
     private final TwoFactorService twoFactorService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHasher passwordHasher;
     private final JwtConfig jwtConfig;
-
-    private static final int MAX_FAILED_LOGINS = 5;
-    private static final int LOCKOUT_MINUTES = 15;
+    private final RevocationPublisher revocationPublisher;
+    private final LoginFailureCounter loginFailureCounter;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
 
     public AuthService(UserRepository userRepository,
+                       UserSnapshotCache userSnapshotCache,
                        RefreshTokenRepository refreshTokenRepository,
-                       AuthAuditLogRepository auditLogRepository,
+                       RefreshSessionStore refreshSessionStore,
+                       AuditLogWriter auditLogWriter,
                        JwtService jwtService,
                        TwoFactorService twoFactorService,
-                       PasswordEncoder passwordEncoder,
-                       JwtConfig jwtConfig) {
+                       PasswordHasher passwordHasher,
+                       JwtConfig jwtConfig,
+                       RevocationPublisher revocationPublisher,
+                       LoginFailureCounter loginFailureCounter,
+                       PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
+        this.userSnapshotCache = userSnapshotCache;
         this.refreshTokenRepository = refreshTokenRepository;
-        this.auditLogRepository = auditLogRepository;
+        this.refreshSessionStore = refreshSessionStore;
+        this.auditLogWriter = auditLogWriter;
         this.jwtService = jwtService;
         this.twoFactorService = twoFactorService;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHasher = passwordHasher;
         this.jwtConfig = jwtConfig;
+        this.revocationPublisher = revocationPublisher;
+        this.loginFailureCounter = loginFailureCounter;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
     }
 
-    @Transactional
+    /**
+     * Password login.
+     *
+     * <p>The user is read in a short read-only transaction and the password is checked with
+     * no transaction open, so logins queued on or inside {@link PasswordHasher} do not hold
+     * pooled connections that token refreshes need. The session, last login and any rehash
+     * are written together in a second transaction.
+     */
     public @NonNull LoginResponse login(
             @NonNull LoginRequest request,
             @NonNull String ipAddress,
@@ -74,14 +104,16 @@ public class AuthService {
 
         checkAccountLockout(email, ipAddress);
 
-        User user = userRepository.findByEmail(email)
+        // One statement: user, credential and 2FA settings
+        User user = readTransaction.execute(status -> userRepository.findByEmailWithCredentialAnd2FA(email))
             .orElseThrow(() -> {
                 auditLoginFailure(null, email, null, ipAddress, userAgent, "USER_NOT_FOUND");
                 return new AuthException("INVALID_CREDENTIALS", "Invalid email or password");
             });
 
+        // Hashed off the request thread; throws RateLimitException when the hashing queue is full
         if (user.getCredential() == null ||
-            !passwordEncoder.matches(request.password(), user.getCredential().getPasswordHash())) {
+            !passwordHasher.matches(request.password(), user.getCredential().getPasswordHash())) {
             auditLoginFailure(user.getId(), email, null, ipAddress, userAgent, "INVALID_PASSWORD");
             throw new AuthException("INVALID_CREDENTIALS", "Invalid email or password");
         }
@@ -91,17 +123,38 @@ public class AuthService {
             throw new AuthException("ACCOUNT_DISABLED", "Account is disabled");
         }
 
-        if (twoFactorService.is2FAEnabled(user.getId())) {
+        UserCredential credential = user.getCredential();
+        boolean rehashed = passwordHasher.upgradeEncoding(credential.getPasswordHash())
+            && rehashPassword(credential, request.password());
+
+        if (user.has2FAEnabled()) {
+            if (rehashed) {
+                writeTransaction.executeWithoutResult(status -> savePasswordHash(credential));
+            }
             String tempToken = jwtService.generate2FATempToken(user.getId());
             auditLog(user.getId(), email, null, ipAddress, userAgent,
                 AuthEventType.TWO_FACTOR_CHALLENGE, true, "2FA required");
             return LoginResponse.requires2FA(tempToken);
         }
 
-        return generateLoginResponse(user, request.deviceId(), ipAddress, userAgent);
+        return writeTransaction.execute(status -> {
+            if (rehashed) {
+                savePasswordHash(credential);
+            }
+            return generateLoginResponse(user, request.deviceId(), ipAddress, userAgent);
+        });
     }
 
-    @Transactional
+    /**
+     * Completes a login that was challenged for a second factor.
+     *
+     * <p>The user and a TOTP code are checked in a read-only transaction. A recovery code is
+     * matched against its BCrypt hashes on {@link PasswordHasher}'s pool after that has ended,
+     * and only consuming the matched code takes a write transaction. Failures are audited
+     * with no transaction open: {@code TWO_FACTOR_FAILED} is written synchronously on its own
+     * connection, which must not wait on a pool that the request itself holds a connection
+     * of. The session is then created in a final transaction.
+     */
     public @NonNull LoginResponse verify2FA(
             @NonNull TwoFactorVerifyRequest request,
             @NonNull String tempToken,
@@ -119,32 +172,51 @@ public class AuthService {
         }
 
         UUID userId = UUID.fromString(claims.getSubject());
-        User user = userRepository.findById(userId)
-            .orElseThrow(() -> new TwoFactorException("User not found"));
-
-        boolean verified = false;
-        String method = "totp";
-
-        if (request.code() != null && !request.code().isBlank()) {
-            verified = twoFactorService.verifyCode(userId, request.code());
-        } else if (request.recoveryCode() != null && !request.recoveryCode().isBlank()) {
-            verified = twoFactorService.verifyRecoveryCode(userId, request.recoveryCode());
-            method = "recovery";
+        SecondFactorCheck check = readTransaction.execute(status -> {
+            // Loaded into the persistence context, so TwoFactorService reads it without a query
+            User user = userRepository.findByIdWithCredentialAnd2FA(userId)
+                .orElseThrow(() -> new TwoFactorException("User not found"));
+
+            if (request.code() != null && !request.code().isBlank()) {
+                return new SecondFactorCheck(user, "totp",
+                    twoFactorService.verifyCode(userId, request.code()), List.of());
+            }
+            if (request.recoveryCode() != null && !request.recoveryCode().isBlank()) {
+                return new SecondFactorCheck(user, "recovery", false,
+                    twoFactorService.getRecoveryCodeHashes(userId));
+            }
+            return new SecondFactorCheck(user, "totp", false, List.of());
+        });
+        boolean verified = check.verified();
+        if (!check.recoveryCodeHashes().isEmpty()) {
+            verified = twoFactorService.matchRecoveryCode(check.recoveryCodeHashes(), request.recoveryCode())
+                .map(hashedCode -> Boolean.TRUE.equals(
+                    writeTransaction.execute(status -> twoFactorService.consumeRecoveryCode(userId, hashedCode))))
+                .orElse(false);
         }
+        User user = check.user();
 
         if (!verified) {
             auditLog(userId, user.getEmail(), null, ipAddress, userAgent,
-                AuthEventType.TWO_FACTOR_FAILED, false, "Invalid " + method + " code");
+                AuthEventType.TWO_FACTOR_FAILED, false, "Invalid " + check.method() + " code");
             throw new TwoFactorException("INVALID_CODE", "Invalid verification code");
         }
 
         auditLog(userId, user.getEmail(), null, ipAddress, userAgent,
-            AuthEventType.TWO_FACTOR_SUCCESS, true, "2FA verified via " + method);
+            AuthEventType.TWO_FACTOR_SUCCESS, true, "2FA verified via " + check.method());
 
-        return generateLoginResponse(user, request.deviceId(), ipAddress, userAgent);
+        return writeTransaction.execute(status -> generateLoginResponse(user, request.deviceId(), ipAddress, userAgent));
     }
 
-    @Transactional
+    /**
+     * Rotates a refresh token.
+     *
+     * <p>Rotation and reuse detection run in Redis ({@link RefreshSessionStore}); Postgres is
+     * updated in the background. Tokens issued before the Redis hot tier, or lost from it,
+     * are rotated against Postgres and then moved into Redis. The user is read from
+     * {@link UserSnapshotCache}. Only that Postgres fallback opens a transaction, so a
+     * rotation served by Redis never takes a pooled connection.
+     */
     public @NonNull TokenResponse refreshToken(
             @NonNull String refreshToken,
             @NonNull String ipAddress) {
@@ -162,39 +234,44 @@ public class AuthService {
         String tokenId = claims.getId();
         UUID userId = UUID.fromString(claims.getSubject());
 
-        RefreshToken storedToken = refreshTokenRepository.findByTokenId(tokenId)
-            .orElseThrow(() -> new InvalidTokenException("Token not found or revoked"));
-
-        if (!storedToken.isValid()) {
-            log.warn("Attempted use of invalid refresh token for user: {}", userId);
-            refreshTokenRepository.revokeAllByUserId(userId, Instant.now(), "SUSPICIOUS");
-            throw new InvalidTokenException("Token has been revoked");
-        }
-
-        User user = userRepository.findById(userId)
+        UserSnapshot user = userSnapshotCache.get(userId)
             .orElseThrow(() -> new InvalidTokenException("User not found"));
 
-        if (!user.isActive()) {
+        if (!user.active()) {
             throw new AuthException("ACCOUNT_DISABLED", "Account is disabled");
         }
 
-        storedToken.revoke("ROTATION");
-        refreshTokenRepository.save(storedToken);
-
-        String newAccessToken = jwtService.generateAccessToken(user);
+        String deviceId = claims.get("deviceId", String.class);
         String newTokenId = UUID.randomUUID().toString();
-        String newRefreshToken = jwtService.generateRefreshToken(user, newTokenId, storedToken.getDeviceId());
+        String newRefreshToken = jwtService.generateRefreshToken(user, newTokenId, jwtService.getFamilyId(claims), deviceId);
+        Instant expiresAt = Instant.now().plusSeconds(jwtConfig.getRefreshTokenExpiry());
+
+        RefreshSessionStore.Rotation rotation = refreshSessionStore.rotate(userId, tokenId, hashToken(refreshToken),
+            newTokenId, hashToken(newRefreshToken), ipAddress, expiresAt);
+        switch (rotation) {
+            case ROTATED -> { }
+            case MISSING -> {
+                // Commit a family revocation even though the refresh is rejected
+                InvalidTokenException rejected = writeTransaction.execute(status -> {
+                    try {
+                        rotateStoredToken(userId, tokenId, newTokenId, newRefreshToken, ipAddress, expiresAt);
+                        return null;
+                    } catch (InvalidTokenException e) {
+                        return e;
+                    }
+                });
+                if (rejected != null) {
+                    throw rejected;
+                }
+            }
+            case REUSED -> {
+                log.warn("Reuse of revoked refresh token for user {}; token family revoked", userId);
+                throw new InvalidTokenException("Token has been revoked");
+            }
+            case MISMATCH, EXPIRED -> throw new InvalidTokenException("Token not found or revoked");
+        }
 
-        RefreshToken newStoredToken = RefreshToken.builder()
-            .id(newTokenId)
-            .userId(user.getId())
-            .tokenHash(hashToken(newRefreshToken))
-            .deviceId(storedToken.getDeviceId())
-            .deviceInfo(storedToken.getDeviceInfo())
-            .ipAddress(ipAddress)
-            .expiresAt(Instant.now().plusSeconds(jwtConfig.getRefreshTokenExpiry()))
-            .build();
-        refreshTokenRepository.save(newStoredToken);
+        String newAccessToken = jwtService.generateAccessToken(user);
 
         log.debug("Refresh token rotated for user: {}", userId);
         return TokenResponse.of(newAccessToken, newRefreshToken, jwtService.getAccessTokenExpiry());
@@ -207,11 +284,13 @@ public class AuthService {
             String tokenId = claims.getId();
             UUID userId = UUID.fromString(claims.getSubject());
 
-            refreshTokenRepository.findByTokenId(tokenId)
-                .ifPresent(token -> {
-                    token.revoke("LOGOUT");
-                    refreshTokenRepository.save(token);
-                });
+            if (!refreshSessionStore.revoke(userId, tokenId, "LOGOUT")) {
+                refreshTokenRepository.findByTokenId(tokenId)
+                    .ifPresent(token -> {
+                        token.revoke("LOGOUT");
+                        refreshTokenRepository.save(token);
+                    });
+            }
 
             auditLog(userId, null, null, ipAddress, userAgent,
                 AuthEventType.LOGOUT, true, null);
@@ -224,6 +303,8 @@ public class AuthService {
     @Transactional
     public void logoutAll(UUID userId, String ipAddress, String userAgent) {
         refreshTokenRepository.revokeAllByUserId(userId, Instant.now(), "LOGOUT_ALL");
+        refreshSessionStore.revokeAll(userId, "LOGOUT_ALL");
+        revocationPublisher.subjectRevoked(userId.toString());
         auditLog(userId, null, null, ipAddress, userAgent,
             AuthEventType.LOGOUT, true, "All devices");
     }
@@ -235,23 +316,25 @@ public class AuthService {
     private LoginResponse generateLoginResponse(User user, String deviceId, String ipAddress, String userAgent) {
         String accessToken = jwtService.generateAccessToken(user);
         String tokenId = UUID.randomUUID().toString();
-        String refreshTokenStr = jwtService.generateRefreshToken(user, tokenId, deviceId);
+        // A login starts a new rotation chain named after its first token
+        String refreshTokenStr = jwtService.generateRefreshToken(user, tokenId, tokenId, deviceId);
 
         // Store refresh token
         RefreshToken refreshToken = RefreshToken.builder()
             .id(tokenId)
             .userId(user.getId())
             .tokenHash(hashToken(refreshTokenStr))
+            .familyId(tokenId)
             .deviceId(deviceId)
             .deviceInfo(userAgent)
             .ipAddress(ipAddress)
             .expiresAt(Instant.now().plusSeconds(jwtConfig.getRefreshTokenExpiry()))
             .build();
         refreshTokenRepository.save(refreshToken);
+        refreshSessionStore.save(refreshToken);
 
-        // Update last login
-        user.setLastLoginAt(Instant.now());
-        userRepository.save(user);
+        // Update last login; the user may be detached, so it is not merged
+        userRepository.updateLastLoginAt(user.getId(), Instant.now());
 
         auditLog(user.getId(), user.getEmail(), null, ipAddress, userAgent,
             AuthEventType.LOGIN_SUCCESS, true, null);
@@ -272,29 +355,96 @@ public class AuthService {
         );
     }
 
+    /**
+     * Rotates a token that is only in Postgres, then adds its successor to Redis.
+     */
+    private void rotateStoredToken(UUID userId, String tokenId, String newTokenId, String newRefreshToken,
+                                   String ipAddress, Instant expiresAt) {
+        RefreshToken storedToken = refreshTokenRepository.findByTokenId(tokenId)
+            .orElseThrow(() -> new InvalidTokenException("Token not found or revoked"));
+
+        if (!storedToken.isValid()) {
+            log.warn("Attempted use of invalid refresh token for user: {}; token family revoked", userId);
+            refreshTokenRepository.revokeFamily(storedToken.getFamilyId(), Instant.now(), "SUSPICIOUS");
+            refreshSessionStore.revokeFamily(userId, storedToken.getFamilyId(), "SUSPICIOUS");
+            throw new InvalidTokenException("Token has been revoked");
+        }
+
+        storedToken.revoke("ROTATION");
+        storedToken.recordUsage();
+        refreshTokenRepository.save(storedToken);
+
+        RefreshToken newStoredToken = RefreshToken.builder()
+            .id(newTokenId)
+            .userId(userId)
+            .tokenHash(hashToken(newRefreshToken))
+            .familyId(storedToken.getFamilyId())
+            .deviceId(storedToken.getDeviceId())
+            .deviceInfo(storedToken.getDeviceInfo())
+            .ipAddress(ipAddress)
+            .expiresAt(expiresAt)
+            .build();
+        refreshTokenRepository.save(newStoredToken);
+        refreshSessionStore.save(newStoredToken);
+    }
+
+    /**
+     * Replaces a hash made under an older algorithm or cost on the loaded credential; stored by
+     * {@link #savePasswordHash} with the login's writes. Skipped when the hashing pool is
+     * saturated, so the next login retries it.
+     *
+     * @return whether the credential now holds a new hash
+     */
+    private boolean rehashPassword(UserCredential credential, String rawPassword) {
+        try {
+            credential.setPasswordHash(passwordHasher.encode(rawPassword));
+            log.debug("Password rehashed under current policy for user: {}", credential.getUserId());
+            return true;
+        } catch (RateLimitException e) {
+            log.debug("Password rehash deferred for user {}: hashing queue full", credential.getUserId());
+            return false;
+        }
+    }
+
+    private void savePasswordHash(UserCredential credential) {
+        userRepository.updatePasswordHash(credential.getUserId(), credential.getPasswordHash(), Instant.now());
+    }
+
+    /**
+     * Fails closed: without Redis the lockout cannot be checked, so the login is answered
+     * with 503 rather than let through unthrottled.
+     */
     private void checkAccountLockout(String email, String ipAddress) {
-        Instant since = Instant.now().minus(LOCKOUT_MINUTES, ChronoUnit.MINUTES);
+        LoginFailureCounter.Lockout lockout;
+        try {
+            lockout = loginFailureCounter.check(email, ipAddress);
+        } catch (DataAccessException e) {
+            log.warn("Login lockout check failed, Redis unavailable: {}", e.getMessage());
+            throw new ServiceUnavailableException("Sign-in is temporarily unavailable, try again shortly",
+                LOCKOUT_UNAVAILABLE_RETRY_AFTER_SECONDS, e);
+        }
 
-        // Check failed attempts by email
-        long failedByEmail = auditLogRepository.countFailedLoginsByEmailSince(email, since);
-        if (failedByEmail >= MAX_FAILED_LOGINS) {
-            int retryAfter = (int) (LOCKOUT_MINUTES * 60 - ChronoUnit.SECONDS.between(since, Instant.now()));
+        if (lockout.emailLocked()) {
             throw new RateLimitException(
                 "Account temporarily locked due to too many failed attempts",
-                Math.max(retryAfter, 60)
+                lockout.emailRetryAfterSeconds()
             );
         }
 
-        // Check failed attempts by IP
-        long failedByIp = auditLogRepository.countFailedAttemptsByIpSince(
-            ipAddress, AuthEventType.LOGIN_FAILED, since);
-        if (failedByIp >= MAX_FAILED_LOGINS * 2) {
-            throw new RateLimitException("Too many failed attempts from this IP", LOCKOUT_MINUTES * 60);
+        if (lockout.ipLocked()) {
+            throw new RateLimitException("Too many failed attempts from this IP", lockout.ipRetryAfterSeconds());
         }
     }
 
     private void auditLoginFailure(UUID userId, String email, String phone,
                                    String ipAddress, String userAgent, String details) {
+        // Counted in Redis so the lockout is shared across instances and survives rollbacks
+        try {
+            loginFailureCounter.recordFailure(email, ipAddress);
+        } catch (DataAccessException e) {
+            // The next lockout check fails closed while Redis stays down
+            log.warn("Login failure not counted, Redis unavailable: {}", e.getMessage());
+        }
         auditLog(userId, email, phone, ipAddress, userAgent, AuthEventType.LOGIN_FAILED, false, details);
     }
 
@@ -310,7 +460,10 @@ public class AuthService {
         log.setEventType(eventType);
         log.setSuccess(success);
         log.setDetails(details);
-        auditLogRepository.save(log);
+        auditLogWriter.write(log);
+    }
+
+    private record SecondFactorCheck(User user, String method, boolean verified, List<String> recoveryCodeHashes) {
     }
 
     private String hashToken(String token) {
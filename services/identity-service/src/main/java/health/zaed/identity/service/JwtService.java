@@ -2,10 +2,10 @@ package health.zaed.identity.service;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtBuilder;
 import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
@@ -15,19 +15,21 @@ import health.zaed.identity.config.JwtConfig;
 import health.zaed.identity.exception.InvalidTokenException;
 import health.zaed.identity.model.entity.User;
 import health.zaed.identity.model.enums.OtpContext;
-import health.zaed.identity.model.enums.Permission;
+import health.zaed.identity.security.JwkSet;
+import health.zaed.identity.security.JwtKeyMaterial;
+import health.zaed.identity.security.PermissionCatalog;
+import health.zaed.identity.security.VerifiedTokenCache;
 
-import javax.crypto.SecretKey;
 import java.time.Instant;
 import java.util.Date;
-import java.util.List;
 import java.util.UUID;
 
 /**
  * JWT token generation and validation service.
  *
- * <p>Phase 1: Uses HS256 (symmetric) signing.
- * <p>Phase 2: Will migrate to RS256 (asymmetric). See ADR-008.
+ * <p>Phase 1: Uses HS256 (symmetric) signing with the configured secret.
+ * <p>Phase 2: Signs with the active key of the asymmetric key ring managed by
+ * {@link SigningKeyService}, which installs new material on every ring change. See ADR-008.
  */
 @Service
 public class JwtService {
@@ -35,45 +37,116 @@ public class JwtService {
     private static final Logger log = LoggerFactory.getLogger(JwtService.class);
 
     private final JwtConfig jwtConfig;
+    private final VerifiedTokenCache verifiedTokenCache;
 
-    public JwtService(JwtConfig jwtConfig) {
+    /**
+     * Decoded keys and prebuilt parser, swapped as a unit. Null until the key ring
+     * has been loaded when an asymmetric algorithm is configured.
+     */
+    private volatile JwtKeyMaterial keyMaterial;
+
+    public JwtService(JwtConfig jwtConfig, VerifiedTokenCache verifiedTokenCache) {
         this.jwtConfig = jwtConfig;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.keyMaterial = jwtConfig.getAlgorithm().isAsymmetric() ? null : JwtKeyMaterial.from(jwtConfig);
+    }
+
+    /**
+     * Re-derives the HS256 signing key and parser from the current {@link JwtConfig}.
+     *
+     * <p>Call after the secret or issuer has been rebound at runtime. Tokens being
+     * validated concurrently keep using the previous material until the swap completes;
+     * tokens verified under it are then dropped from {@link VerifiedTokenCache}.
+     *
+     * @throws IllegalStateException if an asymmetric algorithm is configured
+     */
+    public void reloadKeyMaterial() {
+        if (jwtConfig.getAlgorithm().isAsymmetric()) {
+            throw new IllegalStateException("Key material for " + jwtConfig.getAlgorithm() + " is managed by the key ring");
+        }
+        this.keyMaterial = JwtKeyMaterial.from(jwtConfig);
+        verifiedTokenCache.invalidateAll();
+        log.info("JWT key material reloaded");
+    }
+
+    /**
+     * Swaps in key-ring material and drops cached verifications, so tokens of a key removed
+     * from the ring stop verifying at once. Tokens signed or validated concurrently keep
+     * using the previous material until the swap completes.
+     */
+    public void installKeyMaterial(@NonNull JwtKeyMaterial keyMaterial) {
+        this.keyMaterial = keyMaterial;
+        verifiedTokenCache.invalidateAll();
+        log.info("JWT key material installed, signing kid={}", keyMaterial.keyId());
+    }
+
+    /**
+     * Public keys currently published for verification.
+     */
+    public @NonNull JwkSet getJwkSet() {
+        JwtKeyMaterial material = keyMaterial;
+        return material != null ? material.jwkSet() : JwkSet.empty();
     }
 
     public @NonNull String generateAccessToken(@NonNull User user) {
-        List<String> permissions = Permission.getPermissionsForRole(user.getRole())
-            .stream()
-            .map(Enum::name)
-            .toList();
+        return generateAccessToken(UserSnapshot.of(user));
+    }
 
-        return Jwts.builder()
-            .subject(user.getId().toString())
+    /**
+     * Generates an access token. Besides {@code iat} (whole seconds) it carries
+     * {@code iat_ms}, the issue time in epoch milliseconds, so a login right after a
+     * session revocation can be told apart from tokens issued earlier in the same second.
+     */
+    public @NonNull String generateAccessToken(@NonNull UserSnapshot user) {
+        Instant now = Instant.now();
+        JwtBuilder builder = Jwts.builder()
+            .subject(user.id().toString())
             .claim("type", "access")
-            .claim("email", user.getEmail())
-            .claim("role", user.getRole().name())
-            .claim("permissions", permissions)
-            .claim("partnerId", user.getPartnerId() != null ? user.getPartnerId().toString() : null)
+            .claim("email", user.email())
+            .claim("role", user.role().name())
+            .claim("permissions", PermissionCatalog.permissionNames(user.role()))
+            .claim("partnerId", user.partnerId() != null ? user.partnerId().toString() : null)
+            .claim("iat_ms", now.toEpochMilli())
             .issuer(jwtConfig.getIssuer())
-            .issuedAt(new Date())
-            .expiration(Date.from(Instant.now().plusSeconds(jwtConfig.getAccessTokenExpiry())))
-            .signWith(getSigningKey())
-            .compact();
+            .issuedAt(Date.from(now))
+            .expiration(Date.from(now.plusSeconds(jwtConfig.getAccessTokenExpiry())));
+        return currentKeyMaterial().sign(builder).compact();
     }
 
+    /**
+     * Generates a refresh token.
+     *
+     * @param familyId ID of the login token the rotation chain started from; carried
+     *                 unchanged through every rotation
+     */
     public @NonNull String generateRefreshToken(
             @NonNull User user,
             @NonNull String tokenId,
+            @NonNull String familyId,
             @Nullable String deviceId) {
-        return Jwts.builder()
-            .subject(user.getId().toString())
+        return generateRefreshToken(UserSnapshot.of(user), tokenId, familyId, deviceId);
+    }
+
+    /**
+     * Generates a refresh token for a cached user.
+     *
+     * @see #generateRefreshToken(User, String, String, String)
+     */
+    public @NonNull String generateRefreshToken(
+            @NonNull UserSnapshot user,
+            @NonNull String tokenId,
+            @NonNull String familyId,
+            @Nullable String deviceId) {
+        JwtBuilder builder = Jwts.builder()
+            .subject(user.id().toString())
             .claim("type", "refresh")
             .id(tokenId)
+            .claim("fid", familyId)
             .claim("deviceId", deviceId)
             .issuer(jwtConfig.getIssuer())
             .issuedAt(new Date())
-            .expiration(Date.from(Instant.now().plusSeconds(jwtConfig.getRefreshTokenExpiry())))
-            .signWith(getSigningKey())
-            .compact();
+            .expiration(Date.from(Instant.now().plusSeconds(jwtConfig.getRefreshTokenExpiry())));
+        return currentKeyMaterial().sign(builder).compact();
     }
 
     public @NonNull String generateTempToken(
@@ -81,42 +154,32 @@ public class JwtService {
             @NonNull OtpContext context,
             @NonNull UUID referenceId,
             @NonNull String trackingCode) {
-        List<String> permissions = List.of(context.getGrantedPermissions())
-            .stream()
-            .map(Permission::name)
-            .toList();
-
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
             .subject("phone:" + phone)
             .claim("type", "temp")
             .claim("context", context.name())
             .claim("referenceId", referenceId.toString())
             .claim("trackingCode", trackingCode)
-            .claim("permissions", permissions)
+            .claim("permissions", PermissionCatalog.permissionNames(context))
             .issuer(jwtConfig.getIssuer())
             .issuedAt(new Date())
-            .expiration(Date.from(Instant.now().plusSeconds(jwtConfig.getTempTokenExpiry())))
-            .signWith(getSigningKey())
-            .compact();
+            .expiration(Date.from(Instant.now().plusSeconds(jwtConfig.getTempTokenExpiry())));
+        return currentKeyMaterial().sign(builder).compact();
     }
 
     public @NonNull String generate2FATempToken(@NonNull UUID userId) {
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
             .subject(userId.toString())
             .claim("type", "2fa_pending")
             .issuer(jwtConfig.getIssuer())
             .issuedAt(new Date())
-            .expiration(Date.from(Instant.now().plusSeconds(300)))
-            .signWith(getSigningKey())
-            .compact();
+            .expiration(Date.from(Instant.now().plusSeconds(300)));
+        return currentKeyMaterial().sign(builder).compact();
     }
 
     public @NonNull Claims validateToken(@NonNull String token) {
         try {
-            return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .requireIssuer(jwtConfig.getIssuer())
-                .build()
+            return currentKeyMaterial().parser()
                 .parseSignedClaims(token)
                 .getPayload();
         } catch (ExpiredJwtException e) {
@@ -152,9 +215,21 @@ public class JwtService {
         return claims.get("type", String.class);
     }
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(jwtConfig.getSecret());
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * Rotation chain of a refresh token. Tokens issued before families were tracked have
+     * no {@code fid} claim and start their own chain.
+     */
+    public @NonNull String getFamilyId(@NonNull Claims claims) {
+        String familyId = claims.get("fid", String.class);
+        return familyId != null ? familyId : claims.getId();
+    }
+
+    private JwtKeyMaterial currentKeyMaterial() {
+        JwtKeyMaterial material = keyMaterial;
+        if (material == null) {
+            throw new IllegalStateException("JWT signing key ring not loaded");
+        }
+        return material;
     }
 
     public int getAccessTokenExpiry() {
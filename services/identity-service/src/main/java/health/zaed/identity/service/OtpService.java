@@ -1,25 +1,46 @@
 package health.zaed.identity.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 import health.zaed.identity.config.OtpConfig;
 import health.zaed.identity.exception.OtpException;
 import health.zaed.identity.exception.RateLimitException;
+import health.zaed.identity.model.enums.OtpBulkStatus;
 import health.zaed.identity.model.enums.OtpContext;
+import health.zaed.identity.security.OtpHasher;
 
 import java.security.SecureRandom;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 /**
  * OTP generation, storage, and verification service.
  *
  * <p>OTPs are stored in Redis with TTL for automatic expiration.
- * Rate limiting is enforced per phone number.
+ * Sends are limited over a sliding one-hour window per phone, per phone number prefix and
+ * per client IP. Sending and verification run as Lua scripts ({@code scripts/otp-*.lua})
+ * executed via EVALSHA, falling back to EVAL on NOSCRIPT.
+ *
+ * <p>A repeated send for the same phone, context and reference ID within
+ * {@code send-dedup-window-seconds} is answered with the original dispatch: no new code,
+ * no SMS and no rate-limit charge. Sends avoided this way are counted as
+ * {@code otp.send.deduplicated}.
+ *
+ * <p>{@link #sendBulk} applies the same limits and deduplication to a partner's batch in
+ * one pipelined round trip, whatever the batch size.
  */
 @Service
 public class OtpService {
@@ -27,119 +48,315 @@ public class OtpService {
     private static final Logger log = LoggerFactory.getLogger(OtpService.class);
 
     private final StringRedisTemplate redisTemplate;
-    private final PasswordEncoder passwordEncoder;
+    private final OtpHasher otpHasher;
     private final OtpConfig otpConfig;
-    private final SmsGateway smsGateway;
+    private final SmsOutbox smsOutbox;
+    private final MeterRegistry meterRegistry;
+    private final Counter deduplicatedCounter;
 
     private static final String OTP_KEY_PREFIX = "otp:";
     private static final String OTP_ATTEMPTS_PREFIX = "otp_attempts:";
-    private static final String OTP_RATE_LIMIT_PREFIX = "otp_rate:";
+    static final String RATE_PHONE_PREFIX = "otp_rate:phone:";
+    static final String RATE_NUMBER_PREFIX = "otp_rate:prefix:";
+    static final String RATE_IP_PREFIX = "otp_rate:ip:";
+    static final String RATE_SENDER_PREFIX = "otp_rate:sender:";
+    static final Duration RATE_LIMIT_WINDOW = Duration.ofHours(1);
+    static final String SEND_DEDUP_PREFIX = "otp_send:";
     private static final SecureRandom SECURE_RANDOM = new SecureRandom();
 
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static final RedisScript<List<?>> VERIFY_ATTEMPT_SCRIPT =
+        (RedisScript) RedisScript.of(new ClassPathResource("scripts/otp-verify-attempt.lua"), List.class);
+    static final RedisScript<Long> CONSUME_SCRIPT =
+        RedisScript.of(new ClassPathResource("scripts/otp-consume.lua"), Long.class);
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static final RedisScript<List<?>> SEND_SCRIPT =
+        (RedisScript) RedisScript.of(new ClassPathResource("scripts/otp-send.lua"), List.class);
+    private static final int SEND_KEY_COUNT = 8;
+    private static final long SEND_RATE_LIMITED = 0;
+    private static final long SEND_DEDUPLICATED = 2;
+    private static final String[] RATE_LIMIT_DIMENSIONS = {"phone", "prefix"};
+    private static final long ATTEMPTS_EXHAUSTED = -1;
+    private static final long OTP_MISSING = -2;
+
     public OtpService(StringRedisTemplate redisTemplate,
-                      PasswordEncoder passwordEncoder,
+                      OtpHasher otpHasher,
                       OtpConfig otpConfig,
-                      SmsGateway smsGateway) {
+                      SmsOutbox smsOutbox,
+                      MeterRegistry meterRegistry) {
         this.redisTemplate = redisTemplate;
-        this.passwordEncoder = passwordEncoder;
+        this.otpHasher = otpHasher;
         this.otpConfig = otpConfig;
-        this.smsGateway = smsGateway;
+        this.smsOutbox = smsOutbox;
+        this.meterRegistry = meterRegistry;
+        this.deduplicatedCounter = Counter.builder("otp.send.deduplicated")
+            .description("OTP sends answered with an earlier dispatch instead of a new SMS")
+            .register(meterRegistry);
     }
 
-    public int sendOtp(
+    /**
+     * Sends an OTP without an idempotency key, deduplicated on phone, context and
+     * reference ID alone.
+     *
+     * @see #sendOtp(String, String, OtpContext, UUID, String, String)
+     */
+    public OtpDispatch sendOtp(
             @NonNull String phone,
             @NonNull String channel,
             @NonNull OtpContext context,
-            @NonNull UUID referenceId) {
-        checkRateLimit(phone);
+            @NonNull UUID referenceId,
+            @NonNull String ipAddress) {
+        return sendOtp(phone, channel, context, referenceId, ipAddress, null);
+    }
 
+    /**
+     * Generates and stores an OTP, then queues its SMS on the {@link SmsOutbox}. Returns
+     * without waiting for the SMS provider; delivery is tracked by the returned delivery ID.
+     *
+     * <p>The dedup check, rate limits, OTP write and outbox entry are one script call, so
+     * a send costs a single round trip and concurrent duplicates, on any instance, cannot
+     * both send: the first records its dispatch and the others get it back with the
+     * remaining expiry. With an idempotency key only retries carrying the same key are
+     * duplicates, so a deliberate resend under a new key sends a new code.
+     *
+     * @throws RateLimitException if the phone, its number prefix or the IP is at its limit
+     */
+    public OtpDispatch sendOtp(
+            @NonNull String phone,
+            @NonNull String channel,
+            @NonNull OtpContext context,
+            @NonNull UUID referenceId,
+            @NonNull String ipAddress,
+            @Nullable String idempotencyKey) {
         String otp = generateOtp();
-        log.debug("Generated OTP for phone: {}***{}", phone.substring(0, 6), phone.substring(phone.length() - 2));
+        UUID deliveryId = UUID.randomUUID();
+        List<?> result = redisTemplate.execute(SEND_SCRIPT,
+            sendKeys(phone, context, referenceId, idempotencyKey, RATE_IP_PREFIX + ipAddress, deliveryId),
+            (Object[]) sendArgs(phone, channel, otp, deliveryId, otpConfig.getRateLimitPerIpPerHour(),
+                System.currentTimeMillis()).toArray(String[]::new));
 
-        String key = buildOtpKey(phone, context, referenceId);
-        String hashedOtp = passwordEncoder.encode(otp);
-        redisTemplate.opsForValue().set(key, hashedOtp, Duration.ofSeconds(otpConfig.getExpirySeconds()));
-
-        String attemptsKey = OTP_ATTEMPTS_PREFIX + key;
-        redisTemplate.delete(attemptsKey);
+        BulkOutcome outcome = outcome(result, phone, deliveryId, "IP");
+        switch (outcome.status()) {
+            case RATE_LIMITED ->
+                throw new RateLimitException("Maximum OTP requests exceeded. Try again later.", outcome.retryAfter());
+            case DEDUPLICATED -> {
+                deduplicatedCounter.increment();
+                log.info("Duplicate OTP send for {} answered with delivery {}", maskPhone(phone),
+                    outcome.dispatch().deliveryId());
+            }
+            default -> log.info("OTP queued for {} (delivery {})", maskPhone(phone), deliveryId);
+        }
+        return outcome.dispatch();
+    }
 
-        incrementRateLimit(phone);
+    /**
+     * Sends OTPs for a partner's batch, with an outcome per entry in entry order.
+     *
+     * <p>Each entry goes through the same send script as {@link #sendOtp}, with the per-IP
+     * limit replaced by one per sender, and all of them are pipelined in one round trip.
+     * Redis runs the scripts in order, so entries for the same phone or prefix count against
+     * each other as they would sequentially, and with deduplication on an entry repeated
+     * within the batch is a duplicate of its first occurrence.
+     *
+     * @param senderId partner or user the per-sender limit is kept for
+     */
+    public List<BulkOutcome> sendBulk(@NonNull List<BulkEntry> entries, @NonNull String senderId) {
+        int size = entries.size();
+        UUID[] deliveryIds = new UUID[size];
+        long now = System.currentTimeMillis();
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            redis.scriptLoad(SEND_SCRIPT.getScriptAsString());
+            for (int i = 0; i < size; i++) {
+                BulkEntry entry = entries.get(i);
+                deliveryIds[i] = UUID.randomUUID();
+                List<String> keysAndArgs = new ArrayList<>(sendKeys(entry.phone(), entry.context(),
+                    entry.referenceId(), null, RATE_SENDER_PREFIX + senderId, deliveryIds[i]));
+                keysAndArgs.addAll(sendArgs(entry.phone(), entry.channel(), generateOtp(), deliveryIds[i],
+                    otpConfig.getBulkRateLimitPerSenderPerHour(), now));
+                redis.evalSha(SEND_SCRIPT.getSha1(), ReturnType.MULTI, SEND_KEY_COUNT,
+                    keysAndArgs.toArray(String[]::new));
+            }
+            return null;
+        });
 
-        boolean sent = smsGateway.sendOtp(phone, otp, channel);
-        if (!sent) {
-            log.error("Failed to send OTP to {}", maskPhone(phone));
-            throw new OtpException("Failed to send OTP. Please try again.");
+        List<BulkOutcome> outcomes = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            // Result 0 is the SCRIPT LOAD
+            BulkOutcome outcome = outcome((List<?>) results.get(i + 1), entries.get(i).phone(), deliveryIds[i],
+                "sender");
+            if (outcome.status() == OtpBulkStatus.DEDUPLICATED) {
+                deduplicatedCounter.increment();
+            }
+            meterRegistry.counter("otp.send.bulk.entries", "status", outcome.status().name()).increment();
+            outcomes.add(outcome);
         }
-
-        log.info("OTP sent successfully to {}", maskPhone(phone));
-        return otpConfig.getExpirySeconds();
+        log.info("Bulk OTP send of {} entries for sender {}", size, senderId);
+        return outcomes;
     }
 
+    /**
+     * Verifies an OTP in two script calls: one reserves an attempt and returns the stored
+     * hash, the second consumes the OTP once the code matches. The attempt cap is enforced
+     * inside Redis, so concurrent guesses cannot exceed it, and a wrong code costs a single
+     * round trip.
+     */
     public boolean verifyOtp(
             @NonNull String phone,
             @NonNull String otp,
             @NonNull OtpContext context,
             @NonNull UUID referenceId) {
         String key = buildOtpKey(phone, context, referenceId);
-        String attemptsKey = OTP_ATTEMPTS_PREFIX + key;
+        List<String> keys = List.of(key, OTP_ATTEMPTS_PREFIX + key);
 
-        String attemptsStr = redisTemplate.opsForValue().get(attemptsKey);
-        int attempts = attemptsStr != null ? Integer.parseInt(attemptsStr) : 0;
+        List<?> reserved = redisTemplate.execute(VERIFY_ATTEMPT_SCRIPT, keys,
+            String.valueOf(otpConfig.getMaxAttempts()), String.valueOf(otpConfig.getExpirySeconds()));
+        if (reserved == null || reserved.size() != 2) {
+            throw new IllegalStateException("Unexpected OTP verify script result: " + reserved);
+        }
+        long status = ((Number) reserved.get(0)).longValue();
 
-        if (attempts >= otpConfig.getMaxAttempts()) {
+        if (status == ATTEMPTS_EXHAUSTED) {
             log.warn("Max OTP attempts exceeded for {}", maskPhone(phone));
             throw new OtpException("TOO_MANY_ATTEMPTS", "Maximum verification attempts exceeded. Request a new OTP.",
                 otpConfig.getExpirySeconds());
         }
-
-        String storedHash = redisTemplate.opsForValue().get(key);
-        if (storedHash == null) {
+        if (status == OTP_MISSING) {
             log.debug("OTP not found or expired for {}", maskPhone(phone));
-            throw new OtpException("OTP_EXPIRED", "OTP has expired. Please request a new one.", 0);
+            throw otpExpired();
         }
 
-        if (!passwordEncoder.matches(otp, storedHash)) {
-            redisTemplate.opsForValue().increment(attemptsKey);
-            redisTemplate.expire(attemptsKey, Duration.ofSeconds(otpConfig.getExpirySeconds()));
-
-            int remaining = otpConfig.getMaxAttempts() - attempts - 1;
+        String storedHash = (String) reserved.get(1);
+        if (!otpHasher.matches(otp, storedHash)) {
+            int remaining = Math.max(0, otpConfig.getMaxAttempts() - (int) status);
             log.debug("Invalid OTP for {}, {} attempts remaining", maskPhone(phone), remaining);
             throw new OtpException("INVALID_OTP", "Invalid OTP code", remaining);
         }
 
-        redisTemplate.delete(key);
-        redisTemplate.delete(attemptsKey);
+        Long consumed = redisTemplate.execute(CONSUME_SCRIPT, keys, storedHash);
+        if (consumed == null || consumed == 0) {
+            // Consumed by a concurrent verify, or replaced by a resend, since the attempt was reserved
+            log.debug("OTP for {} was consumed or replaced during verification", maskPhone(phone));
+            throw otpExpired();
+        }
 
         log.info("OTP verified successfully for {}", maskPhone(phone));
         return true;
     }
 
-    public int getRetryAfter(String phone) {
-        String rateLimitKey = OTP_RATE_LIMIT_PREFIX + phone;
-        Long ttl = redisTemplate.getExpire(rateLimitKey);
-        return ttl != null && ttl > 0 ? ttl.intValue() : 0;
+    /**
+     * Keys of {@link #SEND_SCRIPT}: the dedup key, the sorted sets the send is counted in
+     * (the phone, its number prefix, and the client IP or bulk sender given as
+     * {@code sourceKey}), the OTP and its attempts, and the outbox message and stream.
+     */
+    private List<String> sendKeys(String phone, OtpContext context, UUID referenceId,
+                                  @Nullable String idempotencyKey, String sourceKey, UUID deliveryId) {
+        String key = buildOtpKey(phone, context, referenceId);
+        return List.of(
+            SEND_DEDUP_PREFIX + phone + ":" + context.name() + ":" + referenceId
+                + (idempotencyKey != null ? ":" + idempotencyKey : ""),
+            RATE_PHONE_PREFIX + phone,
+            RATE_NUMBER_PREFIX + phone.substring(0, Math.min(phone.length(), otpConfig.getRateLimitPrefixLength())),
+            sourceKey,
+            key,
+            OTP_ATTEMPTS_PREFIX + key,
+            SmsOutbox.MESSAGE_KEY_PREFIX + deliveryId,
+            SmsOutbox.STREAM_KEY);
+    }
+
+    private List<String> sendArgs(String phone, String channel, String otp, UUID deliveryId, int sourceLimit, long now) {
+        return List.of(
+            String.valueOf(now),
+            String.valueOf(Math.max(otpConfig.getSendDedupWindowSeconds(), 0) * 1000L),
+            String.valueOf(RATE_LIMIT_WINDOW.toMillis()),
+            // Each send needs its own sorted-set member
+            UUID.randomUUID().toString(),
+            String.valueOf(otpConfig.getRateLimitPerHour()),
+            String.valueOf(otpConfig.getRateLimitPerPrefixPerHour()),
+            String.valueOf(sourceLimit),
+            otpHasher.hash(otp),
+            String.valueOf(otpConfig.getExpirySeconds()),
+            deliveryId.toString(),
+            phone,
+            otp,
+            channel,
+            String.valueOf(smsOutbox.maxStreamLength()));
     }
 
-    private void checkRateLimit(String phone) {
-        String rateLimitKey = OTP_RATE_LIMIT_PREFIX + phone;
-        String countStr = redisTemplate.opsForValue().get(rateLimitKey);
-        int count = countStr != null ? Integer.parseInt(countStr) : 0;
+    /**
+     * Reads a {@link #SEND_SCRIPT} result. {@code source} names the third rate-limit
+     * dimension for the log.
+     */
+    private BulkOutcome outcome(@Nullable List<?> result, String phone, UUID deliveryId, String source) {
+        if (result == null || result.size() < 2) {
+            throw new IllegalStateException("Unexpected OTP send script result: " + result);
+        }
+        long status = ((Number) result.get(0)).longValue();
+        if (status == SEND_DEDUPLICATED) {
+            return new BulkOutcome(OtpBulkStatus.DEDUPLICATED, decodeDispatch((String) result.get(1)), 0);
+        }
+        if (result.size() != 3) {
+            throw new IllegalStateException("Unexpected OTP send script result: " + result);
+        }
 
-        if (count >= otpConfig.getRateLimitPerHour()) {
-            Long ttl = redisTemplate.getExpire(rateLimitKey);
-            int retryAfter = ttl != null && ttl > 0 ? ttl.intValue() : 3600;
-            log.warn("Rate limit exceeded for {}", maskPhone(phone));
-            throw new RateLimitException("Maximum OTP requests exceeded. Try again later.", retryAfter);
+        int seconds = retryAfterSeconds(((Number) result.get(1)).longValue());
+        if (status == SEND_RATE_LIMITED) {
+            int dimension = ((Number) result.get(2)).intValue();
+            log.warn("OTP {} rate limit exceeded for {}", dimension == 3 ? source : RATE_LIMIT_DIMENSIONS[dimension - 1],
+                maskPhone(phone));
+            return new BulkOutcome(OtpBulkStatus.RATE_LIMITED, null, seconds);
         }
+        return new BulkOutcome(OtpBulkStatus.QUEUED, new OtpDispatch(deliveryId, otpConfig.getExpirySeconds(), seconds), 0);
     }
 
-    private void incrementRateLimit(String phone) {
-        String rateLimitKey = OTP_RATE_LIMIT_PREFIX + phone;
-        Long count = redisTemplate.opsForValue().increment(rateLimitKey);
-        if (count != null && count == 1) {
-            // First request - set 1 hour expiry
-            redisTemplate.expire(rateLimitKey, Duration.ofHours(1));
+    /**
+     * Dispatch as stored under a dedup key: delivery ID, then expiry and retry-after as
+     * epoch milliseconds so duplicates can count them down.
+     */
+    private static OtpDispatch decodeDispatch(String value) {
+        String[] parts = value.split(":");
+        if (parts.length != 3) {
+            throw new IllegalStateException("Unexpected OTP send dedup value: " + value);
         }
+        long now = System.currentTimeMillis();
+        return new OtpDispatch(
+            UUID.fromString(parts[0]),
+            (int) Math.max(0, (Long.parseLong(parts[1]) - now + 999) / 1000),
+            retryAfterSeconds(Long.parseLong(parts[2]) - now));
+    }
+
+    private static int retryAfterSeconds(long millis) {
+        return (int) Math.max(1, (millis + 999) / 1000);
+    }
+
+    /**
+     * Result of {@link #sendOtp}.
+     *
+     * @param deliveryId SMS outbox delivery ID, for status polling
+     * @param expiresIn seconds until the OTP expires
+     * @param retryAfter seconds until the oldest send to the phone leaves the rate-limit window
+     */
+    public record OtpDispatch(UUID deliveryId, int expiresIn, int retryAfter) {
+    }
+
+    /**
+     * One entry of a {@link #sendBulk} batch.
+     */
+    public record BulkEntry(String phone, String channel, OtpContext context, UUID referenceId) {
+    }
+
+    /**
+     * Outcome of one {@link #sendBulk} entry.
+     *
+     * @param status QUEUED, DEDUPLICATED or RATE_LIMITED
+     * @param dispatch the new or original dispatch; null when rate limited
+     * @param retryAfter seconds until a rate-limited entry can be retried, otherwise 0
+     */
+    public record BulkOutcome(OtpBulkStatus status, @Nullable OtpDispatch dispatch, int retryAfter) {
+    }
+
+    private OtpException otpExpired() {
+        return new OtpException("OTP_EXPIRED", "OTP has expired. Please request a new one.", 0);
     }
 
     private String generateOtp() {
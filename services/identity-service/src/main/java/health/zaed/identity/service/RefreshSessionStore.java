@@ -0,0 +1,178 @@
+package health.zaed.identity.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import health.zaed.identity.config.RefreshSessionConfig;
+import health.zaed.identity.model.entity.RefreshToken;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Redis hot tier for refresh sessions.
+ *
+ * <p>Each session is a hash under {@code refresh:session:<jti>} holding the user, token hash,
+ * device, expiry, family and revocation state. A family is every token rotated from the
+ * same login. {@link #rotate} runs {@code scripts/refresh-session-rotate.lua}, which in one
+ * atomic call:
+ * <ul>
+ *   <li>revokes the presented token and stores its successor, or</li>
+ *   <li>detects a replay of an already revoked token and revokes the whole family, so of
+ *       two concurrent refreshes with the same token exactly one succeeds and the stolen
+ *       chain ends</li>
+ * </ul>
+ *
+ * <p>Rotations and revocations are appended to {@code refresh_sessions:sync} in the same
+ * call. {@link RefreshSessionSync} applies them to {@code refresh_tokens}, which stays the
+ * durable copy and the source for device and session listings.
+ */
+@Service
+public class RefreshSessionStore {
+
+    static final String SESSION_KEY_PREFIX = "refresh:session:";
+    static final String FAMILY_KEY_PREFIX = "refresh:family:";
+    static final String USER_KEY_PREFIX = "refresh:user:";
+    static final String SYNC_STREAM_KEY = "refresh_sessions:sync";
+
+    static final RedisScript<Long> SAVE_SCRIPT =
+        RedisScript.of(new ClassPathResource("scripts/refresh-session-save.lua"), Long.class);
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static final RedisScript<List<String>> ROTATE_SCRIPT =
+        (RedisScript) RedisScript.of(new ClassPathResource("scripts/refresh-session-rotate.lua"), List.class);
+    static final RedisScript<Long> REVOKE_SCRIPT =
+        RedisScript.of(new ClassPathResource("scripts/refresh-session-revoke.lua"), Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RefreshSessionConfig config;
+    private final MeterRegistry meterRegistry;
+
+    public RefreshSessionStore(StringRedisTemplate redisTemplate,
+                               RefreshSessionConfig config,
+                               MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Adds a token that was just written to Postgres to the hot tier.
+     */
+    public void save(@NonNull RefreshToken token) {
+        redisTemplate.execute(SAVE_SCRIPT,
+            List.of(SESSION_KEY_PREFIX + token.getId(), FAMILY_KEY_PREFIX + token.getFamilyId(),
+                USER_KEY_PREFIX + token.getUserId()),
+            token.getId(),
+            token.getUserId().toString(),
+            token.getTokenHash(),
+            token.getFamilyId(),
+            orEmpty(token.getDeviceId()),
+            orEmpty(token.getDeviceInfo()),
+            orEmpty(token.getIpAddress()),
+            String.valueOf(token.getExpiresAt().getEpochSecond()),
+            String.valueOf(Instant.now().getEpochSecond()));
+    }
+
+    /**
+     * Revokes the presented token and stores its successor in one atomic step.
+     *
+     * @param tokenHash SHA-256 hash of the presented token
+     * @param nextTokenHash SHA-256 hash of the successor token
+     */
+    public @NonNull Rotation rotate(@NonNull UUID userId,
+                                    @NonNull String tokenId,
+                                    @NonNull String tokenHash,
+                                    @NonNull String nextTokenId,
+                                    @NonNull String nextTokenHash,
+                                    @NonNull String ipAddress,
+                                    @NonNull Instant nextExpiresAt) {
+        List<String> result = redisTemplate.execute(ROTATE_SCRIPT,
+            List.of(SESSION_KEY_PREFIX + tokenId, SESSION_KEY_PREFIX + nextTokenId,
+                USER_KEY_PREFIX + userId, SYNC_STREAM_KEY),
+            tokenId,
+            tokenHash,
+            nextTokenId,
+            nextTokenHash,
+            ipAddress,
+            String.valueOf(nextExpiresAt.getEpochSecond()),
+            String.valueOf(Instant.now().getEpochSecond()),
+            SESSION_KEY_PREFIX,
+            FAMILY_KEY_PREFIX,
+            String.valueOf(config.getMaxStreamLength()));
+        if (result == null || result.isEmpty()) {
+            throw new IllegalStateException("Unexpected refresh rotation script result: " + result);
+        }
+
+        Rotation rotation = Rotation.valueOf(result.get(0));
+        meterRegistry.counter("refresh.tokens.rotations", "outcome", rotation.name().toLowerCase()).increment();
+        if (rotation == Rotation.REUSED && result.size() > 1) {
+            meterRegistry.counter("refresh.tokens.family.revoked").increment(Long.parseLong(result.get(1)));
+        }
+        return rotation;
+    }
+
+    /**
+     * Revokes one session.
+     *
+     * @return false if the session is not in Redis (or already revoked)
+     */
+    public boolean revoke(@NonNull UUID userId, @NonNull String tokenId, @NonNull String reason) {
+        return revokeSessions(List.of(USER_KEY_PREFIX + userId, SYNC_STREAM_KEY), reason, List.of(tokenId)) > 0;
+    }
+
+    /**
+     * Revokes every session of one rotation chain.
+     *
+     * @return sessions revoked in Redis
+     */
+    public long revokeFamily(@NonNull UUID userId, @NonNull String familyId, @NonNull String reason) {
+        return revokeSessions(List.of(USER_KEY_PREFIX + userId, SYNC_STREAM_KEY, FAMILY_KEY_PREFIX + familyId),
+            reason, List.of());
+    }
+
+    /**
+     * Revokes every live session of a user.
+     *
+     * @return sessions revoked in Redis
+     */
+    public long revokeAll(@NonNull UUID userId, @NonNull String reason) {
+        return revokeSessions(List.of(USER_KEY_PREFIX + userId, SYNC_STREAM_KEY), reason, List.of());
+    }
+
+    private long revokeSessions(List<String> keys, String reason, List<String> tokenIds) {
+        List<String> args = new ArrayList<>(4 + tokenIds.size());
+        args.add(String.valueOf(Instant.now().getEpochSecond()));
+        args.add(reason);
+        args.add(SESSION_KEY_PREFIX);
+        args.add(String.valueOf(config.getMaxStreamLength()));
+        args.addAll(tokenIds);
+        Long revoked = redisTemplate.execute(REVOKE_SCRIPT, keys, args.toArray());
+        return revoked != null ? revoked : 0;
+    }
+
+    private static String orEmpty(@Nullable String value) {
+        return value != null ? value : "";
+    }
+
+    /**
+     * Outcome of {@link #rotate}.
+     */
+    public enum Rotation {
+        /** Successor stored; the presented token is revoked. */
+        ROTATED,
+        /** Not in Redis: issued before the hot tier existed, or Redis lost it. */
+        MISSING,
+        /** The stored hash does not match the presented token. */
+        MISMATCH,
+        /** The session has expired. */
+        EXPIRED,
+        /** The presented token was already revoked; its whole family is now revoked. */
+        REUSED
+    }
+}
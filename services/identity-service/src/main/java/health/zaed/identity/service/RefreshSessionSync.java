@@ -0,0 +1,279 @@
+package health.zaed.identity.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import health.zaed.identity.config.RefreshSessionConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies {@link RefreshSessionStore} changes to {@code refresh_tokens} in batches.
+ *
+ * <p>Entries are read from {@code refresh_sessions:sync} through the {@code refresh-sync}
+ * consumer group, so each is applied by one instance. A batch is written in one
+ * transaction, then acknowledged and deleted from the stream. Entries carry whole rows and
+ * are written as upserts that never make a revoked row live again, so entries applied
+ * twice, or out of order by concurrent consumers or after a reclaim, end in the same
+ * state. Entries left unacknowledged by a failed batch or a crashed instance are
+ * reclaimed after {@code sync-reclaim-idle} seconds.
+ *
+ * <p>An entry Postgres rejects outright (e.g. its user was deleted) is logged and dropped
+ * so it cannot block the stream. Metrics: {@code refresh.sessions.synced},
+ * {@code refresh.sessions.sync.dropped} and {@code refresh.sessions.sync}.
+ */
+@Component
+public class RefreshSessionSync {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshSessionSync.class);
+
+    static final String CONSUMER_GROUP = "refresh-sync";
+    private static final int RECLAIM_BATCH_SIZE = 100;
+
+    /**
+     * Every change is an upsert of the whole row, so entries can be applied in any order:
+     * the earliest revocation wins and a row is never made live again once revoked.
+     */
+    private static final String UPSERT = """
+        INSERT INTO refresh_tokens (id, user_id, token_hash, family_id, device_id, device_info, ip_address,
+                                    expires_at, created_at, last_used_at, revoked_at, revoke_reason)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        ON CONFLICT (id) DO UPDATE SET
+            last_used_at = GREATEST(refresh_tokens.last_used_at, EXCLUDED.last_used_at),
+            revoked_at = LEAST(refresh_tokens.revoked_at, EXCLUDED.revoked_at),
+            revoke_reason = CASE
+                WHEN refresh_tokens.revoked_at IS NULL OR EXCLUDED.revoked_at < refresh_tokens.revoked_at
+                    THEN EXCLUDED.revoke_reason
+                ELSE refresh_tokens.revoke_reason
+            END""";
+
+    private final StringRedisTemplate redisTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RefreshSessionConfig config;
+    private final Counter syncedCounter;
+    private final Counter droppedCounter;
+    private final Timer syncTimer;
+    private final String consumerName = "sync-" + UUID.randomUUID().toString().substring(0, 8);
+
+    public RefreshSessionSync(StringRedisTemplate redisTemplate,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              RefreshSessionConfig config,
+                              MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.config = config;
+        this.syncedCounter = Counter.builder("refresh.sessions.synced")
+            .description("Refresh session changes written to Postgres")
+            .register(meterRegistry);
+        this.droppedCounter = Counter.builder("refresh.sessions.sync.dropped")
+            .description("Refresh session changes rejected by Postgres")
+            .register(meterRegistry);
+        this.syncTimer = Timer.builder("refresh.sessions.sync")
+            .description("Time to write one batch of refresh session changes")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!config.isSyncEnabled()) {
+            log.info("Refresh session write-behind disabled on this instance");
+            return;
+        }
+        try {
+            createGroupIfMissing();
+        } catch (RuntimeException e) {
+            // Retried by the next poll
+            log.warn("Cannot create refresh session consumer group: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${zaed.identity.refresh-sessions.sync-interval-millis:200}")
+    public void scheduledSync() {
+        if (!config.isSyncEnabled()) {
+            return;
+        }
+        try {
+            while (syncOnce() >= config.getSyncBatchSize()) {
+                // Keep draining while full batches come back
+            }
+        } catch (RedisSystemException e) {
+            log.warn("Refresh session write-behind poll failed: {}", e.getMessage());
+            if (String.valueOf(e.getMostSpecificCause().getMessage()).contains("NOGROUP")) {
+                createGroupIfMissing();
+            }
+        } catch (RuntimeException e) {
+            // Entries stay pending and are reclaimed once idle
+            log.warn("Refresh session write-behind failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Re-applies entries whose batch failed or whose consumer stopped before acknowledging.
+     */
+    @Scheduled(
+        fixedDelayString = "${zaed.identity.refresh-sessions.sync-reclaim-idle:60}",
+        initialDelayString = "${zaed.identity.refresh-sessions.sync-reclaim-idle:60}",
+        timeUnit = TimeUnit.SECONDS
+    )
+    public void reclaimStale() {
+        if (!config.isSyncEnabled()) {
+            return;
+        }
+        try {
+            Duration minIdle = Duration.ofSeconds(config.getSyncReclaimIdle());
+            RecordId[] stale = redisTemplate.opsForStream()
+                .pending(RefreshSessionStore.SYNC_STREAM_KEY, CONSUMER_GROUP, Range.unbounded(), RECLAIM_BATCH_SIZE)
+                .stream()
+                .filter(message -> message.getElapsedTimeSinceLastDelivery().compareTo(minIdle) >= 0)
+                .map(PendingMessage::getId)
+                .toArray(RecordId[]::new);
+            if (stale.length == 0) {
+                return;
+            }
+            List<MapRecord<String, Object, Object>> claimed = redisTemplate.opsForStream()
+                .claim(RefreshSessionStore.SYNC_STREAM_KEY, CONSUMER_GROUP, consumerName, minIdle, stale);
+            log.info("Reclaimed {} stale refresh session changes", claimed.size());
+            apply(claimed);
+        } catch (RuntimeException e) {
+            log.warn("Refresh session reclaim failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Applies one batch of new entries.
+     *
+     * @return entries read
+     */
+    int syncOnce() {
+        List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream().read(
+            Consumer.from(CONSUMER_GROUP, consumerName),
+            StreamReadOptions.empty().count(config.getSyncBatchSize()),
+            StreamOffset.create(RefreshSessionStore.SYNC_STREAM_KEY, ReadOffset.lastConsumed()));
+        if (records == null || records.isEmpty()) {
+            return 0;
+        }
+        apply(records);
+        return records.size();
+    }
+
+    private void apply(List<MapRecord<String, Object, Object>> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        try {
+            syncTimer.record(() -> {
+                write(records);
+            });
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Refresh session batch rejected, applying entries one by one: {}", e.getMessage());
+            for (MapRecord<String, Object, Object> record : records) {
+                try {
+                    write(List.of(record));
+                } catch (DataIntegrityViolationException rejected) {
+                    log.warn("Dropping refresh session change {}: {}", record.getId(), rejected.getMessage());
+                    droppedCounter.increment();
+                }
+            }
+        }
+
+        RecordId[] ids = records.stream().map(MapRecord::getId).toArray(RecordId[]::new);
+        redisTemplate.opsForStream().acknowledge(RefreshSessionStore.SYNC_STREAM_KEY, CONSUMER_GROUP, ids);
+        redisTemplate.opsForStream().delete(RefreshSessionStore.SYNC_STREAM_KEY, ids);
+        syncedCounter.increment(records.size());
+    }
+
+    private void write(List<MapRecord<String, Object, Object>> records) {
+        List<Object[]> rows = new ArrayList<>();
+
+        for (MapRecord<String, Object, Object> record : records) {
+            Map<Object, Object> entry = record.getValue();
+            switch (String.valueOf(entry.get("op"))) {
+                case "rotate" -> {
+                    Timestamp at = epochSeconds(entry.get("at"));
+                    rows.add(row(entry, entry.get("next"), entry.get("hash"), entry.get("ip"),
+                        entry.get("exp"), at, null, null, null));
+                    rows.add(row(entry, entry.get("id"), entry.get("prevHash"), entry.get("prevIp"),
+                        entry.get("prevExp"), epochSeconds(entry.get("prevCreatedAt")), at, at, "ROTATION"));
+                }
+                case "revoke" -> rows.add(row(entry, entry.get("id"), entry.get("hash"), entry.get("ip"),
+                    entry.get("exp"), epochSeconds(entry.get("createdAt")), null,
+                    epochSeconds(entry.get("at")), entry.get("reason")));
+                default -> log.warn("Skipping unknown refresh session change {}: {}", record.getId(), entry.get("op"));
+            }
+        }
+
+        if (!rows.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT, rows));
+        }
+    }
+
+    private static Object[] row(Map<Object, Object> entry, Object id, Object hash, Object ip, Object exp,
+                                Timestamp createdAt, Timestamp lastUsedAt, Timestamp revokedAt, Object reason) {
+        return new Object[] {
+            id,
+            UUID.fromString((String) entry.get("user")),
+            hash,
+            entry.get("family"),
+            emptyToNull(entry.get("device")),
+            emptyToNull(entry.get("deviceInfo")),
+            emptyToNull(ip),
+            epochSeconds(exp),
+            createdAt,
+            lastUsedAt,
+            revokedAt,
+            reason
+        };
+    }
+
+    private static Timestamp epochSeconds(Object value) {
+        return Timestamp.from(Instant.ofEpochSecond(Long.parseLong((String) value)));
+    }
+
+    private static Object emptyToNull(Object value) {
+        return value == null || "".equals(value) ? null : value;
+    }
+
+    void createGroupIfMissing() {
+        byte[] streamKey = RefreshSessionStore.SYNC_STREAM_KEY.getBytes(StandardCharsets.UTF_8);
+        try {
+            redisTemplate.execute((RedisCallback<String>) connection -> connection.streamCommands()
+                .xGroupCreate(streamKey, CONSUMER_GROUP, ReadOffset.from("0"), true));
+        } catch (RedisSystemException e) {
+            String cause = e.getMostSpecificCause().getMessage();
+            if (cause == null || !cause.contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package health.zaed.identity.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import health.zaed.identity.config.TokenPurgeConfig;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes expired refresh tokens in bounded chunks.
+ *
+ * <p>Each chunk deletes at most {@code chunk-size} rows in its own short transaction, then
+ * pauses. Chunks walk the {@code (expires_at, id)} index from where the previous one
+ * stopped (keyset pagination), so they never rescan dead index entries left by earlier
+ * chunks. A run stops after {@code max-run-time} and resumes on the next schedule.
+ *
+ * <p>A session-level advisory lock on the run's connection keeps the purge on one
+ * instance at a time. Metrics: {@code refresh.tokens.purged} and
+ * {@code refresh.tokens.purge} (run duration).
+ */
+@Component
+public class RefreshTokenPurger {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenPurger.class);
+
+    // Fixed key shared by all instances for pg_try_advisory_lock
+    static final long LOCK_KEY = 0x5A41_4544_5254_5047L;
+
+    private static final String DELETE_CHUNK = """
+        WITH chunk AS (
+            SELECT id FROM refresh_tokens
+            WHERE expires_at < ? AND (expires_at, id) > (?, ?)
+            ORDER BY expires_at, id
+            LIMIT ?
+        ), deleted AS (
+            DELETE FROM refresh_tokens rt USING chunk WHERE rt.id = chunk.id
+            RETURNING rt.expires_at, rt.id
+        )
+        SELECT expires_at, id, COUNT(*) OVER () AS deleted
+        FROM deleted
+        ORDER BY expires_at DESC, id DESC
+        LIMIT 1""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TokenPurgeConfig config;
+    private final Counter purgedCounter;
+    private final Timer purgeTimer;
+
+    public RefreshTokenPurger(JdbcTemplate jdbcTemplate, TokenPurgeConfig config, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.config = config;
+        this.purgedCounter = Counter.builder("refresh.tokens.purged")
+            .description("Expired refresh tokens deleted")
+            .register(meterRegistry);
+        this.purgeTimer = Timer.builder("refresh.tokens.purge")
+            .description("Duration of a refresh token purge run")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(
+        fixedDelayString = "${zaed.identity.token-purge.interval:3600}",
+        initialDelayString = "${zaed.identity.token-purge.interval:3600}",
+        timeUnit = TimeUnit.SECONDS)
+    public void scheduledPurge() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        try {
+            purge();
+        } catch (RuntimeException e) {
+            log.warn("Refresh token purge failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Runs one purge unless another instance is already purging.
+     *
+     * @return rows deleted, or 0 when another instance holds the lock
+     */
+    public long purge() {
+        long start = System.nanoTime();
+        try {
+            Long purged = jdbcTemplate.execute((ConnectionCallback<Long>) this::purgeLocked);
+            return purged == null ? 0 : purged;
+        } finally {
+            purgeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private long purgeLocked(Connection connection) throws SQLException {
+        if (!advisoryLock(connection, "SELECT pg_try_advisory_lock(?)")) {
+            log.debug("Refresh token purge running on another instance");
+            return 0;
+        }
+        try {
+            return purgeChunks(connection);
+        } finally {
+            advisoryLock(connection, "SELECT pg_advisory_unlock(?)");
+        }
+    }
+
+    private long purgeChunks(Connection connection) throws SQLException {
+        Instant now = Instant.now();
+        Timestamp expiredBefore = Timestamp.from(now.minusSeconds(config.getExpiredGrace()));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.getMaxRunTime());
+        boolean autoCommit = connection.getAutoCommit();
+
+        Timestamp cursorExpiresAt = Timestamp.from(Instant.EPOCH);
+        String cursorId = "";
+        long total = 0;
+        try (PreparedStatement delete = connection.prepareStatement(DELETE_CHUNK)) {
+            while (true) {
+                delete.setTimestamp(1, expiredBefore);
+                delete.setTimestamp(2, cursorExpiresAt);
+                delete.setString(3, cursorId);
+                delete.setInt(4, config.getChunkSize());
+                long deleted = 0;
+                try (ResultSet last = delete.executeQuery()) {
+                    if (last.next()) {
+                        cursorExpiresAt = last.getTimestamp("expires_at");
+                        cursorId = last.getString("id");
+                        deleted = last.getLong("deleted");
+                    }
+                }
+                if (!autoCommit) {
+                    connection.commit();
+                }
+                total += deleted;
+                purgedCounter.increment(deleted);
+
+                if (deleted < config.getChunkSize()) {
+                    break;
+                }
+                if (System.nanoTime() - deadline > 0) {
+                    log.info("Refresh token purge reached max run time; resuming next run");
+                    break;
+                }
+                if (!pause()) {
+                    break;
+                }
+            }
+        }
+        if (total > 0) {
+            log.info("Purged {} expired refresh tokens", total);
+        }
+        return total;
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(config.getChunkPauseMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static boolean advisoryLock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, LOCK_KEY);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getBoolean(1);
+            }
+        }
+    }
+}
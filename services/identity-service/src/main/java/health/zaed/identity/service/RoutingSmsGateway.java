@@ -0,0 +1,300 @@
+package health.zaed.identity.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import health.zaed.identity.config.SmsRoutingConfig;
+import health.zaed.identity.exception.SmsDeliveryException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * {@link SmsGateway} that routes each send across the enabled {@link SmsProvider}s.
+ *
+ * <p>Enabled providers that are not configured are left out, so a failover never lands on a
+ * provider that would drop the message. Providers are ranked per send:
+ * <ul>
+ *   <li>providers whose error rate in the health window reached {@code max-error-rate}
+ *       go last, until their outcomes age out of the window</li>
+ *   <li>the rest are ordered by cost divided by weight, penalised by their recent error
+ *       rate and average latency</li>
+ * </ul>
+ *
+ * <p>Each provider takes at most {@code max-concurrent} calls at a time; further calls wait
+ * for a slot. The top provider is called first. If it fails, the next one is tried. A send
+ * holds a dispatch marker while one of its calls is with a provider: a call claims it once
+ * it has a slot, and gives it back only when its provider rejected the message or threw.
+ * Every other call of the send skips its provider while the marker is held, so a message
+ * is never with two providers at once.
+ *
+ * <p>If the top provider has not answered within {@code hedge-delay-millis} and its call is
+ * still waiting for a slot, one hedge is fired at the next provider and whichever call
+ * claims the marker first sends. Once the first call has reached its provider no hedge is
+ * fired; a slow provider is waited for, and retried by the outbox if it fails.
+ */
+@Service
+public class RoutingSmsGateway implements SmsGateway {
+
+    private static final Logger log = LoggerFactory.getLogger(RoutingSmsGateway.class);
+    private static final double MIN_COST = 1e-6;
+
+    private final List<Route> routes = new ArrayList<>();
+    private final SmsRoutingConfig config;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor =
+        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sms-route-", 0).factory());
+
+    private static final class Route {
+        private final SmsProvider provider;
+        private final int weight;
+        private final double cost;
+        private final SmsProviderHealth health;
+        private final Semaphore slots;
+
+        private Route(SmsProvider provider, int weight, double cost, SmsProviderHealth health, int maxConcurrent) {
+            this.provider = provider;
+            this.weight = weight;
+            this.cost = cost;
+            this.health = health;
+            this.slots = new Semaphore(maxConcurrent, true);
+        }
+    }
+
+    private record Ranked(Route route, SmsProviderHealth.Snapshot health, boolean healthy, double score) {
+    }
+
+    public RoutingSmsGateway(List<SmsProvider> providers,
+                             SmsRoutingConfig config,
+                             MeterRegistry meterRegistry) {
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+
+        long windowNanos = TimeUnit.SECONDS.toNanos(config.getHealthWindow());
+        for (SmsProvider provider : providers) {
+            SmsRoutingConfig.Provider settings = config.getProviders().get(provider.name());
+            if (settings == null || !settings.isEnabled()) {
+                continue;
+            }
+            if (settings.getCost() == null) {
+                throw new IllegalStateException("zaed.identity.sms-routing.providers." + provider.name()
+                    + ".cost must be set for an enabled SMS provider");
+            }
+            if (settings.getWeight() <= 0) {
+                throw new IllegalStateException("zaed.identity.sms-routing.providers." + provider.name()
+                    + ".weight must be positive");
+            }
+            if (!provider.isConfigured()) {
+                log.warn("SMS provider {} is enabled but not configured - not routing to it", provider.name());
+                continue;
+            }
+            Route route = new Route(provider, settings.getWeight(), settings.getCost(),
+                new SmsProviderHealth(windowNanos), Math.max(settings.getMaxConcurrent(), 1));
+            routes.add(route);
+
+            Gauge.builder("sms.provider.error.rate", route.health,
+                    health -> health.snapshot(System.nanoTime()).errorRate())
+                .description("Failed fraction of sends in the health window")
+                .tag("provider", provider.name())
+                .register(meterRegistry);
+        }
+
+        if (routes.isEmpty()) {
+            log.warn("No configured SMS provider enabled under zaed.identity.sms-routing.providers - SMS sends will fail");
+        } else {
+            log.info("SMS routing across {}", routes.stream().map(route -> route.provider.name()).toList());
+        }
+    }
+
+    @Override
+    public boolean sendOtp(String phone, String otp, String channel) {
+        boolean whatsApp = "WHATSAPP".equalsIgnoreCase(channel);
+        return dispatch(rank(route -> !whatsApp || route.provider.supportsWhatsApp()),
+            provider -> provider.sendOtp(phone, otp, channel), phone);
+    }
+
+    @Override
+    public boolean sendNotification(String phone, String message) {
+        return dispatch(rank(route -> true), provider -> provider.sendNotification(phone, message), phone);
+    }
+
+    @Override
+    public boolean supportsWhatsApp() {
+        return routes.stream().anyMatch(route -> route.provider.supportsWhatsApp());
+    }
+
+    /**
+     * Cost of the provider currently ranked first.
+     */
+    @Override
+    public String getCostPerSms() {
+        List<Route> ranked = rank(route -> true);
+        return ranked.isEmpty() ? "n/a" : ranked.getFirst().provider.getCostPerSms();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private List<Route> rank(Predicate<Route> eligible) {
+        long now = System.nanoTime();
+        double hedgeDelay = Math.max(config.getHedgeDelayMillis(), 1);
+
+        List<Ranked> ranked = new ArrayList<>();
+        for (Route route : routes) {
+            if (!eligible.test(route)) {
+                continue;
+            }
+            SmsProviderHealth.Snapshot health = route.health.snapshot(now);
+            boolean healthy = health.samples() < config.getMinSamples()
+                || health.errorRate() < config.getMaxErrorRate();
+            double score = Math.max(route.cost, MIN_COST) / route.weight
+                * (1 + health.errorRate())
+                * (1 + health.averageLatencyMillis() / hedgeDelay);
+            ranked.add(new Ranked(route, health, healthy, score));
+        }
+
+        ranked.sort(Comparator.comparing((Ranked r) -> !r.healthy())
+            .thenComparingDouble(r -> r.healthy() ? r.score() : r.health().errorRate()));
+        return ranked.stream().map(Ranked::route).toList();
+    }
+
+    private boolean dispatch(List<Route> ranked, ProviderCall call, String phone) {
+        if (ranked.isEmpty()) {
+            throw new SmsDeliveryException("SMS_NO_PROVIDER", "No SMS provider is enabled");
+        }
+
+        AtomicBoolean dispatched = new AtomicBoolean();
+        CompletionService<Boolean> completion = new ExecutorCompletionService<>(executor);
+        Map<Future<Boolean>, Route> inFlight = new HashMap<>();
+        RuntimeException lastError = null;
+        boolean hedged = false;
+        int next = 0;
+
+        Route first = ranked.get(next++);
+        inFlight.put(completion.submit(() -> attempt(first, call, dispatched)), first);
+        try {
+            while (!inFlight.isEmpty()) {
+                Future<Boolean> done;
+                if (config.isHedgeEnabled() && !hedged && inFlight.size() == 1 && next < ranked.size()) {
+                    done = completion.poll(config.getHedgeDelayMillis(), TimeUnit.MILLISECONDS);
+                    if (done == null) {
+                        hedged = true;
+                        if (dispatched.get()) {
+                            // The first call reached its provider; a hedge could send a second copy
+                            continue;
+                        }
+                        Route hedge = ranked.get(next++);
+                        log.debug("Hedging SMS to {} on {}", maskPhone(phone), hedge.provider.name());
+                        meterRegistry.counter("sms.routing.hedges", "provider", hedge.provider.name()).increment();
+                        inFlight.put(completion.submit(() -> attempt(hedge, call, dispatched)), hedge);
+                        continue;
+                    }
+                } else {
+                    done = completion.take();
+                }
+
+                Route route = inFlight.remove(done);
+                try {
+                    if (done.get()) {
+                        return true;
+                    }
+                } catch (ExecutionException e) {
+                    lastError = e.getCause() instanceof RuntimeException runtime
+                        ? runtime
+                        : new SmsDeliveryException("SMS send failed", e.getCause());
+                    log.warn("SMS provider {} failed for {}: {}", route.provider.name(), maskPhone(phone),
+                        lastError.getMessage());
+                }
+
+                if (inFlight.isEmpty() && next < ranked.size()) {
+                    Route failover = ranked.get(next++);
+                    log.info("SMS to {} failed on {}, failing over to {}",
+                        maskPhone(phone), route.provider.name(), failover.provider.name());
+                    meterRegistry.counter("sms.routing.failovers", "provider", failover.provider.name()).increment();
+                    inFlight.put(completion.submit(() -> attempt(failover, call, dispatched)), failover);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SmsDeliveryException("SMS send interrupted", e);
+        } finally {
+            inFlight.keySet().forEach(future -> future.cancel(true));
+        }
+
+        if (lastError != null) {
+            throw lastError;
+        }
+        return false;
+    }
+
+    /**
+     * Calls {@code route}'s provider once it has a free slot, unless another call of the
+     * same send holds the dispatch marker. Skipped calls return false without touching
+     * the provider's health.
+     */
+    private boolean attempt(Route route, ProviderCall call, AtomicBoolean dispatched) throws InterruptedException {
+        route.slots.acquire();
+        try {
+            if (!dispatched.compareAndSet(false, true)) {
+                return false;
+            }
+            return send(route, call, dispatched);
+        } finally {
+            route.slots.release();
+        }
+    }
+
+    private boolean send(Route route, ProviderCall call, AtomicBoolean dispatched) {
+        long start = System.nanoTime();
+        boolean sent = false;
+        try {
+            sent = call.send(route.provider);
+            return sent;
+        } finally {
+            if (!sent) {
+                // Rejected or failed: the next provider may take the message
+                dispatched.set(false);
+            }
+            long latency = System.nanoTime() - start;
+            // A cancelled call says nothing about the provider's health
+            if (!Thread.currentThread().isInterrupted()) {
+                route.health.record(System.nanoTime(), latency, sent);
+                Timer.builder("sms.provider.latency")
+                    .tag("provider", route.provider.name())
+                    .tag("outcome", sent ? "sent" : "failed")
+                    .register(meterRegistry)
+                    .record(Duration.ofNanos(latency));
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ProviderCall {
+        boolean send(SmsProvider provider);
+    }
+
+    private String maskPhone(String phone) {
+        if (phone == null || phone.length() < 8) return "****";
+        return phone.substring(0, 4) + "****" + phone.substring(phone.length() - 4);
+    }
+}
@@ -0,0 +1,218 @@
+package health.zaed.identity.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import health.zaed.identity.config.JwtConfig;
+import health.zaed.identity.model.entity.SigningKey;
+import health.zaed.identity.model.enums.SigningAlgorithm;
+import health.zaed.identity.model.enums.SigningKeyStatus;
+import health.zaed.identity.repository.SigningKeyRepository;
+import health.zaed.identity.security.JwkSet.PublishedKey;
+import health.zaed.identity.security.JwtKeyMaterial;
+import health.zaed.identity.security.PrivateKeyCipher;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Manages the asymmetric JWT signing key ring (Phase 2, see ADR-008).
+ *
+ * <p>Rotation without downtime:
+ * <ol>
+ *   <li>A NEXT key is generated one rotation period before it signs, so it is already
+ *       published on the JWKS endpoint and cached by verifiers when it takes over</li>
+ *   <li>On rotation the NEXT key becomes ACTIVE and the previous ACTIVE key is RETIRED</li>
+ *   <li>RETIRED keys stay published until the longest-lived token they signed has expired</li>
+ * </ol>
+ *
+ * <p>Keys live in the database so every instance signs with the same key. Rotation runs
+ * under a row lock on the active key; each instance reloads the ring on a fixed interval.
+ * Does nothing when HS256 is configured.
+ */
+@Service
+public class SigningKeyService {
+
+    private static final Logger log = LoggerFactory.getLogger(SigningKeyService.class);
+
+    private static final DateTimeFormatter KID_DATE = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+
+    private final JwtConfig jwtConfig;
+    private final SigningKeyRepository signingKeyRepository;
+    private final JwtService jwtService;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile PrivateKeyCipher cipher;
+    private volatile String loadedRing;
+    private volatile Instant activeSince;
+
+    public SigningKeyService(
+            JwtConfig jwtConfig,
+            SigningKeyRepository signingKeyRepository,
+            JwtService jwtService,
+            TransactionTemplate transactionTemplate) {
+        this.jwtConfig = jwtConfig;
+        this.signingKeyRepository = signingKeyRepository;
+        this.jwtService = jwtService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Creates the initial keys if needed and installs the ring before requests are served.
+     */
+    @PostConstruct
+    public void init() {
+        if (!jwtConfig.getAlgorithm().isAsymmetric()) {
+            return;
+        }
+        this.cipher = PrivateKeyCipher.from(jwtConfig);
+        refresh();
+        log.info("JWT key ring ready: algorithm={}, rotation every {}s",
+            jwtConfig.getAlgorithm(), jwtConfig.getKeyRotationPeriod());
+    }
+
+    /**
+     * Rotates if the active key is due (or missing) and reloads the ring if it changed,
+     * including changes made by other instances.
+     */
+    @Scheduled(
+        fixedDelayString = "${zaed.identity.jwt.key-ring-refresh-interval:60}",
+        initialDelayString = "${zaed.identity.jwt.key-ring-refresh-interval:60}",
+        timeUnit = TimeUnit.SECONDS)
+    public void refresh() {
+        if (!jwtConfig.getAlgorithm().isAsymmetric()) {
+            return;
+        }
+        if (isRotationDue()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> rotateIfDue());
+            } catch (DataIntegrityViolationException e) {
+                // Another instance created the active key first; pick up its ring below
+                log.info("Key ring changed concurrently, reloading");
+            }
+        }
+        reload();
+    }
+
+    private boolean isRotationDue() {
+        Instant since = activeSince;
+        return since == null
+            || !since.plusSeconds(jwtConfig.getKeyRotationPeriod()).isAfter(Instant.now());
+    }
+
+    private void rotateIfDue() {
+        Optional<SigningKey> locked = signingKeyRepository.findActiveForUpdate();
+        if (locked.isEmpty() && signingKeyRepository.findFirstByStatusOrderByCreatedAtDesc(SigningKeyStatus.ACTIVE).isPresent()) {
+            // The row we waited on was retired by a concurrent rotation
+            return;
+        }
+
+        Instant now = Instant.now();
+        if (locked.isPresent()) {
+            SigningKey active = locked.get();
+            Instant activatedAt = active.getActivatedAt() != null ? active.getActivatedAt() : active.getCreatedAt();
+            if (activatedAt.plusSeconds(jwtConfig.getKeyRotationPeriod()).isAfter(now)) {
+                return;
+            }
+            active.retire();
+            // Flush before promoting: at most one ACTIVE row is allowed
+            signingKeyRepository.saveAndFlush(active);
+        }
+
+        SigningKey promoted = signingKeyRepository.findFirstByStatusOrderByCreatedAtDesc(SigningKeyStatus.NEXT)
+            .orElseGet(() -> generateKey(SigningKeyStatus.NEXT));
+        promoted.activate();
+        signingKeyRepository.saveAndFlush(promoted);
+        signingKeyRepository.save(generateKey(SigningKeyStatus.NEXT));
+
+        int purged = signingKeyRepository.deleteRetiredBefore(now.minusSeconds(retentionSeconds()));
+        log.info("Rotated JWT signing key: active kid={}, retired keys purged={}", promoted.getKid(), purged);
+    }
+
+    /**
+     * Retired keys must outlive every token they signed; refresh tokens live longest.
+     */
+    private long retentionSeconds() {
+        return Math.max(jwtConfig.getRefreshTokenExpiry(),
+            Math.max(jwtConfig.getAccessTokenExpiry(), jwtConfig.getTempTokenExpiry()));
+    }
+
+    private void reload() {
+        List<SigningKey> keys = signingKeyRepository.findByStatusIn(
+            List.of(SigningKeyStatus.ACTIVE, SigningKeyStatus.NEXT, SigningKeyStatus.RETIRED));
+        String ring = keys.stream()
+            .sorted(Comparator.comparing(SigningKey::getKid))
+            .map(key -> key.getKid() + ":" + key.getStatus())
+            .collect(Collectors.joining(","));
+        if (ring.equals(loadedRing)) {
+            return;
+        }
+
+        SigningKey active = keys.stream()
+            .filter(key -> key.getStatus() == SigningKeyStatus.ACTIVE)
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException("No active JWT signing key"));
+        List<PublishedKey> published = keys.stream()
+            .map(key -> new PublishedKey(key.getKid(), key.getAlgorithm(), decodePublicKey(key)))
+            .toList();
+        PublishedKey activePublished = published.stream()
+            .filter(key -> key.kid().equals(active.getKid()))
+            .findFirst()
+            .orElseThrow();
+
+        jwtService.installKeyMaterial(
+            JwtKeyMaterial.forKeyRing(jwtConfig, activePublished, decodePrivateKey(active), published));
+        this.activeSince = active.getActivatedAt() != null ? active.getActivatedAt() : active.getCreatedAt();
+        this.loadedRing = ring;
+    }
+
+    private SigningKey generateKey(SigningKeyStatus status) {
+        SigningAlgorithm algorithm = jwtConfig.getAlgorithm();
+        String kid = "zaed-" + KID_DATE.format(Instant.now()) + "-" + UUID.randomUUID().toString().substring(0, 8);
+        KeyPair keyPair = algorithm.generateKeyPair();
+        return SigningKey.builder()
+            .kid(kid)
+            .algorithm(algorithm)
+            .status(status)
+            .publicKey(keyPair.getPublic().getEncoded())
+            .privateKeyEncrypted(cipher.encrypt(keyPair.getPrivate().getEncoded(), kid))
+            .build();
+    }
+
+    private PublicKey decodePublicKey(SigningKey key) {
+        try {
+            return KeyFactory.getInstance(key.getAlgorithm().getKeyAlgorithm())
+                .generatePublic(new X509EncodedKeySpec(key.getPublicKey()));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot decode public key " + key.getKid(), e);
+        }
+    }
+
+    private PrivateKey decodePrivateKey(SigningKey key) {
+        try {
+            byte[] encoded = cipher.decrypt(key.getPrivateKeyEncrypted(), key.getKid());
+            return KeyFactory.getInstance(key.getAlgorithm().getKeyAlgorithm())
+                .generatePrivate(new PKCS8EncodedKeySpec(encoded));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot decode private key " + key.getKid(), e);
+        }
+    }
+}
@@ -3,10 +3,12 @@ package health.zaed.identity.service;
 /**
  * SMS Gateway interface for provider-agnostic messaging.
  *
- * <p>Implementations:
+ * <p>Implemented by {@link RoutingSmsGateway}, which spreads sends across the enabled
+ * {@link SmsProvider}s:
  * <ul>
  *   <li>TwilioSmsGateway - Phase 1 (MVP)</li>
  *   <li>SmsMisrGateway - Phase 2 (Production scale)</li>
+ *   <li>StubSmsGateway - offline load tests</li>
  * </ul>
  *
  * @see <a href="../../../architecture/adr/004-sms-gateway-strategy.md">ADR-004</a>
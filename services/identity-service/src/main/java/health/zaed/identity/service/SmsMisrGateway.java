@@ -4,17 +4,15 @@ import health.zaed.identity.config.SmsMisrConfig;
 import health.zaed.identity.exception.SmsDeliveryException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.context.annotation.Profile;
 import org.springframework.http.MediaType;
-import org.springframework.resilience.annotation.ConcurrencyLimit;
-import org.springframework.resilience.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientResponseException;
 
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 /**
  * SMS Misr implementation of SMS Gateway.
@@ -24,77 +22,75 @@ import java.util.concurrent.TimeUnit;
  *
  * <p>Resilience features:
  * <ul>
- *   <li>Automatic retry with exponential backoff on transient failures</li>
- *   <li>Concurrency limiting to protect the downstream SMS gateway</li>
+ *   <li>Transient failures throw {@link SmsDeliveryException}; {@link SmsOutbox} retries
+ *       them with backoff, so a call never overlaps a hedge on another provider</li>
+ *   <li>Concurrency limited per provider by {@link RoutingSmsGateway}</li>
+ *   <li>Pooled keep-alive connections with explicit timeouts (see {@code RestClientConfig})</li>
  * </ul>
  *
  * @see <a href="../../../architecture/adr/004-sms-gateway-strategy.md">ADR-004</a>
  */
 @Service
-@Profile("smsmisr")
-public class SmsMisrGateway implements SmsGateway {
+public class SmsMisrGateway implements SmsProvider {
 
     private static final Logger log = LoggerFactory.getLogger(SmsMisrGateway.class);
 
     private final SmsMisrConfig config;
     private final RestClient restClient;
 
-    private static final String OTP_TEMPLATE_AR = "زائد: رمز التحقق الخاص بك هو %s";
+    private static final String OTP_PREFIX_AR = "زائد: رمز التحقق الخاص بك هو ";
+    private static final String ENCODED_OTP_PREFIX_AR = encode(OTP_PREFIX_AR);
+
+    /** Pre-encoded {@code username=..&password=..&sender=..&mobile=}, built once. */
+    private final String requestPrefix;
 
     public SmsMisrGateway(SmsMisrConfig config, RestClient restClient) {
         this.config = config;
         this.restClient = restClient;
+        this.requestPrefix = config.isConfigured()
+                ? "username=" + encode(config.getUsername())
+                        + "&password=" + encode(config.getPassword())
+                        + "&sender=" + encode(config.getSenderId())
+                        + "&mobile="
+                : null;
+    }
+
+    @Override
+    public String name() {
+        return "smsmisr";
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return config.isConfigured();
     }
 
     /**
      * {@inheritDoc}
      *
-     * <p>Resilience configuration:
-     * <ul>
-     *   <li>Retry: Up to 3 retries with exponential backoff (1s, 2s, 4s)</li>
-     *   <li>Concurrency: Limited to 10 simultaneous calls</li>
-     * </ul>
-     * Only transient failures (network errors, rate limits, 5xx) trigger retry.
+     * <p>Makes a single call. Transient failures (network errors, rate limits, 5xx) throw
+     * {@link SmsDeliveryException} and are retried by the outbox with backoff.
      */
     @Override
-    @Retryable(
-            includes = SmsDeliveryException.class,
-            maxRetries = 3,
-            delay = 1000,
-            multiplier = 2.0,
-            timeUnit = TimeUnit.MILLISECONDS
-    )
-    @ConcurrencyLimit(10)
     public boolean sendOtp(String phone, String otp, String channel) {
         if (!config.isConfigured()) {
             log.warn("SMS Misr not configured - OTP not sent");
-            log.info("DEV MODE - OTP for {}: {}", phone, otp);
-            return true;
+            return false;
         }
 
-        String message = String.format(OTP_TEMPLATE_AR, otp);
         String localPhone = convertToLocalFormat(phone);
-
-        return doSendSms(localPhone, message, phone);
+        return doSendSms(buildRequest(localPhone, ENCODED_OTP_PREFIX_AR + encode(otp)), phone);
     }
 
     @Override
-    @Retryable(
-            includes = SmsDeliveryException.class,
-            maxRetries = 3,
-            delay = 1000,
-            multiplier = 2.0,
-            timeUnit = TimeUnit.MILLISECONDS
-    )
-    @ConcurrencyLimit(10)
     public boolean sendNotification(String phone, String message) {
         if (!config.isConfigured()) {
             log.warn("SMS Misr not configured - notification not sent");
-            return true;
+            return false;
         }
 
         String localPhone = convertToLocalFormat(phone);
-        return doSendSms(localPhone, message, phone);
+        return doSendSms(buildRequest(localPhone, encode(message)), phone);
     }
 
     @Override
@@ -107,13 +103,13 @@ public class SmsMisrGateway implements SmsGateway {
         return "~EGP 0.15";
     }
 
-    private boolean doSendSms(String localPhone, String message, String originalPhone) {
+    private boolean doSendSms(String requestBody, String originalPhone) {
         try {
             @SuppressWarnings("unchecked")
             Map<String, String> response = restClient.post()
                     .uri(config.getApiUrl())
                     .contentType(MediaType.APPLICATION_FORM_URLENCODED)
-                    .body(buildRequest(localPhone, message))
+                    .body(requestBody)
                     .retrieve()
                     .body(Map.class);
 
@@ -154,15 +150,14 @@ public class SmsMisrGateway implements SmsGateway {
         }
     }
 
-    private String buildRequest(String phone, String message) {
-        return String.format(
-                "username=%s&password=%s&sender=%s&mobile=%s&message=%s&language=2",
-                config.getUsername(),
-                config.getPassword(),
-                config.getSenderId(),
-                phone,
-                encodeMessage(message)
-        );
+    private String buildRequest(String phone, String encodedMessage) {
+        return new StringBuilder(requestPrefix.length() + phone.length() + encodedMessage.length() + 20)
+                .append(requestPrefix)
+                .append(phone)
+                .append("&message=")
+                .append(encodedMessage)
+                .append("&language=2")
+                .toString();
     }
 
     private String convertToLocalFormat(String phone) {
@@ -172,8 +167,8 @@ public class SmsMisrGateway implements SmsGateway {
         return phone;
     }
 
-    private String encodeMessage(String message) {
-        return java.net.URLEncoder.encode(message, java.nio.charset.StandardCharsets.UTF_8);
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
     }
 
     private String maskPhone(String phone) {
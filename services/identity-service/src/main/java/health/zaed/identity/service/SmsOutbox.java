@@ -0,0 +1,217 @@
+package health.zaed.identity.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.jspecify.annotations.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import health.zaed.identity.config.SmsOutboxConfig;
+import health.zaed.identity.model.dto.OtpDeliveryStatusResponse;
+import health.zaed.identity.model.enums.SmsDeliveryStatus;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Redis-backed outbox for OTP SMS messages.
+ *
+ * <p>Messages are queued by {@link OtpService}'s send script ({@code otp-send.lua}), which
+ * stores each one in a hash under {@code sms_outbox:msg:<id>} that expires with the OTP and
+ * appends its ID to the {@code sms_outbox} stream. {@link SmsOutboxWorker} consumers read the
+ * stream and call {@link #deliver}, which:
+ * <ul>
+ *   <li>claims the message atomically; a duplicate stream entry for a message that is
+ *       already SENT or FAILED is dropped</li>
+ *   <li>on failure, schedules another attempt on the {@code sms_outbox:retry} sorted set,
+ *       scored by when it is due, with a backoff that doubles per attempt; up to
+ *       {@code max-delivery-attempts} in total. {@link #releaseDueRetries} moves due entries
+ *       back onto the stream</li>
+ *   <li>dead-letters it to {@code sms_outbox:dead} when attempts are exhausted</li>
+ * </ul>
+ *
+ * <p>The OTP code is removed from the hash once the message is sent or failed.
+ */
+@Service
+public class SmsOutbox {
+
+    private static final Logger log = LoggerFactory.getLogger(SmsOutbox.class);
+
+    static final String STREAM_KEY = "sms_outbox";
+    static final String DEAD_LETTER_KEY = "sms_outbox:dead";
+    static final String CONSUMER_GROUP = "sms-senders";
+    static final String MESSAGE_KEY_PREFIX = "sms_outbox:msg:";
+    static final String RETRY_KEY = "sms_outbox:retry";
+    private static final long DEAD_LETTER_MAX_LENGTH = 10_000;
+    static final int RELEASE_BATCH_SIZE = 100;
+
+    static final RedisScript<Long> CLAIM_SCRIPT =
+        RedisScript.of(new ClassPathResource("scripts/sms-outbox-claim.lua"), Long.class);
+    static final RedisScript<Long> RELEASE_SCRIPT =
+        RedisScript.of(new ClassPathResource("scripts/sms-outbox-release.lua"), Long.class);
+    private static final long CLAIM_EXPIRED = -1;
+    private static final long CLAIM_DONE = 0;
+    private static final long CLAIM_EXHAUSTED = -2;
+
+    private final StringRedisTemplate redisTemplate;
+    private final SmsGateway smsGateway;
+    private final SmsOutboxConfig config;
+    private final MeterRegistry meterRegistry;
+    private final Timer deliveryLag;
+
+    public SmsOutbox(StringRedisTemplate redisTemplate,
+                     SmsGateway smsGateway,
+                     SmsOutboxConfig config,
+                     MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.smsGateway = smsGateway;
+        this.config = config;
+        this.meterRegistry = meterRegistry;
+        this.deliveryLag = Timer.builder("sms.outbox.delivery.lag")
+            .description("Time from enqueue to provider acceptance")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Stream length cap applied by {@link OtpService}'s send script when it queues a message.
+     */
+    long maxStreamLength() {
+        return config.getMaxStreamLength();
+    }
+
+    public @NonNull OtpDeliveryStatusResponse status(@NonNull UUID deliveryId) {
+        List<Object> fields = redisTemplate.opsForHash()
+            .multiGet(MESSAGE_KEY_PREFIX + deliveryId, List.<Object>of("status", "attempts"));
+        String status = (String) fields.get(0);
+        if (status == null) {
+            return new OtpDeliveryStatusResponse(deliveryId, SmsDeliveryStatus.EXPIRED.name(), 0);
+        }
+        String attempts = (String) fields.get(1);
+        return new OtpDeliveryStatusResponse(deliveryId, status, attempts != null ? Integer.parseInt(attempts) : 0);
+    }
+
+    /**
+     * Makes one delivery attempt for a stream entry and acknowledges it.
+     */
+    public void deliver(@NonNull RecordId recordId, @NonNull String deliveryId) {
+        String messageKey = MESSAGE_KEY_PREFIX + deliveryId;
+        Long claimed = redisTemplate.execute(CLAIM_SCRIPT, List.of(messageKey),
+            String.valueOf(config.getMaxDeliveryAttempts()));
+        long attempt = claimed != null ? claimed : CLAIM_EXPIRED;
+
+        if (attempt == CLAIM_EXPIRED || attempt == CLAIM_DONE) {
+            record(attempt == CLAIM_EXPIRED ? "expired" : "duplicate");
+            acknowledge(recordId);
+            return;
+        }
+        if (attempt == CLAIM_EXHAUSTED) {
+            deadLetter(deliveryId, "delivery attempts exhausted");
+            acknowledge(recordId);
+            return;
+        }
+
+        List<Object> fields = redisTemplate.opsForHash()
+            .multiGet(messageKey, List.<Object>of("phone", "otp", "channel", "enqueuedAt"));
+        String phone = (String) fields.get(0);
+        String otp = (String) fields.get(1);
+        if (phone == null || otp == null) {
+            record("expired");
+            acknowledge(recordId);
+            return;
+        }
+
+        boolean sent;
+        try {
+            sent = smsGateway.sendOtp(phone, otp, (String) fields.get(2));
+        } catch (RuntimeException e) {
+            log.warn("SMS delivery {} to {} failed on attempt {}: {}", deliveryId, maskPhone(phone), attempt, e.getMessage());
+            sent = false;
+        }
+
+        if (sent) {
+            redisTemplate.opsForHash().put(messageKey, "status", SmsDeliveryStatus.SENT.name());
+            redisTemplate.opsForHash().delete(messageKey, "otp");
+            recordLag((String) fields.get(3));
+            record("sent");
+            log.info("OTP delivered to {}", maskPhone(phone));
+        } else if (attempt >= config.getMaxDeliveryAttempts()) {
+            redisTemplate.opsForHash().put(messageKey, "status", SmsDeliveryStatus.FAILED.name());
+            redisTemplate.opsForHash().delete(messageKey, "otp");
+            deadLetter(deliveryId, "delivery failed on every attempt");
+            log.error("OTP delivery to {} failed after {} attempts", maskPhone(phone), attempt);
+        } else {
+            long dueAt = Instant.now().toEpochMilli() + retryBackoffMillis(attempt);
+            redisTemplate.opsForHash().put(messageKey, "status", SmsDeliveryStatus.QUEUED.name());
+            redisTemplate.opsForZSet().add(RETRY_KEY, deliveryId, dueAt);
+            record("retried");
+        }
+        acknowledge(recordId);
+    }
+
+    /**
+     * Moves failed deliveries whose backoff has elapsed back onto the stream.
+     *
+     * @return the number of messages moved
+     */
+    public long releaseDueRetries() {
+        long total = 0;
+        long released;
+        do {
+            Long moved = redisTemplate.execute(RELEASE_SCRIPT, List.of(RETRY_KEY, STREAM_KEY),
+                String.valueOf(Instant.now().toEpochMilli()),
+                String.valueOf(RELEASE_BATCH_SIZE),
+                String.valueOf(config.getMaxStreamLength()));
+            released = moved != null ? moved : 0;
+            total += released;
+        } while (released == RELEASE_BATCH_SIZE);
+        return total;
+    }
+
+    /**
+     * Wait after a failed attempt: {@code retry-backoff-millis} doubled for each earlier
+     * attempt, capped at {@code max-retry-backoff-millis}.
+     */
+    long retryBackoffMillis(long attempt) {
+        long backoff = config.getRetryBackoffMillis() << Math.min(attempt - 1, 20);
+        return Math.min(backoff, config.getMaxRetryBackoffMillis());
+    }
+
+    void acknowledge(RecordId recordId) {
+        redisTemplate.opsForStream().acknowledge(STREAM_KEY, CONSUMER_GROUP, recordId);
+    }
+
+    private void deadLetter(String deliveryId, String reason) {
+        redisTemplate.opsForStream().add(StreamRecords.string(Map.of(
+            "id", deliveryId,
+            "reason", reason,
+            "failedAt", Instant.now().toString()
+        )).withStreamKey(DEAD_LETTER_KEY));
+        redisTemplate.opsForStream().trim(DEAD_LETTER_KEY, DEAD_LETTER_MAX_LENGTH, true);
+        record("failed");
+    }
+
+    private void recordLag(String enqueuedAt) {
+        if (enqueuedAt != null) {
+            long lagMillis = Instant.now().toEpochMilli() - Long.parseLong(enqueuedAt);
+            deliveryLag.record(Duration.ofMillis(Math.max(lagMillis, 0)));
+        }
+    }
+
+    private void record(String outcome) {
+        meterRegistry.counter("sms.outbox.deliveries", "outcome", outcome).increment();
+    }
+
+    private String maskPhone(String phone) {
+        if (phone == null || phone.length() < 8) return "****";
+        return phone.substring(0, 4) + "****" + phone.substring(phone.length() - 4);
+    }
+}
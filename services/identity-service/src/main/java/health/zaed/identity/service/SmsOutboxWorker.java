@@ -0,0 +1,210 @@
+package health.zaed.identity.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer.StreamMessageListenerContainerOptions;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer.StreamReadRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import health.zaed.identity.config.SmsOutboxConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drains the {@link SmsOutbox} stream on virtual threads.
+ *
+ * <p>Each instance registers {@code workers} consumers in the {@code sms-senders} group, so
+ * entries are spread across consumers and instances, off the request thread. A failed
+ * attempt is not retried in place: {@link SmsOutbox#deliver} schedules it on the retry set
+ * with a backoff, and {@link #releaseRetries} puts it back on the stream once due.
+ *
+ * <p>Entries left unacknowledged by a crashed consumer are reclaimed with XCLAIM once they
+ * have been idle for {@code reclaim-idle} seconds.
+ */
+@Component
+public class SmsOutboxWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(SmsOutboxWorker.class);
+    private static final int RECLAIM_BATCH_SIZE = 100;
+
+    private final RedisConnectionFactory connectionFactory;
+    private final StringRedisTemplate redisTemplate;
+    private final SmsOutbox smsOutbox;
+    private final SmsOutboxConfig config;
+    private final String consumerPrefix = "worker-" + UUID.randomUUID().toString().substring(0, 8);
+
+    private StreamMessageListenerContainer<String, MapRecord<String, String, String>> container;
+
+    public SmsOutboxWorker(RedisConnectionFactory connectionFactory,
+                           StringRedisTemplate redisTemplate,
+                           SmsOutbox smsOutbox,
+                           SmsOutboxConfig config) {
+        this.connectionFactory = connectionFactory;
+        this.redisTemplate = redisTemplate;
+        this.smsOutbox = smsOutbox;
+        this.config = config;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!config.isWorkersEnabled()) {
+            log.info("SMS outbox workers disabled on this instance");
+            return;
+        }
+        createGroupIfMissing();
+
+        StreamMessageListenerContainerOptions<String, MapRecord<String, String, String>> options =
+            StreamMessageListenerContainerOptions.builder()
+                .pollTimeout(Duration.ofSeconds(config.getPollTimeout()))
+                .batchSize(config.getBatchSize())
+                .executor(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sms-outbox-", 0).factory()))
+                .build();
+        container = StreamMessageListenerContainer.create(connectionFactory, options);
+
+        for (int i = 0; i < config.getWorkers(); i++) {
+            container.register(
+                StreamReadRequest.builder(StreamOffset.create(SmsOutbox.STREAM_KEY, ReadOffset.lastConsumed()))
+                    .consumer(Consumer.from(SmsOutbox.CONSUMER_GROUP, consumerPrefix + "-" + i))
+                    .autoAcknowledge(false)
+                    .cancelOnError(e -> false)
+                    .errorHandler(this::onPollError)
+                    .build(),
+                this::onMessage);
+        }
+        container.start();
+        log.info("Started {} SMS outbox workers ({})", config.getWorkers(), consumerPrefix);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (container != null) {
+            container.stop();
+        }
+    }
+
+    /**
+     * Re-delivers entries whose consumer stopped before acknowledging them.
+     */
+    @Scheduled(
+        fixedDelayString = "${zaed.identity.sms-outbox.reclaim-idle:60}",
+        initialDelayString = "${zaed.identity.sms-outbox.reclaim-idle:60}",
+        timeUnit = TimeUnit.SECONDS
+    )
+    public void reclaimStale() {
+        if (container == null) {
+            return;
+        }
+        Duration minIdle = Duration.ofSeconds(config.getReclaimIdle());
+        PendingMessages pending = redisTemplate.opsForStream()
+            .pending(SmsOutbox.STREAM_KEY, SmsOutbox.CONSUMER_GROUP, Range.unbounded(), RECLAIM_BATCH_SIZE);
+        RecordId[] stale = pending.stream()
+            .filter(message -> message.getElapsedTimeSinceLastDelivery().compareTo(minIdle) >= 0)
+            .map(PendingMessage::getId)
+            .toArray(RecordId[]::new);
+        if (stale.length == 0) {
+            return;
+        }
+
+        List<MapRecord<String, Object, Object>> claimed = redisTemplate.opsForStream()
+            .claim(SmsOutbox.STREAM_KEY, SmsOutbox.CONSUMER_GROUP, consumerPrefix + "-reclaim", minIdle, stale);
+        log.info("Reclaimed {} stale SMS outbox entries", claimed.size());
+        for (MapRecord<String, Object, Object> record : claimed) {
+            Object deliveryId = record.getValue().get("id");
+            try {
+                if (deliveryId == null) {
+                    smsOutbox.acknowledge(record.getId());
+                } else {
+                    smsOutbox.deliver(record.getId(), deliveryId.toString());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Reclaimed SMS outbox entry {} failed: {}", record.getId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns failed deliveries to the stream once their backoff has elapsed.
+     */
+    @Scheduled(
+        fixedDelayString = "${zaed.identity.sms-outbox.retry-poll-millis:500}",
+        initialDelayString = "${zaed.identity.sms-outbox.retry-poll-millis:500}",
+        timeUnit = TimeUnit.MILLISECONDS
+    )
+    public void releaseRetries() {
+        if (container == null) {
+            return;
+        }
+        try {
+            long released = smsOutbox.releaseDueRetries();
+            if (released > 0) {
+                log.debug("Released {} SMS outbox retries", released);
+            }
+        } catch (RuntimeException e) {
+            // Left in the retry set for the next run
+            log.warn("Cannot release SMS outbox retries: {}", e.getMessage());
+        }
+    }
+
+    private void onMessage(MapRecord<String, String, String> record) {
+        String deliveryId = record.getValue().get("id");
+        try {
+            if (deliveryId == null) {
+                smsOutbox.acknowledge(record.getId());
+            } else {
+                smsOutbox.deliver(record.getId(), deliveryId);
+            }
+        } catch (RuntimeException e) {
+            // Left pending; reclaimStale retries it once idle
+            log.warn("SMS outbox entry {} failed: {}", record.getId(), e.getMessage());
+        }
+    }
+
+    private void onPollError(Throwable e) {
+        log.warn("SMS outbox poll failed: {}", e.getMessage());
+        if (String.valueOf(NestedExceptionUtils.getMostSpecificCause(e).getMessage()).contains("NOGROUP")) {
+            // Stream or group lost (e.g. Redis restarted without persistence)
+            try {
+                createGroupIfMissing();
+            } catch (RuntimeException recreateFailed) {
+                log.warn("Cannot recreate SMS outbox consumer group: {}", recreateFailed.getMessage());
+            }
+        }
+        // Keep the subscription alive but back off while Redis is unavailable
+        LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private void createGroupIfMissing() {
+        byte[] streamKey = SmsOutbox.STREAM_KEY.getBytes(StandardCharsets.UTF_8);
+        try {
+            redisTemplate.execute((RedisCallback<String>) connection -> connection.streamCommands()
+                .xGroupCreate(streamKey, SmsOutbox.CONSUMER_GROUP, ReadOffset.from("0"), true));
+        } catch (RedisSystemException e) {
+            String cause = e.getMostSpecificCause().getMessage();
+            if (cause == null || !cause.contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package health.zaed.identity.service;
+
+/**
+ * A single SMS provider behind {@link RoutingSmsGateway}.
+ *
+ * <p>Implementations:
+ * <ul>
+ *   <li>TwilioSmsGateway - {@code twilio}</li>
+ *   <li>SmsMisrGateway - {@code smsmisr}</li>
+ *   <li>StubSmsGateway - {@code stub}, for offline load tests</li>
+ * </ul>
+ *
+ * <p>Providers are enabled, weighted and priced under {@code zaed.identity.sms-routing.providers}.
+ * A provider that is not configured is never routed to.
+ *
+ * @see <a href="../../../architecture/adr/004-sms-gateway-strategy.md">ADR-004</a>
+ */
+public interface SmsProvider {
+
+    /**
+     * Key of this provider under {@code zaed.identity.sms-routing.providers}.
+     */
+    String name();
+
+    /**
+     * Whether this provider has the credentials it needs to send.
+     */
+    boolean isConfigured();
+
+    boolean sendOtp(String phone, String otp, String channel);
+
+    boolean sendNotification(String phone, String message);
+
+    boolean supportsWhatsApp();
+
+    String getCostPerSms();
+}
@@ -0,0 +1,70 @@
+package health.zaed.identity.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Rolling send outcomes for one SMS provider, over a fixed time window.
+ *
+ * <p>Outcomes older than the window are dropped, so a provider that was skipped for
+ * errors falls below the minimum sample count and is tried again once the window has
+ * passed.
+ */
+final class SmsProviderHealth {
+
+    private static final int MAX_OUTCOMES = 1_000;
+
+    private record Outcome(long atNanos, long latencyNanos, boolean success) {
+    }
+
+    /**
+     * @param samples outcomes in the window
+     * @param errorRate failed fraction of those outcomes (0 when there are none)
+     * @param averageLatencyMillis mean latency of those outcomes (0 when there are none)
+     */
+    record Snapshot(int samples, double errorRate, double averageLatencyMillis) {
+    }
+
+    private final long windowNanos;
+    private final Deque<Outcome> outcomes = new ArrayDeque<>();
+    private long latencySumNanos;
+    private int failures;
+
+    SmsProviderHealth(long windowNanos) {
+        this.windowNanos = windowNanos;
+    }
+
+    synchronized void record(long nowNanos, long latencyNanos, boolean success) {
+        evict(nowNanos);
+        if (outcomes.size() == MAX_OUTCOMES) {
+            remove(outcomes.removeFirst());
+        }
+        outcomes.addLast(new Outcome(nowNanos, latencyNanos, success));
+        latencySumNanos += latencyNanos;
+        if (!success) {
+            failures++;
+        }
+    }
+
+    synchronized Snapshot snapshot(long nowNanos) {
+        evict(nowNanos);
+        int samples = outcomes.size();
+        if (samples == 0) {
+            return new Snapshot(0, 0.0, 0.0);
+        }
+        return new Snapshot(samples, (double) failures / samples, latencySumNanos / 1_000_000.0 / samples);
+    }
+
+    private void evict(long nowNanos) {
+        while (!outcomes.isEmpty() && nowNanos - outcomes.peekFirst().atNanos() > windowNanos) {
+            remove(outcomes.removeFirst());
+        }
+    }
+
+    private void remove(Outcome outcome) {
+        latencySumNanos -= outcome.latencyNanos();
+        if (!outcome.success()) {
+            failures--;
+        }
+    }
+}
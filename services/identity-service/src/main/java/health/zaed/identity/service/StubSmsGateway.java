@@ -0,0 +1,90 @@
+package health.zaed.identity.service;
+
+import health.zaed.identity.config.SmsRoutingConfig;
+import health.zaed.identity.exception.SmsDeliveryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Local SMS provider that sends nothing.
+ *
+ * <p>Latency and failures are injected from {@code zaed.identity.sms-routing.stub} so
+ * routing, hedging and failover can be load-tested offline. Only used when
+ * {@code zaed.identity.sms-routing.providers.stub.enabled} is set.
+ */
+@Service
+public class StubSmsGateway implements SmsProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(StubSmsGateway.class);
+
+    private final SmsRoutingConfig config;
+
+    public StubSmsGateway(SmsRoutingConfig config) {
+        this.config = config;
+    }
+
+    @Override
+    public String name() {
+        return "stub";
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return true;
+    }
+
+    @Override
+    public boolean sendOtp(String phone, String otp, String channel) {
+        return simulateSend(phone);
+    }
+
+    @Override
+    public boolean sendNotification(String phone, String message) {
+        return simulateSend(phone);
+    }
+
+    @Override
+    public boolean supportsWhatsApp() {
+        return true;
+    }
+
+    @Override
+    public String getCostPerSms() {
+        return "0";
+    }
+
+    private boolean simulateSend(String phone) {
+        SmsRoutingConfig.Stub stub = config.getStub();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        long latency = stub.getLatencyMillis()
+            + (stub.getJitterMillis() > 0 ? random.nextLong(stub.getJitterMillis() + 1) : 0);
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        double roll = random.nextDouble();
+        if (roll < stub.getErrorRate()) {
+            throw SmsDeliveryException.gatewayUnavailable("stub");
+        }
+        if (roll < stub.getErrorRate() + stub.getFailureRate()) {
+            log.debug("Stub SMS rejected for {}", maskPhone(phone));
+            return false;
+        }
+        log.debug("Stub SMS sent to {} after {}ms", maskPhone(phone), latency);
+        return true;
+    }
+
+    private String maskPhone(String phone) {
+        if (phone == null || phone.length() < 8) {
+            return "****";
+        }
+        return phone.substring(0, 4) + "****" + phone.substring(phone.length() - 4);
+    }
+}
@@ -10,13 +10,8 @@ import health.zaed.identity.config.TwilioConfig;
 import health.zaed.identity.exception.SmsDeliveryException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.context.annotation.Profile;
-import org.springframework.resilience.annotation.ConcurrencyLimit;
-import org.springframework.resilience.annotation.Retryable;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.TimeUnit;
-
 /**
  * Twilio implementation of SMS Gateway.
  *
@@ -24,13 +19,13 @@ import java.util.concurrent.TimeUnit;
  *
  * <p>Resilience features:
  * <ul>
- *   <li>Automatic retry with exponential backoff on transient failures</li>
- *   <li>Concurrency limiting to protect the downstream SMS gateway</li>
+ *   <li>Transient failures throw {@link SmsDeliveryException}; {@link SmsOutbox} retries
+ *       them with backoff, so a call never overlaps a hedge on another provider</li>
+ *   <li>Concurrency limited per provider by {@link RoutingSmsGateway}</li>
  * </ul>
  */
 @Service
-@Profile("!smsmisr") // Default profile
-public class TwilioSmsGateway implements SmsGateway {
+public class TwilioSmsGateway implements SmsProvider {
 
     private static final Logger log = LoggerFactory.getLogger(TwilioSmsGateway.class);
 
@@ -48,30 +43,27 @@ public class TwilioSmsGateway implements SmsGateway {
         this.config = config;
     }
 
+    @Override
+    public String name() {
+        return "twilio";
+    }
+
+    @Override
+    public boolean isConfigured() {
+        return config.isConfigured();
+    }
+
     /**
      * {@inheritDoc}
      *
-     * <p>Resilience configuration:
-     * <ul>
-     *   <li>Retry: Up to 3 retries with exponential backoff (1s, 2s, 4s)</li>
-     *   <li>Concurrency: Limited to 10 simultaneous calls</li>
-     * </ul>
-     * Only transient failures (network errors, rate limits, 5xx) trigger retry.
+     * <p>Makes a single call. Transient failures (network errors, rate limits, 5xx) throw
+     * {@link SmsDeliveryException} and are retried by the outbox with backoff.
      */
     @Override
-    @Retryable(
-            includes = SmsDeliveryException.class,
-            maxRetries = 3,
-            delay = 1000,
-            multiplier = 2.0,
-            timeUnit = TimeUnit.MILLISECONDS
-    )
-    @ConcurrencyLimit(10)
     public boolean sendOtp(String phone, String otp, String channel) {
         if (!config.isConfigured()) {
             log.warn("Twilio not configured - OTP not sent");
-            log.info("DEV MODE - OTP for {}: {}", phone, otp);
-            return true;
+            return false;
         }
 
         try {
@@ -97,18 +89,10 @@ public class TwilioSmsGateway implements SmsGateway {
     }
 
     @Override
-    @Retryable(
-            includes = SmsDeliveryException.class,
-            maxRetries = 3,
-            delay = 1000,
-            multiplier = 2.0,
-            timeUnit = TimeUnit.MILLISECONDS
-    )
-    @ConcurrencyLimit(10)
     public boolean sendNotification(String phone, String message) {
         if (!config.isConfigured()) {
             log.warn("Twilio not configured - notification not sent");
-            return true;
+            return false;
         }
 
         try {
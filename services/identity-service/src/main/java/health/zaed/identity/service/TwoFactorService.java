@@ -14,19 +14,21 @@ import dev.samstevens.totp.secret.SecretGenerator;
 import dev.samstevens.totp.time.SystemTimeProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import health.zaed.identity.config.TwoFactorConfig;
+import health.zaed.identity.exception.RateLimitException;
 import health.zaed.identity.exception.TwoFactorException;
 import health.zaed.identity.model.dto.TwoFactorSetupResponse;
 import health.zaed.identity.model.entity.User;
 import health.zaed.identity.model.entity.User2FA;
 import health.zaed.identity.repository.UserRepository;
+import health.zaed.identity.security.PasswordHasher;
 
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -40,7 +42,8 @@ public class TwoFactorService {
     private static final Logger log = LoggerFactory.getLogger(TwoFactorService.class);
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final UserSnapshotCache userSnapshotCache;
+    private final PasswordHasher passwordHasher;
     private final TwoFactorConfig config;
 
     private final SecretGenerator secretGenerator = new DefaultSecretGenerator();
@@ -49,9 +52,11 @@ public class TwoFactorService {
     private final RecoveryCodeGenerator recoveryCodeGenerator = new RecoveryCodeGenerator();
     private final QrGenerator qrGenerator = new ZxingPngQrGenerator();
 
-    public TwoFactorService(UserRepository userRepository, PasswordEncoder passwordEncoder, TwoFactorConfig config) {
+    public TwoFactorService(UserRepository userRepository, UserSnapshotCache userSnapshotCache,
+                            PasswordHasher passwordHasher, TwoFactorConfig config) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.userSnapshotCache = userSnapshotCache;
+        this.passwordHasher = passwordHasher;
         this.config = config;
     }
 
@@ -66,7 +71,7 @@ public class TwoFactorService {
         String secret = secretGenerator.generate();
 
         String[] recoveryCodes = recoveryCodeGenerator.generateCodes(config.getRecoveryCodeCount());
-        List<String> hashedRecoveryCodes = Arrays.stream(recoveryCodes).map(passwordEncoder::encode).toList();
+        List<String> hashedRecoveryCodes = Arrays.stream(recoveryCodes).map(passwordHasher::encode).toList();
 
         User2FA twoFA = user.getTwoFactorAuth();
         if (twoFA == null) {
@@ -105,6 +110,7 @@ public class TwoFactorService {
 
         twoFA.setEnabled(true);
         userRepository.save(user);
+        userSnapshotCache.evict(userId);
 
         log.info("2FA enabled for user: {}", userId);
     }
@@ -120,8 +126,43 @@ public class TwoFactorService {
         return codeVerifier.isValidCode(twoFA.getSecret(), code);
     }
 
+    /**
+     * Copies the user's stored recovery code hashes, so they can be matched with
+     * {@link #matchRecoveryCode} after the transaction that loaded them has ended.
+     */
+    public List<String> getRecoveryCodeHashes(UUID userId) {
+        User user = userRepository.findById(userId).orElseThrow(() -> new TwoFactorException("User not found"));
+
+        User2FA twoFA = user.getTwoFactorAuth();
+        if (twoFA == null || !twoFA.isEnabled()) {
+            throw new TwoFactorException("2FA_NOT_ENABLED", "Two-factor authentication is not enabled");
+        }
+
+        return List.copyOf(twoFA.getRecoveryCodes());
+    }
+
+    /**
+     * Finds the stored hash {@code recoveryCode} matches. Each candidate is a BCrypt check on
+     * {@link PasswordHasher}'s pool, so call this with no transaction open.
+     *
+     * @throws RateLimitException if the hashing queue is full
+     */
+    public Optional<String> matchRecoveryCode(List<String> hashedCodes, String recoveryCode) {
+        for (String hashedCode : hashedCodes) {
+            if (passwordHasher.matches(recoveryCode, hashedCode)) {
+                return Optional.of(hashedCode);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Consumes a recovery code found by {@link #matchRecoveryCode}.
+     *
+     * @return {@code false} if the code is no longer stored, e.g. a concurrent login used it
+     */
     @Transactional
-    public boolean verifyRecoveryCode(UUID userId, String recoveryCode) {
+    public boolean consumeRecoveryCode(UUID userId, String hashedCode) {
         User user = userRepository.findById(userId).orElseThrow(() -> new TwoFactorException("User not found"));
 
         User2FA twoFA = user.getTwoFactorAuth();
@@ -130,16 +171,13 @@ public class TwoFactorService {
         }
 
         List<String> hashedCodes = twoFA.getRecoveryCodes();
-        for (int i = 0; i < hashedCodes.size(); i++) {
-            if (passwordEncoder.matches(recoveryCode, hashedCodes.get(i))) {
-                hashedCodes.remove(i);
-                twoFA.setRecoveryCodes(hashedCodes);
-                userRepository.save(user);
-                log.info("Recovery code used for user: {}, {} codes remaining", userId, hashedCodes.size());
-                return true;
-            }
+        if (!hashedCodes.remove(hashedCode)) {
+            return false;
         }
-        return false;
+        twoFA.setRecoveryCodes(hashedCodes);
+        userRepository.save(user);
+        log.info("Recovery code used for user: {}, {} codes remaining", userId, hashedCodes.size());
+        return true;
     }
 
     @Transactional
@@ -159,6 +197,7 @@ public class TwoFactorService {
         twoFA.setSecret(null);
         twoFA.setRecoveryCodes(null);
         userRepository.save(user);
+        userSnapshotCache.evict(userId);
 
         log.info("2FA disabled for user: {}", userId);
     }
@@ -177,7 +216,7 @@ public class TwoFactorService {
         }
 
         String[] newCodes = recoveryCodeGenerator.generateCodes(config.getRecoveryCodeCount());
-        List<String> hashedCodes = Arrays.stream(newCodes).map(passwordEncoder::encode).toList();
+        List<String> hashedCodes = Arrays.stream(newCodes).map(passwordHasher::encode).toList();
 
         twoFA.setRecoveryCodes(hashedCodes);
         userRepository.save(user);
@@ -187,7 +226,7 @@ public class TwoFactorService {
     }
 
     public boolean is2FAEnabled(UUID userId) {
-        return userRepository.findById(userId).map(user -> user.getTwoFactorAuth() != null && user.getTwoFactorAuth().isEnabled()).orElse(false);
+        return userSnapshotCache.get(userId).map(UserSnapshot::twoFactorEnabled).orElse(false);
     }
 
     private String generateQrCodeDataUri(String email, String secret) {
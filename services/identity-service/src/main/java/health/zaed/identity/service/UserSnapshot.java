@@ -0,0 +1,44 @@
+package health.zaed.identity.service;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import health.zaed.identity.model.entity.User;
+import health.zaed.identity.model.enums.UserRole;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Immutable view of the user fields token issuance and 2FA checks read, cached by
+ * {@link UserSnapshotCache}.
+ *
+ * @param id the user ID
+ * @param email the user's email, null for phone-only accounts
+ * @param role the user's role
+ * @param active whether the account is enabled
+ * @param partnerId the partner organization, if any
+ * @param twoFactorEnabled whether 2FA is enabled
+ * @param loadedAt when the snapshot was read from Postgres
+ */
+public record UserSnapshot(
+    @NonNull UUID id,
+    @Nullable String email,
+    @NonNull UserRole role,
+    boolean active,
+    @Nullable UUID partnerId,
+    boolean twoFactorEnabled,
+    @NonNull Instant loadedAt
+) {
+
+    public static @NonNull UserSnapshot of(@NonNull User user) {
+        return new UserSnapshot(
+            user.getId(),
+            user.getEmail(),
+            user.getRole(),
+            user.isActive(),
+            user.getPartnerId(),
+            user.has2FAEnabled(),
+            Instant.now()
+        );
+    }
+}
@@ -0,0 +1,274 @@
+package health.zaed.identity.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import health.zaed.identity.config.UserCacheConfig;
+import health.zaed.identity.model.enums.UserRole;
+import health.zaed.identity.repository.UserRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Two-level cache of {@link UserSnapshot}s for paths that only read role, active flag,
+ * partner and 2FA state.
+ *
+ * <p>Lookups go through a bounded per-instance Caffeine cache (L1), then a Redis hash under
+ * {@code user:snapshot:<id>} shared by all instances (L2), then Postgres. {@link #evict}
+ * deletes the Redis copy and publishes the user ID on {@value #CHANNEL}; every instance,
+ * including this one, drops its L1 entry on receipt. Inside a transaction the eviction
+ * waits for commit, so loads that start after it read the new row.
+ *
+ * <p>A load already in flight may have read the row before that commit. Each eviction bumps a
+ * generation under {@code user:snapshot:gen:<id>}; a loader reads the generation before
+ * going to Postgres and only writes its snapshot to Redis if the generation is unchanged,
+ * so a copy read before an eviction never outlives it in L2.
+ *
+ * <p>Metrics:
+ * <ul>
+ *   <li>{@code cache.*{cache=users.snapshots}}: L1 hits, misses and evictions</li>
+ *   <li>{@code user.cache.shared{result=hit|miss}}: L2 lookups on an L1 miss</li>
+ *   <li>{@code user.cache.snapshot.age}: time since a served snapshot was read from Postgres</li>
+ *   <li>{@code user.cache.invalidation.lag}: publish-to-receive delay of invalidations</li>
+ * </ul>
+ */
+@Component
+public class UserSnapshotCache {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSnapshotCache.class);
+
+    public static final String CHANNEL = "zaed:identity:user-invalidations";
+    static final String KEY_PREFIX = "user:snapshot:";
+    static final String GENERATION_KEY_PREFIX = "user:snapshot:gen:";
+    static final String CACHE_NAME = "users.snapshots";
+
+    static final RedisScript<Long> EVICT_SCRIPT =
+        RedisScript.of(new ClassPathResource("scripts/user-snapshot-evict.lua"), Long.class);
+    static final RedisScript<Long> WRITE_SCRIPT =
+        RedisScript.of(new ClassPathResource("scripts/user-snapshot-write.lua"), Long.class);
+
+    private final UserRepository userRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final RedisConnectionFactory connectionFactory;
+    private final UserCacheConfig config;
+    private final Cache<UUID, UserSnapshot> local;
+    private final Counter sharedHits;
+    private final Counter sharedMisses;
+    private final Timer snapshotAge;
+    private final Timer invalidationLag;
+
+    private RedisMessageListenerContainer container;
+
+    public UserSnapshotCache(UserRepository userRepository,
+                             StringRedisTemplate redisTemplate,
+                             RedisConnectionFactory connectionFactory,
+                             UserCacheConfig config,
+                             MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.redisTemplate = redisTemplate;
+        this.connectionFactory = connectionFactory;
+        this.config = config;
+        this.local = Caffeine.newBuilder()
+            .maximumSize(config.getLocalMaxSize())
+            .expireAfterWrite(Duration.ofSeconds(config.getLocalTtl()))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, CACHE_NAME);
+        this.sharedHits = Counter.builder("user.cache.shared")
+            .tag("result", "hit")
+            .description("User snapshots served from Redis after a local miss")
+            .register(meterRegistry);
+        this.sharedMisses = Counter.builder("user.cache.shared")
+            .tag("result", "miss")
+            .description("User snapshots loaded from Postgres")
+            .register(meterRegistry);
+        this.snapshotAge = Timer.builder("user.cache.snapshot.age")
+            .description("Time since a served user snapshot was read from Postgres")
+            .register(meterRegistry);
+        this.invalidationLag = Timer.builder("user.cache.invalidation.lag")
+            .description("Delay between publishing and receiving a user cache invalidation")
+            .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!config.isEnabled()) {
+            log.info("User snapshot cache disabled on this instance");
+            return;
+        }
+        container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+            (message, pattern) -> onInvalidation(new String(message.getBody(), StandardCharsets.UTF_8)),
+            new ChannelTopic(CHANNEL));
+        container.afterPropertiesSet();
+        container.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (container != null) {
+            container.stop();
+        }
+    }
+
+    /**
+     * Returns the user's snapshot, or empty if the user does not exist.
+     */
+    public @NonNull Optional<UserSnapshot> get(@NonNull UUID userId) {
+        if (!config.isEnabled()) {
+            return load(userId);
+        }
+        UserSnapshot snapshot = local.get(userId, this::loadShared);
+        if (snapshot != null) {
+            snapshotAge.record(Duration.between(snapshot.loadedAt(), Instant.now()));
+        }
+        return Optional.ofNullable(snapshot);
+    }
+
+    /**
+     * Drops the user's snapshot on every instance. Call after changing role, active flag,
+     * partner or 2FA state.
+     */
+    public void evict(@NonNull UUID userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publishEviction(userId);
+                }
+            });
+        } else {
+            publishEviction(userId);
+        }
+    }
+
+    void onInvalidation(String message) {
+        String[] parts = message.split(" ");
+        try {
+            local.invalidate(UUID.fromString(parts[0]));
+            if (parts.length > 1) {
+                long lag = System.currentTimeMillis() - Long.parseLong(parts[1]);
+                invalidationLag.record(Math.max(lag, 0), TimeUnit.MILLISECONDS);
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed user cache invalidation: {}", message);
+        }
+    }
+
+    private void publishEviction(UUID userId) {
+        local.invalidate(userId);
+        try {
+            redisTemplate.execute(EVICT_SCRIPT, List.of(KEY_PREFIX + userId, GENERATION_KEY_PREFIX + userId),
+                String.valueOf(config.getSharedTtl()));
+            redisTemplate.convertAndSend(CHANNEL, userId + " " + System.currentTimeMillis());
+        } catch (RuntimeException e) {
+            // Other instances catch up when their local entry expires
+            log.warn("Failed to publish user cache invalidation for {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private @Nullable UserSnapshot loadShared(UUID userId) {
+        UserSnapshot shared = readShared(userId);
+        if (shared != null) {
+            sharedHits.increment();
+            return shared;
+        }
+        sharedMisses.increment();
+        // Read before Postgres: an eviction committed after this point moves it
+        String generation = readGeneration(userId);
+        UserSnapshot snapshot = load(userId).orElse(null);
+        if (snapshot != null && generation != null) {
+            writeShared(snapshot, generation);
+        }
+        return snapshot;
+    }
+
+    private Optional<UserSnapshot> load(UUID userId) {
+        return userRepository.findByIdWithCredentialAnd2FA(userId).map(UserSnapshot::of);
+    }
+
+    private @Nullable UserSnapshot readShared(UUID userId) {
+        try {
+            Map<Object, Object> fields = redisTemplate.opsForHash().entries(KEY_PREFIX + userId);
+            if (fields.isEmpty()) {
+                return null;
+            }
+            return new UserSnapshot(
+                userId,
+                emptyToNull(fields.get("email")),
+                UserRole.valueOf((String) fields.get("role")),
+                "1".equals(fields.get("active")),
+                fields.get("partnerId") == null || "".equals(fields.get("partnerId"))
+                    ? null : UUID.fromString((String) fields.get("partnerId")),
+                "1".equals(fields.get("twoFactor")),
+                Instant.ofEpochMilli(Long.parseLong((String) fields.get("loadedAt"))));
+        } catch (RuntimeException e) {
+            log.warn("Cannot read cached user snapshot {}: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Returns the user's current eviction generation, {@code ""} if never evicted, or null when
+     * Redis cannot be read and the snapshot should not be shared.
+     */
+    private @Nullable String readGeneration(UUID userId) {
+        try {
+            String generation = redisTemplate.opsForValue().get(GENERATION_KEY_PREFIX + userId);
+            return generation != null ? generation : "";
+        } catch (RuntimeException e) {
+            log.warn("Cannot read user snapshot generation {}: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeShared(UserSnapshot snapshot, String generation) {
+        UUID userId = snapshot.id();
+        try {
+            Long stored = redisTemplate.execute(WRITE_SCRIPT,
+                List.of(KEY_PREFIX + userId, GENERATION_KEY_PREFIX + userId),
+                generation, String.valueOf(config.getSharedTtl()),
+                "email", snapshot.email() != null ? snapshot.email() : "",
+                "role", snapshot.role().name(),
+                "active", snapshot.active() ? "1" : "0",
+                "partnerId", snapshot.partnerId() != null ? snapshot.partnerId().toString() : "",
+                "twoFactor", snapshot.twoFactorEnabled() ? "1" : "0",
+                "loadedAt", String.valueOf(snapshot.loadedAt().toEpochMilli()));
+            if (stored == null || stored == 0) {
+                log.debug("Skipped caching user snapshot {}: evicted during load", userId);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Cannot cache user snapshot {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private static @Nullable String emptyToNull(Object value) {
+        return value == null || "".equals(value) ? null : (String) value;
+    }
+}
@@ -0,0 +1,25 @@
+-- V10: Create JWT signing key ring
+-- Asymmetric signing keys shared by all identity-service instances (see ADR-008)
+
+CREATE TABLE jwt_signing_keys (
+    kid VARCHAR(64) PRIMARY KEY,           -- Key ID placed in the JWT header
+    algorithm VARCHAR(10) NOT NULL,        -- RS256, ES256, EdDSA
+    status VARCHAR(10) NOT NULL,           -- NEXT, ACTIVE, RETIRED
+    public_key BYTEA NOT NULL,             -- X.509 SubjectPublicKeyInfo (DER)
+    private_key_encrypted BYTEA NOT NULL,  -- AES-GCM encrypted PKCS#8 (DER)
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    activated_at TIMESTAMP WITH TIME ZONE,
+    retired_at TIMESTAMP WITH TIME ZONE
+);
+
+-- At most one key signs at a time
+CREATE UNIQUE INDEX idx_jwt_signing_keys_single_active ON jwt_signing_keys(status)
+    WHERE status = 'ACTIVE';
+
+-- Index for retired key cleanup
+CREATE INDEX idx_jwt_signing_keys_retired ON jwt_signing_keys(retired_at)
+    WHERE status = 'RETIRED';
+
+COMMENT ON TABLE jwt_signing_keys IS 'JWT signing key ring, published on /.well-known/jwks.json';
+COMMENT ON COLUMN jwt_signing_keys.status IS 'NEXT (published, not signing), ACTIVE (signing), RETIRED (verifying only)';
+COMMENT ON COLUMN jwt_signing_keys.private_key_encrypted IS 'IV || ciphertext, encrypted with zaed.identity.jwt.key-encryption-key';
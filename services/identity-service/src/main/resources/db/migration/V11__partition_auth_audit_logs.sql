@@ -0,0 +1,76 @@
+-- V11: Partition auth audit logs by month on created_at
+-- Inserts only maintain the current month's indexes, and retention drops whole partitions
+-- instead of running a large DELETE. AuditPartitionManager creates future partitions and
+-- removes expired ones.
+
+ALTER TABLE auth_audit_logs RENAME TO auth_audit_logs_v5;
+ALTER INDEX auth_audit_logs_pkey RENAME TO auth_audit_logs_v5_pkey;
+
+CREATE TABLE auth_audit_logs (
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
+    user_id UUID REFERENCES users(id) ON DELETE SET NULL,
+    email VARCHAR(255),
+    phone VARCHAR(20),
+    ip_address VARCHAR(45),
+    user_agent TEXT,
+    event_type VARCHAR(50) NOT NULL,
+    success BOOLEAN NOT NULL,
+    failure_reason VARCHAR(100),
+    details TEXT,
+    risk_score INTEGER,
+    metadata TEXT,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    -- The partition key must be part of every unique constraint
+    PRIMARY KEY (id, created_at),
+
+    CONSTRAINT chk_event_type CHECK (event_type IN (
+        'LOGIN_SUCCESS', 'LOGIN_FAILED', 'LOGOUT',
+        'OTP_SENT', 'OTP_VERIFIED', 'OTP_FAILED',
+        'TWO_FACTOR_CHALLENGE', 'TWO_FACTOR_SUCCESS', 'TWO_FACTOR_FAILED',
+        'TOKEN_REFRESH', 'TOKEN_REVOKED',
+        'PASSWORD_CHANGED', 'PASSWORD_RESET'
+    ))
+) PARTITION BY RANGE (created_at);
+
+-- Catches rows outside the managed months (e.g. if the partition manager stopped running)
+CREATE TABLE auth_audit_logs_default PARTITION OF auth_audit_logs DEFAULT;
+
+-- One partition per UTC month, from the oldest existing row to three months ahead
+DO $$
+DECLARE
+    -- UTC wall-clock months, so boundaries do not depend on the session time zone
+    month_start TIMESTAMP := date_trunc('month',
+        COALESCE((SELECT MIN(created_at) FROM auth_audit_logs_v5), now()) AT TIME ZONE 'UTC');
+    last_month TIMESTAMP := date_trunc('month', now() AT TIME ZONE 'UTC') + INTERVAL '3 months';
+BEGIN
+    WHILE month_start <= last_month LOOP
+        EXECUTE format(
+            'CREATE TABLE %I PARTITION OF auth_audit_logs FOR VALUES FROM (%L) TO (%L)',
+            'auth_audit_logs_' || to_char(month_start, 'YYYY_MM'),
+            to_char(month_start, 'YYYY-MM-DD') || ' 00:00:00+00',
+            to_char(month_start + INTERVAL '1 month', 'YYYY-MM-DD') || ' 00:00:00+00');
+        month_start := month_start + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO auth_audit_logs
+SELECT id, user_id, email, phone, ip_address, user_agent, event_type, success,
+       failure_reason, details, risk_score, metadata, created_at
+FROM auth_audit_logs_v5;
+
+DROP TABLE auth_audit_logs_v5;
+
+-- Indexes are created on every partition, including future ones
+CREATE INDEX idx_audit_user ON auth_audit_logs(user_id, created_at DESC)
+    WHERE user_id IS NOT NULL;
+CREATE INDEX idx_audit_ip ON auth_audit_logs(ip_address, created_at DESC);
+CREATE INDEX idx_audit_email ON auth_audit_logs(email, created_at DESC)
+    WHERE email IS NOT NULL;
+CREATE INDEX idx_audit_phone ON auth_audit_logs(phone, created_at DESC)
+    WHERE phone IS NOT NULL;
+CREATE INDEX idx_audit_event ON auth_audit_logs(event_type, created_at DESC);
+
+COMMENT ON TABLE auth_audit_logs IS 'Security audit trail for all auth events, partitioned by month';
+COMMENT ON COLUMN auth_audit_logs.event_type IS 'Type of authentication event';
+COMMENT ON COLUMN auth_audit_logs.details IS 'Additional context (failure reason, etc)';
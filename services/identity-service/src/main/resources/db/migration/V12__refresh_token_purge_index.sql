@@ -0,0 +1,8 @@
+-- V12: Index refresh tokens for the chunked purge
+-- RefreshTokenPurger walks expired tokens in (expires_at, id) order; the key makes each
+-- chunk resume after the previous one instead of rescanning deleted index entries.
+-- It replaces idx_refresh_cleanup, which nothing queried by revoked_at.
+
+CREATE INDEX idx_refresh_purge ON refresh_tokens(expires_at, id);
+
+DROP INDEX idx_refresh_cleanup;
@@ -0,0 +1,27 @@
+-- V13: Track refresh token rotation chains (families)
+-- family_id is the ID of the login token a chain started from and is carried through
+-- every rotation. Reuse of a rotated token revokes its family with one indexed UPDATE,
+-- leaving the user's other devices signed in.
+
+ALTER TABLE refresh_tokens ADD COLUMN family_id VARCHAR(36);
+
+-- Backfill: rotation keeps the device, so existing tokens of one user and device are
+-- treated as one chain, named after its oldest token. Tokens without a device become
+-- their own family.
+UPDATE refresh_tokens rt
+SET family_id = chains.family_id
+FROM (
+    SELECT id, FIRST_VALUE(id) OVER (PARTITION BY user_id, device_id ORDER BY created_at, id) AS family_id
+    FROM refresh_tokens
+    WHERE device_id IS NOT NULL
+) chains
+WHERE rt.id = chains.id;
+
+UPDATE refresh_tokens SET family_id = id WHERE family_id IS NULL;
+
+ALTER TABLE refresh_tokens ALTER COLUMN family_id SET NOT NULL;
+
+-- Only live tokens are ever revoked, so the index skips revoked ones
+CREATE INDEX idx_refresh_family ON refresh_tokens(family_id) WHERE revoked_at IS NULL;
+
+COMMENT ON COLUMN refresh_tokens.family_id IS 'ID of the login token this rotation chain started from';
@@ -0,0 +1,27 @@
+-- Records one failed login in the sliding-window counters for an email and an IP.
+--
+-- KEYS[1] email failures (sorted set, scored by failure time)
+-- KEYS[2] IP failures (sorted set, scored by failure time)
+-- ARGV[1] now in epoch milliseconds
+-- ARGV[2] window in milliseconds
+-- ARGV[3] unique member for this failure
+-- ARGV[4] email failure limit
+-- ARGV[5] IP failure limit
+--
+-- Only the newest <limit> failures are kept per key: the lockout check needs no more,
+-- so an attack cannot grow the sets. Returns the email failures in the window.
+
+local now = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+
+local function record(key, limit)
+    redis.call('ZADD', key, now, ARGV[3])
+    redis.call('ZREMRANGEBYSCORE', key, '-inf', now - window)
+    redis.call('ZREMRANGEBYRANK', key, 0, -(limit + 1))
+    redis.call('PEXPIRE', key, window)
+    return redis.call('ZCARD', key)
+end
+
+local emailFailures = record(KEYS[1], tonumber(ARGV[4]))
+record(KEYS[2], tonumber(ARGV[5]))
+return emailFailures
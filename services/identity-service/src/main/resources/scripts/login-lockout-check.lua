@@ -0,0 +1,26 @@
+-- Checks the sliding-window login failure counters for an email and an IP.
+--
+-- KEYS[1] email failures (sorted set, scored by failure time)
+-- KEYS[2] IP failures (sorted set, scored by failure time)
+-- ARGV[1] now in epoch milliseconds
+-- ARGV[2] window in milliseconds
+-- ARGV[3] email failure limit
+-- ARGV[4] IP failure limit
+--
+-- Returns {emailRetryAfterMillis, ipRetryAfterMillis}; 0 means not locked. A key stays
+-- locked until enough failures age out of the window to drop below its limit.
+
+local now = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local since = '(' .. (now - window)
+
+local function retry_after(key, limit)
+    local failures = redis.call('ZCOUNT', key, since, '+inf')
+    if failures < limit then
+        return 0
+    end
+    local expiring = redis.call('ZRANGEBYSCORE', key, since, '+inf', 'WITHSCORES', 'LIMIT', failures - limit, 1)
+    return math.max(tonumber(expiring[2]) + window - now, 1)
+end
+
+return {retry_after(KEYS[1], tonumber(ARGV[3])), retry_after(KEYS[2], tonumber(ARGV[4]))}
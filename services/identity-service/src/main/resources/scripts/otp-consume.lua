@@ -0,0 +1,13 @@
+-- Consumes a verified OTP if it is still the one that was checked.
+--
+-- KEYS[1] OTP hash key
+-- KEYS[2] attempts counter key
+-- ARGV[1] hash the code was verified against
+--
+-- Returns 1 if the OTP was consumed, 0 if it was already consumed or replaced.
+
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    redis.call('DEL', KEYS[1], KEYS[2])
+    return 1
+end
+return 0
@@ -0,0 +1,93 @@
+-- Sends an OTP in one call: dedup check, sliding-window rate limits, OTP store and SMS
+-- outbox enqueue.
+--
+-- KEYS[1] dedup key for the send
+-- KEYS[2] sends to the phone (sorted set, scored by send time)
+-- KEYS[3] sends to the phone's number prefix
+-- KEYS[4] sends from the client IP or bulk sender
+-- KEYS[5] OTP key
+-- KEYS[6] OTP attempts key
+-- KEYS[7] outbox message hash key
+-- KEYS[8] outbox delivery stream key
+-- ARGV[1] now in epoch milliseconds
+-- ARGV[2] dedup window in milliseconds, 0 to send every time
+-- ARGV[3] rate-limit window in milliseconds
+-- ARGV[4] unique member for this send
+-- ARGV[5] phone limit
+-- ARGV[6] prefix limit
+-- ARGV[7] IP or sender limit
+-- ARGV[8] OTP hash
+-- ARGV[9] OTP expiry in seconds
+-- ARGV[10] delivery ID
+-- ARGV[11] phone
+-- ARGV[12] OTP code
+-- ARGV[13] channel
+-- ARGV[14] approximate stream length cap
+--
+-- Returns {2, dispatch} when the dedup key holds an earlier send, as
+-- "deliveryId:expiresAtMillis:retryAtMillis".
+-- Returns {0, retryAfterMillis, i} when rate-limit key i (1 phone, 2 prefix, 3 IP or
+-- sender) is at its limit; retryAfterMillis is when enough of its sends age out to allow
+-- one more, taking the longest wait across keys.
+-- Nothing is written in either case. Otherwise records the send on the rate-limit keys,
+-- stores the OTP hash with fresh attempts, queues the message, records the dispatch under
+-- the dedup key and returns {1, resetMillis, 0}, where resetMillis is when the oldest send
+-- to the phone leaves the window.
+
+local now = tonumber(ARGV[1])
+local dedup_window = tonumber(ARGV[2])
+local window = tonumber(ARGV[3])
+local member = ARGV[4]
+local expiry = tonumber(ARGV[9])
+
+if dedup_window > 0 then
+    local existing = redis.call('GET', KEYS[1])
+    if existing then
+        return {2, existing}
+    end
+end
+
+local retry_after = 0
+local limiting = 0
+
+for i = 1, 3 do
+    local key = KEYS[1 + i]
+    redis.call('ZREMRANGEBYSCORE', key, '-inf', now - window)
+    local limit = tonumber(ARGV[4 + i])
+    local sends = redis.call('ZCARD', key)
+    if sends >= limit then
+        local freeing = redis.call('ZRANGE', key, sends - limit, sends - limit, 'WITHSCORES')
+        local wait = math.max(tonumber(freeing[2]) + window - now, 1)
+        if wait > retry_after then
+            retry_after = wait
+            limiting = i
+        end
+    end
+end
+
+if limiting > 0 then
+    return {0, retry_after, limiting}
+end
+
+for i = 1, 3 do
+    redis.call('ZADD', KEYS[1 + i], now, member)
+    redis.call('PEXPIRE', KEYS[1 + i], window)
+end
+local oldest = redis.call('ZRANGE', KEYS[2], 0, 0, 'WITHSCORES')
+local reset = math.max(tonumber(oldest[2]) + window - now, 1)
+
+redis.call('SET', KEYS[5], ARGV[8], 'EX', expiry)
+redis.call('DEL', KEYS[6])
+
+redis.call('HSET', KEYS[7],
+    'phone', ARGV[11], 'otp', ARGV[12], 'channel', ARGV[13],
+    'status', 'QUEUED', 'attempts', 0, 'enqueuedAt', ARGV[1])
+redis.call('EXPIRE', KEYS[7], expiry)
+redis.call('XADD', KEYS[8], 'MAXLEN', '~', ARGV[14], '*', 'id', ARGV[10])
+
+if dedup_window > 0 then
+    redis.call('SET', KEYS[1], string.format('%s:%d:%d', ARGV[10], now + expiry * 1000, now + reset),
+        'PX', dedup_window)
+end
+
+return {1, reset, 0}
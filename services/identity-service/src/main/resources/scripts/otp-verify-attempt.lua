@@ -0,0 +1,25 @@
+-- Reserves one OTP verification attempt and returns the stored hash.
+--
+-- KEYS[1] OTP hash key
+-- KEYS[2] attempts counter key
+-- ARGV[1] max attempts
+-- ARGV[2] attempts counter TTL in seconds
+--
+-- Returns {-1, attempts} when attempts are exhausted, {-2, attempts} when the OTP is
+-- missing or expired, otherwise {attempts (including this one), hash}.
+
+local attempts = tonumber(redis.call('GET', KEYS[2]) or '0')
+if attempts >= tonumber(ARGV[1]) then
+    return {-1, attempts}
+end
+
+local hash = redis.call('GET', KEYS[1])
+if not hash then
+    return {-2, attempts}
+end
+
+attempts = redis.call('INCR', KEYS[2])
+if attempts == 1 then
+    redis.call('EXPIRE', KEYS[2], ARGV[2])
+end
+return {attempts, hash}
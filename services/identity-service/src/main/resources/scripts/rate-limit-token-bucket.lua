@@ -0,0 +1,47 @@
+-- Takes one token from each of several token buckets, or from none.
+--
+-- KEYS[i]      bucket (hash: tokens, ts)
+-- ARGV[1]      now in epoch milliseconds
+-- ARGV[2i]     capacity of bucket i
+-- ARGV[2i + 1] refill rate of bucket i in tokens per millisecond
+--
+-- Returns {1, 0, 0} when allowed, or {0, retryAfterMillis, i} where bucket i is the one
+-- that stays empty longest. Nothing is written when a request is denied, so rejected
+-- requests do not delay the refill. Idle buckets expire once they would be full again.
+
+local now = tonumber(ARGV[1])
+local available = {}
+local retry_after = 0
+local limiting = 0
+
+for i = 1, #KEYS do
+    local capacity = tonumber(ARGV[2 * i])
+    local rate = tonumber(ARGV[2 * i + 1])
+    local state = redis.call('HMGET', KEYS[i], 'tokens', 'ts')
+    local tokens = tonumber(state[1])
+    if tokens == nil then
+        tokens = capacity
+    else
+        tokens = math.min(capacity, tokens + math.max(now - tonumber(state[2]), 0) * rate)
+    end
+    available[i] = tokens
+    if tokens < 1 then
+        local wait = math.ceil((1 - tokens) / rate)
+        if wait > retry_after then
+            retry_after = wait
+            limiting = i
+        end
+    end
+end
+
+if limiting > 0 then
+    return {0, retry_after, limiting}
+end
+
+for i = 1, #KEYS do
+    local capacity = tonumber(ARGV[2 * i])
+    local rate = tonumber(ARGV[2 * i + 1])
+    redis.call('HSET', KEYS[i], 'tokens', tostring(available[i] - 1), 'ts', now)
+    redis.call('PEXPIRE', KEYS[i], math.ceil(capacity / rate))
+end
+return {1, 0, 0}
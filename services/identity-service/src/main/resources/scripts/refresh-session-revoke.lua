@@ -0,0 +1,44 @@
+-- Revokes refresh sessions in the hot tier and queues the change for Postgres.
+--
+-- KEYS[1] user's live session set
+-- KEYS[2] write-behind stream
+-- KEYS[3] family set (optional)
+-- ARGV[1] now in epoch seconds
+-- ARGV[2] revoke reason
+-- ARGV[3] session key prefix
+-- ARGV[4] approximate stream length cap
+-- ARGV[5..n] token IDs to revoke
+--
+-- Without token IDs, revokes every session of the family in KEYS[3], or every live
+-- session of the user when no family is given. Each revoked session is queued as its own
+-- entry carrying the whole row, so the write-behind can upsert it even before the row's
+-- insert is applied. Returns the number of sessions revoked.
+-- Sessions not in Redis are left to the caller.
+
+local ids = {}
+if #ARGV > 4 then
+    for i = 5, #ARGV do
+        ids[#ids + 1] = ARGV[i]
+    end
+elseif #KEYS > 2 then
+    ids = redis.call('SMEMBERS', KEYS[3])
+else
+    ids = redis.call('SMEMBERS', KEYS[1])
+end
+
+local revoked = 0
+for _, id in ipairs(ids) do
+    local key = ARGV[3] .. id
+    if redis.call('EXISTS', key) == 1 and not redis.call('HGET', key, 'revokedAt') then
+        redis.call('HSET', key, 'revokedAt', ARGV[1], 'reason', ARGV[2])
+        local row = redis.call('HMGET', key,
+            'user', 'hash', 'family', 'device', 'deviceInfo', 'ip', 'exp', 'createdAt')
+        redis.call('XADD', KEYS[2], 'MAXLEN', '~', ARGV[4], '*',
+            'op', 'revoke', 'id', id, 'reason', ARGV[2], 'at', ARGV[1],
+            'user', row[1], 'hash', row[2], 'family', row[3], 'device', row[4] or '',
+            'deviceInfo', row[5] or '', 'ip', row[6] or '', 'exp', row[7], 'createdAt', row[8])
+        revoked = revoked + 1
+    end
+    redis.call('SREM', KEYS[1], id)
+end
+return revoked
@@ -0,0 +1,83 @@
+-- Rotates a refresh session: revokes the presented token and issues its successor.
+--
+-- KEYS[1] presented session hash
+-- KEYS[2] successor session hash
+-- KEYS[3] user's live session set
+-- KEYS[4] write-behind stream
+-- ARGV[1] presented token ID
+-- ARGV[2] SHA-256 hash of the presented token
+-- ARGV[3] successor token ID
+-- ARGV[4] SHA-256 hash of the successor token
+-- ARGV[5] client IP
+-- ARGV[6] successor expiry in epoch seconds
+-- ARGV[7] now in epoch seconds
+-- ARGV[8] session key prefix
+-- ARGV[9] family key prefix
+-- ARGV[10] approximate stream length cap
+--
+-- Family and sibling session keys are derived from the stored family ID, which is only
+-- known inside the script. Stream entries carry every column of the rows they touch, so
+-- the write-behind can apply them as upserts in any order. Returns {status, detail}:
+--   {'MISSING'}            session not in Redis (issued before the hot tier, or lost)
+--   {'MISMATCH'}           stored hash differs from the presented token
+--   {'EXPIRED'}            session expired
+--   {'REUSED', revoked}    presented token was already revoked; its whole family is now
+--                          revoked and <revoked> live sessions were affected
+--   {'ROTATED'}            successor stored
+
+local session = redis.call('HMGET', KEYS[1],
+    'hash', 'exp', 'revokedAt', 'family', 'user', 'device', 'deviceInfo', 'ip', 'createdAt')
+if not session[1] then
+    return {'MISSING'}
+end
+if session[1] ~= ARGV[2] then
+    return {'MISMATCH'}
+end
+
+local now = ARGV[7]
+local familyKey = ARGV[9] .. session[4]
+
+if session[3] then
+    local revoked = 0
+    for _, id in ipairs(redis.call('SMEMBERS', familyKey)) do
+        local key = ARGV[8] .. id
+        if redis.call('EXISTS', key) == 1 and not redis.call('HGET', key, 'revokedAt') then
+            redis.call('HSET', key, 'revokedAt', now, 'reason', 'SUSPICIOUS')
+            local row = redis.call('HMGET', key,
+                'user', 'hash', 'family', 'device', 'deviceInfo', 'ip', 'exp', 'createdAt')
+            redis.call('XADD', KEYS[4], 'MAXLEN', '~', ARGV[10], '*',
+                'op', 'revoke', 'id', id, 'reason', 'SUSPICIOUS', 'at', now,
+                'user', row[1], 'hash', row[2], 'family', row[3], 'device', row[4] or '',
+                'deviceInfo', row[5] or '', 'ip', row[6] or '', 'exp', row[7], 'createdAt', row[8])
+            revoked = revoked + 1
+        end
+        redis.call('SREM', KEYS[3], id)
+    end
+    return {'REUSED', tostring(revoked)}
+end
+
+if tonumber(session[2]) <= tonumber(now) then
+    return {'EXPIRED'}
+end
+
+local device = session[6] or ''
+local deviceInfo = session[7] or ''
+
+redis.call('HSET', KEYS[1], 'revokedAt', now, 'reason', 'ROTATION', 'lastUsedAt', now)
+redis.call('HSET', KEYS[2],
+    'user', session[5], 'hash', ARGV[4], 'family', session[4],
+    'device', device, 'deviceInfo', deviceInfo, 'ip', ARGV[5],
+    'exp', ARGV[6], 'createdAt', now)
+redis.call('EXPIREAT', KEYS[2], ARGV[6])
+redis.call('SADD', familyKey, ARGV[3])
+redis.call('EXPIREAT', familyKey, ARGV[6])
+redis.call('SREM', KEYS[3], ARGV[1])
+redis.call('SADD', KEYS[3], ARGV[3])
+redis.call('EXPIREAT', KEYS[3], ARGV[6])
+
+redis.call('XADD', KEYS[4], 'MAXLEN', '~', ARGV[10], '*',
+    'op', 'rotate', 'id', ARGV[1], 'at', now,
+    'next', ARGV[3], 'user', session[5], 'hash', ARGV[4], 'family', session[4],
+    'device', device, 'deviceInfo', deviceInfo, 'ip', ARGV[5], 'exp', ARGV[6],
+    'prevHash', session[1], 'prevIp', session[8] or '', 'prevExp', session[2], 'prevCreatedAt', session[9])
+return {'ROTATED'}
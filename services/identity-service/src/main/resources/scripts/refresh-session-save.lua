@@ -0,0 +1,27 @@
+-- Stores a newly issued refresh session in the hot tier.
+--
+-- KEYS[1] session hash
+-- KEYS[2] family set (token IDs issued by rotation from the same login)
+-- KEYS[3] user's live session set
+-- ARGV[1] token ID
+-- ARGV[2] user ID
+-- ARGV[3] SHA-256 token hash
+-- ARGV[4] family ID
+-- ARGV[5] device ID ('' if none)
+-- ARGV[6] device info ('' if none)
+-- ARGV[7] client IP
+-- ARGV[8] expiry in epoch seconds
+-- ARGV[9] now in epoch seconds
+--
+-- The session is kept until it expires, revoked or not, so a replay is still detected.
+
+redis.call('HSET', KEYS[1],
+    'user', ARGV[2], 'hash', ARGV[3], 'family', ARGV[4],
+    'device', ARGV[5], 'deviceInfo', ARGV[6], 'ip', ARGV[7],
+    'exp', ARGV[8], 'createdAt', ARGV[9])
+redis.call('EXPIREAT', KEYS[1], ARGV[8])
+redis.call('SADD', KEYS[2], ARGV[1])
+redis.call('EXPIREAT', KEYS[2], ARGV[8])
+redis.call('SADD', KEYS[3], ARGV[1])
+redis.call('EXPIREAT', KEYS[3], ARGV[8])
+return 1
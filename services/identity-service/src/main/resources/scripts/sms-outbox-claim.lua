@@ -0,0 +1,25 @@
+-- Claims a queued OTP message for one delivery attempt.
+--
+-- KEYS[1] message hash key
+-- ARGV[1] max delivery attempts
+--
+-- Returns -1 if the message expired, 0 if it already reached SENT or FAILED (duplicate
+-- stream entry), -2 if attempts are exhausted (marked FAILED), otherwise the attempt
+-- number (status set to SENDING).
+
+local status = redis.call('HGET', KEYS[1], 'status')
+if not status then
+    return -1
+end
+if status == 'SENT' or status == 'FAILED' then
+    return 0
+end
+
+local attempts = redis.call('HINCRBY', KEYS[1], 'attempts', 1)
+if attempts > tonumber(ARGV[1]) then
+    redis.call('HSET', KEYS[1], 'status', 'FAILED')
+    redis.call('HDEL', KEYS[1], 'otp')
+    return -2
+end
+redis.call('HSET', KEYS[1], 'status', 'SENDING')
+return attempts
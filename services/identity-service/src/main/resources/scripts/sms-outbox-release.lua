@@ -0,0 +1,16 @@
+-- Moves OTP messages whose retry backoff has elapsed back onto the delivery stream.
+--
+-- KEYS[1] retry set (delivery IDs scored by due time in epoch milliseconds)
+-- KEYS[2] delivery stream key
+-- ARGV[1] now in epoch milliseconds
+-- ARGV[2] most messages to move
+-- ARGV[3] approximate stream length cap
+--
+-- Returns the number of messages moved.
+
+local due = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2])
+for _, id in ipairs(due) do
+    redis.call('ZREM', KEYS[1], id)
+    redis.call('XADD', KEYS[2], 'MAXLEN', '~', ARGV[3], '*', 'id', id)
+end
+return #due
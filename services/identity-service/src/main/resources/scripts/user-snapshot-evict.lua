@@ -0,0 +1,13 @@
+-- Drops a user's shared snapshot and bumps its generation, so loaders that read the user
+-- before the eviction cannot write their copy back.
+--
+-- KEYS[1] snapshot hash
+-- KEYS[2] snapshot generation
+-- ARGV[1] generation TTL in seconds
+--
+-- Returns the new generation.
+
+redis.call('DEL', KEYS[1])
+local generation = redis.call('INCR', KEYS[2])
+redis.call('EXPIRE', KEYS[2], ARGV[1])
+return generation
@@ -0,0 +1,18 @@
+-- Stores a user snapshot loaded from Postgres, unless the user was evicted since the load.
+--
+-- KEYS[1] snapshot hash
+-- KEYS[2] snapshot generation
+-- ARGV[1] generation read before the load ('' if none)
+-- ARGV[2] snapshot TTL in seconds
+-- ARGV[3..n] field/value pairs
+--
+-- Returns 1 when stored, 0 when the generation moved and the snapshot may be stale.
+
+local generation = redis.call('GET', KEYS[2]) or ''
+if generation ~= ARGV[1] then
+    return 0
+end
+
+redis.call('HSET', KEYS[1], unpack(ARGV, 3))
+redis.call('EXPIRE', KEYS[1], ARGV[2])
+return 1
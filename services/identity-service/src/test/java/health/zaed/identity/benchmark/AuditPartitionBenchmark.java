@@ -0,0 +1,223 @@
+package health.zaed.identity.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Audit table insert throughput and retention cost, V5 heap versus V11 monthly partitions.
+ *
+ * <ul>
+ *   <li>{@code insertHeap} / {@code insertPartitioned}: one 500-row multi-row INSERT, as
+ *       written by {@code AuditLogWriter}, into tables already holding 12 months of rows</li>
+ *   <li>{@code retentionDelete} / {@code retentionDropPartition}: removing the oldest month
+ *       ({@value #ROWS_PER_MONTH} rows) with a DELETE versus DETACH + DROP</li>
+ * </ul>
+ *
+ * <p>Both tables carry the five V5 indexes. Seeding takes a few minutes; the retention
+ * benchmarks refill the removed month before every invocation.
+ *
+ * <p>Requires Postgres with the application's default credentials on {@code localhost:5432}.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuditPartitionBenchmark {
+
+    private static final String JDBC_URL = "jdbc:postgresql://localhost:5432/zaed_identity";
+    private static final int MONTHS = 12;
+    private static final int ROWS_PER_MONTH = 400_000;
+    private static final int BATCH = 500;
+    private static final YearMonth OLDEST = YearMonth.now(ZoneOffset.UTC).minusMonths(MONTHS - 1);
+
+    private static final String COLUMNS = """
+        id UUID NOT NULL DEFAULT gen_random_uuid(),
+        user_id UUID, email VARCHAR(255), phone VARCHAR(20), ip_address VARCHAR(45), user_agent TEXT,
+        event_type VARCHAR(50) NOT NULL, success BOOLEAN NOT NULL, failure_reason VARCHAR(100),
+        details TEXT, risk_score INTEGER, metadata TEXT,
+        created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP""";
+
+    private Connection connection;
+    private String batchInsertHeap;
+    private String batchInsertPartitioned;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(JDBC_URL, "zaed", "zaed");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_audit_heap, bench_audit_partitioned");
+            statement.execute("CREATE TABLE bench_audit_heap (" + COLUMNS + ", PRIMARY KEY (id))");
+            statement.execute("CREATE TABLE bench_audit_partitioned (" + COLUMNS + ", PRIMARY KEY (id, created_at)) "
+                + "PARTITION BY RANGE (created_at)");
+            for (int i = 0; i <= MONTHS; i++) {
+                createPartition(statement, OLDEST.plusMonths(i));
+            }
+            for (String table : new String[] {"bench_audit_heap", "bench_audit_partitioned"}) {
+                statement.execute("CREATE INDEX ON " + table + "(user_id, created_at DESC) WHERE user_id IS NOT NULL");
+                statement.execute("CREATE INDEX ON " + table + "(ip_address, created_at DESC)");
+                statement.execute("CREATE INDEX ON " + table + "(email, created_at DESC) WHERE email IS NOT NULL");
+                statement.execute("CREATE INDEX ON " + table + "(phone, created_at DESC) WHERE phone IS NOT NULL");
+                statement.execute("CREATE INDEX ON " + table + "(event_type, created_at DESC)");
+                for (int i = 0; i < MONTHS; i++) {
+                    fillMonth(statement, table, OLDEST.plusMonths(i));
+                }
+                statement.execute("ANALYZE " + table);
+            }
+        }
+        batchInsertHeap = batchInsert("bench_audit_heap");
+        batchInsertPartitioned = batchInsert("bench_audit_partitioned");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_audit_heap, bench_audit_partitioned");
+        }
+        connection.close();
+    }
+
+    /**
+     * Puts the oldest month back after a retention benchmark removed it.
+     */
+    @State(Scope.Benchmark)
+    public static class Refill {
+
+        @Setup(Level.Invocation)
+        public void refill(AuditPartitionBenchmark benchmark) throws SQLException {
+            try (Statement statement = benchmark.connection.createStatement()) {
+                createPartition(statement, OLDEST);
+                for (String table : new String[] {"bench_audit_heap", "bench_audit_partitioned"}) {
+                    statement.execute("DELETE FROM " + table + " WHERE created_at < '" + startOf(OLDEST.plusMonths(1)) + "'");
+                    fillMonth(statement, table, OLDEST);
+                }
+                statement.execute("VACUUM ANALYZE bench_audit_heap");
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 2, time = 5)
+    @Measurement(iterations = 5, time = 10)
+    public int insertHeap() throws SQLException {
+        return insertBatch(batchInsertHeap);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 2, time = 5)
+    @Measurement(iterations = 5, time = 10)
+    public int insertPartitioned() throws SQLException {
+        return insertBatch(batchInsertPartitioned);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 5)
+    public int retentionDelete(Refill refill) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            return statement.executeUpdate(
+                "DELETE FROM bench_audit_heap WHERE created_at < '" + startOf(OLDEST.plusMonths(1)) + "'");
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 5)
+    public int retentionDropPartition(Refill refill) throws SQLException {
+        String partition = partitionName(OLDEST);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE bench_audit_partitioned DETACH PARTITION " + partition);
+            statement.execute("DROP TABLE " + partition);
+        }
+        return ROWS_PER_MONTH;
+    }
+
+    private int insertBatch(String sql) throws SQLException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Timestamp now = Timestamp.from(Instant.now());
+        try (PreparedStatement insert = connection.prepareStatement(sql)) {
+            int p = 1;
+            for (int i = 0; i < BATCH; i++) {
+                int user = random.nextInt(200_000);
+                insert.setString(p++, "user" + user + "@example.com");
+                insert.setString(p++, "10.0." + (user % 256) + "." + (user / 256 % 256));
+                insert.setString(p++, "Mozilla/5.0");
+                insert.setString(p++, user % 3 == 0 ? "LOGIN_FAILED" : "LOGIN_SUCCESS");
+                insert.setBoolean(p++, user % 3 != 0);
+                insert.setTimestamp(p++, now);
+            }
+            return insert.executeUpdate();
+        }
+    }
+
+    private static String batchInsert(String table) {
+        StringBuilder sql = new StringBuilder("INSERT INTO " + table
+            + " (email, ip_address, user_agent, event_type, success, created_at) VALUES ");
+        for (int i = 0; i < BATCH; i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, ?, ?, ?)");
+        }
+        return sql.toString();
+    }
+
+    private static void createPartition(Statement statement, YearMonth month) throws SQLException {
+        statement.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month) + " PARTITION OF bench_audit_partitioned "
+            + "FOR VALUES FROM ('" + startOf(month) + "') TO ('" + startOf(month.plusMonths(1)) + "')");
+    }
+
+    private static void fillMonth(Statement statement, String table, YearMonth month) throws SQLException {
+        statement.execute("""
+            INSERT INTO %s (email, ip_address, user_agent, event_type, success, created_at)
+            SELECT 'user' || (g %% 200000) || '@example.com',
+                   '10.0.' || (g %% 256) || '.' || (g / 256 %% 256),
+                   'Mozilla/5.0',
+                   CASE WHEN g %% 3 = 0 THEN 'LOGIN_FAILED' ELSE 'LOGIN_SUCCESS' END,
+                   g %% 3 <> 0,
+                   '%s'::timestamptz + random() * ('%s'::timestamptz - '%s'::timestamptz)
+            FROM generate_series(1, %d) AS g""".formatted(
+            table, startOf(month), startOf(month.plusMonths(1)), startOf(month), ROWS_PER_MONTH));
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "bench_audit_partitioned_" + month.getYear() + "_" + String.format("%02d", month.getMonthValue());
+    }
+
+    private static String startOf(YearMonth month) {
+        return month.atDay(1) + " 00:00:00+00";
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(AuditPartitionBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,127 @@
+package health.zaed.identity.benchmark;
+
+import health.zaed.identity.config.JwtConfig;
+import health.zaed.identity.model.entity.User;
+import health.zaed.identity.model.enums.UserRole;
+import health.zaed.identity.security.JwtAuthenticationFilter;
+import health.zaed.identity.security.RevocationView;
+import health.zaed.identity.security.VerifiedTokenCache;
+import health.zaed.identity.service.JwtService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Base64;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filter throughput for {@link JwtAuthenticationFilter} with and without the verified-token cache.
+ *
+ * <p>Simulates a mobile fleet: {@code activeTokens} distinct access tokens, where requests follow
+ * a skewed (roughly Zipfian) reuse pattern so a small set of active sessions sends most requests.
+ * {@code cacheSize = 0} reproduces the uncached behaviour.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final int SEQUENCE_LENGTH = 1 << 16;
+
+    @Param({"0", "10000"})
+    public int cacheSize;
+
+    @Param({"1000"})
+    public int activeTokens;
+
+    private JwtAuthenticationFilter filter;
+    private String[] authorizationHeaders;
+    private int[] requestSequence;
+    private final FilterChain noOpChain = (request, response) -> { };
+
+    @Setup
+    public void setUp() {
+        JwtConfig jwtConfig = new JwtConfig();
+        jwtConfig.setSecret(Base64.getEncoder().encodeToString("this-is-a-bench-secret-key-256bit".getBytes()));
+        jwtConfig.setIssuer("zaed.org");
+        jwtConfig.setVerifiedTokenCacheSize(cacheSize);
+
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(jwtConfig, new SimpleMeterRegistry());
+        JwtService jwtService = new JwtService(jwtConfig, verifiedTokenCache);
+        RevocationView revocationView = new RevocationView(jwtConfig, new LettuceConnectionFactory());
+        filter = new JwtAuthenticationFilter(jwtService, verifiedTokenCache, revocationView);
+
+        authorizationHeaders = new String[activeTokens];
+        for (int i = 0; i < activeTokens; i++) {
+            User user = User.builder()
+                .id(UUID.randomUUID())
+                .email("partner" + i + "@pharmacy.com")
+                .role(UserRole.PARTNER_PHARMACY)
+                .build();
+            authorizationHeaders[i] = "Bearer " + jwtService.generateAccessToken(user);
+        }
+
+        // Skewed reuse: index = n * u^3 concentrates traffic on low indices
+        SplittableRandom random = new SplittableRandom(42);
+        requestSequence = new int[SEQUENCE_LENGTH];
+        for (int i = 0; i < SEQUENCE_LENGTH; i++) {
+            double u = random.nextDouble();
+            requestSequence[i] = (int) (activeTokens * u * u * u);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int position;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            position = (int) Thread.currentThread().threadId() * 7919;
+        }
+    }
+
+    @Benchmark
+    public Object filterRequest(Cursor cursor) throws Exception {
+        int index = requestSequence[(cursor.position++) & (SEQUENCE_LENGTH - 1)];
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/auth/2fa/status");
+        request.setServletPath("/api/v1/auth/2fa/status");
+        request.addHeader("Authorization", authorizationHeaders[index]);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), noOpChain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(JwtAuthenticationFilterBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
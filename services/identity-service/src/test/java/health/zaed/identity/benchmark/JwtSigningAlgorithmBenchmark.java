@@ -0,0 +1,94 @@
+package health.zaed.identity.benchmark;
+
+import health.zaed.identity.config.JwtConfig;
+import health.zaed.identity.model.entity.User;
+import health.zaed.identity.model.enums.SigningAlgorithm;
+import health.zaed.identity.model.enums.UserRole;
+import health.zaed.identity.security.JwkSet.PublishedKey;
+import health.zaed.identity.security.JwtKeyMaterial;
+import health.zaed.identity.security.VerifiedTokenCache;
+import health.zaed.identity.service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.security.KeyPair;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sign and verify cost of an access token per {@link SigningAlgorithm}.
+ *
+ * <p>HS256 is the Phase 1 baseline; RS256 (2048-bit), ES256 (P-256) and EdDSA (Ed25519)
+ * are the key-ring options. Asymmetric signing is the expensive side for RSA, while
+ * verification is the hot path for downstream services.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtSigningAlgorithmBenchmark {
+
+    @Param({"HS256", "RS256", "ES256", "EdDSA"})
+    public SigningAlgorithm algorithm;
+
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        JwtConfig jwtConfig = new JwtConfig();
+        jwtConfig.setSecret(Base64.getEncoder().encodeToString("this-is-a-bench-secret-key-256bit".getBytes()));
+        jwtConfig.setIssuer("zaed.org");
+        jwtConfig.setAlgorithm(algorithm);
+
+        jwtService = new JwtService(jwtConfig, new VerifiedTokenCache(jwtConfig, new SimpleMeterRegistry()));
+        if (algorithm.isAsymmetric()) {
+            KeyPair keyPair = algorithm.generateKeyPair();
+            PublishedKey active = new PublishedKey("bench", algorithm, keyPair.getPublic());
+            jwtService.installKeyMaterial(
+                JwtKeyMaterial.forKeyRing(jwtConfig, active, keyPair.getPrivate(), List.of(active)));
+        }
+
+        user = User.builder()
+            .id(UUID.randomUUID())
+            .email("partner@pharmacy.com")
+            .role(UserRole.PARTNER_PHARMACY)
+            .build();
+        token = jwtService.generateAccessToken(user);
+    }
+
+    @Benchmark
+    public String sign() {
+        return jwtService.generateAccessToken(user);
+    }
+
+    @Benchmark
+    public Claims verify() {
+        return jwtService.validateToken(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(JwtSigningAlgorithmBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,89 @@
+package health.zaed.identity.benchmark;
+
+import health.zaed.identity.config.JwtConfig;
+import health.zaed.identity.model.entity.User;
+import health.zaed.identity.model.enums.UserRole;
+import health.zaed.identity.security.VerifiedTokenCache;
+import health.zaed.identity.service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.SecretKey;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validations per second for {@link JwtService#validateToken(String)}.
+ *
+ * <p>{@code perCallKeyAndParser} reproduces the previous behaviour (decode the secret and build
+ * a parser on every call); {@code cachedKeyAndParser} uses the prebuilt key material.
+ *
+ * <p>Run after {@code mvn test-compile} with the {@link #main(String[])} method from the IDE,
+ * or {@code java -cp <test classpath> org.openjdk.jmh.Main JwtValidationBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtValidationBenchmark {
+
+    private JwtConfig jwtConfig;
+    private JwtService jwtService;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtConfig = new JwtConfig();
+        jwtConfig.setSecret(Base64.getEncoder().encodeToString("this-is-a-bench-secret-key-256bit".getBytes()));
+        jwtConfig.setIssuer("zaed.org");
+        jwtService = new JwtService(jwtConfig, new VerifiedTokenCache(jwtConfig, new SimpleMeterRegistry()));
+
+        User user = User.builder()
+            .id(UUID.randomUUID())
+            .email("partner@pharmacy.com")
+            .role(UserRole.PARTNER_PHARMACY)
+            .build();
+        token = jwtService.generateAccessToken(user);
+    }
+
+    @Benchmark
+    public Claims perCallKeyAndParser() {
+        SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtConfig.getSecret()));
+        return Jwts.parser()
+            .verifyWith(key)
+            .requireIssuer(jwtConfig.getIssuer())
+            .build()
+            .parseSignedClaims(token)
+            .getPayload();
+    }
+
+    @Benchmark
+    public Claims cachedKeyAndParser() {
+        return jwtService.validateToken(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(JwtValidationBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,204 @@
+package health.zaed.identity.benchmark;
+
+import health.zaed.identity.security.LoginFailureCounter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login lockout check latency with a 10M-row audit table, reported as a percentile
+ * distribution (p50/p99/p99.9) by {@link Mode#SampleTime}, with 8 concurrent logins.
+ *
+ * <ul>
+ *   <li>{@code auditTableCounts}: the former check, the email and IP {@code COUNT} queries
+ *       over {@code auth_audit_logs} with the V5 indexes</li>
+ *   <li>{@code redisCounters}: {@link LoginFailureCounter#check}, one script call</li>
+ * </ul>
+ *
+ * <p>The table is a copy of the V5 schema named {@code bench_auth_audit_logs}, seeded once
+ * with 10M rows spread over 30 days, 200k emails and 50k IPs, a third of them failures.
+ * Seeding takes a few minutes and is skipped when the table is already full.
+ *
+ * <p>Requires Postgres with the application's default credentials on {@code localhost:5432}
+ * and Redis on {@code localhost:6379}.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class LoginLockoutBenchmark {
+
+    private static final String JDBC_URL = "jdbc:postgresql://localhost:5432/zaed_identity";
+    private static final long ROWS = 10_000_000L;
+    private static final int EMAILS = 200_000;
+    private static final int IPS = 50_000;
+
+    private static final String COUNT_BY_EMAIL = """
+        SELECT COUNT(*) FROM bench_auth_audit_logs
+        WHERE email = ? AND event_type = 'LOGIN_FAILED' AND created_at > ?""";
+    private static final String COUNT_BY_IP = """
+        SELECT COUNT(*) FROM bench_auth_audit_logs
+        WHERE ip_address = ? AND event_type = 'LOGIN_FAILED' AND success = false AND created_at > ?""";
+
+    private LettuceConnectionFactory connectionFactory;
+    private LoginFailureCounter loginFailureCounter;
+
+    @Setup
+    public void setUp() throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            seed(statement);
+        }
+
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", 6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        loginFailureCounter = new LoginFailureCounter(new StringRedisTemplate(connectionFactory));
+        // Same shape as the table: a few recent failures for every email and IP
+        for (int i = 0; i < EMAILS; i += 100) {
+            loginFailureCounter.recordFailure(email(i), ip(i % IPS));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    /**
+     * One JDBC connection per benchmark thread, as a pooled connection would be.
+     */
+    @State(Scope.Thread)
+    public static class Jdbc {
+
+        Connection connection;
+        PreparedStatement countByEmail;
+        PreparedStatement countByIp;
+
+        @Setup(Level.Trial)
+        public void open() throws SQLException {
+            connection = connect();
+            countByEmail = connection.prepareStatement(COUNT_BY_EMAIL);
+            countByIp = connection.prepareStatement(COUNT_BY_IP);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws SQLException {
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    public long auditTableCounts(Jdbc jdbc) throws SQLException {
+        int user = ThreadLocalRandom.current().nextInt(EMAILS);
+        Timestamp since = Timestamp.from(Instant.now().minus(LoginFailureCounter.WINDOW));
+        jdbc.countByEmail.setString(1, email(user));
+        jdbc.countByEmail.setTimestamp(2, since);
+        long byEmail = single(jdbc.countByEmail);
+        jdbc.countByIp.setString(1, ip(user % IPS));
+        jdbc.countByIp.setTimestamp(2, since);
+        return byEmail + single(jdbc.countByIp);
+    }
+
+    @Benchmark
+    public LoginFailureCounter.Lockout redisCounters() {
+        int user = ThreadLocalRandom.current().nextInt(EMAILS);
+        return loginFailureCounter.check(email(user), ip(user % IPS));
+    }
+
+    private static void seed(Statement statement) throws SQLException {
+        statement.execute("""
+            CREATE TABLE IF NOT EXISTS bench_auth_audit_logs (
+                id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+                user_id UUID,
+                email VARCHAR(255),
+                phone VARCHAR(20),
+                ip_address VARCHAR(45),
+                user_agent TEXT,
+                event_type VARCHAR(50) NOT NULL,
+                success BOOLEAN NOT NULL,
+                failure_reason VARCHAR(100),
+                details TEXT,
+                risk_score INTEGER,
+                metadata JSONB,
+                created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+            )""");
+        try (ResultSet rows = statement.executeQuery("SELECT COUNT(*) FROM bench_auth_audit_logs")) {
+            rows.next();
+            if (rows.getLong(1) >= ROWS) {
+                return;
+            }
+        }
+        statement.execute("TRUNCATE bench_auth_audit_logs");
+        statement.execute("""
+            INSERT INTO bench_auth_audit_logs (email, ip_address, user_agent, event_type, success, details, created_at)
+            SELECT 'user' || (g %% %d) || '@example.com',
+                   '10.' || ((g %% %d) / 65536) || '.' || (((g %% %d) / 256) %% 256) || '.' || ((g %% %d) %% 256),
+                   'Mozilla/5.0',
+                   CASE WHEN g %% 3 = 0 THEN 'LOGIN_FAILED' ELSE 'LOGIN_SUCCESS' END,
+                   g %% 3 <> 0,
+                   CASE WHEN g %% 3 = 0 THEN 'INVALID_PASSWORD' END,
+                   now() - (random() * interval '30 days')
+            FROM generate_series(1, %d) AS g""".formatted(EMAILS, IPS, IPS, IPS, ROWS));
+        statement.execute("CREATE INDEX IF NOT EXISTS idx_bench_audit_ip ON bench_auth_audit_logs(ip_address, created_at DESC)");
+        statement.execute("""
+            CREATE INDEX IF NOT EXISTS idx_bench_audit_email ON bench_auth_audit_logs(email, created_at DESC)
+                WHERE email IS NOT NULL""");
+        statement.execute("CREATE INDEX IF NOT EXISTS idx_bench_audit_event ON bench_auth_audit_logs(event_type, created_at DESC)");
+        statement.execute("ANALYZE bench_auth_audit_logs");
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(JDBC_URL, "zaed", "zaed");
+    }
+
+    private static long single(PreparedStatement query) throws SQLException {
+        try (ResultSet rows = query.executeQuery()) {
+            rows.next();
+            return rows.getLong(1);
+        }
+    }
+
+    private static String email(int user) {
+        return "user" + user + "@example.com";
+    }
+
+    private static String ip(int host) {
+        return "10." + (host / 65536) + "." + ((host / 256) % 256) + "." + (host % 256);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(LoginLockoutBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,140 @@
+package health.zaed.identity.benchmark;
+
+import health.zaed.identity.config.JwtConfig;
+import health.zaed.identity.config.PasswordConfig;
+import health.zaed.identity.exception.RateLimitException;
+import health.zaed.identity.model.entity.User;
+import health.zaed.identity.model.enums.UserRole;
+import health.zaed.identity.security.PasswordHasher;
+import health.zaed.identity.security.VerifiedTokenCache;
+import health.zaed.identity.service.JwtService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Token refresh latency (p50/p99/p99.9 by {@link Mode#SampleTime}) while a login storm runs
+ * BCrypt checks at strength 12.
+ *
+ * <p>Both the refresh and the storm run on virtual threads, as Tomcat requests do with
+ * {@code spring.threads.virtual.enabled}. The refresh is modelled by its CPU part, validating
+ * the presented token and signing a new access token.
+ *
+ * <ul>
+ *   <li>{@code storm=none}: baseline without logins</li>
+ *   <li>{@code storm=direct}: the former login, BCrypt on the request virtual thread. Every
+ *       carrier thread ends up inside BCrypt, so refreshes wait for one to free up</li>
+ *   <li>{@code storm=bounded}: logins through {@link PasswordHasher}; rejected logins back
+ *       off for the Retry-After as a client would</li>
+ * </ul>
+ *
+ * <p>Run after {@code mvn test-compile} with the {@link #main(String[])} method from the IDE,
+ * or {@code java -cp <test classpath> org.openjdk.jmh.Main LoginStormBenchmark}.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoginStormBenchmark {
+
+    private static final int CONCURRENT_LOGINS = 2000;
+    private static final String PASSWORD = "SecurePassword123!";
+
+    @Param({"none", "direct", "bounded"})
+    public String storm;
+
+    private JwtService jwtService;
+    private User user;
+    private String refreshToken;
+    private PasswordHasher passwordHasher;
+    private ExecutorService requests;
+    private ExecutorService logins;
+    private volatile boolean running;
+
+    @Setup
+    public void setUp() {
+        JwtConfig jwtConfig = new JwtConfig();
+        jwtConfig.setSecret(Base64.getEncoder().encodeToString("this-is-a-bench-secret-key-256bit".getBytes()));
+        jwtConfig.setIssuer("zaed.org");
+        jwtService = new JwtService(jwtConfig, new VerifiedTokenCache(jwtConfig, new SimpleMeterRegistry()));
+        user = User.builder()
+            .id(UUID.randomUUID())
+            .email("partner@pharmacy.com")
+            .role(UserRole.PARTNER_PHARMACY)
+            .build();
+        String tokenId = UUID.randomUUID().toString();
+        refreshToken = jwtService.generateRefreshToken(user, tokenId, tokenId, null);
+
+        PasswordEncoder encoder = new BCryptPasswordEncoder(12);
+        String hash = encoder.encode(PASSWORD);
+        passwordHasher = new PasswordHasher(encoder, new PasswordConfig(), new SimpleMeterRegistry());
+
+        requests = Executors.newVirtualThreadPerTaskExecutor();
+        logins = Executors.newVirtualThreadPerTaskExecutor();
+        running = true;
+        if (!"none".equals(storm)) {
+            for (int i = 0; i < CONCURRENT_LOGINS; i++) {
+                logins.submit(() -> login(encoder, hash));
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        running = false;
+        logins.shutdownNow();
+        requests.shutdownNow();
+    }
+
+    private void login(PasswordEncoder encoder, String hash) {
+        while (running) {
+            if ("direct".equals(storm)) {
+                encoder.matches(PASSWORD, hash);
+                continue;
+            }
+            try {
+                passwordHasher.matches(PASSWORD, hash);
+            } catch (RateLimitException e) {
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(e.getRetryAfterSeconds()));
+            }
+        }
+    }
+
+    @Benchmark
+    public String refresh() throws Exception {
+        return requests.submit(() -> {
+            jwtService.validateToken(refreshToken);
+            return jwtService.generateAccessToken(user);
+        }).get();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(LoginStormBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,133 @@
+package health.zaed.identity.benchmark;
+
+import health.zaed.identity.config.OtpConfig;
+import health.zaed.identity.config.SmsOutboxConfig;
+import health.zaed.identity.model.enums.OtpContext;
+import health.zaed.identity.security.OtpHasher;
+import health.zaed.identity.service.OtpService;
+import health.zaed.identity.service.SmsGateway;
+import health.zaed.identity.service.SmsOutbox;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to send a partner's batch of OTPs against a local Redis, one {@link OtpService#sendBulk}
+ * call against one {@link OtpService#sendOtp} per entry.
+ *
+ * <ul>
+ *   <li>{@code singleSends}: one send script round trip per entry</li>
+ *   <li>{@code bulkSend}: the same script for every entry in one pipeline</li>
+ * </ul>
+ *
+ * <p>Rate limits are raised out of reach and every invocation uses fresh reference IDs, so
+ * all entries are queued. No delivery workers run; the benchmark stops at the outbox.
+ *
+ * <p>Requires Redis on {@code localhost:6379} (e.g. {@code docker run -p 6379:6379 redis:7}).
+ * Uses database 15, which is flushed on teardown.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OtpBulkSendBenchmark {
+
+    private static final int DATABASE = 15;
+    private static final String IP = "10.0.0.1";
+
+    @Param({"100", "500"})
+    private int batchSize;
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private OtpService otpService;
+    private List<OtpService.BulkEntry> entries;
+
+    @Setup
+    public void setUp() {
+        RedisStandaloneConfiguration redis = new RedisStandaloneConfiguration("localhost", 6379);
+        redis.setDatabase(DATABASE);
+        connectionFactory = new LettuceConnectionFactory(redis);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+
+        OtpConfig otpConfig = new OtpConfig();
+        otpConfig.setHmacPepper("this-is-a-bench-otp-pepper-32-chars!");
+        otpConfig.setRateLimitPerHour(Integer.MAX_VALUE);
+        otpConfig.setRateLimitPerPrefixPerHour(Integer.MAX_VALUE);
+        otpConfig.setRateLimitPerIpPerHour(Integer.MAX_VALUE);
+        otpConfig.setBulkRateLimitPerSenderPerHour(Integer.MAX_VALUE);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SmsOutbox smsOutbox = new SmsOutbox(redisTemplate, Mockito.mock(SmsGateway.class), new SmsOutboxConfig(),
+            meterRegistry);
+        otpService = new OtpService(redisTemplate, new OtpHasher(otpConfig, new BCryptPasswordEncoder(4)), otpConfig,
+            smsOutbox, meterRegistry);
+    }
+
+    @Setup(Level.Invocation)
+    public void newBatch() {
+        entries = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            entries.add(new OtpService.BulkEntry("+2010" + String.format("%08d", i), "SMS",
+                OtpContext.DONATION, UUID.randomUUID()));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+        connectionFactory.destroy();
+    }
+
+    @Benchmark
+    public int singleSends() {
+        int queued = 0;
+        for (OtpService.BulkEntry entry : entries) {
+            otpService.sendOtp(entry.phone(), entry.channel(), entry.context(), entry.referenceId(), IP);
+            queued++;
+        }
+        return queued;
+    }
+
+    @Benchmark
+    public int bulkSend() {
+        return otpService.sendBulk(entries, "bench-partner").size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(OtpBulkSendBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,78 @@
+package health.zaed.identity.benchmark;
+
+import health.zaed.identity.config.OtpConfig;
+import health.zaed.identity.security.OtpHasher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OTP sends (hash) and verifies (match) per second on one core.
+ *
+ * <p>{@code bcrypt*} is the previous scheme (BCrypt at the production strength of 12);
+ * {@code hmac*} is {@link OtpHasher}. Single-threaded throughput is the per-core figure.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OtpHashingBenchmark {
+
+    private static final String OTP = "123456";
+
+    private BCryptPasswordEncoder bcrypt;
+    private OtpHasher otpHasher;
+    private String bcryptHash;
+    private String hmacHash;
+
+    @Setup
+    public void setUp() {
+        bcrypt = new BCryptPasswordEncoder(12);
+        OtpConfig otpConfig = new OtpConfig();
+        otpConfig.setHmacPepper("this-is-a-bench-otp-pepper-32-chars!");
+        otpHasher = new OtpHasher(otpConfig, bcrypt);
+        bcryptHash = bcrypt.encode(OTP);
+        hmacHash = otpHasher.hash(OTP);
+    }
+
+    @Benchmark
+    public String bcryptSend() {
+        return bcrypt.encode(OTP);
+    }
+
+    @Benchmark
+    public boolean bcryptVerify() {
+        return bcrypt.matches(OTP, bcryptHash);
+    }
+
+    @Benchmark
+    public String hmacSend() {
+        return otpHasher.hash(OTP);
+    }
+
+    @Benchmark
+    public boolean hmacVerify() {
+        return otpHasher.matches(OTP, hmacHash);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(OtpHashingBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,142 @@
+package health.zaed.identity.benchmark;
+
+import health.zaed.identity.config.OtpConfig;
+import health.zaed.identity.config.SmsOutboxConfig;
+import health.zaed.identity.model.enums.OtpContext;
+import health.zaed.identity.security.OtpHasher;
+import health.zaed.identity.service.OtpService;
+import health.zaed.identity.service.SmsGateway;
+import health.zaed.identity.service.SmsOutbox;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of {@link OtpService#sendOtp} against a local Redis, compared with the previous
+ * sequence of individual commands.
+ *
+ * <ul>
+ *   <li>{@code sendScript}: one script call for dedup, rate limits, OTP and outbox entry</li>
+ *   <li>{@code perCommandSend}: SET NX dedup claim, INCR + EXPIRE per rate-limit key, SET,
+ *       DEL, HSET + EXPIRE + XADD for the outbox entry and SET XX for the dedup record</li>
+ * </ul>
+ *
+ * <p>Rate limits are raised out of reach and every call uses a fresh reference ID, so all
+ * sends are queued. No delivery workers run; the benchmark stops at the outbox. Run with
+ * {@code -t 16} to compare them with requests sharing the connection.
+ *
+ * <p>Requires Redis on {@code localhost:6379} (e.g. {@code docker run -p 6379:6379 redis:7}).
+ * Uses database 15, which is flushed on teardown.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OtpSendBenchmark {
+
+    private static final int DATABASE = 15;
+    private static final String PHONE = "+201234567890";
+    private static final String IP = "10.0.0.1";
+    private static final Duration EXPIRY = Duration.ofSeconds(300);
+    private static final Duration WINDOW = Duration.ofHours(1);
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private OtpHasher otpHasher;
+    private OtpService otpService;
+
+    @Setup
+    public void setUp() {
+        RedisStandaloneConfiguration redis = new RedisStandaloneConfiguration("localhost", 6379);
+        redis.setDatabase(DATABASE);
+        connectionFactory = new LettuceConnectionFactory(redis);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+
+        OtpConfig otpConfig = new OtpConfig();
+        otpConfig.setHmacPepper("this-is-a-bench-otp-pepper-32-chars!");
+        otpConfig.setRateLimitPerHour(Integer.MAX_VALUE);
+        otpConfig.setRateLimitPerPrefixPerHour(Integer.MAX_VALUE);
+        otpConfig.setRateLimitPerIpPerHour(Integer.MAX_VALUE);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        otpHasher = new OtpHasher(otpConfig, new BCryptPasswordEncoder(4));
+        SmsOutbox smsOutbox = new SmsOutbox(redisTemplate, Mockito.mock(SmsGateway.class), new SmsOutboxConfig(), meterRegistry);
+        otpService = new OtpService(redisTemplate, otpHasher, otpConfig, smsOutbox, meterRegistry);
+    }
+
+    @TearDown
+    public void tearDown() {
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+        connectionFactory.destroy();
+    }
+
+    @Benchmark
+    public UUID sendScript() {
+        return otpService.sendOtp(PHONE, "SMS", OtpContext.DONATION, UUID.randomUUID(), IP).deliveryId();
+    }
+
+    @Benchmark
+    public UUID perCommandSend() {
+        UUID referenceId = UUID.randomUUID();
+        String dedupKey = "otp_send:" + PHONE + ":DONATION:" + referenceId;
+        redisTemplate.opsForValue().setIfAbsent(dedupKey, "pending", Duration.ofSeconds(30));
+        for (String rateKey : new String[] {
+                "otp_rate:phone:" + PHONE, "otp_rate:prefix:+20123456", "otp_rate:ip:" + IP}) {
+            Long sends = redisTemplate.opsForValue().increment(rateKey);
+            if (sends != null && sends == 1) {
+                redisTemplate.expire(rateKey, WINDOW);
+            }
+        }
+
+        String otpKey = "otp:" + PHONE + ":DONATION:" + referenceId;
+        redisTemplate.opsForValue().set(otpKey, otpHasher.hash("123456"), EXPIRY);
+        redisTemplate.delete("otp_attempts:" + otpKey);
+        UUID deliveryId = UUID.randomUUID();
+        String messageKey = "sms_outbox:msg:" + deliveryId;
+        redisTemplate.opsForHash().putAll(messageKey, Map.of(
+            "phone", PHONE, "otp", "123456", "channel", "SMS",
+            "status", "QUEUED", "attempts", "0", "enqueuedAt", String.valueOf(System.currentTimeMillis())));
+        redisTemplate.expire(messageKey, EXPIRY);
+        redisTemplate.opsForStream().add(StreamRecords.string(Map.of("id", deliveryId.toString()))
+            .withStreamKey("sms_outbox"), XAddOptions.maxlen(100_000).approximateTrimming(true));
+        redisTemplate.opsForValue().setIfPresent(dedupKey, deliveryId.toString(), Duration.ofSeconds(30));
+        return deliveryId;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(OtpSendBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,139 @@
+package health.zaed.identity.benchmark;
+
+import health.zaed.identity.config.OtpConfig;
+import health.zaed.identity.exception.OtpException;
+import health.zaed.identity.model.enums.OtpContext;
+import health.zaed.identity.security.OtpHasher;
+import health.zaed.identity.service.OtpService;
+import health.zaed.identity.service.SmsOutbox;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of {@link OtpService#verifyOtp} against a local Redis, compared with the previous
+ * sequence of individual commands.
+ *
+ * <ul>
+ *   <li>{@code scripted*}: one script call for a wrong code, two for a correct one</li>
+ *   <li>{@code perCommand*}: GET attempts, GET hash, then INCR + EXPIRE or DEL + DEL</li>
+ * </ul>
+ *
+ * <p>OTP hashing is HMAC (about a microsecond), so the numbers are dominated by Redis round
+ * trips. Success benchmarks include the SET that re-arms the OTP, which is the same for
+ * both variants.
+ *
+ * <p>Requires Redis on {@code localhost:6379} (e.g. {@code docker run -p 6379:6379 redis:7}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OtpVerifyBenchmark {
+
+    private static final String PHONE = "+201234567890";
+    private static final String OTP = "123456";
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private OtpHasher otpHasher;
+    private OtpService otpService;
+    private UUID referenceId;
+    private String otpKey;
+    private String attemptsKey;
+
+    @Setup
+    public void setUp() {
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", 6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+
+        OtpConfig otpConfig = new OtpConfig();
+        // Wrong-guess benchmarks must never hit the attempt cap
+        otpConfig.setMaxAttempts(Integer.MAX_VALUE);
+        otpConfig.setHmacPepper("this-is-a-bench-otp-pepper-32-chars!");
+        otpHasher = new OtpHasher(otpConfig, new BCryptPasswordEncoder(4));
+        otpService = new OtpService(redisTemplate, otpHasher, otpConfig, Mockito.mock(SmsOutbox.class),
+            new SimpleMeterRegistry());
+
+        referenceId = UUID.randomUUID();
+        otpKey = "otp:" + PHONE + ":" + OtpContext.DONATION.name() + ":" + referenceId;
+        attemptsKey = "otp_attempts:" + otpKey;
+        arm();
+    }
+
+    @TearDown
+    public void tearDown() {
+        redisTemplate.delete(otpKey);
+        redisTemplate.delete(attemptsKey);
+        connectionFactory.destroy();
+    }
+
+    @Benchmark
+    public boolean scriptedWrongCode() {
+        try {
+            return otpService.verifyOtp(PHONE, "000000", OtpContext.DONATION, referenceId);
+        } catch (OtpException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean perCommandWrongCode() {
+        redisTemplate.opsForValue().get(attemptsKey);
+        String hash = redisTemplate.opsForValue().get(otpKey);
+        redisTemplate.opsForValue().increment(attemptsKey);
+        redisTemplate.expire(attemptsKey, Duration.ofSeconds(300));
+        return hash != null && otpHasher.matches("000000", hash);
+    }
+
+    @Benchmark
+    public boolean scriptedCorrectCode() {
+        arm();
+        return otpService.verifyOtp(PHONE, OTP, OtpContext.DONATION, referenceId);
+    }
+
+    @Benchmark
+    public boolean perCommandCorrectCode() {
+        arm();
+        redisTemplate.opsForValue().get(attemptsKey);
+        String hash = redisTemplate.opsForValue().get(otpKey);
+        boolean matches = hash != null && otpHasher.matches(OTP, hash);
+        redisTemplate.delete(otpKey);
+        redisTemplate.delete(attemptsKey);
+        return matches;
+    }
+
+    private void arm() {
+        redisTemplate.opsForValue().set(otpKey, otpHasher.hash(OTP), Duration.ofSeconds(300));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(OtpVerifyBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,83 @@
+package health.zaed.identity.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login password check cost for the hashing policies {@code zaed.identity.password} can be
+ * set to, to pick a BCrypt cost or Argon2id parameters for a latency budget.
+ *
+ * <ul>
+ *   <li>{@code bcrypt-N}: BCrypt at cost N; each step doubles the time</li>
+ *   <li>{@code argon2id-mM-tT-pP}: Argon2id with M MiB of memory, T iterations and P lanes.
+ *       m19-t2-p1 is the default, m46-t1-p1 the same strength traded for memory</li>
+ * </ul>
+ *
+ * <p>Single-threaded numbers are the per-login latency. Run with {@code -t <hashing-threads>}
+ * to see throughput once the hashing pool is busy; Argon2id then also needs M MiB per thread.
+ *
+ * <p>Run after {@code mvn test-compile} with the {@link #main(String[])} method from the IDE,
+ * or {@code java -cp <test classpath> org.openjdk.jmh.Main PasswordEncoderBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordEncoderBenchmark {
+
+    private static final String PASSWORD = "SecurePassword123!";
+
+    @Param({"bcrypt-10", "bcrypt-12", "bcrypt-13", "argon2id-m19-t2-p1", "argon2id-m46-t1-p1", "argon2id-m64-t3-p4"})
+    public String policy;
+
+    private PasswordEncoder encoder;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        encoder = encoder(policy);
+        hash = encoder.encode(PASSWORD);
+    }
+
+    private static PasswordEncoder encoder(String policy) {
+        if (policy.startsWith("bcrypt-")) {
+            return new BCryptPasswordEncoder(Integer.parseInt(policy.substring("bcrypt-".length())));
+        }
+        // argon2id-m<MiB>-t<iterations>-p<parallelism>
+        String[] parts = policy.split("-");
+        int memoryKib = Integer.parseInt(parts[1].substring(1)) * 1024;
+        int iterations = Integer.parseInt(parts[2].substring(1));
+        int parallelism = Integer.parseInt(parts[3].substring(1));
+        return new Argon2PasswordEncoder(16, 32, parallelism, memoryKib, iterations);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches(PASSWORD, hash);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(PasswordEncoderBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,141 @@
+package health.zaed.identity.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import health.zaed.identity.config.RestClientConfig;
+import health.zaed.identity.config.SmsMisrConfig;
+import health.zaed.identity.service.SmsMisrGateway;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SMS Misr sends per second against a local stub server, with 8 concurrent senders.
+ *
+ * <ul>
+ *   <li>{@code previousSetup}: the former client. It used the default {@code RestClient}
+ *       request factory with no explicit pool or timeouts, and built the form body with
+ *       {@code String.format}.</li>
+ *   <li>{@code pooledGateway}: {@link SmsMisrGateway} on the pooled client from
+ *       {@link RestClientConfig}, with the pre-encoded request template.</li>
+ * </ul>
+ *
+ * <p>The stub is an in-process {@code HttpServer} that returns
+ * {@code {"status":"success"}}, so the numbers measure client overhead rather than
+ * provider latency.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class SmsMisrClientBenchmark {
+
+    private static final String PHONE = "+201234567890";
+    private static final String OTP = "123456";
+    private static final byte[] SUCCESS = "{\"status\":\"success\"}".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer stub;
+    private String apiUrl;
+    private SmsMisrConfig config;
+    private RestClient previousClient;
+    private CloseableHttpClient pooledHttpClient;
+    private SmsMisrGateway pooledGateway;
+
+    @Setup
+    public void setUp() throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("localhost", 0), 256);
+        stub.createContext("/", exchange -> {
+            try (InputStream body = exchange.getRequestBody()) {
+                body.readAllBytes();
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, SUCCESS.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(SUCCESS);
+            }
+        });
+        stub.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        stub.start();
+        apiUrl = "http://localhost:" + stub.getAddress().getPort() + "/";
+
+        config = new SmsMisrConfig();
+        config.setApiUrl(apiUrl);
+        config.setUsername("benchuser");
+        config.setPassword("benchpass");
+        config.setSenderId("ZAED");
+
+        previousClient = RestClient.builder()
+            .requestFactory(new JdkClientHttpRequestFactory())
+            .defaultHeader("Content-Type", "application/x-www-form-urlencoded")
+            .build();
+
+        RestClientConfig restClientConfig = new RestClientConfig();
+        pooledHttpClient = restClientConfig.smsMisrHttpClient(config, new SimpleMeterRegistry());
+        RestClient pooledClient = restClientConfig.smsMisrRestClient(
+            RestClient.builder(), ObservationRegistry.NOOP, pooledHttpClient);
+        pooledGateway = new SmsMisrGateway(config, pooledClient);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        pooledHttpClient.close();
+        stub.stop(0);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public boolean previousSetup() {
+        String body = String.format(
+            "username=%s&password=%s&sender=%s&mobile=%s&message=%s&language=2",
+            config.getUsername(), config.getPassword(), config.getSenderId(), "01234567890",
+            URLEncoder.encode(String.format("زائد: رمز التحقق الخاص بك هو %s", OTP), StandardCharsets.UTF_8));
+        Map<String, String> response = previousClient.post()
+            .uri(apiUrl)
+            .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+            .body(body)
+            .retrieve()
+            .body(Map.class);
+        return response != null && "success".equalsIgnoreCase(response.get("status"));
+    }
+
+    @Benchmark
+    public boolean pooledGateway() {
+        return pooledGateway.sendOtp(PHONE, OTP, "SMS");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(SmsMisrClientBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
@@ -0,0 +1,75 @@
+package health.zaed.identity.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the {@link PasswordConfig} encoder and its rehash policy.
+ */
+@DisplayName("PasswordConfig")
+class PasswordConfigTest {
+
+    private static final String PASSWORD = "SecurePassword123!";
+
+    private static PasswordEncoder encoder(String algorithm, int bcryptStrength) {
+        PasswordConfig config = new PasswordConfig();
+        config.setAlgorithm(algorithm);
+        config.setBcryptStrength(bcryptStrength);
+        config.setArgon2MemoryKib(1024);
+        config.setArgon2Iterations(1);
+        return config.passwordEncoder();
+    }
+
+    @Test
+    @DisplayName("should write prefixed hashes that need no rehash")
+    void shouldWritePrefixedHashes() {
+        PasswordEncoder encoder = encoder(PasswordConfig.BCRYPT, 5);
+
+        String hash = encoder.encode(PASSWORD);
+
+        assertThat(hash).startsWith("{bcrypt}$2a$05$");
+        assertThat(encoder.matches(PASSWORD, hash)).isTrue();
+        assertThat(encoder.upgradeEncoding(hash)).isFalse();
+    }
+
+    @Test
+    @DisplayName("should verify unprefixed legacy hashes and ask for a rehash")
+    void shouldUpgradeLegacyHashes() {
+        PasswordEncoder encoder = encoder(PasswordConfig.BCRYPT, 5);
+        String legacy = new BCryptPasswordEncoder(5).encode(PASSWORD);
+
+        assertThat(encoder.matches(PASSWORD, legacy)).isTrue();
+        assertThat(encoder.upgradeEncoding(legacy)).isTrue();
+    }
+
+    @Test
+    @DisplayName("should ask for a rehash when the BCrypt cost is raised or lowered")
+    void shouldRehashOnCostChange() {
+        String atFour = encoder(PasswordConfig.BCRYPT, 4).encode(PASSWORD);
+        String atSix = encoder(PasswordConfig.BCRYPT, 6).encode(PASSWORD);
+        PasswordEncoder atFive = encoder(PasswordConfig.BCRYPT, 5);
+
+        assertThat(atFive.upgradeEncoding(atFour)).isTrue();
+        assertThat(atFive.upgradeEncoding(atSix)).isTrue();
+        assertThat(atFive.matches(PASSWORD, atSix)).isTrue();
+    }
+
+    @Test
+    @DisplayName("should write Argon2id and migrate BCrypt hashes when switched to argon2")
+    void shouldSwitchToArgon2() {
+        String bcrypt = encoder(PasswordConfig.BCRYPT, 4).encode(PASSWORD);
+        PasswordEncoder encoder = encoder(PasswordConfig.ARGON2, 4);
+
+        String hash = encoder.encode(PASSWORD);
+
+        assertThat(hash).startsWith("{argon2}$argon2id$");
+        assertThat(encoder.matches(PASSWORD, hash)).isTrue();
+        assertThat(encoder.upgradeEncoding(hash)).isFalse();
+        assertThat(encoder.matches(PASSWORD, bcrypt)).isTrue();
+        assertThat(encoder.upgradeEncoding(bcrypt)).isTrue();
+    }
+}
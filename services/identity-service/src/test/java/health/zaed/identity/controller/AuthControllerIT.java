@@ -22,6 +22,7 @@ import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
 import org.testcontainers.DockerClientFactory;
 
 import java.util.UUID;
@@ -257,6 +258,41 @@ class AuthControllerIT {
                     .content(objectMapper.writeValueAsString(refreshRequest)))
                 .andExpect(status().isUnauthorized());
         }
+
+        @Test
+        @DisplayName("should revoke only the replayed token's chain, not other devices")
+        void shouldRevokeOnlyReplayedFamily() throws Exception {
+            String phoneToken = login("phone");
+            String laptopToken = login("laptop");
+
+            MvcResult rotation = refresh(phoneToken).andExpect(status().isOk()).andReturn();
+            String rotatedPhoneToken = objectMapper.readTree(rotation.getResponse().getContentAsString())
+                .get("refreshToken").asText();
+
+            // Replaying the rotated token revokes the phone's chain
+            refresh(phoneToken).andExpect(status().isUnauthorized());
+            refresh(rotatedPhoneToken).andExpect(status().isUnauthorized());
+
+            // The laptop's session is untouched
+            refresh(laptopToken).andExpect(status().isOk());
+        }
+
+        private String login(String deviceId) throws Exception {
+            LoginRequest loginRequest = new LoginRequest(TEST_EMAIL, TEST_PASSWORD, deviceId);
+            MvcResult loginResult = mockMvc.perform(post("/api/v1/auth/login")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andReturn();
+            return objectMapper.readTree(loginResult.getResponse().getContentAsString())
+                .get("refreshToken").asText();
+        }
+
+        private ResultActions refresh(String refreshToken) throws Exception {
+            return mockMvc.perform(post("/api/v1/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new RefreshTokenRequest(refreshToken))));
+        }
     }
 
     @Nested
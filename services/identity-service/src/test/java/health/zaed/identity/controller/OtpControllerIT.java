@@ -0,0 +1,118 @@
+package health.zaed.identity.controller;
+
+import health.zaed.identity.IntegrationTestBase;
+import health.zaed.identity.model.entity.User;
+import health.zaed.identity.model.enums.UserRole;
+import health.zaed.identity.service.JwtService;
+import health.zaed.identity.service.SmsGateway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Integration tests for {@link OtpController} through the full security filter chain.
+ */
+@AutoConfigureMockMvc
+@DisplayName("OtpController Integration Tests")
+class OtpControllerIT extends IntegrationTestBase {
+
+    private static final String BULK_PATH = "/api/v1/auth/otp/send/bulk";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @MockitoBean
+    private SmsGateway smsGateway;
+
+    @BeforeEach
+    void setUp() {
+        when(smsGateway.sendOtp(anyString(), anyString(), anyString())).thenReturn(true);
+    }
+
+    private String tokenFor(UserRole role) {
+        return jwtService.generateAccessToken(User.builder()
+            .id(UUID.randomUUID())
+            .email("partner@example.com")
+            .name("Partner")
+            .role(role)
+            .partnerId(UUID.randomUUID())
+            .active(true)
+            .verified(true)
+            .build());
+    }
+
+    private ResultActions sendBulk(String token) throws Exception {
+        String body = """
+            {"entries": [
+              {"phone": "+201000000001", "context": "DONATION", "referenceId": "%s"},
+              {"phone": "+201000000002", "context": "DONATION", "referenceId": "%s"},
+              {"phone": "not-a-phone", "context": "DONATION", "referenceId": "%s"}
+            ]}
+            """.formatted(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        var request = post(BULK_PATH)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(body);
+        if (token != null) {
+            request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        }
+        return mockMvc.perform(request);
+    }
+
+    @Nested
+    @DisplayName("POST /api/v1/auth/otp/send/bulk")
+    class SendBulk {
+
+        @Test
+        @DisplayName("should queue a partner's batch")
+        void shouldQueueForPartner() throws Exception {
+            sendBulk(tokenFor(UserRole.PARTNER_PHARMACY))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.queued").value(2))
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("QUEUED"))
+                .andExpect(jsonPath("$.results[0].deliveryId").isNotEmpty())
+                .andExpect(jsonPath("$.results[2].status").value("INVALID"));
+        }
+
+        @Test
+        @DisplayName("should return 401 without a token")
+        void shouldRejectAnonymous() throws Exception {
+            sendBulk(null).andExpect(status().isUnauthorized());
+        }
+
+        @Test
+        @DisplayName("should return 403 for a role without OTP_BULK_SEND")
+        void shouldRejectWithoutPermission() throws Exception {
+            sendBulk(tokenFor(UserRole.PARTNER_VOLUNTEER)).andExpect(status().isForbidden());
+        }
+    }
+
+    @Test
+    @DisplayName("should keep single sends public")
+    void shouldKeepSingleSendPublic() throws Exception {
+        mockMvc.perform(post("/api/v1/auth/otp/send")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"phone": "+201000000003", "context": "DONATION", "referenceId": "%s"}
+                    """.formatted(UUID.randomUUID())))
+            .andExpect(status().isOk());
+    }
+}
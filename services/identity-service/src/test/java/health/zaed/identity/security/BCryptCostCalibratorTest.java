@@ -0,0 +1,51 @@
+package health.zaed.identity.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntToLongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link BCryptCostCalibrator}.
+ */
+@DisplayName("BCryptCostCalibrator")
+class BCryptCostCalibratorTest {
+
+    private final List<Integer> timed = new ArrayList<>();
+
+    /** 60 ms at cost 10, doubling per step, as on a typical server core. */
+    private IntToLongFunction doubling() {
+        return cost -> {
+            timed.add(cost);
+            return TimeUnit.MILLISECONDS.toNanos(60L << (cost - 10));
+        };
+    }
+
+    @Test
+    @DisplayName("should choose the highest cost within budget and stop at the first over it")
+    void shouldChooseHighestCostWithinBudget() {
+        int cost = BCryptCostCalibrator.choose(Duration.ofMillis(250), 10, 14, doubling());
+
+        assertThat(cost).isEqualTo(12);
+        assertThat(timed).containsExactly(10, 11, 12, 13);
+    }
+
+    @Test
+    @DisplayName("should stay within the configured bounds")
+    void shouldStayWithinBounds() {
+        assertThat(BCryptCostCalibrator.choose(Duration.ofMillis(10), 10, 14, doubling())).isEqualTo(10);
+        assertThat(BCryptCostCalibrator.choose(Duration.ofSeconds(10), 10, 14, doubling())).isEqualTo(14);
+    }
+
+    @Test
+    @DisplayName("should time real hashes")
+    void shouldTimeRealHashes() {
+        assertThat(BCryptCostCalibrator.calibrate(Duration.ofSeconds(5), 4, 5)).isEqualTo(5);
+    }
+}
@@ -0,0 +1,112 @@
+package health.zaed.identity.security;
+
+import health.zaed.identity.config.JwtConfig;
+import health.zaed.identity.model.enums.SigningAlgorithm;
+import health.zaed.identity.security.JwkSet.PublishedKey;
+import health.zaed.identity.service.JwtService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.math.BigInteger;
+import java.security.KeyPair;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link JwksEndpointFilter} and the {@link JwkSet} encoding.
+ */
+@DisplayName("JwksEndpointFilter")
+class JwksEndpointFilterTest {
+
+    private JwtService jwtService;
+    private JwksEndpointFilter filter;
+    private KeyPair rsaPair;
+
+    @BeforeEach
+    void setUp() {
+        JwtConfig jwtConfig = new JwtConfig();
+        jwtConfig.setAlgorithm(SigningAlgorithm.RS256);
+        jwtConfig.setIssuer("test-issuer");
+        jwtConfig.setJwksMaxAge(120);
+
+        rsaPair = SigningAlgorithm.RS256.generateKeyPair();
+        PublishedKey rsa = new PublishedKey("kid-rsa", SigningAlgorithm.RS256, rsaPair.getPublic());
+        PublishedKey ec = new PublishedKey("kid-ec", SigningAlgorithm.ES256, SigningAlgorithm.ES256.generateKeyPair().getPublic());
+        PublishedKey ed = new PublishedKey("kid-ed", SigningAlgorithm.EdDSA, SigningAlgorithm.EdDSA.generateKeyPair().getPublic());
+
+        jwtService = new JwtService(jwtConfig, new VerifiedTokenCache(jwtConfig, new SimpleMeterRegistry()));
+        jwtService.installKeyMaterial(
+            JwtKeyMaterial.forKeyRing(jwtConfig, rsa, rsaPair.getPrivate(), List.of(rsa, ec, ed)));
+        filter = new JwksEndpointFilter(jwtService, jwtConfig);
+    }
+
+    @Test
+    @DisplayName("should serve all published keys with caching headers")
+    void shouldServeJwksWithCachingHeaders() throws Exception {
+        MockHttpServletResponse response = get(null);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentType()).startsWith("application/json");
+        assertThat(response.getHeader("Cache-Control")).isEqualTo("public, max-age=120");
+        assertThat(response.getHeader("ETag")).isEqualTo(jwtService.getJwkSet().etag());
+        assertThat(response.getContentAsString())
+            .contains("\"kid\":\"kid-rsa\"", "\"kty\":\"RSA\"", "\"alg\":\"RS256\"", "\"e\":\"AQAB\"")
+            .contains("\"kid\":\"kid-ec\"", "\"kty\":\"EC\"", "\"crv\":\"P-256\"")
+            .contains("\"kid\":\"kid-ed\"", "\"kty\":\"OKP\"", "\"crv\":\"Ed25519\"");
+    }
+
+    @Test
+    @DisplayName("should encode the RSA modulus as unsigned base64url")
+    void shouldEncodeRsaModulus() throws Exception {
+        String body = get(null).getContentAsString();
+
+        String n = body.substring(body.indexOf("\"n\":\"") + 5);
+        n = n.substring(0, n.indexOf('"'));
+        assertThat(new BigInteger(1, Base64.getUrlDecoder().decode(n)))
+            .isEqualTo(((RSAPublicKey) rsaPair.getPublic()).getModulus());
+    }
+
+    @Test
+    @DisplayName("should answer 304 when the ETag matches")
+    void shouldAnswerNotModified() throws Exception {
+        MockHttpServletResponse response = get(jwtService.getJwkSet().etag());
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should pass other requests down the chain")
+    void shouldIgnoreOtherPaths() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/auth/login");
+        request.setServletPath("/api/v1/auth/login");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertThat(chain.getRequest()).isSameAs(request);
+    }
+
+    private MockHttpServletResponse get(String ifNoneMatch) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", JwksEndpointFilter.JWKS_PATH);
+        request.setServletPath(JwksEndpointFilter.JWKS_PATH);
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertThat(chain.getRequest()).isNull();
+        return response;
+    }
+}
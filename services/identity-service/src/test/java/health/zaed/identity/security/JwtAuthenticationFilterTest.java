@@ -0,0 +1,118 @@
+package health.zaed.identity.security;
+
+import health.zaed.identity.config.JwtConfig;
+import health.zaed.identity.model.entity.User;
+import health.zaed.identity.model.enums.UserRole;
+import health.zaed.identity.service.JwtService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Unit tests for {@link JwtAuthenticationFilter}.
+ */
+@DisplayName("JwtAuthenticationFilter")
+class JwtAuthenticationFilterTest {
+
+    private static final String TEST_SECRET = "dGhpcy1pcy1hLTI1Ni1iaXQtdGVzdC1zZWNyZXQhISE=";
+    private static final String PROTECTED_PATH = "/api/v1/auth/2fa/status";
+
+    private JwtService jwtService;
+    private VerifiedTokenCache verifiedTokenCache;
+    private RevocationView revocationView;
+    private JwtAuthenticationFilter filter;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        JwtConfig jwtConfig = new JwtConfig();
+        jwtConfig.setSecret(TEST_SECRET);
+        jwtConfig.setIssuer("zaed-test");
+
+        verifiedTokenCache = new VerifiedTokenCache(jwtConfig, new SimpleMeterRegistry());
+        jwtService = new JwtService(jwtConfig, verifiedTokenCache);
+        revocationView = new RevocationView(jwtConfig, mock(RedisConnectionFactory.class));
+        filter = new JwtAuthenticationFilter(jwtService, verifiedTokenCache, revocationView);
+
+        user = User.builder()
+            .id(UUID.randomUUID())
+            .email("partner@pharmacy.com")
+            .role(UserRole.PARTNER_PHARMACY)
+            .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("should authenticate a valid access token and cache it")
+    void shouldAuthenticateValidToken() throws Exception {
+        String token = jwtService.generateAccessToken(user);
+
+        Authentication authentication = authenticate(token);
+
+        assertThat(authentication).isNotNull();
+        assertThat(((AuthPrincipal) authentication.getPrincipal()).subject()).isEqualTo(user.getId().toString());
+        assertThat(verifiedTokenCache.get(token)).isNotNull();
+    }
+
+    @Test
+    @DisplayName("should reject a cached token once its subject is revoked")
+    void shouldRejectCachedTokenAfterRevocation() throws Exception {
+        String token = jwtService.generateAccessToken(user);
+        assertThat(authenticate(token)).isNotNull();
+
+        revocationView.revokeSubject(user.getId().toString(), Instant.now());
+
+        assertThat(verifiedTokenCache.get(token)).isNotNull();
+        assertThat(authenticate(token)).isNull();
+    }
+
+    @Test
+    @DisplayName("should reject and not cache a freshly verified token issued before a revocation")
+    void shouldRejectFreshTokenIssuedBeforeRevocation() throws Exception {
+        String token = jwtService.generateAccessToken(user);
+
+        revocationView.onMessage(user.getId() + " " + Instant.now().toEpochMilli());
+
+        assertThat(authenticate(token)).isNull();
+        assertThat(verifiedTokenCache.get(token)).isNull();
+    }
+
+    @Test
+    @DisplayName("should accept a token from a login after the revocation")
+    void shouldAcceptTokenIssuedAfterRevocation() throws Exception {
+        revocationView.revokeSubject(user.getId().toString(), Instant.now());
+        Thread.sleep(5);
+
+        String token = jwtService.generateAccessToken(user);
+
+        assertThat(authenticate(token)).isNotNull();
+    }
+
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", PROTECTED_PATH);
+        request.setServletPath(PROTECTED_PATH);
+        request.addHeader("Authorization", "Bearer " + token);
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
@@ -0,0 +1,105 @@
+package health.zaed.identity.security;
+
+import health.zaed.identity.IntegrationTestBase;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Integration tests for {@link LoginFailureCounter} against a real Redis container.
+ */
+@DisplayName("LoginFailureCounter Integration Tests")
+class LoginFailureCounterIT extends IntegrationTestBase {
+
+    private static final String TEST_EMAIL = "test@example.com";
+    private static final String TEST_IP = "192.168.1.1";
+
+    @Autowired
+    private LoginFailureCounter loginFailureCounter;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Nested
+    @DisplayName("email lockout")
+    class EmailLockout {
+
+        @Test
+        @DisplayName("should not lock below the email limit")
+        void shouldNotLockBelowLimit() {
+            for (int i = 0; i < LoginFailureCounter.MAX_FAILURES_PER_EMAIL - 1; i++) {
+                loginFailureCounter.recordFailure(TEST_EMAIL, TEST_IP);
+            }
+
+            assertThat(loginFailureCounter.check(TEST_EMAIL, TEST_IP)).isEqualTo(LoginFailureCounter.Lockout.NONE);
+        }
+
+        @Test
+        @DisplayName("should lock the email for the rest of the window at the limit")
+        void shouldLockAtLimit() {
+            for (int i = 0; i < LoginFailureCounter.MAX_FAILURES_PER_EMAIL; i++) {
+                loginFailureCounter.recordFailure(TEST_EMAIL, TEST_IP);
+            }
+
+            LoginFailureCounter.Lockout lockout = loginFailureCounter.check(TEST_EMAIL, TEST_IP);
+
+            assertThat(lockout.emailLocked()).isTrue();
+            assertThat(lockout.ipLocked()).isFalse();
+            assertThat(lockout.emailRetryAfterSeconds())
+                .isBetween((int) LoginFailureCounter.WINDOW.toSeconds() - 5, (int) LoginFailureCounter.WINDOW.toSeconds());
+        }
+
+        @Test
+        @DisplayName("should count failures per email across IPs")
+        void shouldCountAcrossIps() {
+            for (int i = 0; i < LoginFailureCounter.MAX_FAILURES_PER_EMAIL; i++) {
+                loginFailureCounter.recordFailure(TEST_EMAIL, "10.0.0." + i);
+            }
+
+            assertThat(loginFailureCounter.check(TEST_EMAIL, "10.0.0.99").emailLocked()).isTrue();
+            assertThat(loginFailureCounter.check("other@example.com", "10.0.0.0").emailLocked()).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("IP lockout")
+    class IpLockout {
+
+        @Test
+        @DisplayName("should lock the IP after failures across many emails")
+        void shouldLockIpAtLimit() {
+            for (int i = 0; i < LoginFailureCounter.MAX_FAILURES_PER_IP; i++) {
+                loginFailureCounter.recordFailure("user" + i + "@example.com", TEST_IP);
+            }
+
+            LoginFailureCounter.Lockout lockout = loginFailureCounter.check("new@example.com", TEST_IP);
+
+            assertThat(lockout.ipLocked()).isTrue();
+            assertThat(lockout.emailLocked()).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("storage")
+    class Storage {
+
+        @Test
+        @DisplayName("should keep at most the limit per key with a TTL of the window")
+        void shouldCapSetSizeAndExpire() {
+            for (int i = 0; i < LoginFailureCounter.MAX_FAILURES_PER_IP * 3; i++) {
+                loginFailureCounter.recordFailure(TEST_EMAIL, TEST_IP);
+            }
+
+            String emailKey = LoginFailureCounter.EMAIL_KEY_PREFIX + TEST_EMAIL;
+            String ipKey = LoginFailureCounter.IP_KEY_PREFIX + TEST_IP;
+            assertThat(redisTemplate.opsForZSet().zCard(emailKey)).isEqualTo(LoginFailureCounter.MAX_FAILURES_PER_EMAIL);
+            assertThat(redisTemplate.opsForZSet().zCard(ipKey)).isEqualTo(LoginFailureCounter.MAX_FAILURES_PER_IP);
+            assertThat(redisTemplate.getExpire(emailKey)).isPositive()
+                .isLessThanOrEqualTo(LoginFailureCounter.WINDOW.toSeconds());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package health.zaed.identity.security;
+
+import health.zaed.identity.config.OtpConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link OtpHasher}.
+ */
+@DisplayName("OtpHasher")
+class OtpHasherTest {
+
+    private static final String PEPPER = "this-is-a-test-otp-pepper-32-chars!!";
+
+    private BCryptPasswordEncoder legacyEncoder;
+    private OtpHasher otpHasher;
+
+    @BeforeEach
+    void setUp() {
+        legacyEncoder = new BCryptPasswordEncoder(4);
+        otpHasher = new OtpHasher(configWithPepper(PEPPER), legacyEncoder);
+    }
+
+    private static OtpConfig configWithPepper(String pepper) {
+        OtpConfig config = new OtpConfig();
+        config.setHmacPepper(pepper);
+        return config;
+    }
+
+    @Test
+    @DisplayName("should match the hashed code and reject others")
+    void shouldMatchHashedCode() {
+        String hash = otpHasher.hash("123456");
+
+        assertThat(hash).startsWith(OtpHasher.VERSION_PREFIX);
+        assertThat(otpHasher.matches("123456", hash)).isTrue();
+        assertThat(otpHasher.matches("123457", hash)).isFalse();
+    }
+
+    @Test
+    @DisplayName("should salt each hash")
+    void shouldSaltEachHash() {
+        assertThat(otpHasher.hash("123456")).isNotEqualTo(otpHasher.hash("123456"));
+    }
+
+    @Test
+    @DisplayName("should reject hashes made with another pepper")
+    void shouldRejectOtherPepper() {
+        OtpHasher other = new OtpHasher(configWithPepper("another-test-otp-pepper-of-32-chars!"), legacyEncoder);
+
+        assertThat(otpHasher.matches("123456", other.hash("123456"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("should verify legacy BCrypt hashes")
+    void shouldVerifyLegacyBcrypt() {
+        String legacyHash = legacyEncoder.encode("123456");
+
+        assertThat(otpHasher.matches("123456", legacyHash)).isTrue();
+        assertThat(otpHasher.matches("654321", legacyHash)).isFalse();
+    }
+
+    @Test
+    @DisplayName("should reject malformed versioned hashes")
+    void shouldRejectMalformedHashes() {
+        assertThat(otpHasher.matches("123456", OtpHasher.VERSION_PREFIX + "no-separator")).isFalse();
+        assertThat(otpHasher.matches("123456", OtpHasher.VERSION_PREFIX + "!!$!!")).isFalse();
+    }
+
+    @Test
+    @DisplayName("should require a pepper of at least 32 characters")
+    void shouldRequirePepper() {
+        assertThatThrownBy(() -> new OtpHasher(configWithPepper(null), legacyEncoder))
+            .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new OtpHasher(configWithPepper("too-short"), legacyEncoder))
+            .isInstanceOf(IllegalStateException.class);
+    }
+}
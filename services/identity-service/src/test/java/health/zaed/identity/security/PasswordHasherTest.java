@@ -0,0 +1,100 @@
+package health.zaed.identity.security;
+
+import health.zaed.identity.config.PasswordConfig;
+import health.zaed.identity.exception.RateLimitException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link PasswordHasher}.
+ */
+@DisplayName("PasswordHasher")
+class PasswordHasherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordHasher passwordHasher;
+
+    @AfterEach
+    void tearDown() {
+        if (passwordHasher != null) {
+            passwordHasher.shutdown();
+        }
+    }
+
+    private static PasswordConfig config(int threads, int queueCapacity) {
+        PasswordConfig config = new PasswordConfig();
+        config.setHashingThreads(threads);
+        config.setHashingQueueCapacity(queueCapacity);
+        config.setHashingRetryAfter(2);
+        return config;
+    }
+
+    @Test
+    @DisplayName("should encode and match through the pool")
+    void shouldEncodeAndMatch() {
+        passwordHasher = new PasswordHasher(new BCryptPasswordEncoder(4), config(2, 4), meterRegistry);
+
+        String hash = passwordHasher.encode("SecurePassword123!");
+
+        assertThat(passwordHasher.matches("SecurePassword123!", hash)).isTrue();
+        assertThat(passwordHasher.matches("WrongPassword123!", hash)).isFalse();
+        assertThat(meterRegistry.get("password.hashing.wait").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("should reject with Retry-After once the pool and queue are full")
+    void shouldRejectWhenSaturated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        PasswordEncoder blockingEncoder = new BCryptPasswordEncoder(4) {
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+        passwordHasher = new PasswordHasher(blockingEncoder, config(1, 1), meterRegistry);
+
+        List<Future<Boolean>> admitted = new ArrayList<>();
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            // One running, one queued
+            admitted.add(callers.submit(() -> passwordHasher.matches("a", "hash")));
+            started.await(5, TimeUnit.SECONDS);
+            admitted.add(callers.submit(() -> passwordHasher.matches("b", "hash")));
+            while (meterRegistry.get("password.hashing.queue.depth").gauge().value() < 1) {
+                Thread.onSpinWait();
+            }
+
+            assertThatThrownBy(() -> passwordHasher.matches("c", "hash"))
+                .isInstanceOf(RateLimitException.class)
+                .extracting("retryAfterSeconds").isEqualTo(2);
+            assertThat(meterRegistry.get("password.hashing.rejected").counter().count()).isEqualTo(1);
+
+            release.countDown();
+        }
+
+        for (Future<Boolean> result : admitted) {
+            assertThat(result.get()).isTrue();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package health.zaed.identity.security;
+
+import health.zaed.identity.model.enums.OtpContext;
+import health.zaed.identity.model.enums.Permission;
+import health.zaed.identity.model.enums.UserRole;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link PermissionCatalog}.
+ */
+@DisplayName("PermissionCatalog")
+class PermissionCatalogTest {
+
+    @ParameterizedTest
+    @EnumSource(UserRole.class)
+    @DisplayName("should list exactly the role's permissions")
+    void shouldListRolePermissions(UserRole role) {
+        List<String> expected = Permission.getPermissionsForRole(role).stream()
+            .map(Permission::name)
+            .toList();
+
+        assertThat(PermissionCatalog.permissionNames(role)).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(PermissionCatalog.permissionNames(role)).isSameAs(PermissionCatalog.permissionNames(role));
+    }
+
+    @ParameterizedTest
+    @EnumSource(OtpContext.class)
+    @DisplayName("should list exactly the OTP context's permissions")
+    void shouldListContextPermissions(OtpContext context) {
+        List<String> expected = Arrays.stream(context.getGrantedPermissions())
+            .map(Permission::name)
+            .toList();
+
+        assertThat(PermissionCatalog.permissionNames(context)).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    @Test
+    @DisplayName("should reuse shared authorities for a deserialized claim")
+    void shouldReuseSharedAuthorities() {
+        // Parsed claims arrive as a fresh mutable list
+        List<String> claim = new ArrayList<>(PermissionCatalog.permissionNames(UserRole.PARTNER_PHARMACY));
+
+        List<GrantedAuthority> first = PermissionCatalog.authoritiesFor(claim);
+        List<GrantedAuthority> second = PermissionCatalog.authoritiesFor(new ArrayList<>(claim));
+
+        assertThat(first).isSameAs(second);
+        assertThat(first).extracting(GrantedAuthority::getAuthority).containsExactlyElementsOf(claim);
+    }
+
+    @Test
+    @DisplayName("should map unknown permission names")
+    void shouldMapUnknownPermissionNames() {
+        List<GrantedAuthority> authorities = PermissionCatalog.authoritiesFor(List.of("LEGACY_PERMISSION"));
+
+        assertThat(authorities).extracting(GrantedAuthority::getAuthority).containsExactly("LEGACY_PERMISSION");
+    }
+}
@@ -0,0 +1,204 @@
+package health.zaed.identity.security;
+
+import health.zaed.identity.IntegrationTestBase;
+import health.zaed.identity.config.RateLimitConfig;
+import health.zaed.identity.config.RateLimitConfig.Bucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Integration tests for {@link RateLimitFilter} against a real Redis container.
+ */
+@DisplayName("RateLimitFilter Integration Tests")
+class RateLimitFilterIT extends IntegrationTestBase {
+
+    private static final String LOGIN_PATH = "/api/v1/auth/login";
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitConfig.Route login = new RateLimitConfig.Route();
+        login.setPath(LOGIN_PATH);
+        login.setIdentityField("email");
+        login.setIp(new Bucket(3, 60));
+        login.setIdentity(new Bucket(2, 60));
+        login.setTotal(new Bucket(100, 6000));
+
+        RateLimitConfig config = new RateLimitConfig();
+        config.getRoutes().put("login", login);
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new RateLimitFilter(redisTemplate, jsonMapper, config, meterRegistry);
+    }
+
+    private MockHttpServletResponse post(String path, String ip, String email) throws Exception {
+        return post(path, path, ip, ("{\"email\":\"" + email + "\",\"password\":\"x\"}").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param requestUri the raw URI as sent
+     * @param servletPath the path as the container decodes and normalizes it
+     */
+    private MockHttpServletResponse post(String requestUri, String servletPath, String ip, byte[] body) throws Exception {
+        return perform(request(requestUri, servletPath, ip, body));
+    }
+
+    private static MockHttpServletRequest request(String requestUri, String servletPath, String ip, byte[] body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", requestUri);
+        request.setServletPath(servletPath);
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(body);
+        return request;
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        if (chain.getRequest() != null) {
+            // The controller must still be able to read the body
+            assertThat(chain.getRequest().getInputStream().readAllBytes()).isNotEmpty();
+        }
+        return response;
+    }
+
+    @Nested
+    @DisplayName("buckets")
+    class Buckets {
+
+        @Test
+        @DisplayName("should reject an identity over its burst with Retry-After")
+        void shouldRejectIdentityOverBurst() throws Exception {
+            assertThat(post(LOGIN_PATH, "10.0.0.1", "a@example.com").getStatus()).isEqualTo(200);
+            assertThat(post(LOGIN_PATH, "10.0.0.2", "A@example.com").getStatus()).isEqualTo(200);
+
+            MockHttpServletResponse rejected = post(LOGIN_PATH, "10.0.0.3", "a@example.com");
+
+            assertThat(rejected.getStatus()).isEqualTo(429);
+            assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+            assertThat(rejected.getContentAsString()).contains("RATE_LIMIT_EXCEEDED");
+            assertThat(meterRegistry.get("ratelimit.rejected")
+                .tags("route", "login", "dimension", "email", "source", "redis").counter().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should reject an IP over its burst across identities")
+        void shouldRejectIpOverBurst() throws Exception {
+            for (int i = 0; i < 3; i++) {
+                assertThat(post(LOGIN_PATH, "10.0.0.9", "user" + i + "@example.com").getStatus()).isEqualTo(200);
+            }
+
+            assertThat(post(LOGIN_PATH, "10.0.0.9", "other@example.com").getStatus()).isEqualTo(429);
+        }
+
+        @Test
+        @DisplayName("should key the IP bucket on the peer address, not X-Forwarded-For")
+        void shouldIgnoreClientForwardedFor() throws Exception {
+            for (int i = 0; i < 4; i++) {
+                MockHttpServletRequest request = request(LOGIN_PATH, LOGIN_PATH, "10.0.0.9",
+                    ("{\"email\":\"spoof" + i + "@example.com\",\"password\":\"x\"}").getBytes(StandardCharsets.UTF_8));
+                request.addHeader("X-Forwarded-For", "203.0.113." + i);
+                assertThat(perform(request).getStatus()).isEqualTo(i < 3 ? 200 : 429);
+            }
+        }
+
+        @Test
+        @DisplayName("should not take tokens from other buckets when one is empty")
+        void shouldNotDrawOnDenial() throws Exception {
+            post(LOGIN_PATH, "10.0.0.1", "b@example.com");
+            post(LOGIN_PATH, "10.0.0.1", "b@example.com");
+            post(LOGIN_PATH, "10.0.0.1", "b@example.com");
+
+            // The IP bucket gave only two tokens; the third request was denied by the email bucket
+            assertThat(post(LOGIN_PATH, "10.0.0.1", "c@example.com").getStatus()).isEqualTo(200);
+        }
+
+        @Test
+        @DisplayName("should refill over time")
+        void shouldRefill() throws Exception {
+            post(LOGIN_PATH, "10.0.0.1", "d@example.com");
+            post(LOGIN_PATH, "10.0.0.2", "d@example.com");
+            assertThat(post(LOGIN_PATH, "10.0.0.3", "d@example.com").getStatus()).isEqualTo(429);
+
+            Thread.sleep(1100);
+
+            assertThat(post(LOGIN_PATH, "10.0.0.4", "d@example.com").getStatus()).isEqualTo(200);
+        }
+    }
+
+    @Nested
+    @DisplayName("requests")
+    class Requests {
+
+        @Test
+        @DisplayName("should limit path-parameter and percent-encoded variants of a route")
+        void shouldLimitPathVariants() throws Exception {
+            byte[] body = "{\"email\":\"g@example.com\",\"password\":\"x\"}".getBytes(StandardCharsets.UTF_8);
+
+            assertThat(post(LOGIN_PATH + ";jsessionid=abc", LOGIN_PATH, "10.0.0.1", body).getStatus()).isEqualTo(200);
+            assertThat(post("/api/v1/auth/%6Cogin", LOGIN_PATH, "10.0.0.2", body).getStatus()).isEqualTo(200);
+
+            assertThat(post(LOGIN_PATH + ";a=b", LOGIN_PATH, "10.0.0.3", body).getStatus()).isEqualTo(429);
+        }
+
+        @Test
+        @DisplayName("should reject a body over the identity cap with 413")
+        void shouldRejectOversizedBody() throws Exception {
+            byte[] body = new byte[16 * 1024 + 1];
+            Arrays.fill(body, (byte) ' ');
+
+            MockHttpServletResponse response = post(LOGIN_PATH, LOGIN_PATH, "10.0.0.1", body);
+
+            assertThat(response.getStatus()).isEqualTo(413);
+            assertThat(response.getContentAsString()).contains("PAYLOAD_TOO_LARGE");
+        }
+    }
+
+    @Nested
+    @DisplayName("near cache")
+    class NearCache {
+
+        @Test
+        @DisplayName("should reject a blocked client locally until its bucket refills")
+        void shouldRejectLocally() throws Exception {
+            post(LOGIN_PATH, "10.0.0.1", "e@example.com");
+            post(LOGIN_PATH, "10.0.0.2", "e@example.com");
+            post(LOGIN_PATH, "10.0.0.3", "e@example.com");
+            redisTemplate.delete(RateLimitFilter.KEY_PREFIX + "login:email:e@example.com");
+
+            assertThat(post(LOGIN_PATH, "10.0.0.4", "e@example.com").getStatus()).isEqualTo(429);
+            assertThat(meterRegistry.get("ratelimit.rejected")
+                .tags("route", "login", "dimension", "email", "source", "local").counter().count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    @DisplayName("should leave other routes alone")
+    void shouldIgnoreOtherRoutes() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertThat(post("/api/v1/auth/logout", "10.0.0.1", "f@example.com").getStatus()).isEqualTo(200);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package health.zaed.identity.security;
+
+import health.zaed.identity.config.JwtConfig;
+import health.zaed.identity.security.VerifiedTokenCache.VerifiedToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link VerifiedTokenCache}.
+ */
+@DisplayName("VerifiedTokenCache")
+class VerifiedTokenCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new VerifiedTokenCache(new JwtConfig(), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("should return cached entry until token expiry")
+    void shouldReturnCachedEntry() {
+        VerifiedToken verified = verifiedToken(UUID.randomUUID().toString(), Instant.now().plusSeconds(60));
+
+        cache.put("token-a", verified);
+
+        assertThat(cache.get("token-a")).isEqualTo(verified);
+        assertThat(cache.get("token-b")).isNull();
+    }
+
+    @Test
+    @DisplayName("should not cache already expired tokens")
+    void shouldNotCacheExpiredTokens() {
+        cache.put("token-a", verifiedToken(UUID.randomUUID().toString(), Instant.now().minusSeconds(1)));
+
+        assertThat(cache.get("token-a")).isNull();
+    }
+
+    @Test
+    @DisplayName("should be disabled when size is zero")
+    void shouldBeDisabledWhenSizeIsZero() {
+        JwtConfig config = new JwtConfig();
+        config.setVerifiedTokenCacheSize(0);
+        VerifiedTokenCache disabled = new VerifiedTokenCache(config, meterRegistry);
+
+        disabled.put("token-a", verifiedToken(UUID.randomUUID().toString(), Instant.now().plusSeconds(60)));
+
+        assertThat(disabled.get("token-a")).isNull();
+    }
+
+    @Test
+    @DisplayName("should publish hit and miss metrics")
+    void shouldPublishHitAndMissMetrics() {
+        cache.put("token-a", verifiedToken(UUID.randomUUID().toString(), Instant.now().plusSeconds(60)));
+
+        cache.get("token-a");
+        cache.get("token-b");
+
+        assertThat(meterRegistry.get("cache.gets")
+            .tag("cache", VerifiedTokenCache.CACHE_NAME)
+            .tag("result", "hit")
+            .functionCounter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.gets")
+            .tag("cache", VerifiedTokenCache.CACHE_NAME)
+            .tag("result", "miss")
+            .functionCounter().count()).isEqualTo(1.0);
+    }
+
+    private VerifiedToken verifiedToken(String subject, Instant expiresAt) {
+        AuthPrincipal principal = new AuthPrincipal(subject, "access", "PARTNER_PHARMACY", null, null, null, null);
+        return new VerifiedToken(principal, List.of(new SimpleGrantedAuthority("MATCH_VIEW_ASSIGNED")),
+            Instant.now(), expiresAt);
+    }
+}
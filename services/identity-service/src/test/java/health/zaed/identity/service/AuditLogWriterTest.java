@@ -0,0 +1,211 @@
+package health.zaed.identity.service;
+
+import health.zaed.identity.config.AuditConfig;
+import health.zaed.identity.model.entity.AuthAuditLog;
+import health.zaed.identity.model.enums.AuthEventType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link AuditLogWriter}.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("AuditLogWriter")
+class AuditLogWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private AuditConfig config;
+    private SimpleMeterRegistry meterRegistry;
+    private AuditLogWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        config = new AuditConfig();
+        config.setFlushIntervalMillis(50);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    private AuditLogWriter startWriter() {
+        writer = new AuditLogWriter(jdbcTemplate, transactionManager, config, meterRegistry);
+        writer.start();
+        return writer;
+    }
+
+    private static AuthAuditLog event(AuthEventType eventType) {
+        return AuthAuditLog.builder()
+            .eventType(eventType)
+            .userId(UUID.randomUUID())
+            .email("test@example.com")
+            .ipAddress("192.168.1.1")
+            .success(eventType != AuthEventType.LOGIN_FAILED)
+            .build();
+    }
+
+    @Nested
+    @DisplayName("buffered events")
+    class BufferedEvents {
+
+        @Test
+        @DisplayName("should insert buffered events together in one statement")
+        void shouldBatchEvents() throws InterruptedException {
+            CountDownLatch flushed = new CountDownLatch(1);
+            when(jdbcTemplate.update(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+                flushed.countDown();
+                return 3;
+            });
+            config.setFlushIntervalMillis(500);
+            AuditLogWriter writer = startWriter();
+
+            writer.write(event(AuthEventType.LOGIN_SUCCESS));
+            writer.write(event(AuthEventType.LOGOUT));
+            writer.write(event(AuthEventType.TOKEN_REFRESHED));
+
+            assertThat(flushed.await(5, TimeUnit.SECONDS)).isTrue();
+            ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+            ArgumentCaptor<Object[]> parameters = ArgumentCaptor.forClass(Object[].class);
+            verify(jdbcTemplate).update(sql.capture(), parameters.capture());
+            assertThat(sql.getValue()).startsWith("INSERT INTO auth_audit_logs");
+            assertThat(parameters.getValue()).hasSize(3 * 12);
+            assertThat(parameters.getValue()[5]).isEqualTo("LOGIN_SUCCESS");
+            verifyNoInteractions(transactionManager);
+        }
+
+        @Test
+        @DisplayName("should not exceed the batch size per statement")
+        void shouldSplitLargeBatches() {
+            config.setBatchSize(2);
+            config.setFlushIntervalMillis(1_000);
+            AuditLogWriter writer = startWriter();
+
+            for (int i = 0; i < 5; i++) {
+                writer.write(event(AuthEventType.LOGIN_SUCCESS));
+            }
+            writer.stop();
+
+            ArgumentCaptor<Object[]> parameters = ArgumentCaptor.forClass(Object[].class);
+            verify(jdbcTemplate, times(3)).update(anyString(), parameters.capture());
+            assertThat(parameters.getAllValues()).extracting(p -> p.length).containsExactly(2 * 12, 2 * 12, 12);
+            assertThat(meterRegistry.counter("audit.events.written", "mode", "batched").count()).isEqualTo(5);
+        }
+
+        @Test
+        @DisplayName("should drop and count events when the buffer is full")
+        void shouldDropWhenBufferFull() throws InterruptedException {
+            CountDownLatch blocked = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            when(jdbcTemplate.update(anyString(), any(Object[].class))).thenAnswer(invocation -> {
+                blocked.countDown();
+                release.await();
+                return 1;
+            });
+            config.setBufferSize(2);
+            config.setBatchSize(1);
+            AuditLogWriter writer = startWriter();
+
+            writer.write(event(AuthEventType.LOGIN_SUCCESS));
+            assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < 4; i++) {
+                writer.write(event(AuthEventType.LOGIN_SUCCESS));
+            }
+            release.countDown();
+
+            assertThat(meterRegistry.counter("audit.events.dropped", "reason", "buffer_full").count()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("should count events lost to a failed insert")
+        void shouldCountWriteErrors() {
+            when(jdbcTemplate.update(anyString(), any(Object[].class)))
+                .thenThrow(new DataAccessResourceFailureException("database down"));
+            AuditLogWriter writer = startWriter();
+
+            writer.write(event(AuthEventType.LOGIN_SUCCESS));
+            writer.stop();
+
+            assertThat(meterRegistry.counter("audit.events.dropped", "reason", "write_error").count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should flush buffered events on shutdown")
+        void shouldFlushOnShutdown() {
+            config.setFlushIntervalMillis(60_000);
+            AuditLogWriter writer = startWriter();
+
+            writer.write(event(AuthEventType.LOGIN_SUCCESS));
+            writer.stop();
+
+            verify(jdbcTemplate).update(anyString(), any(Object[].class));
+        }
+    }
+
+    @Nested
+    @DisplayName("durable events")
+    class DurableEvents {
+
+        @Test
+        @DisplayName("should insert durable events synchronously in a new transaction")
+        void shouldWriteDurableEventsSynchronously() {
+            AuditLogWriter writer = startWriter();
+
+            writer.write(event(AuthEventType.LOGIN_FAILED));
+
+            verify(transactionManager).getTransaction(argThat(definition ->
+                definition.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+            ArgumentCaptor<Object[]> parameters = ArgumentCaptor.forClass(Object[].class);
+            verify(jdbcTemplate).update(anyString(), parameters.capture());
+            assertThat(parameters.getValue()[5]).isEqualTo("LOGIN_FAILED");
+            verify(transactionManager).commit(any());
+            assertThat(meterRegistry.counter("audit.events.written", "mode", "durable").count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should buffer an event type removed from the durable set")
+        void shouldHonourConfiguredDurableEvents() {
+            config.getDurableEvents().remove(AuthEventType.LOGIN_FAILED);
+            AuditLogWriter writer = startWriter();
+
+            writer.write(event(AuthEventType.LOGIN_FAILED));
+            writer.stop();
+
+            verifyNoInteractions(transactionManager);
+            verify(jdbcTemplate).update(anyString(), any(Object[].class));
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package health.zaed.identity.service;
+
+import health.zaed.identity.IntegrationTestBase;
+import health.zaed.identity.config.AuditConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Integration tests for {@link AuditPartitionManager} against the V11 partitioned table.
+ */
+@DisplayName("AuditPartitionManager Integration Tests")
+class AuditPartitionManagerIT extends IntegrationTestBase {
+
+    private static final YearMonth CURRENT = YearMonth.now(ZoneOffset.UTC);
+
+    @Autowired
+    private AuditPartitionManager partitionManager;
+
+    @Autowired
+    private AuditConfig auditConfig;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void restoreConfig() {
+        auditConfig.setPartitionsAhead(3);
+        auditConfig.setRetentionAction(AuditConfig.RetentionAction.DROP);
+    }
+
+    private boolean exists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table));
+    }
+
+    private List<String> attachedPartitions() {
+        return jdbcTemplate.queryForList(
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                + "WHERE i.inhparent = 'auth_audit_logs'::regclass",
+            String.class);
+    }
+
+    private String createPartition(YearMonth month) {
+        String partition = AuditPartitionManager.partitionName(month);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF auth_audit_logs FOR VALUES FROM ('"
+            + month.atDay(1) + " 00:00:00+00') TO ('" + month.plusMonths(1).atDay(1) + " 00:00:00+00')");
+        jdbcTemplate.update("INSERT INTO auth_audit_logs (email, event_type, success, created_at) VALUES (?, ?, ?, ?::timestamptz)",
+            "old@example.com", "LOGIN_FAILED", false, month.atDay(15) + " 12:00:00+00");
+        return partition;
+    }
+
+    @Nested
+    @DisplayName("future partitions")
+    class FuturePartitions {
+
+        @Test
+        @DisplayName("should create partitions for the configured months ahead")
+        void shouldCreatePartitionsAhead() {
+            auditConfig.setPartitionsAhead(5);
+
+            partitionManager.maintain(CURRENT);
+
+            for (int i = 0; i <= 5; i++) {
+                assertThat(attachedPartitions()).contains(AuditPartitionManager.partitionName(CURRENT.plusMonths(i)));
+            }
+        }
+
+        @Test
+        @DisplayName("should route current inserts into the current month's partition")
+        void shouldRouteInsertsToMonthlyPartition() {
+            partitionManager.maintain(CURRENT);
+
+            jdbcTemplate.update("INSERT INTO auth_audit_logs (email, event_type, success) VALUES (?, ?, ?)",
+                "test@example.com", "LOGIN_SUCCESS", true);
+
+            String partition = jdbcTemplate.queryForObject(
+                "SELECT tableoid::regclass::text FROM auth_audit_logs WHERE email = ?", String.class, "test@example.com");
+            assertThat(partition).isEqualTo(AuditPartitionManager.partitionName(CURRENT));
+        }
+    }
+
+    @Nested
+    @DisplayName("retention")
+    class Retention {
+
+        @Test
+        @DisplayName("should drop partitions past retention")
+        void shouldDropExpiredPartitions() {
+            YearMonth expired = CURRENT.minusMonths(auditConfig.getRetentionMonths() + 1);
+            String partition = createPartition(expired);
+            String kept = createPartition(CURRENT.minusMonths(auditConfig.getRetentionMonths()));
+
+            partitionManager.maintain(CURRENT);
+
+            assertThat(exists(partition)).isFalse();
+            assertThat(attachedPartitions()).contains(kept);
+            jdbcTemplate.execute("DROP TABLE " + kept);
+        }
+
+        @Test
+        @DisplayName("should detach but keep expired partitions in DETACH mode")
+        void shouldDetachExpiredPartitions() {
+            auditConfig.setRetentionAction(AuditConfig.RetentionAction.DETACH);
+            String partition = createPartition(CURRENT.minusMonths(auditConfig.getRetentionMonths() + 2));
+
+            partitionManager.maintain(CURRENT);
+
+            assertThat(attachedPartitions()).doesNotContain(partition);
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + partition, Long.class)).isEqualTo(1);
+            jdbcTemplate.execute("DROP TABLE " + partition);
+        }
+    }
+
+    @Nested
+    @DisplayName("partition pruning")
+    class PartitionPruning {
+
+        @Test
+        @DisplayName("should only scan partitions within the query's time range")
+        void shouldPruneOldPartitions() {
+            String old = createPartition(CURRENT.minusMonths(6));
+            partitionManager.maintain(CURRENT);
+
+            String plan = String.join("\n", jdbcTemplate.queryForList(
+                "EXPLAIN SELECT COUNT(*) FROM auth_audit_logs WHERE phone = '+201234567890' "
+                    + "AND event_type = 'OTP_SENT' AND created_at > '" + CURRENT.atDay(1) + " 00:00:00+00'",
+                String.class));
+
+            assertThat(plan).contains(AuditPartitionManager.partitionName(CURRENT)).doesNotContain(old);
+            jdbcTemplate.execute("DROP TABLE " + old);
+        }
+    }
+}
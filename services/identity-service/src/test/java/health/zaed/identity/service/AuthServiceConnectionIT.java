@@ -0,0 +1,217 @@
+package health.zaed.identity.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import dev.samstevens.totp.secret.DefaultSecretGenerator;
+import health.zaed.identity.IntegrationTestBase;
+import health.zaed.identity.exception.TwoFactorException;
+import health.zaed.identity.model.dto.LoginRequest;
+import health.zaed.identity.model.dto.LoginResponse;
+import health.zaed.identity.model.dto.TokenResponse;
+import health.zaed.identity.model.dto.TwoFactorVerifyRequest;
+import health.zaed.identity.model.entity.User;
+import health.zaed.identity.model.entity.User2FA;
+import health.zaed.identity.model.entity.UserCredential;
+import health.zaed.identity.model.enums.AuthEventType;
+import health.zaed.identity.model.enums.UserRole;
+import health.zaed.identity.repository.UserRepository;
+import health.zaed.identity.security.PasswordHasher;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Checks that logins waiting on password hashing or on a synchronous audit write, and
+ * refreshes served by Redis, do not hold pooled database connections.
+ *
+ * <p>More requests than the pool has connections are parked inside {@link PasswordHasher#matches}
+ * or {@link AuditLogWriter#write}; other queries must still get a connection straight away.
+ */
+@DisplayName("AuthService Connection Integration Tests")
+class AuthServiceConnectionIT extends IntegrationTestBase {
+
+    private static final String TEST_EMAIL = "connections@example.com";
+    private static final String TEST_PASSWORD = "SecurePassword123!";
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @MockitoSpyBean
+    private PasswordHasher passwordHasher;
+
+    @MockitoSpyBean
+    private AuditLogWriter auditLogWriter;
+
+    @Test
+    @DisplayName("should release the connection while the password is checked")
+    void shouldNotHoldConnectionsWhileHashing() throws Exception {
+        createUser(null);
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+        int logins = pool.getMaximumPoolSize() + 2;
+
+        CountDownLatch hashing = new CountDownLatch(logins);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean inTransaction = new AtomicBoolean();
+        doAnswer(invocation -> {
+            inTransaction.compareAndSet(false, TransactionSynchronizationManager.isActualTransactionActive());
+            hashing.countDown();
+            release.await();
+            return true;
+        }).when(passwordHasher).matches(any(), any());
+
+        List<Future<LoginResponse>> responses = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < logins; i++) {
+                String deviceId = "device-" + i;
+                responses.add(executor.submit(() -> authService.login(
+                    new LoginRequest(TEST_EMAIL, TEST_PASSWORD, deviceId), "192.168.1.1", null)));
+            }
+
+            try {
+                assertThat(hashing.await(10, TimeUnit.SECONDS)).isTrue();
+                assertThat(inTransaction).isFalse();
+                assertThat(pool.getHikariPoolMXBean().getActiveConnections()).isLessThan(pool.getMaximumPoolSize());
+                assertTimeoutPreemptively(Duration.ofSeconds(5),
+                    () -> assertThat(userRepository.findByEmail(TEST_EMAIL)).isPresent());
+            } finally {
+                release.countDown();
+            }
+        }
+
+        for (Future<LoginResponse> response : responses) {
+            assertThat(response.get().accessToken()).isNotNull();
+        }
+    }
+
+    @Test
+    @DisplayName("should release the connection before a failed 2FA check is audited")
+    void shouldNotHoldConnectionsWhileAuditingFailed2FA() throws Exception {
+        User user = createUser(new DefaultSecretGenerator().generate());
+        String tempToken = jwtService.generate2FATempToken(user.getId());
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+        int attempts = pool.getMaximumPoolSize() + 2;
+
+        CountDownLatch auditing = new CountDownLatch(attempts);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean inTransaction = new AtomicBoolean();
+        doAnswer(invocation -> {
+            inTransaction.compareAndSet(false, TransactionSynchronizationManager.isActualTransactionActive());
+            auditing.countDown();
+            release.await();
+            return invocation.callRealMethod();
+        }).when(auditLogWriter).write(argThat(event -> event.getEventType() == AuthEventType.TWO_FACTOR_FAILED));
+
+        List<Future<LoginResponse>> responses = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < attempts; i++) {
+                String deviceId = "device-" + i;
+                responses.add(executor.submit(() -> authService.verify2FA(
+                    new TwoFactorVerifyRequest("abcdef", null, deviceId), tempToken, "192.168.1.1", null)));
+            }
+
+            try {
+                assertThat(auditing.await(10, TimeUnit.SECONDS)).isTrue();
+                assertThat(inTransaction).isFalse();
+                assertThat(pool.getHikariPoolMXBean().getActiveConnections()).isLessThan(pool.getMaximumPoolSize());
+                assertTimeoutPreemptively(Duration.ofSeconds(5),
+                    () -> assertThat(userRepository.findByEmail(TEST_EMAIL)).isPresent());
+            } finally {
+                release.countDown();
+            }
+        }
+
+        for (Future<LoginResponse> response : responses) {
+            assertThatThrownBy(response::get)
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(TwoFactorException.class);
+        }
+    }
+
+    @Test
+    @DisplayName("should rotate a refresh token held in Redis without a database connection")
+    void shouldRefreshWithoutConnection() throws Exception {
+        createUser(null);
+        LoginResponse login = authService.login(
+            new LoginRequest(TEST_EMAIL, TEST_PASSWORD, "device-1"), "192.168.1.1", null);
+        // Warms the user snapshot cache, the only other read on the refresh path
+        TokenResponse warmed = authService.refreshToken(login.refreshToken(), "192.168.1.1");
+
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+        List<Connection> held = new ArrayList<>();
+        try {
+            for (int i = 0; i < pool.getMaximumPoolSize(); i++) {
+                held.add(dataSource.getConnection());
+            }
+            assertThat(pool.getHikariPoolMXBean().getIdleConnections()).isZero();
+
+            TokenResponse rotated = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> authService.refreshToken(warmed.refreshToken(), "192.168.1.1"));
+
+            assertThat(rotated.refreshToken()).isNotEqualTo(warmed.refreshToken());
+            assertThat(pool.getHikariPoolMXBean().getActiveConnections()).isEqualTo(pool.getMaximumPoolSize());
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+    }
+
+    private User createUser(String totpSecret) {
+        User user = User.builder()
+            .email(TEST_EMAIL)
+            .name("Connection Test")
+            .role(UserRole.PARTNER_PHARMACY)
+            .active(true)
+            .verified(true)
+            .build();
+
+        UserCredential credential = UserCredential.builder()
+            .passwordHash(passwordEncoder.encode(TEST_PASSWORD))
+            .build();
+        credential.setUser(user);
+        user.setCredential(credential);
+
+        if (totpSecret != null) {
+            User2FA twoFactorAuth = new User2FA();
+            twoFactorAuth.setUser(user);
+            twoFactorAuth.setSecret(totpSecret);
+            twoFactorAuth.setEnabled(true);
+            user.setTwoFactorAuth(twoFactorAuth);
+        }
+
+        return userRepository.save(user);
+    }
+}
@@ -0,0 +1,175 @@
+package health.zaed.identity.service;
+
+import dev.samstevens.totp.code.CodeGenerator;
+import dev.samstevens.totp.code.DefaultCodeGenerator;
+import dev.samstevens.totp.code.HashingAlgorithm;
+import dev.samstevens.totp.secret.DefaultSecretGenerator;
+import health.zaed.identity.IntegrationTestBase;
+import health.zaed.identity.model.dto.LoginRequest;
+import health.zaed.identity.model.dto.LoginResponse;
+import health.zaed.identity.model.dto.TwoFactorVerifyRequest;
+import health.zaed.identity.model.entity.User;
+import health.zaed.identity.model.entity.User2FA;
+import health.zaed.identity.model.entity.UserCredential;
+import health.zaed.identity.model.enums.UserRole;
+import health.zaed.identity.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Guards the number of SQL statements the login path issues, using Hibernate statistics.
+ *
+ * <p>Loading the user must stay one statement: a regression back to lazy or secondary
+ * selects for the credential or 2FA settings shows up here as a higher count.
+ */
+@DisplayName("AuthService Query Count Integration Tests")
+class AuthServiceQueryCountIT extends IntegrationTestBase {
+
+    private static final String TEST_EMAIL = "queries@example.com";
+    private static final String TEST_PASSWORD = "SecurePassword123!";
+    private static final String TEST_IP = "192.168.1.1";
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final CodeGenerator codeGenerator = new DefaultCodeGenerator(HashingAlgorithm.SHA1);
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    void disableStatistics() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Nested
+    @DisplayName("login")
+    class Login {
+
+        @Test
+        @DisplayName("should load the user in one statement and write only the session and last login")
+        void shouldIssueThreeStatementsWithout2FA() {
+            createUser(UserRole.PARTNER_PHARMACY, null);
+            statistics.clear();
+
+            LoginResponse response = authService.login(
+                new LoginRequest(TEST_EMAIL, TEST_PASSWORD, "device-1"), TEST_IP, null);
+
+            assertThat(response.accessToken()).isNotNull();
+            assertThat(statistics.getEntityFetchCount()).isZero();
+            // SELECT users + credential + 2FA, INSERT refresh_tokens, UPDATE users
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("should issue a single statement when a 2FA challenge is returned")
+        void shouldIssueOneStatementWith2FA() {
+            createUser(UserRole.ADMIN, new DefaultSecretGenerator().generate());
+            statistics.clear();
+
+            LoginResponse response = authService.login(
+                new LoginRequest(TEST_EMAIL, TEST_PASSWORD, "device-1"), TEST_IP, null);
+
+            assertThat(response.requires2FA()).isTrue();
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should rehash an outdated hash with one extra statement")
+        void shouldRehashOutdatedHash() {
+            createUser(UserRole.PARTNER_PHARMACY, null, new BCryptPasswordEncoder(4).encode(TEST_PASSWORD));
+            statistics.clear();
+
+            authService.login(new LoginRequest(TEST_EMAIL, TEST_PASSWORD, "device-1"), TEST_IP, null);
+
+            // Plus UPDATE user_credentials
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(4);
+            String rehashed = userRepository.findByEmailWithCredentialAnd2FA(TEST_EMAIL).orElseThrow()
+                .getCredential().getPasswordHash();
+            assertThat(rehashed).startsWith("{bcrypt}$2a$12$");
+            assertThat(passwordEncoder.matches(TEST_PASSWORD, rehashed)).isTrue();
+            assertThat(passwordEncoder.upgradeEncoding(rehashed)).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("verify2FA")
+    class Verify2FA {
+
+        @Test
+        @DisplayName("should load the user once for both the challenge check and the code check")
+        void shouldIssueThreeStatementsForTotp() {
+            String secret = new DefaultSecretGenerator().generate();
+            User user = createUser(UserRole.ADMIN, secret);
+            String tempToken = jwtService.generate2FATempToken(user.getId());
+            String code = codeGenerator.generate(secret, Math.floorDiv(System.currentTimeMillis(), 30000));
+            statistics.clear();
+
+            LoginResponse response = authService.verify2FA(
+                new TwoFactorVerifyRequest(code, null, "device-1"), tempToken, TEST_IP, null);
+
+            assertThat(response.accessToken()).isNotNull();
+            assertThat(statistics.getEntityFetchCount()).isZero();
+            // SELECT users + credential + 2FA, INSERT refresh_tokens, UPDATE users
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        }
+    }
+
+    private User createUser(UserRole role, String totpSecret) {
+        return createUser(role, totpSecret, passwordEncoder.encode(TEST_PASSWORD));
+    }
+
+    private User createUser(UserRole role, String totpSecret, String passwordHash) {
+        User user = User.builder()
+            .email(TEST_EMAIL)
+            .name("Query Test")
+            .role(role)
+            .active(true)
+            .verified(true)
+            .build();
+
+        UserCredential credential = UserCredential.builder()
+            .passwordHash(passwordHash)
+            .build();
+        credential.setUser(user);
+        user.setCredential(credential);
+
+        if (totpSecret != null) {
+            User2FA twoFactorAuth = new User2FA();
+            twoFactorAuth.setUser(user);
+            twoFactorAuth.setSecret(totpSecret);
+            twoFactorAuth.setEnabled(true);
+            user.setTwoFactorAuth(twoFactorAuth);
+        }
+
+        return userRepository.save(user);
+    }
+}
@@ -4,6 +4,7 @@ import health.zaed.identity.config.JwtConfig;
 import health.zaed.identity.exception.AuthException;
 import health.zaed.identity.exception.InvalidTokenException;
 import health.zaed.identity.exception.RateLimitException;
+import health.zaed.identity.exception.ServiceUnavailableException;
 import health.zaed.identity.exception.TwoFactorException;
 import health.zaed.identity.model.dto.LoginRequest;
 import health.zaed.identity.model.dto.LoginResponse;
@@ -11,12 +12,15 @@ import health.zaed.identity.model.dto.TokenResponse;
 import health.zaed.identity.model.dto.TwoFactorVerifyRequest;
 import health.zaed.identity.model.entity.RefreshToken;
 import health.zaed.identity.model.entity.User;
+import health.zaed.identity.model.entity.User2FA;
 import health.zaed.identity.model.entity.UserCredential;
 import health.zaed.identity.model.enums.AuthEventType;
 import health.zaed.identity.model.enums.UserRole;
-import health.zaed.identity.repository.AuthAuditLogRepository;
 import health.zaed.identity.repository.RefreshTokenRepository;
 import health.zaed.identity.repository.UserRepository;
+import health.zaed.identity.security.LoginFailureCounter;
+import health.zaed.identity.security.PasswordHasher;
+import health.zaed.identity.security.RevocationPublisher;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import org.junit.jupiter.api.BeforeEach;
@@ -25,13 +29,16 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -51,12 +58,17 @@ import static org.mockito.Mockito.*;
 class AuthServiceTest {
 
     @Mock private UserRepository userRepository;
+    @Mock private UserSnapshotCache userSnapshotCache;
     @Mock private RefreshTokenRepository refreshTokenRepository;
-    @Mock private AuthAuditLogRepository auditLogRepository;
+    @Mock private RefreshSessionStore refreshSessionStore;
+    @Mock private AuditLogWriter auditLogWriter;
     @Mock private JwtService jwtService;
     @Mock private TwoFactorService twoFactorService;
-    @Mock private PasswordEncoder passwordEncoder;
+    @Mock private PasswordHasher passwordHasher;
     @Mock private JwtConfig jwtConfig;
+    @Mock private RevocationPublisher revocationPublisher;
+    @Mock private LoginFailureCounter loginFailureCounter;
+    @Mock private PlatformTransactionManager transactionManager;
 
     private AuthService authService;
 
@@ -70,14 +82,20 @@ class AuthServiceTest {
     void setUp() {
         authService = new AuthService(
             userRepository,
+            userSnapshotCache,
             refreshTokenRepository,
-            auditLogRepository,
+            refreshSessionStore,
+            auditLogWriter,
             jwtService,
             twoFactorService,
-            passwordEncoder,
-            jwtConfig
+            passwordHasher,
+            jwtConfig,
+            revocationPublisher,
+            loginFailureCounter,
+            transactionManager
         );
 
+        when(loginFailureCounter.check(anyString(), anyString())).thenReturn(LoginFailureCounter.Lockout.NONE);
         when(jwtConfig.getRefreshTokenExpiry()).thenReturn(604800);
         when(jwtService.getAccessTokenExpiry()).thenReturn(900);
     }
@@ -101,15 +119,10 @@ class AuthServiceTest {
         void shouldReturnTokensForValidCredentialsWithout2FA() {
             LoginRequest request = new LoginRequest(TEST_EMAIL, TEST_PASSWORD, TEST_DEVICE_ID);
 
-            when(auditLogRepository.countFailedLoginsByEmailSince(anyString(), any(Instant.class)))
-                .thenReturn(0L);
-            when(auditLogRepository.countFailedAttemptsByIpSince(anyString(), any(AuthEventType.class), any(Instant.class)))
-                .thenReturn(0L);
-            when(userRepository.findByEmail(TEST_EMAIL)).thenReturn(Optional.of(testUser));
-            when(passwordEncoder.matches(TEST_PASSWORD, testCredential.getPasswordHash())).thenReturn(true);
-            when(twoFactorService.is2FAEnabled(testUser.getId())).thenReturn(false);
+            when(userRepository.findByEmailWithCredentialAnd2FA(TEST_EMAIL)).thenReturn(Optional.of(testUser));
+            when(passwordHasher.matches(TEST_PASSWORD, testCredential.getPasswordHash())).thenReturn(true);
             when(jwtService.generateAccessToken(testUser)).thenReturn("access-token");
-            when(jwtService.generateRefreshToken(eq(testUser), anyString(), eq(TEST_DEVICE_ID)))
+            when(jwtService.generateRefreshToken(eq(testUser), anyString(), anyString(), eq(TEST_DEVICE_ID)))
                 .thenReturn("refresh-token");
 
             LoginResponse response = authService.login(request, TEST_IP, TEST_USER_AGENT);
@@ -121,9 +134,13 @@ class AuthServiceTest {
             assertThat(response.user()).isNotNull();
             assertThat(response.user().email()).isEqualTo(TEST_EMAIL);
 
-            verify(refreshTokenRepository).save(any(RefreshToken.class));
-            verify(userRepository).save(argThat(user -> user.getLastLoginAt() != null));
-            verify(auditLogRepository).save(argThat(log ->
+            ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+            verify(refreshTokenRepository).save(saved.capture());
+            assertThat(saved.getValue().getFamilyId()).isEqualTo(saved.getValue().getId());
+            verify(refreshSessionStore).save(saved.getValue());
+            verify(userRepository).updateLastLoginAt(eq(testUser.getId()), any(Instant.class));
+            verify(userRepository, never()).save(any());
+            verify(auditLogWriter).write(argThat(log ->
                 log.getEventType() == AuthEventType.LOGIN_SUCCESS && log.isSuccess()
             ));
         }
@@ -133,13 +150,11 @@ class AuthServiceTest {
         void shouldReturnTempTokenWhen2FAIsEnabled() {
             LoginRequest request = new LoginRequest(TEST_EMAIL, TEST_PASSWORD, TEST_DEVICE_ID);
 
-            when(auditLogRepository.countFailedLoginsByEmailSince(anyString(), any(Instant.class)))
-                .thenReturn(0L);
-            when(auditLogRepository.countFailedAttemptsByIpSince(anyString(), any(AuthEventType.class), any(Instant.class)))
-                .thenReturn(0L);
-            when(userRepository.findByEmail(TEST_EMAIL)).thenReturn(Optional.of(testUser));
-            when(passwordEncoder.matches(TEST_PASSWORD, testCredential.getPasswordHash())).thenReturn(true);
-            when(twoFactorService.is2FAEnabled(testUser.getId())).thenReturn(true);
+            when(userRepository.findByEmailWithCredentialAnd2FA(TEST_EMAIL)).thenReturn(Optional.of(testUser));
+            when(passwordHasher.matches(TEST_PASSWORD, testCredential.getPasswordHash())).thenReturn(true);
+            User2FA twoFactorAuth = new User2FA();
+            twoFactorAuth.setEnabled(true);
+            testUser.setTwoFactorAuth(twoFactorAuth);
             when(jwtService.generate2FATempToken(testUser.getId())).thenReturn("2fa-temp-token");
 
             LoginResponse response = authService.login(request, TEST_IP, TEST_USER_AGENT);
@@ -149,10 +164,11 @@ class AuthServiceTest {
             assertThat(response.tempToken()).isEqualTo("2fa-temp-token");
             assertThat((String) null).isNull();
 
-            verify(auditLogRepository).save(argThat(log ->
+            verify(auditLogWriter).write(argThat(log ->
                 log.getEventType() == AuthEventType.TWO_FACTOR_CHALLENGE
             ));
             verifyNoInteractions(refreshTokenRepository);
+            verifyNoInteractions(twoFactorService);
         }
 
         @Test
@@ -160,21 +176,18 @@ class AuthServiceTest {
         void shouldThrowAuthExceptionWhenUserNotFound() {
             LoginRequest request = new LoginRequest(TEST_EMAIL, TEST_PASSWORD, TEST_DEVICE_ID);
 
-            when(auditLogRepository.countFailedLoginsByEmailSince(anyString(), any(Instant.class)))
-                .thenReturn(0L);
-            when(auditLogRepository.countFailedAttemptsByIpSince(anyString(), any(AuthEventType.class), any(Instant.class)))
-                .thenReturn(0L);
-            when(userRepository.findByEmail(TEST_EMAIL)).thenReturn(Optional.empty());
+            when(userRepository.findByEmailWithCredentialAnd2FA(TEST_EMAIL)).thenReturn(Optional.empty());
 
             assertThatThrownBy(() -> authService.login(request, TEST_IP, TEST_USER_AGENT))
                 .isInstanceOf(AuthException.class)
                 .hasMessageContaining("Invalid email or password");
 
-            verify(auditLogRepository).save(argThat(log ->
+            verify(auditLogWriter).write(argThat(log ->
                 log.getEventType() == AuthEventType.LOGIN_FAILED &&
                 !log.isSuccess() &&
                 log.getDetails().equals("USER_NOT_FOUND")
             ));
+            verify(loginFailureCounter).recordFailure(TEST_EMAIL, TEST_IP);
         }
 
         @Test
@@ -182,21 +195,18 @@ class AuthServiceTest {
         void shouldThrowAuthExceptionWhenPasswordIsInvalid() {
             LoginRequest request = new LoginRequest(TEST_EMAIL, TEST_PASSWORD, TEST_DEVICE_ID);
 
-            when(auditLogRepository.countFailedLoginsByEmailSince(anyString(), any(Instant.class)))
-                .thenReturn(0L);
-            when(auditLogRepository.countFailedAttemptsByIpSince(anyString(), any(AuthEventType.class), any(Instant.class)))
-                .thenReturn(0L);
-            when(userRepository.findByEmail(TEST_EMAIL)).thenReturn(Optional.of(testUser));
-            when(passwordEncoder.matches(TEST_PASSWORD, testCredential.getPasswordHash())).thenReturn(false);
+            when(userRepository.findByEmailWithCredentialAnd2FA(TEST_EMAIL)).thenReturn(Optional.of(testUser));
+            when(passwordHasher.matches(TEST_PASSWORD, testCredential.getPasswordHash())).thenReturn(false);
 
             assertThatThrownBy(() -> authService.login(request, TEST_IP, TEST_USER_AGENT))
                 .isInstanceOf(AuthException.class)
                 .hasMessageContaining("Invalid email or password");
 
-            verify(auditLogRepository).save(argThat(log ->
+            verify(auditLogWriter).write(argThat(log ->
                 log.getEventType() == AuthEventType.LOGIN_FAILED &&
                 log.getDetails().equals("INVALID_PASSWORD")
             ));
+            verify(loginFailureCounter).recordFailure(TEST_EMAIL, TEST_IP);
         }
 
         @Test
@@ -205,18 +215,14 @@ class AuthServiceTest {
             LoginRequest request = new LoginRequest(TEST_EMAIL, TEST_PASSWORD, TEST_DEVICE_ID);
             testUser.setActive(false);
 
-            when(auditLogRepository.countFailedLoginsByEmailSince(anyString(), any(Instant.class)))
-                .thenReturn(0L);
-            when(auditLogRepository.countFailedAttemptsByIpSince(anyString(), any(AuthEventType.class), any(Instant.class)))
-                .thenReturn(0L);
-            when(userRepository.findByEmail(TEST_EMAIL)).thenReturn(Optional.of(testUser));
-            when(passwordEncoder.matches(TEST_PASSWORD, testCredential.getPasswordHash())).thenReturn(true);
+            when(userRepository.findByEmailWithCredentialAnd2FA(TEST_EMAIL)).thenReturn(Optional.of(testUser));
+            when(passwordHasher.matches(TEST_PASSWORD, testCredential.getPasswordHash())).thenReturn(true);
 
             assertThatThrownBy(() -> authService.login(request, TEST_IP, TEST_USER_AGENT))
                 .isInstanceOf(AuthException.class)
                 .hasMessageContaining("Account is disabled");
 
-            verify(auditLogRepository).save(argThat(log ->
+            verify(auditLogWriter).write(argThat(log ->
                 log.getDetails().equals("ACCOUNT_DISABLED")
             ));
         }
@@ -226,12 +232,14 @@ class AuthServiceTest {
         void shouldThrowRateLimitExceptionWhenTooManyFailedAttemptsByEmail() {
             LoginRequest request = new LoginRequest(TEST_EMAIL, TEST_PASSWORD, TEST_DEVICE_ID);
 
-            when(auditLogRepository.countFailedLoginsByEmailSince(anyString(), any(Instant.class)))
-                .thenReturn(5L);
+            when(loginFailureCounter.check(TEST_EMAIL, TEST_IP)).thenReturn(new LoginFailureCounter.Lockout(600, 0));
 
             assertThatThrownBy(() -> authService.login(request, TEST_IP, TEST_USER_AGENT))
                 .isInstanceOf(RateLimitException.class)
-                .hasMessageContaining("Account temporarily locked");
+                .hasMessageContaining("Account temporarily locked")
+                .extracting("retryAfterSeconds").isEqualTo(600);
+
+            verifyNoInteractions(userRepository);
         }
 
         @Test
@@ -239,15 +247,128 @@ class AuthServiceTest {
         void shouldThrowRateLimitExceptionWhenTooManyFailedAttemptsByIP() {
             LoginRequest request = new LoginRequest(TEST_EMAIL, TEST_PASSWORD, TEST_DEVICE_ID);
 
-            when(auditLogRepository.countFailedLoginsByEmailSince(anyString(), any(Instant.class)))
-                .thenReturn(0L);
-            when(auditLogRepository.countFailedAttemptsByIpSince(anyString(), any(AuthEventType.class), any(Instant.class)))
-                .thenReturn(10L);
+            when(loginFailureCounter.check(TEST_EMAIL, TEST_IP)).thenReturn(new LoginFailureCounter.Lockout(0, 300));
 
             assertThatThrownBy(() -> authService.login(request, TEST_IP, TEST_USER_AGENT))
                 .isInstanceOf(RateLimitException.class)
                 .hasMessageContaining("Too many failed attempts from this IP");
         }
+
+        @Test
+        @DisplayName("should answer 503 without touching the database when Redis is down")
+        void shouldFailClosedWhenLockoutCheckUnavailable() {
+            LoginRequest request = new LoginRequest(TEST_EMAIL, TEST_PASSWORD, TEST_DEVICE_ID);
+
+            when(loginFailureCounter.check(TEST_EMAIL, TEST_IP))
+                .thenThrow(new RedisConnectionFailureException("Unable to connect to Redis"));
+
+            assertThatThrownBy(() -> authService.login(request, TEST_IP, TEST_USER_AGENT))
+                .isInstanceOf(ServiceUnavailableException.class)
+                .extracting("retryAfterSeconds").isEqualTo(5);
+
+            verifyNoInteractions(userRepository, passwordHasher);
+        }
+
+        @Test
+        @DisplayName("should still reject and audit a bad password when the failure cannot be counted")
+        void shouldRejectBadPasswordWhenFailureNotCounted() {
+            LoginRequest request = new LoginRequest(TEST_EMAIL, TEST_PASSWORD, TEST_DEVICE_ID);
+
+            when(userRepository.findByEmailWithCredentialAnd2FA(TEST_EMAIL)).thenReturn(Optional.of(testUser));
+            when(passwordHasher.matches(TEST_PASSWORD, testCredential.getPasswordHash())).thenReturn(false);
+            doThrow(new RedisConnectionFailureException("Unable to connect to Redis"))
+                .when(loginFailureCounter).recordFailure(TEST_EMAIL, TEST_IP);
+
+            assertThatThrownBy(() -> authService.login(request, TEST_IP, TEST_USER_AGENT))
+                .isInstanceOf(AuthException.class)
+                .isNotInstanceOf(ServiceUnavailableException.class)
+                .hasMessageContaining("Invalid email or password");
+
+            verify(auditLogWriter).write(argThat(log -> log.getDetails().equals("INVALID_PASSWORD")));
+        }
+
+        @Test
+        @DisplayName("should shed the login without recording a failure when password hashing is saturated")
+        void shouldShedLoginWhenHashingIsSaturated() {
+            LoginRequest request = new LoginRequest(TEST_EMAIL, TEST_PASSWORD, TEST_DEVICE_ID);
+
+            when(userRepository.findByEmailWithCredentialAnd2FA(TEST_EMAIL)).thenReturn(Optional.of(testUser));
+            when(passwordHasher.matches(TEST_PASSWORD, testCredential.getPasswordHash()))
+                .thenThrow(new RateLimitException("Too many sign-in attempts in progress, try again shortly", 1));
+
+            assertThatThrownBy(() -> authService.login(request, TEST_IP, TEST_USER_AGENT))
+                .isInstanceOf(RateLimitException.class)
+                .extracting("retryAfterSeconds").isEqualTo(1);
+
+            verify(loginFailureCounter, never()).recordFailure(anyString(), anyString());
+            verifyNoInteractions(auditLogWriter);
+        }
+
+        @Test
+        @DisplayName("should rehash the password when the stored hash is outdated")
+        void shouldRehashOutdatedPassword() {
+            LoginRequest request = new LoginRequest(TEST_EMAIL, TEST_PASSWORD, TEST_DEVICE_ID);
+            String outdatedHash = testCredential.getPasswordHash();
+
+            when(userRepository.findByEmailWithCredentialAnd2FA(TEST_EMAIL)).thenReturn(Optional.of(testUser));
+            when(passwordHasher.matches(TEST_PASSWORD, outdatedHash)).thenReturn(true);
+            when(passwordHasher.upgradeEncoding(outdatedHash)).thenReturn(true);
+            when(passwordHasher.encode(TEST_PASSWORD)).thenReturn("{bcrypt}new-hash");
+            when(jwtService.generateAccessToken(testUser)).thenReturn("access-token");
+            when(jwtService.generateRefreshToken(eq(testUser), anyString(), anyString(), eq(TEST_DEVICE_ID)))
+                .thenReturn("refresh-token");
+
+            authService.login(request, TEST_IP, TEST_USER_AGENT);
+
+            assertThat(testCredential.getPasswordHash()).isEqualTo("{bcrypt}new-hash");
+            verify(userRepository).updatePasswordHash(
+                eq(testCredential.getUserId()), eq("{bcrypt}new-hash"), any(Instant.class));
+        }
+
+        @Test
+        @DisplayName("should log in and keep the old hash when the rehash is shed")
+        void shouldKeepOldHashWhenRehashIsShed() {
+            LoginRequest request = new LoginRequest(TEST_EMAIL, TEST_PASSWORD, TEST_DEVICE_ID);
+            String outdatedHash = testCredential.getPasswordHash();
+
+            when(userRepository.findByEmailWithCredentialAnd2FA(TEST_EMAIL)).thenReturn(Optional.of(testUser));
+            when(passwordHasher.matches(TEST_PASSWORD, outdatedHash)).thenReturn(true);
+            when(passwordHasher.upgradeEncoding(outdatedHash)).thenReturn(true);
+            when(passwordHasher.encode(TEST_PASSWORD))
+                .thenThrow(new RateLimitException("Too many sign-in attempts in progress, try again shortly", 1));
+            when(jwtService.generateAccessToken(testUser)).thenReturn("access-token");
+            when(jwtService.generateRefreshToken(eq(testUser), anyString(), anyString(), eq(TEST_DEVICE_ID)))
+                .thenReturn("refresh-token");
+
+            LoginResponse response = authService.login(request, TEST_IP, TEST_USER_AGENT);
+
+            assertThat(response.accessToken()).isEqualTo("access-token");
+            assertThat(testCredential.getPasswordHash()).isEqualTo(outdatedHash);
+            verify(userRepository, never()).updatePasswordHash(any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("should check the password between the read and write transactions")
+        void shouldCheckPasswordOutsideTransactions() {
+            LoginRequest request = new LoginRequest(TEST_EMAIL, TEST_PASSWORD, TEST_DEVICE_ID);
+
+            when(userRepository.findByEmailWithCredentialAnd2FA(TEST_EMAIL)).thenReturn(Optional.of(testUser));
+            when(passwordHasher.matches(TEST_PASSWORD, testCredential.getPasswordHash())).thenReturn(true);
+            when(jwtService.generateAccessToken(testUser)).thenReturn("access-token");
+            when(jwtService.generateRefreshToken(eq(testUser), anyString(), anyString(), eq(TEST_DEVICE_ID)))
+                .thenReturn("refresh-token");
+
+            authService.login(request, TEST_IP, TEST_USER_AGENT);
+
+            InOrder order = inOrder(transactionManager, userRepository, passwordHasher, refreshTokenRepository);
+            order.verify(transactionManager).getTransaction(argThat(definition -> definition.isReadOnly()));
+            order.verify(userRepository).findByEmailWithCredentialAnd2FA(TEST_EMAIL);
+            order.verify(transactionManager).commit(any());
+            order.verify(passwordHasher).matches(TEST_PASSWORD, testCredential.getPasswordHash());
+            order.verify(transactionManager).getTransaction(argThat(definition -> !definition.isReadOnly()));
+            order.verify(refreshTokenRepository).save(any(RefreshToken.class));
+            order.verify(transactionManager).commit(any());
+        }
     }
 
     @Nested
@@ -274,10 +395,10 @@ class AuthServiceTest {
 
             when(jwtService.validateToken(tempToken)).thenReturn(mockClaims);
             when(jwtService.getTokenType(mockClaims)).thenReturn("2fa_pending");
-            when(userRepository.findById(testUser.getId())).thenReturn(Optional.of(testUser));
+            when(userRepository.findByIdWithCredentialAnd2FA(testUser.getId())).thenReturn(Optional.of(testUser));
             when(twoFactorService.verifyCode(testUser.getId(), "123456")).thenReturn(true);
             when(jwtService.generateAccessToken(testUser)).thenReturn("access-token");
-            when(jwtService.generateRefreshToken(eq(testUser), anyString(), eq(TEST_DEVICE_ID)))
+            when(jwtService.generateRefreshToken(eq(testUser), anyString(), anyString(), eq(TEST_DEVICE_ID)))
                 .thenReturn("refresh-token");
 
             LoginResponse response = authService.verify2FA(request, tempToken, TEST_IP, TEST_USER_AGENT);
@@ -285,7 +406,7 @@ class AuthServiceTest {
             assertThat(response.accessToken()).isNotNull();
             assertThat(response.accessToken()).isEqualTo("access-token");
 
-            verify(auditLogRepository).save(argThat(log ->
+            verify(auditLogWriter).write(argThat(log ->
                 log.getEventType() == AuthEventType.TWO_FACTOR_SUCCESS &&
                 log.getDetails().contains("totp")
             ));
@@ -299,21 +420,73 @@ class AuthServiceTest {
 
             when(jwtService.validateToken(tempToken)).thenReturn(mockClaims);
             when(jwtService.getTokenType(mockClaims)).thenReturn("2fa_pending");
-            when(userRepository.findById(testUser.getId())).thenReturn(Optional.of(testUser));
-            when(twoFactorService.verifyRecoveryCode(testUser.getId(), "recovery123")).thenReturn(true);
+            when(userRepository.findByIdWithCredentialAnd2FA(testUser.getId())).thenReturn(Optional.of(testUser));
+            when(twoFactorService.getRecoveryCodeHashes(testUser.getId())).thenReturn(List.of("hash-1", "hash-2"));
+            when(twoFactorService.matchRecoveryCode(List.of("hash-1", "hash-2"), "recovery123"))
+                .thenReturn(Optional.of("hash-2"));
+            when(twoFactorService.consumeRecoveryCode(testUser.getId(), "hash-2")).thenReturn(true);
             when(jwtService.generateAccessToken(testUser)).thenReturn("access-token");
-            when(jwtService.generateRefreshToken(eq(testUser), anyString(), eq(TEST_DEVICE_ID)))
+            when(jwtService.generateRefreshToken(eq(testUser), anyString(), anyString(), eq(TEST_DEVICE_ID)))
                 .thenReturn("refresh-token");
 
             LoginResponse response = authService.verify2FA(request, tempToken, TEST_IP, TEST_USER_AGENT);
 
             assertThat(response.accessToken()).isNotNull();
 
-            verify(auditLogRepository).save(argThat(log ->
+            verify(auditLogWriter).write(argThat(log ->
                 log.getDetails() != null && log.getDetails().contains("recovery")
             ));
         }
 
+        @Test
+        @DisplayName("should match a recovery code between the read and write transactions")
+        void shouldMatchRecoveryCodeOutsideTransactions() {
+            TwoFactorVerifyRequest request = new TwoFactorVerifyRequest(null, "recovery123", TEST_DEVICE_ID);
+            String tempToken = "temp-token";
+
+            when(jwtService.validateToken(tempToken)).thenReturn(mockClaims);
+            when(jwtService.getTokenType(mockClaims)).thenReturn("2fa_pending");
+            when(userRepository.findByIdWithCredentialAnd2FA(testUser.getId())).thenReturn(Optional.of(testUser));
+            when(twoFactorService.getRecoveryCodeHashes(testUser.getId())).thenReturn(List.of("hash-1"));
+            when(twoFactorService.matchRecoveryCode(List.of("hash-1"), "recovery123")).thenReturn(Optional.of("hash-1"));
+            when(twoFactorService.consumeRecoveryCode(testUser.getId(), "hash-1")).thenReturn(true);
+            when(jwtService.generateAccessToken(testUser)).thenReturn("access-token");
+            when(jwtService.generateRefreshToken(eq(testUser), anyString(), anyString(), eq(TEST_DEVICE_ID)))
+                .thenReturn("refresh-token");
+
+            authService.verify2FA(request, tempToken, TEST_IP, TEST_USER_AGENT);
+
+            InOrder order = inOrder(transactionManager, twoFactorService);
+            order.verify(transactionManager).getTransaction(argThat(definition -> definition.isReadOnly()));
+            order.verify(twoFactorService).getRecoveryCodeHashes(testUser.getId());
+            order.verify(transactionManager).commit(any());
+            order.verify(twoFactorService).matchRecoveryCode(List.of("hash-1"), "recovery123");
+            order.verify(transactionManager).getTransaction(argThat(definition -> !definition.isReadOnly()));
+            order.verify(twoFactorService).consumeRecoveryCode(testUser.getId(), "hash-1");
+            order.verify(transactionManager).commit(any());
+        }
+
+        @Test
+        @DisplayName("should reject a recovery code a concurrent login consumed first")
+        void shouldRejectRecoveryCodeConsumedConcurrently() {
+            TwoFactorVerifyRequest request = new TwoFactorVerifyRequest(null, "recovery123", TEST_DEVICE_ID);
+            String tempToken = "temp-token";
+
+            when(jwtService.validateToken(tempToken)).thenReturn(mockClaims);
+            when(jwtService.getTokenType(mockClaims)).thenReturn("2fa_pending");
+            when(userRepository.findByIdWithCredentialAnd2FA(testUser.getId())).thenReturn(Optional.of(testUser));
+            when(twoFactorService.getRecoveryCodeHashes(testUser.getId())).thenReturn(List.of("hash-1"));
+            when(twoFactorService.matchRecoveryCode(List.of("hash-1"), "recovery123")).thenReturn(Optional.of("hash-1"));
+            when(twoFactorService.consumeRecoveryCode(testUser.getId(), "hash-1")).thenReturn(false);
+
+            assertThatThrownBy(() -> authService.verify2FA(request, tempToken, TEST_IP, TEST_USER_AGENT))
+                .isInstanceOf(TwoFactorException.class)
+                .hasMessageContaining("Invalid verification code");
+
+            verify(auditLogWriter).write(argThat(log -> log.getEventType() == AuthEventType.TWO_FACTOR_FAILED));
+            verify(jwtService, never()).generateAccessToken(any());
+        }
+
         @Test
         @DisplayName("should throw TwoFactorException when temp token is invalid")
         void shouldThrowTwoFactorExceptionWhenTempTokenIsInvalid() {
@@ -349,17 +522,39 @@ class AuthServiceTest {
 
             when(jwtService.validateToken(tempToken)).thenReturn(mockClaims);
             when(jwtService.getTokenType(mockClaims)).thenReturn("2fa_pending");
-            when(userRepository.findById(testUser.getId())).thenReturn(Optional.of(testUser));
+            when(userRepository.findByIdWithCredentialAnd2FA(testUser.getId())).thenReturn(Optional.of(testUser));
             when(twoFactorService.verifyCode(testUser.getId(), "wrong")).thenReturn(false);
 
             assertThatThrownBy(() -> authService.verify2FA(request, tempToken, TEST_IP, TEST_USER_AGENT))
                 .isInstanceOf(TwoFactorException.class)
                 .hasMessageContaining("Invalid verification code");
 
-            verify(auditLogRepository).save(argThat(log ->
+            verify(auditLogWriter).write(argThat(log ->
                 log.getEventType() == AuthEventType.TWO_FACTOR_FAILED
             ));
         }
+
+        @Test
+        @DisplayName("should audit a failed code after its transaction has committed")
+        void shouldAuditFailureOutsideTransaction() {
+            TwoFactorVerifyRequest request = new TwoFactorVerifyRequest("wrong", null, TEST_DEVICE_ID);
+            String tempToken = "temp-token";
+
+            when(jwtService.validateToken(tempToken)).thenReturn(mockClaims);
+            when(jwtService.getTokenType(mockClaims)).thenReturn("2fa_pending");
+            when(userRepository.findByIdWithCredentialAnd2FA(testUser.getId())).thenReturn(Optional.of(testUser));
+            when(twoFactorService.verifyCode(testUser.getId(), "wrong")).thenReturn(false);
+
+            assertThatThrownBy(() -> authService.verify2FA(request, tempToken, TEST_IP, TEST_USER_AGENT))
+                .isInstanceOf(TwoFactorException.class);
+
+            InOrder order = inOrder(transactionManager, twoFactorService, auditLogWriter);
+            order.verify(transactionManager).getTransaction(any());
+            order.verify(twoFactorService).verifyCode(testUser.getId(), "wrong");
+            order.verify(transactionManager).commit(any());
+            order.verify(auditLogWriter).write(argThat(log -> log.getEventType() == AuthEventType.TWO_FACTOR_FAILED));
+            verify(transactionManager).getTransaction(any());
+        }
     }
 
     @Nested
@@ -377,28 +572,57 @@ class AuthServiceTest {
             mockClaims = Jwts.claims()
                 .subject(testUser.getId().toString())
                 .id(storedToken.getId())
+                .add("deviceId", TEST_DEVICE_ID)
                 .build();
         }
 
+        private void stubValidRefresh(String token) {
+            when(jwtService.validateToken(token)).thenReturn(mockClaims);
+            when(jwtService.getTokenType(mockClaims)).thenReturn("refresh");
+            when(jwtService.getFamilyId(mockClaims)).thenReturn(storedToken.getFamilyId());
+            UserSnapshot snapshot = UserSnapshot.of(testUser);
+            when(userSnapshotCache.get(testUser.getId())).thenReturn(Optional.of(snapshot));
+            when(jwtService.generateAccessToken(snapshot)).thenReturn("new-access-token");
+            when(jwtService.generateRefreshToken(eq(snapshot), anyString(), anyString(), eq(TEST_DEVICE_ID)))
+                .thenReturn("new-refresh-token");
+        }
+
+        private void stubRotation(RefreshSessionStore.Rotation rotation) {
+            when(refreshSessionStore.rotate(eq(testUser.getId()), eq(storedToken.getId()), anyString(),
+                anyString(), anyString(), anyString(), any(Instant.class))).thenReturn(rotation);
+        }
+
         @Test
-        @DisplayName("should rotate refresh token successfully")
+        @DisplayName("should rotate refresh token in Redis without touching Postgres")
         void shouldRotateRefreshTokenSuccessfully() {
             String oldRefreshToken = "old-refresh-token";
+            stubValidRefresh(oldRefreshToken);
+            stubRotation(RefreshSessionStore.Rotation.ROTATED);
 
-            when(jwtService.validateToken(oldRefreshToken)).thenReturn(mockClaims);
-            when(jwtService.getTokenType(mockClaims)).thenReturn("refresh");
+            TokenResponse response = authService.refreshToken(oldRefreshToken, TEST_IP);
+
+            assertThat(response.accessToken()).isEqualTo("new-access-token");
+            assertThat(response.refreshToken()).isEqualTo("new-refresh-token");
+
+            verify(refreshSessionStore).rotate(eq(testUser.getId()), eq(storedToken.getId()), anyString(),
+                anyString(), anyString(), eq(TEST_IP), any(Instant.class));
+            verifyNoInteractions(refreshTokenRepository);
+            verifyNoInteractions(userRepository);
+            verifyNoInteractions(transactionManager);
+        }
+
+        @Test
+        @DisplayName("should rotate in Postgres and move the successor to Redis when the session is not in Redis")
+        void shouldFallBackToPostgresWhenSessionMissing() {
+            String oldRefreshToken = "old-refresh-token";
+            stubValidRefresh(oldRefreshToken);
+            stubRotation(RefreshSessionStore.Rotation.MISSING);
             when(refreshTokenRepository.findByTokenId(storedToken.getId()))
                 .thenReturn(Optional.of(storedToken));
-            when(userRepository.findById(testUser.getId())).thenReturn(Optional.of(testUser));
-            when(jwtService.generateAccessToken(testUser)).thenReturn("new-access-token");
-            when(jwtService.generateRefreshToken(eq(testUser), anyString(), anyString()))
-                .thenReturn("new-refresh-token");
 
             TokenResponse response = authService.refreshToken(oldRefreshToken, TEST_IP);
 
-            assertThat(response.accessToken()).isEqualTo("new-access-token");
             assertThat(response.refreshToken()).isEqualTo("new-refresh-token");
-
             verify(refreshTokenRepository).save(argThat(token ->
                 token.getId().equals(storedToken.getId()) &&
                 token.getRevokedAt() != null &&
@@ -408,6 +632,10 @@ class AuthServiceTest {
                 !token.getId().equals(storedToken.getId()) &&
                 token.getRevokedAt() == null
             ));
+            verify(refreshSessionStore).save(argThat(token ->
+                !token.getId().equals(storedToken.getId()) &&
+                token.getFamilyId().equals(storedToken.getFamilyId())
+            ));
         }
 
         @Test
@@ -435,12 +663,11 @@ class AuthServiceTest {
         }
 
         @Test
-        @DisplayName("should throw InvalidTokenException when token not found in database")
+        @DisplayName("should throw InvalidTokenException when token is in neither Redis nor Postgres")
         void shouldThrowInvalidTokenExceptionWhenTokenNotFoundInDatabase() {
             String refreshToken = "refresh-token";
-
-            when(jwtService.validateToken(refreshToken)).thenReturn(mockClaims);
-            when(jwtService.getTokenType(mockClaims)).thenReturn("refresh");
+            stubValidRefresh(refreshToken);
+            stubRotation(RefreshSessionStore.Rotation.MISSING);
             when(refreshTokenRepository.findByTokenId(anyString())).thenReturn(Optional.empty());
 
             assertThatThrownBy(() -> authService.refreshToken(refreshToken, TEST_IP))
@@ -449,13 +676,27 @@ class AuthServiceTest {
         }
 
         @Test
-        @DisplayName("should revoke all tokens when revoked token is used")
-        void shouldRevokeAllTokensWhenRevokedTokenIsUsed() {
+        @DisplayName("should reject a reused token whose family Redis has revoked")
+        void shouldRejectReusedToken() {
+            String reusedToken = "reused-token";
+            stubValidRefresh(reusedToken);
+            stubRotation(RefreshSessionStore.Rotation.REUSED);
+
+            assertThatThrownBy(() -> authService.refreshToken(reusedToken, TEST_IP))
+                .isInstanceOf(InvalidTokenException.class)
+                .hasMessageContaining("Token has been revoked");
+
+            verify(jwtService, never()).generateAccessToken(any(UserSnapshot.class));
+            verifyNoInteractions(refreshTokenRepository);
+        }
+
+        @Test
+        @DisplayName("should revoke only the token's family when a revoked Postgres-only token is used")
+        void shouldRevokeFamilyWhenRevokedTokenIsUsed() {
             String revokedToken = "revoked-token";
             storedToken.revoke("TEST");
-
-            when(jwtService.validateToken(revokedToken)).thenReturn(mockClaims);
-            when(jwtService.getTokenType(mockClaims)).thenReturn("refresh");
+            stubValidRefresh(revokedToken);
+            stubRotation(RefreshSessionStore.Rotation.MISSING);
             when(refreshTokenRepository.findByTokenId(storedToken.getId()))
                 .thenReturn(Optional.of(storedToken));
 
@@ -463,7 +704,23 @@ class AuthServiceTest {
                 .isInstanceOf(InvalidTokenException.class)
                 .hasMessageContaining("Token has been revoked");
 
-            verify(refreshTokenRepository).revokeAllByUserId(eq(testUser.getId()), any(Instant.class), eq("SUSPICIOUS"));
+            verify(refreshTokenRepository).revokeFamily(eq(storedToken.getFamilyId()), any(Instant.class), eq("SUSPICIOUS"));
+            verify(refreshSessionStore).revokeFamily(testUser.getId(), storedToken.getFamilyId(), "SUSPICIOUS");
+            verify(refreshTokenRepository, never()).revokeAllByUserId(any(), any(), any());
+            verify(transactionManager).commit(any());
+            verify(transactionManager, never()).rollback(any());
+        }
+
+        @Test
+        @DisplayName("should throw InvalidTokenException when the Redis session does not match")
+        void shouldRejectMismatchedSession() {
+            String refreshToken = "refresh-token";
+            stubValidRefresh(refreshToken);
+            stubRotation(RefreshSessionStore.Rotation.MISMATCH);
+
+            assertThatThrownBy(() -> authService.refreshToken(refreshToken, TEST_IP))
+                .isInstanceOf(InvalidTokenException.class)
+                .hasMessageContaining("Token not found or revoked");
         }
 
         @Test
@@ -471,16 +728,13 @@ class AuthServiceTest {
         void shouldThrowAuthExceptionWhenUserAccountIsDisabled() {
             String refreshToken = "refresh-token";
             testUser.setActive(false);
-
-            when(jwtService.validateToken(refreshToken)).thenReturn(mockClaims);
-            when(jwtService.getTokenType(mockClaims)).thenReturn("refresh");
-            when(refreshTokenRepository.findByTokenId(storedToken.getId()))
-                .thenReturn(Optional.of(storedToken));
-            when(userRepository.findById(testUser.getId())).thenReturn(Optional.of(testUser));
+            stubValidRefresh(refreshToken);
 
             assertThatThrownBy(() -> authService.refreshToken(refreshToken, TEST_IP))
                 .isInstanceOf(AuthException.class)
                 .hasMessageContaining("Account is disabled");
+
+            verify(refreshSessionStore, never()).rotate(any(), any(), any(), any(), any(), any(), any());
         }
     }
 
@@ -503,7 +757,24 @@ class AuthServiceTest {
         }
 
         @Test
-        @DisplayName("should revoke token and audit logout")
+        @DisplayName("should revoke the Redis session and audit logout")
+        void shouldRevokeRedisSessionAndAuditLogout() {
+            String refreshToken = "refresh-token";
+
+            when(jwtService.validateToken(refreshToken)).thenReturn(mockClaims);
+            when(refreshSessionStore.revoke(testUser.getId(), storedToken.getId(), "LOGOUT")).thenReturn(true);
+
+            authService.logout(refreshToken, TEST_IP, TEST_USER_AGENT);
+
+            verifyNoInteractions(refreshTokenRepository);
+            verify(auditLogWriter).write(argThat(log ->
+                log.getEventType() == AuthEventType.LOGOUT &&
+                log.getUserId().equals(testUser.getId())
+            ));
+        }
+
+        @Test
+        @DisplayName("should revoke token in Postgres when it is not in Redis")
         void shouldRevokeTokenAndAuditLogout() {
             String refreshToken = "refresh-token";
 
@@ -517,7 +788,7 @@ class AuthServiceTest {
                 token.getRevokedAt() != null &&
                 token.getRevokeReason().equals("LOGOUT")
             ));
-            verify(auditLogRepository).save(argThat(log ->
+            verify(auditLogWriter).write(argThat(log ->
                 log.getEventType() == AuthEventType.LOGOUT &&
                 log.getUserId().equals(testUser.getId())
             ));
@@ -551,7 +822,9 @@ class AuthServiceTest {
                 any(Instant.class),
                 eq("LOGOUT_ALL")
             );
-            verify(auditLogRepository).save(argThat(log ->
+            verify(refreshSessionStore).revokeAll(userId, "LOGOUT_ALL");
+            verify(revocationPublisher).subjectRevoked(userId.toString());
+            verify(auditLogWriter).write(argThat(log ->
                 log.getEventType() == AuthEventType.LOGOUT &&
                 log.getDetails().equals("All devices")
             ));
@@ -575,10 +848,12 @@ class AuthServiceTest {
     }
 
     private RefreshToken createStoredRefreshToken(UUID userId) {
+        String tokenId = UUID.randomUUID().toString();
         return RefreshToken.builder()
-            .id(UUID.randomUUID().toString())
+            .id(tokenId)
             .userId(userId)
             .tokenHash("token-hash")
+            .familyId(tokenId)
             .deviceId(TEST_DEVICE_ID)
             .deviceInfo(TEST_USER_AGENT)
             .ipAddress(TEST_IP)
@@ -4,13 +4,23 @@ import health.zaed.identity.config.JwtConfig;
 import health.zaed.identity.exception.InvalidTokenException;
 import health.zaed.identity.model.entity.User;
 import health.zaed.identity.model.enums.OtpContext;
+import health.zaed.identity.model.enums.SigningAlgorithm;
 import health.zaed.identity.model.enums.UserRole;
+import health.zaed.identity.security.AuthPrincipal;
+import health.zaed.identity.security.JwkSet.PublishedKey;
+import health.zaed.identity.security.JwtKeyMaterial;
+import health.zaed.identity.security.VerifiedTokenCache;
+import health.zaed.identity.security.VerifiedTokenCache.VerifiedToken;
 import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 
+import java.security.KeyPair;
 import java.util.Base64;
 import java.util.List;
 import java.util.UUID;
@@ -34,6 +44,7 @@ class JwtServiceTest {
 
     private JwtService jwtService;
     private JwtConfig jwtConfig;
+    private VerifiedTokenCache verifiedTokenCache;
 
     @BeforeEach
     void setUp() {
@@ -44,7 +55,8 @@ class JwtServiceTest {
         jwtConfig.setRefreshTokenExpiry(604800);
         jwtConfig.setTempTokenExpiry(900);
 
-        jwtService = new JwtService(jwtConfig);
+        verifiedTokenCache = new VerifiedTokenCache(jwtConfig, new SimpleMeterRegistry());
+        jwtService = new JwtService(jwtConfig, verifiedTokenCache);
     }
 
     @Nested
@@ -94,6 +106,19 @@ class JwtServiceTest {
             assertThat(claims.get("partnerId")).isEqualTo(partnerId.toString());
         }
 
+        @Test
+        @DisplayName("should carry the issue time in milliseconds")
+        void shouldCarryMillisecondIssueTime() {
+            long before = System.currentTimeMillis();
+
+            String token = jwtService.generateAccessToken(createPartnerUser());
+
+            Claims claims = jwtService.validateToken(token);
+            long issuedAtMillis = claims.get("iat_ms", Long.class);
+            assertThat(issuedAtMillis).isBetween(before, System.currentTimeMillis());
+            assertThat(claims.getIssuedAt().getTime() / 1000).isEqualTo(issuedAtMillis / 1000);
+        }
+
         @Test
         @DisplayName("should set null partnerId when not present")
         void shouldSetNullPartnerIdWhenNotPresent() {
@@ -140,7 +165,7 @@ class JwtServiceTest {
             String tokenId = UUID.randomUUID().toString();
             String deviceId = "device-123";
 
-            String token = jwtService.generateRefreshToken(user, tokenId, deviceId);
+            String token = jwtService.generateRefreshToken(user, tokenId, tokenId, deviceId);
 
             assertThat(token).isNotBlank();
             Claims claims = jwtService.validateToken(token);
@@ -150,13 +175,24 @@ class JwtServiceTest {
             assertThat(claims.get("deviceId")).isEqualTo(deviceId);
         }
 
+        @Test
+        @DisplayName("should carry the family ID through rotation")
+        void shouldCarryFamilyId() {
+            User user = createPartnerUser();
+            String familyId = UUID.randomUUID().toString();
+
+            String token = jwtService.generateRefreshToken(user, UUID.randomUUID().toString(), familyId, null);
+
+            assertThat(jwtService.getFamilyId(jwtService.validateToken(token))).isEqualTo(familyId);
+        }
+
         @Test
         @DisplayName("should allow null deviceId")
         void shouldAllowNullDeviceId() {
             User user = createPartnerUser();
             String tokenId = UUID.randomUUID().toString();
 
-            String token = jwtService.generateRefreshToken(user, tokenId, null);
+            String token = jwtService.generateRefreshToken(user, tokenId, tokenId, null);
 
             Claims claims = jwtService.validateToken(token);
             assertThat(claims.get("deviceId")).isNull();
@@ -242,7 +278,7 @@ class JwtServiceTest {
             expiredConfig.setSecret(TEST_SECRET);
             expiredConfig.setIssuer(TEST_ISSUER);
             expiredConfig.setAccessTokenExpiry(0);
-            JwtService expiredService = new JwtService(expiredConfig);
+            JwtService expiredService = new JwtService(expiredConfig, new VerifiedTokenCache(expiredConfig, new SimpleMeterRegistry()));
 
             User user = createPartnerUser();
             String token = expiredService.generateAccessToken(user);
@@ -261,7 +297,7 @@ class JwtServiceTest {
             otherConfig.setSecret(TEST_SECRET);
             otherConfig.setIssuer("other-issuer");
             otherConfig.setAccessTokenExpiry(3600);
-            JwtService otherService = new JwtService(otherConfig);
+            JwtService otherService = new JwtService(otherConfig, new VerifiedTokenCache(otherConfig, new SimpleMeterRegistry()));
 
             User user = createPartnerUser();
             String token = otherService.generateAccessToken(user);
@@ -290,6 +326,131 @@ class JwtServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("reloadKeyMaterial")
+    class ReloadKeyMaterial {
+
+        @Test
+        @DisplayName("should keep using cached key until reloaded")
+        void shouldKeepUsingCachedKeyUntilReloaded() {
+            User user = createPartnerUser();
+            String token = jwtService.generateAccessToken(user);
+
+            jwtConfig.setSecret(Base64.getEncoder()
+                .encodeToString("another-test-secret-key-256bits!".getBytes()));
+
+            assertThat(jwtService.validateToken(token).getSubject()).isEqualTo(user.getId().toString());
+        }
+
+        @Test
+        @DisplayName("should reject tokens signed with previous secret after reload")
+        void shouldRejectOldTokensAfterReload() {
+            User user = createPartnerUser();
+            String oldToken = jwtService.generateAccessToken(user);
+
+            jwtConfig.setSecret(Base64.getEncoder()
+                .encodeToString("another-test-secret-key-256bits!".getBytes()));
+            jwtService.reloadKeyMaterial();
+
+            assertThatThrownBy(() -> jwtService.validateToken(oldToken))
+                .isInstanceOf(InvalidTokenException.class);
+            String newToken = jwtService.generateAccessToken(user);
+            assertThat(jwtService.validateToken(newToken).getSubject()).isEqualTo(user.getId().toString());
+        }
+
+        @Test
+        @DisplayName("should drop tokens verified under the previous secret")
+        void shouldDropVerifiedTokensOnReload() {
+            String token = cacheVerified(jwtService.generateAccessToken(createPartnerUser()));
+
+            jwtConfig.setSecret(Base64.getEncoder()
+                .encodeToString("another-test-secret-key-256bits!".getBytes()));
+            jwtService.reloadKeyMaterial();
+
+            assertThat(verifiedTokenCache.get(token)).isNull();
+        }
+    }
+
+    @Nested
+    @DisplayName("key ring")
+    class KeyRing {
+
+        @ParameterizedTest
+        @EnumSource(value = SigningAlgorithm.class, names = {"RS256", "ES256", "EdDSA"})
+        @DisplayName("should sign with the active key and kid header")
+        void shouldSignWithActiveKeyAndKid(SigningAlgorithm algorithm) {
+            KeyPair keyPair = algorithm.generateKeyPair();
+            PublishedKey active = new PublishedKey("kid-active", algorithm, keyPair.getPublic());
+            jwtService.installKeyMaterial(
+                JwtKeyMaterial.forKeyRing(jwtConfig, active, keyPair.getPrivate(), List.of(active)));
+            User user = createPartnerUser();
+
+            String token = jwtService.generateAccessToken(user);
+
+            String header = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))));
+            assertThat(header).contains("\"kid\":\"kid-active\"").contains("\"alg\":\"" + algorithm.name() + "\"");
+            assertThat(jwtService.validateToken(token).getSubject()).isEqualTo(user.getId().toString());
+        }
+
+        @Test
+        @DisplayName("should verify tokens of retired keys while they are published")
+        void shouldVerifyRetiredKeyTokens() {
+            KeyPair oldPair = SigningAlgorithm.ES256.generateKeyPair();
+            KeyPair newPair = SigningAlgorithm.ES256.generateKeyPair();
+            PublishedKey oldKey = new PublishedKey("kid-old", SigningAlgorithm.ES256, oldPair.getPublic());
+            PublishedKey newKey = new PublishedKey("kid-new", SigningAlgorithm.ES256, newPair.getPublic());
+            jwtService.installKeyMaterial(
+                JwtKeyMaterial.forKeyRing(jwtConfig, oldKey, oldPair.getPrivate(), List.of(oldKey, newKey)));
+            String oldToken = jwtService.generateAccessToken(createPartnerUser());
+
+            jwtService.installKeyMaterial(
+                JwtKeyMaterial.forKeyRing(jwtConfig, newKey, newPair.getPrivate(), List.of(oldKey, newKey)));
+            assertThat(jwtService.validateToken(oldToken).get("type")).isEqualTo("access");
+
+            jwtService.installKeyMaterial(
+                JwtKeyMaterial.forKeyRing(jwtConfig, newKey, newPair.getPrivate(), List.of(newKey)));
+            assertThatThrownBy(() -> jwtService.validateToken(oldToken))
+                .isInstanceOf(InvalidTokenException.class);
+        }
+
+        @Test
+        @DisplayName("should accept legacy HS256 tokens only while the secret is configured")
+        void shouldAcceptLegacyTokensWhileSecretConfigured() {
+            String legacyToken = jwtService.generateAccessToken(createPartnerUser());
+            KeyPair keyPair = SigningAlgorithm.RS256.generateKeyPair();
+            PublishedKey active = new PublishedKey("kid-rsa", SigningAlgorithm.RS256, keyPair.getPublic());
+
+            jwtService.installKeyMaterial(
+                JwtKeyMaterial.forKeyRing(jwtConfig, active, keyPair.getPrivate(), List.of(active)));
+            assertThat(jwtService.validateToken(legacyToken).get("type")).isEqualTo("access");
+
+            jwtConfig.setSecret(null);
+            jwtService.installKeyMaterial(
+                JwtKeyMaterial.forKeyRing(jwtConfig, active, keyPair.getPrivate(), List.of(active)));
+            assertThatThrownBy(() -> jwtService.validateToken(legacyToken))
+                .isInstanceOf(InvalidTokenException.class);
+        }
+
+        @Test
+        @DisplayName("should drop tokens verified under the previous ring")
+        void shouldDropVerifiedTokensOnInstall() {
+            String token = cacheVerified(jwtService.generateAccessToken(createPartnerUser()));
+            KeyPair keyPair = SigningAlgorithm.ES256.generateKeyPair();
+            PublishedKey active = new PublishedKey("kid-ec", SigningAlgorithm.ES256, keyPair.getPublic());
+
+            jwtService.installKeyMaterial(
+                JwtKeyMaterial.forKeyRing(jwtConfig, active, keyPair.getPrivate(), List.of(active)));
+
+            assertThat(verifiedTokenCache.get(token)).isNull();
+        }
+
+        @Test
+        @DisplayName("should publish no keys for HS256")
+        void shouldPublishNoKeysForHs256() {
+            assertThat(new String(jwtService.getJwkSet().json())).isEqualTo("{\"keys\":[]}");
+        }
+    }
+
     @Nested
     @DisplayName("extractSubjectUnsafe")
     class ExtractSubjectUnsafe {
@@ -334,7 +495,7 @@ class JwtServiceTest {
         @DisplayName("should return refresh for refresh token")
         void shouldReturnRefreshForRefreshToken() {
             User user = createPartnerUser();
-            String token = jwtService.generateRefreshToken(user, "token-id", null);
+            String token = jwtService.generateRefreshToken(user, "token-id", "token-id", null);
             Claims claims = jwtService.validateToken(token);
 
             String type = jwtService.getTokenType(claims);
@@ -343,6 +504,17 @@ class JwtServiceTest {
         }
     }
 
+    private String cacheVerified(String token) {
+        Claims claims = jwtService.validateToken(token);
+        verifiedTokenCache.put(token, new VerifiedToken(
+            new AuthPrincipal(claims.getSubject(), "access", claims.get("role", String.class), null, null, null, null),
+            List.of(),
+            claims.getIssuedAt().toInstant(),
+            claims.getExpiration().toInstant()));
+        assertThat(verifiedTokenCache.get(token)).isNotNull();
+        return token;
+    }
+
     private User createPartnerUser() {
         return User.builder()
             .id(UUID.randomUUID())
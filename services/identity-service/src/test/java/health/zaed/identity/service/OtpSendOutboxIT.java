@@ -0,0 +1,76 @@
+package health.zaed.identity.service;
+
+import health.zaed.identity.IntegrationTestBase;
+import health.zaed.identity.config.OtpConfig;
+import health.zaed.identity.model.enums.OtpContext;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Checks the outbox entry written by {@code otp-send.lua} against what {@link SmsOutbox}
+ * reads back. Workers are off so the entry stays as queued.
+ */
+@TestPropertySource(properties = "zaed.identity.sms-outbox.workers-enabled=false")
+@DisplayName("OTP Send Outbox Integration Tests")
+class OtpSendOutboxIT extends IntegrationTestBase {
+
+    private static final String TEST_PHONE = "+201234567890";
+
+    @Autowired
+    private OtpService otpService;
+
+    @Autowired
+    private SmsOutbox smsOutbox;
+
+    @Autowired
+    private OtpConfig otpConfig;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @MockitoBean
+    private SmsGateway smsGateway;
+
+    @Test
+    @DisplayName("should queue the message hash and stream entry that delivery reads")
+    void shouldQueueMessageInOutboxLayout() {
+        long before = System.currentTimeMillis();
+
+        UUID deliveryId = otpService.sendOtp(TEST_PHONE, "SMS", OtpContext.DONATION, UUID.randomUUID(), "10.0.0.1")
+            .deliveryId();
+
+        String messageKey = SmsOutbox.MESSAGE_KEY_PREFIX + deliveryId;
+        Map<Object, Object> message = redisTemplate.opsForHash().entries(messageKey);
+        assertThat(message)
+            .containsEntry("phone", TEST_PHONE)
+            .containsEntry("channel", "SMS")
+            .containsEntry("status", "QUEUED")
+            .containsEntry("attempts", "0")
+            .containsKeys("otp", "enqueuedAt");
+        assertThat((String) message.get("otp")).matches("\\d{" + otpConfig.getLength() + "}");
+        assertThat(Long.parseLong((String) message.get("enqueuedAt"))).isBetween(before, System.currentTimeMillis());
+        assertThat(redisTemplate.getExpire(messageKey, TimeUnit.SECONDS))
+            .isBetween(otpConfig.getExpirySeconds() - 5L, (long) otpConfig.getExpirySeconds());
+
+        List<MapRecord<String, Object, Object>> entries = redisTemplate.opsForStream()
+            .range(SmsOutbox.STREAM_KEY, Range.unbounded());
+        assertThat(entries).singleElement()
+            .extracting(MapRecord::getValue)
+            .isEqualTo(Map.of("id", deliveryId.toString()));
+
+        assertThat(smsOutbox.status(deliveryId).status()).isEqualTo("QUEUED");
+    }
+}
@@ -2,20 +2,36 @@ package health.zaed.identity.service;
 
 import health.zaed.identity.IntegrationTestBase;
 import health.zaed.identity.config.OtpConfig;
+import health.zaed.identity.config.SmsOutboxConfig;
 import health.zaed.identity.exception.OtpException;
 import health.zaed.identity.exception.RateLimitException;
+import health.zaed.identity.model.dto.OtpDeliveryStatusResponse;
+import health.zaed.identity.model.enums.OtpBulkStatus;
 import health.zaed.identity.model.enums.OtpContext;
+import health.zaed.identity.model.enums.SmsDeliveryStatus;
+import health.zaed.identity.security.OtpHasher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -36,26 +52,39 @@ class OtpServiceIT extends IntegrationTestBase {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private OtpHasher otpHasher;
+
     @Autowired
     private OtpConfig otpConfig;
 
+    @Autowired
+    private SmsOutbox smsOutbox;
+
+    @Autowired
+    private SmsOutboxConfig smsOutboxConfig;
+
     @MockitoBean
     private SmsGateway smsGateway;
 
+    private SimpleMeterRegistry meterRegistry;
     private OtpService otpService;
 
     private static final String TEST_PHONE = "+201234567890";
     private static final String TEST_CHANNEL = "sms";
+    private static final String TEST_IP = "192.168.1.1";
 
     @BeforeEach
     void setUp() {
         when(smsGateway.sendOtp(anyString(), anyString(), anyString())).thenReturn(true);
 
+        meterRegistry = new SimpleMeterRegistry();
         otpService = new OtpService(
             redisTemplate,
-            passwordEncoder,
+            otpHasher,
             otpConfig,
-            smsGateway
+            smsOutbox,
+            meterRegistry
         );
     }
 
@@ -69,7 +98,7 @@ class OtpServiceIT extends IntegrationTestBase {
             UUID referenceId = UUID.randomUUID();
             OtpContext context = OtpContext.DONATION;
 
-            int expirySeconds = otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, context, referenceId);
+            int expirySeconds = otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, context, referenceId, TEST_IP).expiresIn();
 
             String key = "otp:" + TEST_PHONE + ":" + context.name() + ":" + referenceId;
             String storedHash = redisTemplate.opsForValue().get(key);
@@ -80,7 +109,17 @@ class OtpServiceIT extends IntegrationTestBase {
             Long ttl = redisTemplate.getExpire(key, TimeUnit.SECONDS);
             assertThat(ttl).isBetween(otpConfig.getExpirySeconds() - 5L, (long) otpConfig.getExpirySeconds());
 
-            verify(smsGateway).sendOtp(eq(TEST_PHONE), anyString(), eq(TEST_CHANNEL));
+            verify(smsGateway, timeout(10_000)).sendOtp(eq(TEST_PHONE), anyString(), eq(TEST_CHANNEL));
+        }
+
+        @Test
+        @DisplayName("should report the SMS as sent once a worker delivers it")
+        void shouldReportSmsSentOnceDelivered() {
+            OtpService.OtpDispatch dispatch =
+                otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, OtpContext.DONATION, UUID.randomUUID(), TEST_IP);
+
+            assertThat(awaitTerminalStatus(dispatch.deliveryId()).status()).isEqualTo("SENT");
+            assertThat(redisTemplate.opsForHash().hasKey("sms_outbox:msg:" + dispatch.deliveryId(), "otp")).isFalse();
         }
 
         @Test
@@ -91,7 +130,7 @@ class OtpServiceIT extends IntegrationTestBase {
 
             String otpKey = "otp:" + TEST_PHONE + ":" + context.name() + ":" + referenceId;
             String testOtp = "123456";
-            String hashedOtp = passwordEncoder.encode(testOtp);
+            String hashedOtp = otpHasher.hash(testOtp);
             redisTemplate.opsForValue().set(otpKey, hashedOtp, java.time.Duration.ofSeconds(300));
 
             boolean verified = otpService.verifyOtp(TEST_PHONE, testOtp, context, referenceId);
@@ -100,6 +139,19 @@ class OtpServiceIT extends IntegrationTestBase {
             assertThat(redisTemplate.opsForValue().get(otpKey)).isNull();
         }
 
+        @Test
+        @DisplayName("should verify OTP stored as BCrypt before the HMAC switch")
+        void shouldVerifyLegacyBcryptOtp() {
+            UUID referenceId = UUID.randomUUID();
+            OtpContext context = OtpContext.DONATION;
+
+            String otpKey = "otp:" + TEST_PHONE + ":" + context.name() + ":" + referenceId;
+            redisTemplate.opsForValue().set(otpKey, passwordEncoder.encode("123456"), java.time.Duration.ofSeconds(300));
+
+            assertThat(otpService.verifyOtp(TEST_PHONE, "123456", context, referenceId)).isTrue();
+            assertThat(redisTemplate.opsForValue().get(otpKey)).isNull();
+        }
+
         @Test
         @DisplayName("should throw OtpException when OTP not found in Redis")
         void shouldThrowOtpExceptionWhenOtpNotFoundInRedis() {
@@ -119,7 +171,7 @@ class OtpServiceIT extends IntegrationTestBase {
 
             String otpKey = "otp:" + TEST_PHONE + ":" + context.name() + ":" + referenceId;
             String correctOtp = "123456";
-            String hashedOtp = passwordEncoder.encode(correctOtp);
+            String hashedOtp = otpHasher.hash(correctOtp);
             redisTemplate.opsForValue().set(otpKey, hashedOtp, java.time.Duration.ofSeconds(300));
 
             assertThatThrownBy(() -> otpService.verifyOtp(TEST_PHONE, "wrong", context, referenceId))
@@ -139,10 +191,10 @@ class OtpServiceIT extends IntegrationTestBase {
 
             String otpKey = "otp:" + TEST_PHONE + ":" + context.name() + ":" + referenceId;
             String correctOtp = "123456";
-            String hashedOtp = passwordEncoder.encode(correctOtp);
+            String hashedOtp = otpHasher.hash(correctOtp);
             redisTemplate.opsForValue().set(otpKey, hashedOtp, java.time.Duration.ofSeconds(300));
 
-            // Exhaust all attempts (counter increments AFTER the check)
+            // Exhaust all attempts (each guess reserves one attempt in the verify script)
             for (int i = 0; i < otpConfig.getMaxAttempts(); i++) {
                 assertThatThrownBy(() -> otpService.verifyOtp(TEST_PHONE, "wrong", context, referenceId))
                     .isInstanceOf(OtpException.class);
@@ -164,7 +216,7 @@ class OtpServiceIT extends IntegrationTestBase {
             OtpContext context = OtpContext.DONATION;
 
             String otpKey = "otp:" + TEST_PHONE + ":" + context.name() + ":" + referenceId;
-            String hashedOtp = passwordEncoder.encode("123456");
+            String hashedOtp = otpHasher.hash("123456");
             redisTemplate.opsForValue().set(otpKey, hashedOtp, java.time.Duration.ofSeconds(300));
 
             assertThatThrownBy(() -> otpService.verifyOtp(TEST_PHONE, "wrong", context, referenceId))
@@ -173,12 +225,79 @@ class OtpServiceIT extends IntegrationTestBase {
             String attemptsKey = "otp_attempts:" + otpKey;
             assertThat(redisTemplate.opsForValue().get(attemptsKey)).isEqualTo("1");
 
-            otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, context, referenceId);
+            otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, context, referenceId, TEST_IP);
 
             assertThat(redisTemplate.opsForValue().get(attemptsKey)).isNull();
         }
     }
 
+    @Nested
+    @DisplayName("Concurrent verification")
+    class ConcurrentVerification {
+
+        private static final int THREADS = 16;
+
+        private List<Throwable> verifyConcurrently(String otp, OtpContext context, UUID referenceId) throws Exception {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Throwable>> results = new ArrayList<>();
+            try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+                for (int i = 0; i < THREADS; i++) {
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        try {
+                            otpService.verifyOtp(TEST_PHONE, otp, context, referenceId);
+                            return null;
+                        } catch (OtpException e) {
+                            return e;
+                        }
+                    }));
+                }
+                start.countDown();
+                List<Throwable> outcomes = new ArrayList<>();
+                for (Future<Throwable> result : results) {
+                    outcomes.add(result.get(30, TimeUnit.SECONDS));
+                }
+                return outcomes;
+            }
+        }
+
+        private static long countErrors(List<Throwable> outcomes, String errorCode) {
+            return outcomes.stream()
+                .filter(e -> e instanceof OtpException otpEx && errorCode.equals(otpEx.getErrorCode()))
+                .count();
+        }
+
+        @Test
+        @DisplayName("should not exceed max attempts under parallel wrong guesses")
+        void shouldNotExceedMaxAttemptsUnderParallelGuesses() throws Exception {
+            UUID referenceId = UUID.randomUUID();
+            OtpContext context = OtpContext.DONATION;
+            String otpKey = "otp:" + TEST_PHONE + ":" + context.name() + ":" + referenceId;
+            redisTemplate.opsForValue().set(otpKey, otpHasher.hash("123456"), java.time.Duration.ofSeconds(300));
+
+            List<Throwable> outcomes = verifyConcurrently("000000", context, referenceId);
+
+            assertThat(countErrors(outcomes, "INVALID_OTP")).isEqualTo(otpConfig.getMaxAttempts());
+            assertThat(countErrors(outcomes, "TOO_MANY_ATTEMPTS")).isEqualTo(THREADS - otpConfig.getMaxAttempts());
+            assertThat(redisTemplate.opsForValue().get("otp_attempts:" + otpKey))
+                .isEqualTo(String.valueOf(otpConfig.getMaxAttempts()));
+        }
+
+        @Test
+        @DisplayName("should accept a correct OTP exactly once under parallel verification")
+        void shouldAcceptCorrectOtpExactlyOnce() throws Exception {
+            UUID referenceId = UUID.randomUUID();
+            OtpContext context = OtpContext.REQUEST;
+            String otpKey = "otp:" + TEST_PHONE + ":" + context.name() + ":" + referenceId;
+            redisTemplate.opsForValue().set(otpKey, otpHasher.hash("123456"), java.time.Duration.ofSeconds(300));
+
+            List<Throwable> outcomes = verifyConcurrently("123456", context, referenceId);
+
+            assertThat(outcomes).filteredOn(Objects::isNull).hasSize(1);
+            assertThat(redisTemplate.opsForValue().get(otpKey)).isNull();
+        }
+    }
+
     @Nested
     @DisplayName("Rate Limiting")
     class RateLimiting {
@@ -190,57 +309,273 @@ class OtpServiceIT extends IntegrationTestBase {
             OtpContext context = OtpContext.DONATION;
 
             for (int i = 0; i < otpConfig.getRateLimitPerHour(); i++) {
-                otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, context, UUID.randomUUID());
+                otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, context, UUID.randomUUID(), TEST_IP);
             }
 
-            assertThatThrownBy(() -> otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, context, referenceId))
+            assertThatThrownBy(() -> otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, context, referenceId, TEST_IP))
                 .isInstanceOf(RateLimitException.class)
                 .hasMessageContaining("Maximum OTP requests exceeded");
         }
 
         @Test
-        @DisplayName("should store rate limit counter with 1 hour TTL in Redis")
-        void shouldStoreRateLimitCounterWith1HourTTLInRedis() {
-            UUID referenceId = UUID.randomUUID();
-            OtpContext context = OtpContext.REQUEST;
+        @DisplayName("should return the exact retry-after when the phone is at its limit")
+        void shouldReturnExactRetryAfter() {
+            for (int i = 0; i < otpConfig.getRateLimitPerHour(); i++) {
+                otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, OtpContext.DONATION, UUID.randomUUID(), TEST_IP);
+            }
 
-            otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, context, referenceId);
+            assertThatExceptionOfType(RateLimitException.class)
+                .isThrownBy(() ->
+                    otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, OtpContext.DONATION, UUID.randomUUID(), TEST_IP))
+                .satisfies(e -> assertThat(e.getRetryAfterSeconds()).isBetween(3590, 3600));
+        }
 
-            String rateLimitKey = "otp_rate:" + TEST_PHONE;
-            String count = redisTemplate.opsForValue().get(rateLimitKey);
-            assertThat(count).isEqualTo("1");
+        @Test
+        @DisplayName("should report when the oldest send leaves the window")
+        void shouldReportWindowReset() {
+            OtpService.OtpDispatch dispatch =
+                otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, OtpContext.REQUEST, UUID.randomUUID(), TEST_IP);
 
-            Long ttl = redisTemplate.getExpire(rateLimitKey, TimeUnit.SECONDS);
+            assertThat(dispatch.retryAfter()).isBetween(3590, 3600);
+            Long ttl = redisTemplate.getExpire(OtpService.RATE_PHONE_PREFIX + TEST_PHONE, TimeUnit.SECONDS);
             assertThat(ttl).isBetween(3500L, 3600L);
         }
 
         @Test
-        @DisplayName("should return correct retry-after from Redis TTL")
-        void shouldReturnCorrectRetryAfterFromRedisTTL() {
+        @DisplayName("should free a slot once the oldest send leaves the sliding window")
+        void shouldSlideWindow() {
+            String key = OtpService.RATE_PHONE_PREFIX + TEST_PHONE;
+            long now = System.currentTimeMillis();
+            // Two sends just outside the window, one inside
+            redisTemplate.opsForZSet().add(key, "old-1", now - OtpService.RATE_LIMIT_WINDOW.toMillis() - 2000);
+            redisTemplate.opsForZSet().add(key, "old-2", now - OtpService.RATE_LIMIT_WINDOW.toMillis() - 1000);
+            redisTemplate.opsForZSet().add(key, "recent", now - 60_000);
+
+            otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, OtpContext.DONATION, UUID.randomUUID(), TEST_IP);
+
+            assertThat(redisTemplate.opsForZSet().zCard(key)).isEqualTo(2L);
+        }
+
+        @Test
+        @DisplayName("should limit sends from one IP across phones")
+        void shouldLimitPerIp() {
+            for (int i = 0; i < otpConfig.getRateLimitPerIpPerHour(); i++) {
+                otpService.sendOtp("+2010000000" + String.format("%02d", i), TEST_CHANNEL,
+                    OtpContext.DONATION, UUID.randomUUID(), TEST_IP);
+            }
+
+            assertThatThrownBy(() ->
+                otpService.sendOtp("+201099999999", TEST_CHANNEL, OtpContext.DONATION, UUID.randomUUID(), TEST_IP))
+                .isInstanceOf(RateLimitException.class);
+            // Another IP is not affected
+            otpService.sendOtp("+201099999999", TEST_CHANNEL, OtpContext.DONATION, UUID.randomUUID(), "10.0.0.1");
+        }
+
+        @Test
+        @DisplayName("should let only the limit through when sends race")
+        void shouldHoldLimitUnderConcurrency() throws Exception {
+            int threads = 10;
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> results = new ArrayList<>();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < threads; i++) {
+                    String ip = "10.0.1." + i;
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        try {
+                            otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, OtpContext.DONATION, UUID.randomUUID(), ip);
+                            return true;
+                        } catch (RateLimitException e) {
+                            return false;
+                        }
+                    }));
+                }
+                start.countDown();
+            }
+
+            long sent = 0;
+            for (Future<Boolean> result : results) {
+                sent += result.get() ? 1 : 0;
+            }
+            assertThat(sent).isEqualTo(otpConfig.getRateLimitPerHour());
+        }
+    }
+
+    @Nested
+    @DisplayName("Send deduplication")
+    class SendDeduplication {
+
+        @Test
+        @DisplayName("should answer a retry with the original dispatch and send one SMS")
+        void shouldAnswerRetryWithOriginalDispatch() {
             UUID referenceId = UUID.randomUUID();
-            OtpContext context = OtpContext.DONATION;
+            String otpKey = "otp:" + TEST_PHONE + ":DONATION:" + referenceId;
+
+            OtpService.OtpDispatch first =
+                otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, OtpContext.DONATION, referenceId, TEST_IP);
+            String storedHash = redisTemplate.opsForValue().get(otpKey);
+            OtpService.OtpDispatch retry =
+                otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, OtpContext.DONATION, referenceId, TEST_IP);
+
+            assertThat(retry.deliveryId()).isEqualTo(first.deliveryId());
+            assertThat(retry.expiresIn()).isBetween(first.expiresIn() - 1, first.expiresIn());
+            assertThat(redisTemplate.opsForValue().get(otpKey)).isEqualTo(storedHash);
+            assertThat(redisTemplate.opsForZSet().zCard("otp_rate:phone:" + TEST_PHONE)).isEqualTo(1L);
+            assertThat(meterRegistry.get("otp.send.deduplicated").counter().count()).isEqualTo(1);
+            verify(smsGateway, timeout(10_000)).sendOtp(eq(TEST_PHONE), anyString(), eq(TEST_CHANNEL));
+            verify(smsGateway, after(500).times(1)).sendOtp(eq(TEST_PHONE), anyString(), eq(TEST_CHANNEL));
+        }
 
+        @Test
+        @DisplayName("should send once when duplicates race")
+        void shouldSendOnceUnderConcurrency() throws Exception {
+            UUID referenceId = UUID.randomUUID();
+            int threads = 10;
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<UUID>> results = new ArrayList<>();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < threads; i++) {
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        return otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, OtpContext.DONATION, referenceId, TEST_IP)
+                            .deliveryId();
+                    }));
+                }
+                start.countDown();
+            }
+
+            List<UUID> deliveryIds = new ArrayList<>();
+            for (Future<UUID> result : results) {
+                deliveryIds.add(result.get());
+            }
+            assertThat(deliveryIds).hasSize(threads).containsOnly(deliveryIds.getFirst());
+            assertThat(meterRegistry.get("otp.send.deduplicated").counter().count()).isEqualTo(threads - 1);
+            verify(smsGateway, timeout(10_000)).sendOtp(eq(TEST_PHONE), anyString(), eq(TEST_CHANNEL));
+            verify(smsGateway, after(500).times(1)).sendOtp(eq(TEST_PHONE), anyString(), eq(TEST_CHANNEL));
+        }
+
+        @Test
+        @DisplayName("should send a new code under a new idempotency key")
+        void shouldSendUnderNewIdempotencyKey() {
+            UUID referenceId = UUID.randomUUID();
+
+            OtpService.OtpDispatch first =
+                otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, OtpContext.DONATION, referenceId, TEST_IP, "key-1");
+            OtpService.OtpDispatch retry =
+                otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, OtpContext.DONATION, referenceId, TEST_IP, "key-1");
+            OtpService.OtpDispatch resend =
+                otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, OtpContext.DONATION, referenceId, TEST_IP, "key-2");
+
+            assertThat(retry.deliveryId()).isEqualTo(first.deliveryId());
+            assertThat(resend.deliveryId()).isNotEqualTo(first.deliveryId());
+        }
+
+        @Test
+        @DisplayName("should let a retry send after the original was rate limited")
+        void shouldNotRecordRateLimitedSend() {
             for (int i = 0; i < otpConfig.getRateLimitPerHour(); i++) {
-                otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, context, UUID.randomUUID());
+                otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, OtpContext.DONATION, UUID.randomUUID(), TEST_IP);
             }
+            UUID referenceId = UUID.randomUUID();
+            assertThatThrownBy(() ->
+                otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, OtpContext.DONATION, referenceId, TEST_IP))
+                .isInstanceOf(RateLimitException.class);
 
-            int retryAfter = otpService.getRetryAfter(TEST_PHONE);
-            assertThat(retryAfter).isBetween(3500, 3600);
+            assertThat(redisTemplate.hasKey("otp_send:" + TEST_PHONE + ":DONATION:" + referenceId)).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("Bulk send")
+    class BulkSend {
+
+        private static final String SENDER = "partner-1";
+
+        private OtpService.BulkEntry entry(String phone, UUID referenceId) {
+            return new OtpService.BulkEntry(phone, TEST_CHANNEL, OtpContext.DONATION, referenceId);
         }
 
         @Test
-        @DisplayName("should increment rate limit counter in Redis")
-        void shouldIncrementRateLimitCounterInRedis() {
-            String rateLimitKey = "otp_rate:" + TEST_PHONE;
+        @DisplayName("should store and queue an OTP per entry")
+        void shouldQueueEachEntry() {
+            List<OtpService.BulkEntry> entries = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                entries.add(entry("+2010000001" + String.format("%02d", i), UUID.randomUUID()));
+            }
 
-            otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, OtpContext.DONATION, UUID.randomUUID());
-            assertThat(redisTemplate.opsForValue().get(rateLimitKey)).isEqualTo("1");
+            List<OtpService.BulkOutcome> outcomes = otpService.sendBulk(entries, SENDER);
 
-            otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, OtpContext.REQUEST, UUID.randomUUID());
-            assertThat(redisTemplate.opsForValue().get(rateLimitKey)).isEqualTo("2");
+            assertThat(outcomes).hasSize(20)
+                .allSatisfy(outcome -> {
+                    assertThat(outcome.status()).isEqualTo(OtpBulkStatus.QUEUED);
+                    assertThat(outcome.dispatch().expiresIn()).isEqualTo(otpConfig.getExpirySeconds());
+                });
+            assertThat(outcomes).extracting(outcome -> outcome.dispatch().deliveryId()).doesNotHaveDuplicates();
+            for (OtpService.BulkEntry entry : entries) {
+                String key = "otp:" + entry.phone() + ":DONATION:" + entry.referenceId();
+                assertThat(redisTemplate.getExpire(key, TimeUnit.SECONDS))
+                    .isBetween(otpConfig.getExpirySeconds() - 5L, (long) otpConfig.getExpirySeconds());
+            }
+            assertThat(redisTemplate.opsForZSet().zCard("otp_rate:sender:" + SENDER)).isEqualTo(20L);
+            verify(smsGateway, timeout(10_000).times(20)).sendOtp(anyString(), anyString(), eq(TEST_CHANNEL));
+        }
+
+        @Test
+        @DisplayName("should store OTPs that verify")
+        void shouldStoreVerifiableOtps() {
+            UUID referenceId = UUID.randomUUID();
+            otpService.sendBulk(List.of(entry(TEST_PHONE, referenceId)), SENDER);
+
+            ArgumentCaptor<String> otp = ArgumentCaptor.forClass(String.class);
+            verify(smsGateway, timeout(10_000)).sendOtp(eq(TEST_PHONE), otp.capture(), eq(TEST_CHANNEL));
+
+            assertThat(otpService.verifyOtp(TEST_PHONE, otp.getValue(), OtpContext.DONATION, referenceId)).isTrue();
+        }
 
-            otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, OtpContext.DONATION, UUID.randomUUID());
-            assertThat(redisTemplate.opsForValue().get(rateLimitKey)).isEqualTo("3");
+        @Test
+        @DisplayName("should apply the per-phone limit entry by entry")
+        void shouldLimitPerPhone() {
+            List<OtpService.BulkEntry> entries = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                entries.add(entry(TEST_PHONE, UUID.randomUUID()));
+            }
+
+            List<OtpService.BulkOutcome> outcomes = otpService.sendBulk(entries, SENDER);
+
+            assertThat(outcomes).extracting(OtpService.BulkOutcome::status).containsExactly(
+                OtpBulkStatus.QUEUED, OtpBulkStatus.QUEUED, OtpBulkStatus.QUEUED,
+                OtpBulkStatus.RATE_LIMITED, OtpBulkStatus.RATE_LIMITED);
+            assertThat(outcomes.get(3).dispatch()).isNull();
+            assertThat(outcomes.get(3).retryAfter()).isBetween(3590, 3600);
+            // Denied entries leave no dedup record
+            assertThat(redisTemplate.hasKey("otp_send:" + TEST_PHONE + ":DONATION:" + entries.get(4).referenceId()))
+                .isFalse();
+        }
+
+        @Test
+        @DisplayName("should answer entries already sent with the original dispatch")
+        void shouldDeduplicateAgainstEarlierSends() {
+            UUID referenceId = UUID.randomUUID();
+            OtpService.OtpDispatch single =
+                otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, OtpContext.DONATION, referenceId, TEST_IP);
+
+            UUID repeated = UUID.randomUUID();
+            List<OtpService.BulkOutcome> outcomes = otpService.sendBulk(List.of(
+                entry(TEST_PHONE, referenceId),
+                entry("+201000000200", repeated),
+                entry("+201000000200", repeated)), SENDER);
+
+            assertThat(outcomes).extracting(OtpService.BulkOutcome::status).containsExactly(
+                OtpBulkStatus.DEDUPLICATED, OtpBulkStatus.QUEUED, OtpBulkStatus.DEDUPLICATED);
+            assertThat(outcomes.get(0).dispatch().deliveryId()).isEqualTo(single.deliveryId());
+            assertThat(outcomes.get(2).dispatch().deliveryId()).isEqualTo(outcomes.get(1).dispatch().deliveryId());
+            assertThat(meterRegistry.get("otp.send.deduplicated").counter().count()).isEqualTo(2);
+            assertThat(meterRegistry.get("otp.send.bulk.entries").tag("status", "QUEUED").counter().count())
+                .isEqualTo(1);
+
+            // A later single send of a bulk entry is a duplicate too
+            assertThat(otpService.sendOtp("+201000000200", TEST_CHANNEL, OtpContext.DONATION, repeated, TEST_IP)
+                .deliveryId()).isEqualTo(outcomes.get(1).dispatch().deliveryId());
         }
     }
 
@@ -256,7 +591,7 @@ class OtpServiceIT extends IntegrationTestBase {
 
             String otpKey = "otp:" + TEST_PHONE + ":" + context.name() + ":" + referenceId;
             String testOtp = "123456";
-            String hashedOtp = passwordEncoder.encode(testOtp);
+            String hashedOtp = otpHasher.hash(testOtp);
             redisTemplate.opsForValue().set(otpKey, hashedOtp, java.time.Duration.ofSeconds(2));
 
             assertThat(redisTemplate.opsForValue().get(otpKey)).isNotNull();
@@ -279,8 +614,8 @@ class OtpServiceIT extends IntegrationTestBase {
         void shouldHandleMultipleOtpsForDifferentContextsInRedis() {
             UUID referenceId = UUID.randomUUID();
 
-            otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, OtpContext.DONATION, referenceId);
-            otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, OtpContext.REQUEST, referenceId);
+            otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, OtpContext.DONATION, referenceId, TEST_IP);
+            otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, OtpContext.REQUEST, referenceId, TEST_IP);
 
             String donationKey = "otp:" + TEST_PHONE + ":DONATION:" + referenceId;
             String requestKey = "otp:" + TEST_PHONE + ":REQUEST:" + referenceId;
@@ -296,8 +631,8 @@ class OtpServiceIT extends IntegrationTestBase {
             UUID refId2 = UUID.randomUUID();
             OtpContext context = OtpContext.DONATION;
 
-            otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, context, refId1);
-            otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, context, refId2);
+            otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, context, refId1, TEST_IP);
+            otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, context, refId2, TEST_IP);
 
             String key1 = "otp:" + TEST_PHONE + ":" + context.name() + ":" + refId1;
             String key2 = "otp:" + TEST_PHONE + ":" + context.name() + ":" + refId2;
@@ -312,32 +647,66 @@ class OtpServiceIT extends IntegrationTestBase {
     class SmsGatewayFailures {
 
         @Test
-        @DisplayName("should throw OtpException when SMS gateway fails")
-        void shouldThrowOtpExceptionWhenSmsGatewayFails() {
+        @DisplayName("should return before the SMS gateway is called")
+        void shouldNotWaitForSmsGateway() {
             when(smsGateway.sendOtp(anyString(), anyString(), anyString())).thenReturn(false);
 
-            UUID referenceId = UUID.randomUUID();
-            OtpContext context = OtpContext.DONATION;
+            OtpService.OtpDispatch dispatch =
+                otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, OtpContext.DONATION, UUID.randomUUID(), TEST_IP);
 
-            assertThatThrownBy(() -> otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, context, referenceId))
-                .isInstanceOf(OtpException.class)
-                .hasMessageContaining("Failed to send OTP");
+            assertThat(dispatch.deliveryId()).isNotNull();
+            assertThat(dispatch.expiresIn()).isEqualTo(otpConfig.getExpirySeconds());
         }
 
         @Test
-        @DisplayName("should still store OTP in Redis even if SMS fails")
-        void shouldStillStoreOtpInRedisEvenIfSmsFails() {
+        @DisplayName("should retry and mark delivery failed when SMS gateway keeps failing")
+        void shouldMarkDeliveryFailedAfterRetries() {
             when(smsGateway.sendOtp(anyString(), anyString(), anyString())).thenReturn(false);
 
             UUID referenceId = UUID.randomUUID();
             OtpContext context = OtpContext.DONATION;
 
-            assertThatThrownBy(() -> otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, context, referenceId))
-                .isInstanceOf(OtpException.class);
+            OtpService.OtpDispatch dispatch = otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, context, referenceId, TEST_IP);
+
+            assertThat(awaitTerminalStatus(dispatch.deliveryId()).status()).isEqualTo("FAILED");
+            verify(smsGateway, times(3)).sendOtp(eq(TEST_PHONE), anyString(), eq(TEST_CHANNEL));
+            assertThat(redisTemplate.opsForStream().size("sms_outbox:dead")).isEqualTo(1L);
 
             String otpKey = "otp:" + TEST_PHONE + ":" + context.name() + ":" + referenceId;
-            String storedHash = redisTemplate.opsForValue().get(otpKey);
-            assertThat(storedHash).isNotNull();
+            assertThat(redisTemplate.opsForValue().get(otpKey)).isNotNull();
+        }
+
+        @Test
+        @DisplayName("should deliver on retry after a gateway exception, once the backoff has passed")
+        void shouldDeliverOnRetryAfterGatewayException() {
+            List<Long> attemptTimes = new CopyOnWriteArrayList<>();
+            when(smsGateway.sendOtp(anyString(), anyString(), anyString())).thenAnswer(invocation -> {
+                attemptTimes.add(System.nanoTime());
+                if (attemptTimes.size() == 1) {
+                    throw new RuntimeException("provider timeout");
+                }
+                return true;
+            });
+
+            OtpService.OtpDispatch dispatch =
+                otpService.sendOtp(TEST_PHONE, TEST_CHANNEL, OtpContext.DONATION, UUID.randomUUID(), TEST_IP);
+
+            OtpDeliveryStatusResponse status = awaitTerminalStatus(dispatch.deliveryId());
+            assertThat(status.status()).isEqualTo("SENT");
+            assertThat(status.attempts()).isEqualTo(2);
+            assertThat(TimeUnit.NANOSECONDS.toMillis(attemptTimes.get(1) - attemptTimes.get(0)))
+                .isGreaterThanOrEqualTo(smsOutboxConfig.getRetryBackoffMillis());
+            assertThat(redisTemplate.opsForZSet().size(SmsOutbox.RETRY_KEY)).isZero();
+        }
+    }
+
+    private OtpDeliveryStatusResponse awaitTerminalStatus(UUID deliveryId) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        OtpDeliveryStatusResponse status = smsOutbox.status(deliveryId);
+        while (!SmsDeliveryStatus.valueOf(status.status()).isTerminal() && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+            status = smsOutbox.status(deliveryId);
         }
+        return status;
     }
 }
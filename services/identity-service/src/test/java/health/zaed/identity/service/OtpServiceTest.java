@@ -4,6 +4,8 @@ import health.zaed.identity.config.OtpConfig;
 import health.zaed.identity.exception.OtpException;
 import health.zaed.identity.exception.RateLimitException;
 import health.zaed.identity.model.enums.OtpContext;
+import health.zaed.identity.security.OtpHasher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -19,12 +21,13 @@ import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
-import java.time.Duration;
+import java.util.List;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -42,6 +45,7 @@ class OtpServiceTest {
 
     private static final String TEST_PHONE = "+201234567890";
     private static final UUID TEST_REFERENCE_ID = UUID.randomUUID();
+    private static final String TEST_IP = "192.168.1.1";
 
     @Mock
     private StringRedisTemplate redisTemplate;
@@ -50,10 +54,12 @@ class OtpServiceTest {
     private ValueOperations<String, String> valueOperations;
 
     @Mock
-    private SmsGateway smsGateway;
+    private SmsOutbox smsOutbox;
 
     private OtpConfig otpConfig;
-    private PasswordEncoder passwordEncoder;
+    private PasswordEncoder legacyEncoder;
+    private OtpHasher otpHasher;
+    private SimpleMeterRegistry meterRegistry;
     private OtpService otpService;
 
     @BeforeEach
@@ -63,12 +69,32 @@ class OtpServiceTest {
         otpConfig.setExpirySeconds(300);
         otpConfig.setMaxAttempts(3);
         otpConfig.setRateLimitPerHour(3);
+        otpConfig.setHmacPepper("this-is-a-test-otp-pepper-32-chars!!");
 
-        passwordEncoder = new BCryptPasswordEncoder();
+        legacyEncoder = new BCryptPasswordEncoder(4);
+        otpHasher = new OtpHasher(otpConfig, legacyEncoder);
 
         when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        // Under every limit, oldest send to the phone leaves the window in an hour
+        when(redisTemplate.execute(eq(OtpService.SEND_SCRIPT), anyList(), any(Object[].class)))
+            .thenReturn(List.of(1L, 3_600_000L, 0L));
 
-        otpService = new OtpService(redisTemplate, passwordEncoder, otpConfig, smsGateway);
+        meterRegistry = new SimpleMeterRegistry();
+        otpService = new OtpService(redisTemplate, otpHasher, otpConfig, smsOutbox, meterRegistry);
+    }
+
+    /**
+     * Keys and arguments of the one send script call.
+     */
+    private SendCall verifySendScript() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(redisTemplate).execute(eq(OtpService.SEND_SCRIPT), keys.capture(), args.capture());
+        return new SendCall(keys.getValue(), args.getValue());
+    }
+
+    private record SendCall(List<String> keys, Object[] args) {
     }
 
     @Nested
@@ -76,72 +102,73 @@ class OtpServiceTest {
     class SendOtp {
 
         @Test
-        @DisplayName("should generate and send OTP successfully")
+        @DisplayName("should generate, store and queue OTP in one script call")
         void shouldGenerateAndSendOtpSuccessfully() {
-            // No rate limit
-            when(valueOperations.get(anyString())).thenReturn(null);
-            when(valueOperations.increment(anyString())).thenReturn(1L);
-            when(smsGateway.sendOtp(eq(TEST_PHONE), anyString(), eq("SMS"))).thenReturn(true);
-
-            int expirySeconds = otpService.sendOtp(TEST_PHONE, "SMS", OtpContext.DONATION, TEST_REFERENCE_ID);
+            OtpService.OtpDispatch dispatch = otpService.sendOtp(TEST_PHONE, "SMS", OtpContext.DONATION, TEST_REFERENCE_ID, TEST_IP);
 
-            assertThat(expirySeconds).isEqualTo(300);
+            assertThat(dispatch.expiresIn()).isEqualTo(300);
+            assertThat(dispatch.retryAfter()).isEqualTo(3600);
 
-            // Verify OTP was sent via SMS gateway
-            ArgumentCaptor<String> otpCaptor = ArgumentCaptor.forClass(String.class);
-            verify(smsGateway).sendOtp(eq(TEST_PHONE), otpCaptor.capture(), eq("SMS"));
+            SendCall call = verifySendScript();
+            String otpKey = "otp:" + TEST_PHONE + ":DONATION:" + TEST_REFERENCE_ID;
+            assertThat(call.keys().subList(4, 8)).containsExactly(
+                otpKey, "otp_attempts:" + otpKey, "sms_outbox:msg:" + dispatch.deliveryId(), "sms_outbox");
 
-            String sentOtp = otpCaptor.getValue();
+            // OTP hash, expiry and the queued message
+            String sentOtp = (String) call.args()[11];
             assertThat(sentOtp).matches("\\d{6}"); // 6-digit OTP
+            assertThat(otpHasher.matches(sentOtp, (String) call.args()[7])).isTrue();
+            assertThat(call.args()[8]).isEqualTo("300");
+            assertThat(call.args()[9]).isEqualTo(dispatch.deliveryId().toString());
+            assertThat(call.args()[10]).isEqualTo(TEST_PHONE);
+            assertThat(call.args()[12]).isEqualTo("SMS");
+        }
 
-            // Verify OTP was stored in Redis
-            verify(valueOperations).set(
-                argThat(key -> key != null && key.contains(TEST_PHONE)),
-                anyString(),
-                eq(Duration.ofSeconds(300))
-            );
+        @Test
+        @DisplayName("should make no other Redis calls")
+        void shouldSendInOneRoundTrip() {
+            otpService.sendOtp(TEST_PHONE, "SMS", OtpContext.DONATION, TEST_REFERENCE_ID, TEST_IP);
+
+            verify(redisTemplate).execute(eq(OtpService.SEND_SCRIPT), anyList(), any(Object[].class));
+            verifyNoMoreInteractions(redisTemplate);
+            verifyNoInteractions(valueOperations);
         }
 
         @Test
         @DisplayName("should throw RateLimitException when rate limit exceeded")
         void shouldThrowRateLimitExceptionWhenRateLimitExceeded() {
-            String rateLimitKey = "otp_rate:" + TEST_PHONE;
-            // Simulate rate limit reached
-            when(valueOperations.get(rateLimitKey)).thenReturn("3"); // max is 3
-            when(redisTemplate.getExpire(rateLimitKey)).thenReturn(1800L); // 30 min remaining
+            // Phone at its limit, a slot frees in 30 minutes
+            when(redisTemplate.execute(eq(OtpService.SEND_SCRIPT), anyList(), any(Object[].class)))
+                .thenReturn(List.of(0L, 1_800_000L, 1L));
 
             assertThatThrownBy(() ->
-                otpService.sendOtp(TEST_PHONE, "SMS", OtpContext.DONATION, TEST_REFERENCE_ID)
+                otpService.sendOtp(TEST_PHONE, "SMS", OtpContext.DONATION, TEST_REFERENCE_ID, TEST_IP)
             )
                 .isInstanceOf(RateLimitException.class)
-                .hasMessageContaining("Maximum OTP requests exceeded");
+                .hasMessageContaining("Maximum OTP requests exceeded")
+                .extracting("retryAfterSeconds").isEqualTo(1800);
         }
 
         @Test
-        @DisplayName("should throw OtpException when SMS sending fails")
-        void shouldThrowOtpExceptionWhenSmsSendingFails() {
-            when(valueOperations.get(anyString())).thenReturn(null);
-            when(valueOperations.increment(anyString())).thenReturn(1L);
-            when(smsGateway.sendOtp(anyString(), anyString(), anyString())).thenReturn(false);
+        @DisplayName("should throw RateLimitException when the IP is at its limit")
+        void shouldThrowRateLimitExceptionWhenIpLimitExceeded() {
+            when(redisTemplate.execute(eq(OtpService.SEND_SCRIPT), anyList(), any(Object[].class)))
+                .thenReturn(List.of(0L, 1_800_000L, 3L));
 
             assertThatThrownBy(() ->
-                otpService.sendOtp(TEST_PHONE, "SMS", OtpContext.DONATION, TEST_REFERENCE_ID)
-            )
-                .isInstanceOf(OtpException.class)
-                .hasMessageContaining("Failed to send OTP");
+                otpService.sendOtp(TEST_PHONE, "SMS", OtpContext.DONATION, TEST_REFERENCE_ID, TEST_IP)
+            ).isInstanceOf(RateLimitException.class);
         }
 
         @Test
-        @DisplayName("should clear previous attempts when sending new OTP")
-        void shouldClearPreviousAttemptsWhenSendingNewOtp() {
-            when(valueOperations.get(anyString())).thenReturn(null);
-            when(valueOperations.increment(anyString())).thenReturn(1L);
-            when(smsGateway.sendOtp(anyString(), anyString(), anyString())).thenReturn(true);
-
-            otpService.sendOtp(TEST_PHONE, "SMS", OtpContext.DONATION, TEST_REFERENCE_ID);
+        @DisplayName("should fail on an unexpected script result")
+        void shouldFailOnUnexpectedResult() {
+            when(redisTemplate.execute(eq(OtpService.SEND_SCRIPT), anyList(), any(Object[].class)))
+                .thenReturn(List.of(1L));
 
-            // Verify attempts counter was deleted
-            verify(redisTemplate).delete(argThat((String key) -> key != null && key.contains("otp_attempts:")));
+            assertThatThrownBy(() ->
+                otpService.sendOtp(TEST_PHONE, "SMS", OtpContext.DONATION, TEST_REFERENCE_ID, TEST_IP)
+            ).isInstanceOf(IllegalStateException.class);
         }
     }
 
@@ -159,31 +186,58 @@ class OtpServiceTest {
             attemptsKey = "otp_attempts:" + otpKey;
         }
 
+        private void givenAttemptScriptReturns(Object... result) {
+            when(redisTemplate.execute(eq(OtpService.VERIFY_ATTEMPT_SCRIPT), eq(List.of(otpKey, attemptsKey)), any(Object[].class)))
+                .thenReturn(List.of(result));
+        }
+
         @Test
         @DisplayName("should verify valid OTP successfully")
         void shouldVerifyValidOtpSuccessfully() {
             String otp = "123456";
-            String hashedOtp = passwordEncoder.encode(otp);
+            String hashedOtp = otpHasher.hash(otp);
 
-            // No previous attempts - return null for attempts key
-            when(valueOperations.get(attemptsKey)).thenReturn(null);
-            // Return OTP hash for OTP key
-            when(valueOperations.get(otpKey)).thenReturn(hashedOtp);
+            givenAttemptScriptReturns(1L, hashedOtp);
+            when(redisTemplate.execute(eq(OtpService.CONSUME_SCRIPT), eq(List.of(otpKey, attemptsKey)), any(Object[].class)))
+                .thenReturn(1L);
 
             boolean result = otpService.verifyOtp(TEST_PHONE, otp, OtpContext.DONATION, TEST_REFERENCE_ID);
 
             assertThat(result).isTrue();
 
-            // Verify OTP and attempts keys were deleted (one-time use)
-            verify(redisTemplate).delete(otpKey);
-            verify(redisTemplate).delete(attemptsKey);
+            // OTP and attempts consumed in one compare-and-delete against the verified hash (one-time use)
+            verify(redisTemplate).execute(OtpService.CONSUME_SCRIPT, List.of(otpKey, attemptsKey), hashedOtp);
+        }
+
+        @Test
+        @DisplayName("should verify OTP stored as BCrypt before the HMAC switch")
+        void shouldVerifyLegacyBcryptOtp() {
+            String otp = "123456";
+            String legacyHash = legacyEncoder.encode(otp);
+
+            givenAttemptScriptReturns(1L, legacyHash);
+            when(redisTemplate.execute(eq(OtpService.CONSUME_SCRIPT), anyList(), any(Object[].class)))
+                .thenReturn(1L);
+
+            assertThat(otpService.verifyOtp(TEST_PHONE, otp, OtpContext.DONATION, TEST_REFERENCE_ID)).isTrue();
+        }
+
+        @Test
+        @DisplayName("should pass max attempts and TTL to the attempt script")
+        void shouldPassMaxAttemptsAndTtlToAttemptScript() {
+            givenAttemptScriptReturns(-2L, 0L);
+
+            assertThatThrownBy(() ->
+                otpService.verifyOtp(TEST_PHONE, "123456", OtpContext.DONATION, TEST_REFERENCE_ID)
+            ).isInstanceOf(OtpException.class);
+
+            verify(redisTemplate).execute(OtpService.VERIFY_ATTEMPT_SCRIPT, List.of(otpKey, attemptsKey), "3", "300");
         }
 
         @Test
         @DisplayName("should throw OtpException for expired OTP")
         void shouldThrowOtpExceptionForExpiredOtp() {
-            when(valueOperations.get(attemptsKey)).thenReturn(null);
-            when(valueOperations.get(otpKey)).thenReturn(null); // OTP expired/not found
+            givenAttemptScriptReturns(-2L, 0L); // OTP expired/not found
 
             assertThatThrownBy(() ->
                 otpService.verifyOtp(TEST_PHONE, "123456", OtpContext.DONATION, TEST_REFERENCE_ID)
@@ -193,31 +247,30 @@ class OtpServiceTest {
         }
 
         @Test
-        @DisplayName("should throw OtpException for invalid OTP and increment attempts")
-        void shouldThrowOtpExceptionForInvalidOtpAndIncrementAttempts() {
+        @DisplayName("should throw OtpException for invalid OTP without consuming it")
+        void shouldThrowOtpExceptionForInvalidOtp() {
             String correctOtp = "123456";
             String wrongOtp = "654321";
-            String hashedOtp = passwordEncoder.encode(correctOtp);
+            String hashedOtp = otpHasher.hash(correctOtp);
 
-            when(valueOperations.get(attemptsKey)).thenReturn("0");
-            when(valueOperations.get(otpKey)).thenReturn(hashedOtp);
-            when(valueOperations.increment(attemptsKey)).thenReturn(1L);
+            // Script already counted this attempt
+            givenAttemptScriptReturns(1L, hashedOtp);
 
             assertThatThrownBy(() ->
                 otpService.verifyOtp(TEST_PHONE, wrongOtp, OtpContext.DONATION, TEST_REFERENCE_ID)
             )
                 .isInstanceOf(OtpException.class)
-                .hasMessageContaining("Invalid OTP");
+                .hasMessageContaining("Invalid OTP")
+                .satisfies(e -> assertThat(((OtpException) e).getRemainingAttempts()).isEqualTo(2));
 
-            // Verify attempts was incremented
-            verify(valueOperations).increment(attemptsKey);
+            verify(redisTemplate, never()).execute(eq(OtpService.CONSUME_SCRIPT), anyList(), any(Object[].class));
         }
 
         @Test
         @DisplayName("should throw OtpException when max attempts exceeded")
         void shouldThrowOtpExceptionWhenMaxAttemptsExceeded() {
             // Already at max attempts
-            when(valueOperations.get(attemptsKey)).thenReturn("3"); // max is 3
+            givenAttemptScriptReturns(-1L, 3L); // max is 3
 
             assertThatThrownBy(() ->
                 otpService.verifyOtp(TEST_PHONE, "123456", OtpContext.DONATION, TEST_REFERENCE_ID)
@@ -225,30 +278,92 @@ class OtpServiceTest {
                 .isInstanceOf(OtpException.class)
                 .hasMessageContaining("Maximum verification attempts");
         }
+
+        @Test
+        @DisplayName("should reject correct OTP already consumed by a concurrent verify")
+        void shouldRejectCorrectOtpAlreadyConsumed() {
+            String otp = "123456";
+            givenAttemptScriptReturns(1L, otpHasher.hash(otp));
+            when(redisTemplate.execute(eq(OtpService.CONSUME_SCRIPT), anyList(), any(Object[].class)))
+                .thenReturn(0L);
+
+            assertThatThrownBy(() ->
+                otpService.verifyOtp(TEST_PHONE, otp, OtpContext.DONATION, TEST_REFERENCE_ID)
+            )
+                .isInstanceOf(OtpException.class)
+                .hasMessageContaining("expired");
+        }
     }
 
     @Nested
-    @DisplayName("getRetryAfter")
-    class GetRetryAfter {
+    @DisplayName("rate limit")
+    class RateLimit {
 
         @Test
-        @DisplayName("should return TTL when rate limited")
-        void shouldReturnTtlWhenRateLimited() {
-            when(redisTemplate.getExpire(contains("otp_rate:"))).thenReturn(1800L);
+        @DisplayName("should check phone, number prefix and IP in the send script")
+        void shouldCheckAllDimensionsInOneCall() {
+            otpService.sendOtp(TEST_PHONE, "SMS", OtpContext.DONATION, TEST_REFERENCE_ID, TEST_IP);
+
+            SendCall call = verifySendScript();
+            assertThat(call.keys().subList(1, 4)).containsExactly(
+                "otp_rate:phone:" + TEST_PHONE, "otp_rate:prefix:+20123456", "otp_rate:ip:" + TEST_IP);
+            assertThat(call.args()[2]).isEqualTo("3600000");
+            assertThat(List.of(call.args()).subList(4, 7)).containsExactly("3", "30", "10");
+            verify(valueOperations, never()).increment(anyString());
+        }
+    }
+
+    @Nested
+    @DisplayName("deduplication")
+    class Deduplication {
+
+        private static final String DEDUP_KEY =
+            "otp_send:" + TEST_PHONE + ":DONATION:" + TEST_REFERENCE_ID;
+
+        @Test
+        @DisplayName("should return the original dispatch without sending again")
+        void shouldReturnOriginalDispatch() {
+            UUID deliveryId = UUID.randomUUID();
+            long now = System.currentTimeMillis();
+            when(redisTemplate.execute(eq(OtpService.SEND_SCRIPT), anyList(), any(Object[].class)))
+                .thenReturn(List.of(2L, deliveryId + ":" + (now + 120_000) + ":" + (now + 1_800_000)));
+
+            OtpService.OtpDispatch dispatch =
+                otpService.sendOtp(TEST_PHONE, "SMS", OtpContext.DONATION, TEST_REFERENCE_ID, TEST_IP);
+
+            assertThat(dispatch.deliveryId()).isEqualTo(deliveryId);
+            assertThat(dispatch.expiresIn()).isBetween(119, 120);
+            assertThat(dispatch.retryAfter()).isBetween(1799, 1800);
+            assertThat(meterRegistry.get("otp.send.deduplicated").counter().count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should pass the dedup key and window to the send script")
+        void shouldPassDedupKeyAndWindow() {
+            otpService.sendOtp(TEST_PHONE, "SMS", OtpContext.DONATION, TEST_REFERENCE_ID, TEST_IP);
+
+            SendCall call = verifySendScript();
+            assertThat(call.keys().get(0)).isEqualTo(DEDUP_KEY);
+            assertThat(call.args()[1]).isEqualTo("30000");
+            assertThat(meterRegistry.get("otp.send.deduplicated").counter().count()).isZero();
+        }
 
-            int retryAfter = otpService.getRetryAfter(TEST_PHONE);
+        @Test
+        @DisplayName("should scope the dedup key to the idempotency key")
+        void shouldScopeClaimToIdempotencyKey() {
+            otpService.sendOtp(TEST_PHONE, "SMS", OtpContext.DONATION, TEST_REFERENCE_ID, TEST_IP, "retry-1");
 
-            assertThat(retryAfter).isEqualTo(1800);
+            assertThat(verifySendScript().keys().get(0)).isEqualTo(DEDUP_KEY + ":retry-1");
         }
 
         @Test
-        @DisplayName("should return 0 when not rate limited")
-        void shouldReturnZeroWhenNotRateLimited() {
-            when(redisTemplate.getExpire(anyString())).thenReturn(-2L); // Key doesn't exist
+        @DisplayName("should pass a zero window when deduplication is disabled")
+        void shouldSkipWhenDisabled() {
+            otpConfig.setSendDedupWindowSeconds(0);
 
-            int retryAfter = otpService.getRetryAfter(TEST_PHONE);
+            otpService.sendOtp(TEST_PHONE, "SMS", OtpContext.DONATION, TEST_REFERENCE_ID, TEST_IP);
 
-            assertThat(retryAfter).isEqualTo(0);
+            assertThat(verifySendScript().args()[1]).isEqualTo("0");
         }
     }
 }
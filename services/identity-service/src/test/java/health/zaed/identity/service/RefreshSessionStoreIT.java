@@ -0,0 +1,293 @@
+package health.zaed.identity.service;
+
+import health.zaed.identity.IntegrationTestBase;
+import health.zaed.identity.config.RefreshSessionConfig;
+import health.zaed.identity.model.entity.RefreshToken;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Integration tests for {@link RefreshSessionStore} and {@link RefreshSessionSync} against
+ * real Redis and PostgreSQL containers.
+ */
+@DisplayName("RefreshSessionStore Integration Tests")
+class RefreshSessionStoreIT extends IntegrationTestBase {
+
+    private static final String TEST_IP = "192.168.1.1";
+
+    @Autowired
+    private RefreshSessionStore store;
+
+    @Autowired
+    private RefreshSessionSync sync;
+
+    @Autowired
+    private RefreshSessionConfig config;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    private UUID userId;
+    private RefreshToken loginToken;
+
+    @BeforeEach
+    void setUp() {
+        // Applied explicitly with syncOnce() so assertions do not race the scheduler
+        config.setSyncEnabled(false);
+        sync.createGroupIfMissing();
+
+        userId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (id, email, name, role) VALUES (?, ?, ?, ?)",
+            userId, "sessions@example.com", "Session Test", "DONOR");
+
+        String loginTokenId = UUID.randomUUID().toString();
+        loginToken = RefreshToken.builder()
+            .id(loginTokenId)
+            .userId(userId)
+            .tokenHash("hash-0")
+            .familyId(loginTokenId)
+            .deviceId("device-1")
+            .deviceInfo("Mozilla/5.0")
+            .ipAddress(TEST_IP)
+            .expiresAt(Instant.now().plus(Duration.ofDays(7)))
+            .build();
+        jdbcTemplate.update(
+            "INSERT INTO refresh_tokens (id, user_id, token_hash, family_id, device_id, device_info, ip_address, expires_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+            loginToken.getId(), userId, loginToken.getTokenHash(), loginTokenId, loginToken.getDeviceId(),
+            loginToken.getDeviceInfo(), TEST_IP, Timestamp.from(loginToken.getExpiresAt()));
+        store.save(loginToken);
+    }
+
+    @AfterEach
+    void restoreConfig() {
+        config.setSyncEnabled(true);
+    }
+
+    private RefreshSessionStore.Rotation rotate(String tokenId, String tokenHash, String nextId, String nextHash) {
+        return store.rotate(userId, tokenId, tokenHash, nextId, nextHash, TEST_IP, Instant.now().plus(Duration.ofDays(7)));
+    }
+
+    private Map<String, Object> row(String tokenId) {
+        return jdbcTemplate.queryForMap("SELECT * FROM refresh_tokens WHERE id = ?", tokenId);
+    }
+
+    @Nested
+    @DisplayName("rotation")
+    class Rotation {
+
+        @Test
+        @DisplayName("should rotate a chain in Redis and write it to Postgres behind")
+        void shouldRotateAndWriteBehind() {
+            String second = UUID.randomUUID().toString();
+            String third = UUID.randomUUID().toString();
+
+            assertThat(rotate(loginToken.getId(), "hash-0", second, "hash-1")).isEqualTo(RefreshSessionStore.Rotation.ROTATED);
+            assertThat(rotate(second, "hash-1", third, "hash-2")).isEqualTo(RefreshSessionStore.Rotation.ROTATED);
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM refresh_tokens", Long.class)).isEqualTo(1);
+
+            assertThat(sync.syncOnce()).isEqualTo(2);
+
+            assertThat(row(loginToken.getId()))
+                .containsEntry("revoke_reason", "ROTATION")
+                .extractingByKey("last_used_at").isNotNull();
+            assertThat(row(second)).containsEntry("revoke_reason", "ROTATION");
+            assertThat(row(third))
+                .containsEntry("revoked_at", null)
+                .containsEntry("token_hash", "hash-2")
+                .containsEntry("family_id", loginToken.getId())
+                .containsEntry("device_id", "device-1")
+                .containsEntry("device_info", "Mozilla/5.0");
+            assertThat(sync.syncOnce()).isZero();
+        }
+
+        @Test
+        @DisplayName("should end in the same state when a later rotation is written first")
+        void shouldApplyRotationsOutOfOrder() {
+            String second = UUID.randomUUID().toString();
+            String third = UUID.randomUUID().toString();
+            rotate(loginToken.getId(), "hash-0", second, "hash-1");
+            rotate(second, "hash-1", third, "hash-2");
+
+            // Another consumer takes the first rotation and fails before writing it
+            redisTemplate.opsForStream().read(
+                Consumer.from(RefreshSessionSync.CONSUMER_GROUP, "stalled"),
+                StreamReadOptions.empty().count(1),
+                StreamOffset.create(RefreshSessionStore.SYNC_STREAM_KEY, ReadOffset.lastConsumed()));
+
+            assertThat(sync.syncOnce()).isEqualTo(1);
+            assertThat(row(second)).containsEntry("revoke_reason", "ROTATION");
+
+            config.setSyncEnabled(true);
+            config.setSyncReclaimIdle(0);
+            try {
+                sync.reclaimStale();
+            } finally {
+                config.setSyncEnabled(false);
+                config.setSyncReclaimIdle(60);
+            }
+
+            assertThat(row(loginToken.getId())).containsEntry("revoke_reason", "ROTATION");
+            assertThat(row(second))
+                .containsEntry("revoke_reason", "ROTATION")
+                .containsEntry("token_hash", "hash-1")
+                .extractingByKey("revoked_at").isNotNull();
+            assertThat(row(third)).containsEntry("revoked_at", null);
+            assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM refresh_tokens WHERE revoked_at IS NULL", Long.class)).isEqualTo(1);
+            assertThat(redisTemplate.opsForStream().size(RefreshSessionStore.SYNC_STREAM_KEY)).isZero();
+        }
+
+        @Test
+        @DisplayName("should reject a token whose hash does not match")
+        void shouldRejectHashMismatch() {
+            assertThat(rotate(loginToken.getId(), "other-hash", UUID.randomUUID().toString(), "hash-1"))
+                .isEqualTo(RefreshSessionStore.Rotation.MISMATCH);
+        }
+
+        @Test
+        @DisplayName("should report sessions Redis does not hold")
+        void shouldReportMissingSession() {
+            assertThat(rotate(UUID.randomUUID().toString(), "hash-x", UUID.randomUUID().toString(), "hash-1"))
+                .isEqualTo(RefreshSessionStore.Rotation.MISSING);
+        }
+    }
+
+    @Nested
+    @DisplayName("reuse detection")
+    class ReuseDetection {
+
+        @Test
+        @DisplayName("should let exactly one concurrent refresh win and revoke the family for the rest")
+        void shouldRevokeFamilyOnConcurrentReuse() throws Exception {
+            int contenders = 16;
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<RefreshSessionStore.Rotation>> results = new ArrayList<>();
+            List<String> successors = new ArrayList<>();
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < contenders; i++) {
+                    String successor = UUID.randomUUID().toString();
+                    successors.add(successor);
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        return rotate(loginToken.getId(), "hash-0", successor, "hash-" + successor);
+                    }));
+                }
+                start.countDown();
+            }
+
+            List<RefreshSessionStore.Rotation> outcomes = new ArrayList<>();
+            for (Future<RefreshSessionStore.Rotation> result : results) {
+                outcomes.add(result.get());
+            }
+            assertThat(outcomes).containsOnlyOnce(RefreshSessionStore.Rotation.ROTATED);
+            assertThat(outcomes).filteredOn(outcome -> outcome == RefreshSessionStore.Rotation.REUSED)
+                .hasSize(contenders - 1);
+
+            // The winner's successor belongs to the compromised family and is now revoked too
+            String winner = successors.get(outcomes.indexOf(RefreshSessionStore.Rotation.ROTATED));
+            assertThat(rotate(winner, "hash-" + winner, UUID.randomUUID().toString(), "hash-next"))
+                .isEqualTo(RefreshSessionStore.Rotation.REUSED);
+
+            while (sync.syncOnce() > 0) {
+                // Drain every rotation and revocation
+            }
+            assertThat(row(loginToken.getId())).containsEntry("revoke_reason", "ROTATION");
+            assertThat(row(winner)).containsEntry("revoke_reason", "SUSPICIOUS");
+            assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM refresh_tokens WHERE revoked_at IS NULL", Long.class)).isZero();
+        }
+
+        @Test
+        @DisplayName("should leave other devices' sessions alone")
+        void shouldNotRevokeOtherFamilies() {
+            String otherDeviceId = UUID.randomUUID().toString();
+            RefreshToken otherDevice = RefreshToken.builder()
+                .id(otherDeviceId)
+                .userId(userId)
+                .tokenHash("other-hash")
+                .familyId(otherDeviceId)
+                .deviceId("device-2")
+                .expiresAt(Instant.now().plus(Duration.ofDays(7)))
+                .build();
+            store.save(otherDevice);
+            String successor = UUID.randomUUID().toString();
+            rotate(loginToken.getId(), "hash-0", successor, "hash-1");
+
+            assertThat(rotate(loginToken.getId(), "hash-0", UUID.randomUUID().toString(), "hash-2"))
+                .isEqualTo(RefreshSessionStore.Rotation.REUSED);
+
+            assertThat(rotate(otherDevice.getId(), "other-hash", UUID.randomUUID().toString(), "other-next"))
+                .isEqualTo(RefreshSessionStore.Rotation.ROTATED);
+        }
+    }
+
+    @Nested
+    @DisplayName("revocation")
+    class Revocation {
+
+        @Test
+        @DisplayName("should revoke one family and write each revoked session behind")
+        void shouldRevokeFamily() {
+            String successor = UUID.randomUUID().toString();
+            rotate(loginToken.getId(), "hash-0", successor, "hash-1");
+
+            assertThat(store.revokeFamily(userId, loginToken.getId(), "SUSPICIOUS")).isEqualTo(1);
+
+            assertThat(sync.syncOnce()).isEqualTo(2);
+            assertThat(row(successor)).containsEntry("revoke_reason", "SUSPICIOUS");
+        }
+
+        @Test
+        @DisplayName("should revoke a single session and write it behind")
+        void shouldRevokeSession() {
+            assertThat(store.revoke(userId, loginToken.getId(), "LOGOUT")).isTrue();
+            assertThat(store.revoke(userId, loginToken.getId(), "LOGOUT")).isFalse();
+
+            assertThat(sync.syncOnce()).isEqualTo(1);
+            assertThat(row(loginToken.getId())).containsEntry("revoke_reason", "LOGOUT");
+        }
+
+        @Test
+        @DisplayName("should revoke every live session of the user, including successors not yet in Postgres")
+        void shouldRevokeAllSessions() {
+            String successor = UUID.randomUUID().toString();
+            rotate(loginToken.getId(), "hash-0", successor, "hash-1");
+
+            assertThat(store.revokeAll(userId, "LOGOUT_ALL")).isEqualTo(1);
+
+            assertThat(sync.syncOnce()).isEqualTo(2);
+            assertThat(row(successor)).containsEntry("revoke_reason", "LOGOUT_ALL");
+            assertThat(rotate(successor, "hash-1", UUID.randomUUID().toString(), "hash-2"))
+                .isEqualTo(RefreshSessionStore.Rotation.REUSED);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package health.zaed.identity.service;
+
+import health.zaed.identity.IntegrationTestBase;
+import health.zaed.identity.config.TokenPurgeConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Integration tests for {@link RefreshTokenPurger} against a real PostgreSQL container.
+ */
+@DisplayName("RefreshTokenPurger Integration Tests")
+class RefreshTokenPurgerIT extends IntegrationTestBase {
+
+    @Autowired
+    private RefreshTokenPurger purger;
+
+    @Autowired
+    private TokenPurgeConfig config;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (id, email, name, role) VALUES (?, ?, ?, ?)",
+            userId, "purge@example.com", "Purge Test", "DONOR");
+        config.setChunkSize(10);
+        config.setChunkPauseMillis(0);
+    }
+
+    @AfterEach
+    void restoreConfig() {
+        config.setChunkSize(1000);
+        config.setChunkPauseMillis(100);
+        config.setMaxRunTime(300);
+    }
+
+    private void insertTokens(int count, Instant expiresAt, Instant revokedAt) {
+        for (int i = 0; i < count; i++) {
+            String tokenId = UUID.randomUUID().toString();
+            jdbcTemplate.update(
+                "INSERT INTO refresh_tokens (id, user_id, token_hash, family_id, expires_at, revoked_at) VALUES (?, ?, ?, ?, ?, ?)",
+                tokenId, userId, "hash-" + i, tokenId,
+                Timestamp.from(expiresAt), revokedAt == null ? null : Timestamp.from(revokedAt));
+        }
+    }
+
+    private long tokenCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM refresh_tokens", Long.class);
+    }
+
+    @Nested
+    @DisplayName("purge")
+    class Purge {
+
+        @Test
+        @DisplayName("should delete tokens expired beyond the grace period across many chunks")
+        void shouldDeleteExpiredTokensInChunks() {
+            Instant longExpired = Instant.now().minus(Duration.ofDays(3));
+            insertTokens(35, longExpired, null);
+            insertTokens(5, longExpired, Instant.now().minus(Duration.ofDays(10)));
+            double before = meterRegistry.counter("refresh.tokens.purged").count();
+
+            long purged = purger.purge();
+
+            assertThat(purged).isEqualTo(40);
+            assertThat(tokenCount()).isZero();
+            assertThat(meterRegistry.counter("refresh.tokens.purged").count() - before).isEqualTo(40);
+            assertThat(meterRegistry.timer("refresh.tokens.purge").count()).isPositive();
+        }
+
+        @Test
+        @DisplayName("should keep valid, recently expired and revoked-but-unexpired tokens")
+        void shouldKeepTokensStillNeeded() {
+            insertTokens(3, Instant.now().plus(Duration.ofDays(7)), null);
+            insertTokens(2, Instant.now().minus(Duration.ofHours(1)), null);
+            insertTokens(4, Instant.now().plus(Duration.ofDays(2)), Instant.now().minus(Duration.ofDays(1)));
+
+            assertThat(purger.purge()).isZero();
+            assertThat(tokenCount()).isEqualTo(9);
+        }
+
+        @Test
+        @DisplayName("should stop after the max run time and finish on the next run")
+        void shouldResumeOnNextRun() {
+            config.setMaxRunTime(0);
+            insertTokens(25, Instant.now().minus(Duration.ofDays(3)), null);
+
+            assertThat(purger.purge()).isEqualTo(10);
+            config.setMaxRunTime(300);
+            assertThat(purger.purge()).isEqualTo(15);
+            assertThat(tokenCount()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("single node")
+    class SingleNode {
+
+        @Test
+        @DisplayName("should skip the run while another session holds the purge lock")
+        void shouldSkipWhenLocked() {
+            insertTokens(5, Instant.now().minus(Duration.ofDays(3)), null);
+
+            Long purgedWhileLocked = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+                try (PreparedStatement lock = connection.prepareStatement("SELECT pg_advisory_lock(?)")) {
+                    lock.setLong(1, RefreshTokenPurger.LOCK_KEY);
+                    lock.execute();
+                }
+                try {
+                    // The purge runs on a different pooled connection, i.e. another session
+                    return purger.purge();
+                } finally {
+                    try (PreparedStatement unlock = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+                        unlock.setLong(1, RefreshTokenPurger.LOCK_KEY);
+                        try (ResultSet ignored = unlock.executeQuery()) {
+                            // released
+                        }
+                    }
+                }
+            });
+
+            assertThat(purgedWhileLocked).isZero();
+            assertThat(tokenCount()).isEqualTo(5);
+            assertThat(purger.purge()).isEqualTo(5);
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package health.zaed.identity.service;
+
+import health.zaed.identity.config.SmsRoutingConfig;
+import health.zaed.identity.exception.SmsDeliveryException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link RoutingSmsGateway}.
+ */
+@DisplayName("RoutingSmsGateway")
+class RoutingSmsGatewayTest {
+
+    private static final String TEST_PHONE = "+201234567890";
+
+    private SmsRoutingConfig config;
+    private SimpleMeterRegistry meterRegistry;
+    private final List<RoutingSmsGateway> gateways = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        config = new SmsRoutingConfig();
+        config.setHedgeDelayMillis(200);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        gateways.forEach(RoutingSmsGateway::shutdown);
+    }
+
+    private RoutingSmsGateway gateway(FakeProvider... providers) {
+        for (FakeProvider provider : providers) {
+            config.getProviders().computeIfAbsent(provider.name(), name -> new SmsRoutingConfig.Provider())
+                .setCost(provider.cost);
+        }
+        RoutingSmsGateway gateway = new RoutingSmsGateway(List.of(providers), config, meterRegistry);
+        gateways.add(gateway);
+        return gateway;
+    }
+
+    @Nested
+    @DisplayName("routing")
+    class Routing {
+
+        @Test
+        @DisplayName("should send through the cheapest provider")
+        void shouldPreferCheapestProvider() {
+            FakeProvider expensive = new FakeProvider("twilio", 0.40);
+            FakeProvider cheap = new FakeProvider("smsmisr", 0.01);
+
+            assertThat(gateway(expensive, cheap).sendOtp(TEST_PHONE, "123456", "SMS")).isTrue();
+
+            assertThat(cheap.calls.get()).isEqualTo(1);
+            assertThat(expensive.calls.get()).isZero();
+        }
+
+        @Test
+        @DisplayName("should skip providers that are not enabled")
+        void shouldSkipDisabledProviders() {
+            FakeProvider disabled = new FakeProvider("smsmisr", 0.01);
+            FakeProvider enabled = new FakeProvider("twilio", 0.40);
+            SmsRoutingConfig.Provider off = new SmsRoutingConfig.Provider();
+            off.setEnabled(false);
+            config.getProviders().put("smsmisr", off);
+            SmsRoutingConfig.Provider on = new SmsRoutingConfig.Provider();
+            on.setCost(0.40);
+            config.getProviders().put("twilio", on);
+            RoutingSmsGateway gateway = new RoutingSmsGateway(List.of(disabled, enabled), config, meterRegistry);
+            gateways.add(gateway);
+
+            gateway.sendOtp(TEST_PHONE, "123456", "SMS");
+
+            assertThat(disabled.calls.get()).isZero();
+            assertThat(enabled.calls.get()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should never fail over to a provider without credentials")
+        void shouldSkipUnconfiguredProviders() {
+            FakeProvider primary = new FakeProvider("smsmisr", 0.01);
+            primary.result = () -> {
+                throw SmsDeliveryException.rateLimited();
+            };
+            FakeProvider unconfigured = new FakeProvider("twilio", 0.40);
+            unconfigured.configured = false;
+
+            assertThatThrownBy(() -> gateway(primary, unconfigured).sendOtp(TEST_PHONE, "123456", "SMS"))
+                .isInstanceOf(SmsDeliveryException.class);
+
+            assertThat(primary.calls.get()).isEqualTo(1);
+            assertThat(unconfigured.calls.get()).isZero();
+        }
+
+        @Test
+        @DisplayName("should refuse to start when an enabled provider has no cost")
+        void shouldRequireCost() {
+            config.getProviders().put("twilio", new SmsRoutingConfig.Provider());
+
+            assertThatThrownBy(() -> new RoutingSmsGateway(
+                    List.of(new FakeProvider("twilio", 0.40)), config, meterRegistry))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("providers.twilio.cost");
+        }
+
+        @Test
+        @DisplayName("should refuse to start when an enabled provider has a non-positive weight")
+        void shouldRequirePositiveWeight() {
+            SmsRoutingConfig.Provider settings = new SmsRoutingConfig.Provider();
+            settings.setCost(0.40);
+            settings.setWeight(0);
+            config.getProviders().put("twilio", settings);
+
+            assertThatThrownBy(() -> new RoutingSmsGateway(
+                    List.of(new FakeProvider("twilio", 0.40)), config, meterRegistry))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("providers.twilio.weight");
+        }
+
+        @Test
+        @DisplayName("should only use WhatsApp-capable providers for WhatsApp")
+        void shouldRouteWhatsAppToCapableProviders() {
+            FakeProvider smsOnly = new FakeProvider("smsmisr", 0.01);
+            FakeProvider whatsApp = new FakeProvider("twilio", 0.40);
+            whatsApp.whatsApp = true;
+
+            gateway(smsOnly, whatsApp).sendOtp(TEST_PHONE, "123456", "WHATSAPP");
+
+            assertThat(smsOnly.calls.get()).isZero();
+            assertThat(whatsApp.calls.get()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should move an unhealthy provider to the back")
+        void shouldDemoteUnhealthyProvider() {
+            config.setMinSamples(2);
+            FakeProvider flaky = new FakeProvider("smsmisr", 0.01);
+            flaky.result = () -> false;
+            FakeProvider backup = new FakeProvider("twilio", 0.40);
+            RoutingSmsGateway gateway = gateway(flaky, backup);
+
+            gateway.sendOtp(TEST_PHONE, "123456", "SMS");
+            gateway.sendOtp(TEST_PHONE, "123456", "SMS");
+            gateway.sendOtp(TEST_PHONE, "123456", "SMS");
+
+            assertThat(flaky.calls.get()).isEqualTo(2);
+            assertThat(backup.calls.get()).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("should throw when no provider is enabled")
+        void shouldThrowWithoutProviders() {
+            RoutingSmsGateway gateway = new RoutingSmsGateway(List.of(), config, meterRegistry);
+            gateways.add(gateway);
+
+            assertThatThrownBy(() -> gateway.sendOtp(TEST_PHONE, "123456", "SMS"))
+                .isInstanceOf(SmsDeliveryException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("failover")
+    class Failover {
+
+        @Test
+        @DisplayName("should fail over when the first provider rejects the message")
+        void shouldFailOverOnRejection() {
+            FakeProvider primary = new FakeProvider("smsmisr", 0.01);
+            primary.result = () -> false;
+            FakeProvider secondary = new FakeProvider("twilio", 0.40);
+
+            assertThat(gateway(primary, secondary).sendOtp(TEST_PHONE, "123456", "SMS")).isTrue();
+
+            assertThat(primary.calls.get()).isEqualTo(1);
+            assertThat(secondary.calls.get()).isEqualTo(1);
+            assertThat(meterRegistry.counter("sms.routing.failovers", "provider", "twilio").count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should fail over when the first provider throws")
+        void shouldFailOverOnException() {
+            FakeProvider primary = new FakeProvider("smsmisr", 0.01);
+            primary.result = () -> {
+                throw SmsDeliveryException.rateLimited();
+            };
+            FakeProvider secondary = new FakeProvider("twilio", 0.40);
+
+            assertThat(gateway(primary, secondary).sendOtp(TEST_PHONE, "123456", "SMS")).isTrue();
+            assertThat(secondary.calls.get()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should rethrow the last error when every provider fails")
+        void shouldRethrowWhenAllFail() {
+            FakeProvider primary = new FakeProvider("smsmisr", 0.01);
+            primary.result = () -> false;
+            FakeProvider secondary = new FakeProvider("twilio", 0.40);
+            secondary.result = () -> {
+                throw SmsDeliveryException.rateLimited();
+            };
+
+            assertThatThrownBy(() -> gateway(primary, secondary).sendOtp(TEST_PHONE, "123456", "SMS"))
+                .isInstanceOf(SmsDeliveryException.class)
+                .hasMessageContaining("rate limit");
+        }
+    }
+
+    @Nested
+    @DisplayName("hedging")
+    class Hedging {
+
+        @Test
+        @DisplayName("should hedge a send still waiting for a busy provider")
+        void shouldHedgeWhileWaitingForSlot() throws Exception {
+            SmsRoutingConfig.Provider single = new SmsRoutingConfig.Provider();
+            single.setMaxConcurrent(1);
+            config.getProviders().put("smsmisr", single);
+            FakeProvider busy = new FakeProvider("smsmisr", 0.01);
+            busy.latencyMillis = 1_000;
+            FakeProvider fast = new FakeProvider("twilio", 0.40);
+            RoutingSmsGateway gateway = gateway(busy, fast);
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                Future<Boolean> occupying = executor.submit(() -> gateway.sendOtp(TEST_PHONE, "111111", "SMS"));
+                await(() -> busy.calls.get() == 1);
+
+                long start = System.nanoTime();
+                assertThat(gateway.sendOtp(TEST_PHONE, "123456", "SMS")).isTrue();
+                long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+                assertThat(elapsedMillis).isLessThan(1_000);
+                assertThat(occupying.get()).isTrue();
+            }
+
+            assertThat(busy.calls.get()).isEqualTo(1);
+            assertThat(fast.calls.get()).isEqualTo(1);
+            assertThat(meterRegistry.counter("sms.routing.hedges", "provider", "twilio").count()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should not hedge once the first provider has the message")
+        void shouldNotHedgeDispatchedSend() {
+            FakeProvider slow = new FakeProvider("smsmisr", 0.01);
+            slow.latencyMillis = 500;
+            FakeProvider fast = new FakeProvider("twilio", 0.40);
+
+            assertThat(gateway(slow, fast).sendOtp(TEST_PHONE, "123456", "SMS")).isTrue();
+
+            assertThat(slow.calls.get()).isEqualTo(1);
+            assertThat(fast.calls.get()).isZero();
+            assertThat(meterRegistry.find("sms.routing.hedges").counter()).isNull();
+        }
+
+        @Test
+        @DisplayName("should hand the message to the next provider only after the first fails")
+        void shouldNotOverlapProviderCalls() {
+            FakeProvider slow = new FakeProvider("smsmisr", 0.01);
+            slow.latencyMillis = 400;
+            slow.result = () -> {
+                throw SmsDeliveryException.networkTimeout(new RuntimeException("read timed out"));
+            };
+            FakeProvider fast = new FakeProvider("twilio", 0.40);
+            AtomicBoolean overlapped = new AtomicBoolean();
+            fast.result = () -> {
+                overlapped.set(slow.inFlight.get() > 0);
+                return true;
+            };
+
+            assertThat(gateway(slow, fast).sendOtp(TEST_PHONE, "123456", "SMS")).isTrue();
+
+            assertThat(fast.calls.get()).isEqualTo(1);
+            assertThat(overlapped).isFalse();
+        }
+
+        @Test
+        @DisplayName("should not hedge when hedging is disabled")
+        void shouldNotHedgeWhenDisabled() {
+            config.setHedgeEnabled(false);
+            FakeProvider slow = new FakeProvider("smsmisr", 0.01);
+            slow.latencyMillis = 400;
+            FakeProvider fast = new FakeProvider("twilio", 0.40);
+
+            assertThat(gateway(slow, fast).sendOtp(TEST_PHONE, "123456", "SMS")).isTrue();
+
+            assertThat(slow.calls.get()).isEqualTo(1);
+            assertThat(fast.calls.get()).isZero();
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static final class FakeProvider implements SmsProvider {
+
+        private final String name;
+        private final double cost;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile boolean whatsApp;
+        private volatile boolean configured = true;
+        private volatile long latencyMillis;
+        private volatile BooleanSupplier result = () -> true;
+
+        private FakeProvider(String name, double cost) {
+            this.name = name;
+            this.cost = cost;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public boolean isConfigured() {
+            return configured;
+        }
+
+        @Override
+        public boolean sendOtp(String phone, String otp, String channel) {
+            calls.incrementAndGet();
+            inFlight.incrementAndGet();
+            try {
+                if (latencyMillis > 0) {
+                    try {
+                        Thread.sleep(latencyMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                }
+                return result.getAsBoolean();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        @Override
+        public boolean sendNotification(String phone, String message) {
+            return sendOtp(phone, message, "SMS");
+        }
+
+        @Override
+        public boolean supportsWhatsApp() {
+            return whatsApp;
+        }
+
+        @Override
+        public String getCostPerSms() {
+            return String.valueOf(cost);
+        }
+    }
+}
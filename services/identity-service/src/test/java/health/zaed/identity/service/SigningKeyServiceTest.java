@@ -0,0 +1,199 @@
+package health.zaed.identity.service;
+
+import health.zaed.identity.config.JwtConfig;
+import health.zaed.identity.model.entity.SigningKey;
+import health.zaed.identity.model.entity.User;
+import health.zaed.identity.model.enums.SigningAlgorithm;
+import health.zaed.identity.model.enums.SigningKeyStatus;
+import health.zaed.identity.model.enums.UserRole;
+import health.zaed.identity.repository.SigningKeyRepository;
+import health.zaed.identity.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link SigningKeyService}.
+ *
+ * <p>Backs the repository with an in-memory map to exercise bootstrap, rotation and purge.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("SigningKeyService")
+class SigningKeyServiceTest {
+
+    private static final String TEST_SECRET = Base64.getEncoder()
+        .encodeToString("this-is-a-test-secret-key-256bit".getBytes());
+    private static final String TEST_KEK = Base64.getEncoder().encodeToString(new byte[32]);
+
+    @Mock
+    private SigningKeyRepository signingKeyRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<String, SigningKey> store = new LinkedHashMap<>();
+    private JwtConfig jwtConfig;
+    private JwtService jwtService;
+    private SigningKeyService signingKeyService;
+
+    @BeforeEach
+    void setUp() {
+        jwtConfig = new JwtConfig();
+        jwtConfig.setAlgorithm(SigningAlgorithm.ES256);
+        jwtConfig.setSecret(TEST_SECRET);
+        jwtConfig.setKeyEncryptionKey(TEST_KEK);
+        jwtConfig.setIssuer("test-issuer");
+
+        when(signingKeyRepository.findByStatusIn(any())).thenAnswer(inv -> {
+            Collection<SigningKeyStatus> statuses = inv.getArgument(0);
+            return store.values().stream().filter(key -> statuses.contains(key.getStatus())).toList();
+        });
+        when(signingKeyRepository.findFirstByStatusOrderByCreatedAtDesc(any())).thenAnswer(inv ->
+            store.values().stream()
+                .filter(key -> key.getStatus() == inv.getArgument(0))
+                .max(Comparator.comparing(SigningKey::getCreatedAt)));
+        when(signingKeyRepository.findActiveForUpdate()).thenAnswer(inv ->
+            store.values().stream().filter(key -> key.getStatus() == SigningKeyStatus.ACTIVE).findFirst());
+        when(signingKeyRepository.save(any(SigningKey.class))).thenAnswer(inv -> put(inv.getArgument(0)));
+        when(signingKeyRepository.saveAndFlush(any(SigningKey.class))).thenAnswer(inv -> put(inv.getArgument(0)));
+        when(signingKeyRepository.deleteRetiredBefore(any())).thenAnswer(inv -> {
+            Instant threshold = inv.getArgument(0);
+            int before = store.size();
+            store.values().removeIf(key ->
+                key.getStatus() == SigningKeyStatus.RETIRED && key.getRetiredAt().isBefore(threshold));
+            return before - store.size();
+        });
+
+        jwtService = new JwtService(jwtConfig, new VerifiedTokenCache(jwtConfig, new SimpleMeterRegistry()));
+        signingKeyService = new SigningKeyService(
+            jwtConfig, signingKeyRepository, jwtService, new TransactionTemplate(transactionManager));
+    }
+
+    @Nested
+    @DisplayName("init")
+    class Init {
+
+        @Test
+        @DisplayName("should create active and next keys and publish both")
+        void shouldBootstrapKeyRing() {
+            signingKeyService.init();
+
+            assertThat(keysWithStatus(SigningKeyStatus.ACTIVE)).hasSize(1);
+            assertThat(keysWithStatus(SigningKeyStatus.NEXT)).hasSize(1);
+            String jwks = new String(jwtService.getJwkSet().json());
+            store.keySet().forEach(kid -> assertThat(jwks).contains("\"kid\":\"" + kid + "\""));
+
+            String token = jwtService.generateAccessToken(createPartnerUser());
+            assertThat(jwtService.validateToken(token).get("type")).isEqualTo("access");
+        }
+
+        @Test
+        @DisplayName("should store private keys encrypted")
+        void shouldStorePrivateKeysEncrypted() {
+            signingKeyService.init();
+
+            SigningKey active = keysWithStatus(SigningKeyStatus.ACTIVE).getFirst();
+            assertThat(new String(active.getPrivateKeyEncrypted())).doesNotContain("PRIVATE");
+            assertThat(active.getPrivateKeyEncrypted()).hasSizeGreaterThan(12 + 16);
+        }
+
+        @Test
+        @DisplayName("should not touch the database for HS256")
+        void shouldSkipForHs256() {
+            jwtConfig.setAlgorithm(SigningAlgorithm.HS256);
+
+            signingKeyService.init();
+
+            verifyNoInteractions(signingKeyRepository);
+        }
+    }
+
+    @Nested
+    @DisplayName("refresh")
+    class Refresh {
+
+        @Test
+        @DisplayName("should not rotate before the rotation period elapses")
+        void shouldNotRotateEarly() {
+            signingKeyService.init();
+            String activeKid = keysWithStatus(SigningKeyStatus.ACTIVE).getFirst().getKid();
+
+            signingKeyService.refresh();
+
+            assertThat(store).hasSize(2);
+            assertThat(keysWithStatus(SigningKeyStatus.ACTIVE).getFirst().getKid()).isEqualTo(activeKid);
+        }
+
+        @Test
+        @DisplayName("should promote next key and keep verifying tokens of the retired key")
+        void shouldRotateWithoutInvalidatingTokens() {
+            signingKeyService.init();
+            String oldToken = jwtService.generateAccessToken(createPartnerUser());
+            SigningKey oldActive = keysWithStatus(SigningKeyStatus.ACTIVE).getFirst();
+            String nextKid = keysWithStatus(SigningKeyStatus.NEXT).getFirst().getKid();
+            jwtConfig.setKeyRotationPeriod(0);
+
+            signingKeyService.refresh();
+
+            assertThat(oldActive.getStatus()).isEqualTo(SigningKeyStatus.RETIRED);
+            assertThat(keysWithStatus(SigningKeyStatus.ACTIVE).getFirst().getKid()).isEqualTo(nextKid);
+            assertThat(keysWithStatus(SigningKeyStatus.NEXT)).hasSize(1);
+            assertThat(jwtService.validateToken(oldToken).get("type")).isEqualTo("access");
+        }
+
+        @Test
+        @DisplayName("should purge retired keys after the longest token lifetime")
+        void shouldPurgeExpiredRetiredKeys() {
+            signingKeyService.init();
+            SigningKey oldActive = keysWithStatus(SigningKeyStatus.ACTIVE).getFirst();
+            jwtConfig.setKeyRotationPeriod(0);
+            signingKeyService.refresh();
+            oldActive.setRetiredAt(Instant.now().minusSeconds(jwtConfig.getRefreshTokenExpiry() + 1L));
+
+            signingKeyService.refresh();
+
+            assertThat(store).doesNotContainKey(oldActive.getKid());
+            assertThat(new String(jwtService.getJwkSet().json())).doesNotContain(oldActive.getKid());
+        }
+    }
+
+    private SigningKey put(SigningKey key) {
+        store.put(key.getKid(), key);
+        return key;
+    }
+
+    private List<SigningKey> keysWithStatus(SigningKeyStatus status) {
+        return store.values().stream().filter(key -> key.getStatus() == status).toList();
+    }
+
+    private User createPartnerUser() {
+        return User.builder()
+            .id(UUID.randomUUID())
+            .email("partner@pharmacy.com")
+            .role(UserRole.PARTNER_PHARMACY)
+            .build();
+    }
+}
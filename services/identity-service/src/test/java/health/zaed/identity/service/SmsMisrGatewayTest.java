@@ -79,6 +79,21 @@ class SmsMisrGatewayTest {
             mockServer.verify();
         }
 
+        @Test
+        @DisplayName("should send the full form body with the encoded Arabic OTP message")
+        void shouldSendEncodedFormBody() {
+            String message = java.net.URLEncoder.encode(
+                "زائد: رمز التحقق الخاص بك هو " + TEST_OTP, java.nio.charset.StandardCharsets.UTF_8);
+            mockServer.expect(requestTo(API_URL))
+                .andExpect(content().string("username=testuser&password=testpass&sender=ZAED"
+                    + "&mobile=01234567890&message=" + message + "&language=2"))
+                .andRespond(withSuccess("{\"status\":\"success\"}", MediaType.APPLICATION_JSON));
+
+            gateway.sendOtp(TEST_PHONE, TEST_OTP, "SMS");
+
+            mockServer.verify();
+        }
+
         @Test
         @DisplayName("should return false when API returns failure status")
         void shouldReturnFalseOnApiFailure() {
@@ -163,11 +178,17 @@ class SmsMisrGatewayTest {
         }
 
         @Test
-        @DisplayName("should return true without making API call (dev mode)")
-        void shouldReturnTrueInDevMode() {
+        @DisplayName("should report itself as not configured")
+        void shouldNotBeConfigured() {
+            assertThat(gateway.isConfigured()).isFalse();
+        }
+
+        @Test
+        @DisplayName("should return false without making API call")
+        void shouldReturnFalseWithoutCredentials() {
             boolean result = gateway.sendOtp(TEST_PHONE, TEST_OTP, "SMS");
 
-            assertThat(result).isTrue();
+            assertThat(result).isFalse();
             // mockServer.verify() would fail if any request was made
         }
     }
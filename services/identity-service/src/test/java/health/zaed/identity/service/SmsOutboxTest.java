@@ -0,0 +1,228 @@
+package health.zaed.identity.service;
+
+import health.zaed.identity.config.SmsOutboxConfig;
+import health.zaed.identity.model.dto.OtpDeliveryStatusResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for {@link SmsOutbox}.
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("SmsOutbox")
+class SmsOutboxTest {
+
+    private static final String TEST_PHONE = "+201234567890";
+    private static final String DELIVERY_ID = UUID.randomUUID().toString();
+    private static final String MESSAGE_KEY = SmsOutbox.MESSAGE_KEY_PREFIX + DELIVERY_ID;
+    private static final RecordId RECORD_ID = RecordId.of("1-0");
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock
+    private StreamOperations<String, Object, Object> streamOperations;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    @Mock
+    private SmsGateway smsGateway;
+
+    private SmsOutboxConfig config;
+    private SimpleMeterRegistry meterRegistry;
+    private SmsOutbox smsOutbox;
+
+    @BeforeEach
+    void setUp() {
+        config = new SmsOutboxConfig();
+        config.setMaxDeliveryAttempts(3);
+        config.setRetryBackoffMillis(2_000);
+        config.setMaxRetryBackoffMillis(3_000);
+        meterRegistry = new SimpleMeterRegistry();
+
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(redisTemplate.opsForStream()).thenReturn(streamOperations);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(hashOperations.multiGet(eq(MESSAGE_KEY), any()))
+            .thenReturn(Arrays.asList(TEST_PHONE, "123456", "SMS", String.valueOf(System.currentTimeMillis())));
+
+        smsOutbox = new SmsOutbox(redisTemplate, smsGateway, config, meterRegistry);
+    }
+
+    private void claimReturns(long result) {
+        when(redisTemplate.execute(eq(SmsOutbox.CLAIM_SCRIPT), eq(List.of(MESSAGE_KEY)), any(Object[].class)))
+            .thenReturn(result);
+    }
+
+    private double outcomes(String outcome) {
+        return meterRegistry.counter("sms.outbox.deliveries", "outcome", outcome).count();
+    }
+
+    @Nested
+    @DisplayName("deliver")
+    class Deliver {
+
+        @Test
+        @DisplayName("should mark sent, drop the OTP and acknowledge")
+        void shouldMarkSent() {
+            claimReturns(1);
+            when(smsGateway.sendOtp(TEST_PHONE, "123456", "SMS")).thenReturn(true);
+
+            smsOutbox.deliver(RECORD_ID, DELIVERY_ID);
+
+            verify(hashOperations).put(MESSAGE_KEY, "status", "SENT");
+            verify(hashOperations).delete(MESSAGE_KEY, "otp");
+            verify(streamOperations).acknowledge(SmsOutbox.STREAM_KEY, SmsOutbox.CONSUMER_GROUP, RECORD_ID);
+            assertThat(outcomes("sent")).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should schedule a retry after the backoff when the gateway fails below the attempt limit")
+        void shouldScheduleRetryOnFailure() {
+            claimReturns(1);
+            when(smsGateway.sendOtp(anyString(), anyString(), anyString())).thenThrow(new RuntimeException("timeout"));
+            long before = System.currentTimeMillis();
+
+            smsOutbox.deliver(RECORD_ID, DELIVERY_ID);
+
+            verify(hashOperations).put(MESSAGE_KEY, "status", "QUEUED");
+            verify(zSetOperations).add(eq(SmsOutbox.RETRY_KEY), eq(DELIVERY_ID),
+                doubleThat(dueAt -> dueAt >= before + 2_000 && dueAt <= System.currentTimeMillis() + 2_000));
+            verify(streamOperations, never()).add(ArgumentMatchers.<MapRecord<String, Object, Object>>any());
+            verify(streamOperations).acknowledge(SmsOutbox.STREAM_KEY, SmsOutbox.CONSUMER_GROUP, RECORD_ID);
+            assertThat(outcomes("retried")).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should double the backoff per attempt up to the cap")
+        void shouldDoubleBackoffUpToCap() {
+            assertThat(smsOutbox.retryBackoffMillis(1)).isEqualTo(2_000);
+            assertThat(smsOutbox.retryBackoffMillis(2)).isEqualTo(3_000);
+            assertThat(smsOutbox.retryBackoffMillis(50)).isEqualTo(3_000);
+        }
+
+        @Test
+        @DisplayName("should dead-letter when the last attempt fails")
+        void shouldDeadLetterOnLastAttempt() {
+            claimReturns(3);
+            when(smsGateway.sendOtp(anyString(), anyString(), anyString())).thenReturn(false);
+
+            smsOutbox.deliver(RECORD_ID, DELIVERY_ID);
+
+            verify(hashOperations).put(MESSAGE_KEY, "status", "FAILED");
+            verify(hashOperations).delete(MESSAGE_KEY, "otp");
+            verify(streamOperations).add(ArgumentMatchers.<MapRecord<String, Object, Object>>argThat(
+                record -> SmsOutbox.DEAD_LETTER_KEY.equals(record.getStream()))));
+            verify(streamOperations).acknowledge(SmsOutbox.STREAM_KEY, SmsOutbox.CONSUMER_GROUP, RECORD_ID);
+            assertThat(outcomes("failed")).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should acknowledge a duplicate entry without sending")
+        void shouldSkipDuplicate() {
+            claimReturns(0);
+
+            smsOutbox.deliver(RECORD_ID, DELIVERY_ID);
+
+            verifyNoInteractions(smsGateway);
+            verify(streamOperations).acknowledge(SmsOutbox.STREAM_KEY, SmsOutbox.CONSUMER_GROUP, RECORD_ID);
+            assertThat(outcomes("duplicate")).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should acknowledge an expired message without sending")
+        void shouldSkipExpired() {
+            claimReturns(-1);
+
+            smsOutbox.deliver(RECORD_ID, DELIVERY_ID);
+
+            verifyNoInteractions(smsGateway);
+            verify(streamOperations).acknowledge(SmsOutbox.STREAM_KEY, SmsOutbox.CONSUMER_GROUP, RECORD_ID);
+            assertThat(outcomes("expired")).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("releaseDueRetries")
+    class ReleaseDueRetries {
+
+        @Test
+        @DisplayName("should move due retries onto the stream in one script call")
+        void shouldReleaseInOneCall() {
+            when(redisTemplate.execute(eq(SmsOutbox.RELEASE_SCRIPT), any(), any(Object[].class))).thenReturn(3L);
+
+            assertThat(smsOutbox.releaseDueRetries()).isEqualTo(3);
+
+            verify(redisTemplate).execute(eq(SmsOutbox.RELEASE_SCRIPT),
+                eq(List.of(SmsOutbox.RETRY_KEY, SmsOutbox.STREAM_KEY)),
+                anyString(), eq(String.valueOf(SmsOutbox.RELEASE_BATCH_SIZE)), eq("100000"));
+        }
+
+        @Test
+        @DisplayName("should keep releasing while full batches come back")
+        void shouldDrainFullBatches() {
+            when(redisTemplate.execute(eq(SmsOutbox.RELEASE_SCRIPT), any(), any(Object[].class)))
+                .thenReturn((long) SmsOutbox.RELEASE_BATCH_SIZE, 5L);
+
+            assertThat(smsOutbox.releaseDueRetries()).isEqualTo(SmsOutbox.RELEASE_BATCH_SIZE + 5);
+        }
+    }
+
+    @Nested
+    @DisplayName("status")
+    class Status {
+
+        @Test
+        @DisplayName("should report stored status and attempts")
+        void shouldReportStoredStatus() {
+            UUID deliveryId = UUID.randomUUID();
+            when(hashOperations.multiGet(eq(SmsOutbox.MESSAGE_KEY_PREFIX + deliveryId), any()))
+                .thenReturn(Arrays.asList("SENT", "2"));
+
+            OtpDeliveryStatusResponse status = smsOutbox.status(deliveryId);
+
+            assertThat(status.status()).isEqualTo("SENT");
+            assertThat(status.attempts()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("should report EXPIRED for an unknown delivery")
+        void shouldReportExpiredWhenMissing() {
+            UUID deliveryId = UUID.randomUUID();
+            when(hashOperations.multiGet(eq(SmsOutbox.MESSAGE_KEY_PREFIX + deliveryId), any()))
+                .thenReturn(Arrays.asList(null, null));
+
+            assertThat(smsOutbox.status(deliveryId).status()).isEqualTo("EXPIRED");
+        }
+    }
+}
@@ -6,12 +6,15 @@ import dev.samstevens.totp.code.HashingAlgorithm;
 import dev.samstevens.totp.secret.DefaultSecretGenerator;
 import dev.samstevens.totp.secret.SecretGenerator;
 import dev.samstevens.totp.time.SystemTimeProvider;
+import health.zaed.identity.config.PasswordConfig;
 import health.zaed.identity.config.TwoFactorConfig;
 import health.zaed.identity.exception.TwoFactorException;
 import health.zaed.identity.model.entity.User;
 import health.zaed.identity.model.entity.User2FA;
 import health.zaed.identity.model.enums.UserRole;
 import health.zaed.identity.repository.UserRepository;
+import health.zaed.identity.security.PasswordHasher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -45,6 +48,9 @@ class TwoFactorServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserSnapshotCache userSnapshotCache;
+
     private TwoFactorConfig config;
     private PasswordEncoder passwordEncoder;
     private TwoFactorService twoFactorService;
@@ -59,9 +65,10 @@ class TwoFactorServiceTest {
         config.setIssuer("TestApp");
         config.setBackupCodesCount(10);
 
-        passwordEncoder = new BCryptPasswordEncoder();
+        passwordEncoder = new BCryptPasswordEncoder(4);
+        PasswordHasher passwordHasher = new PasswordHasher(passwordEncoder, new PasswordConfig(), new SimpleMeterRegistry());
 
-        twoFactorService = new TwoFactorService(userRepository, passwordEncoder, config);
+        twoFactorService = new TwoFactorService(userRepository, userSnapshotCache, passwordHasher, config);
     }
 
     @Nested
@@ -157,6 +164,7 @@ class TwoFactorServiceTest {
             ArgumentCaptor<User> userCaptor = ArgumentCaptor.forClass(User.class);
             verify(userRepository).save(userCaptor.capture());
             assertThat(userCaptor.getValue().getTwoFactorAuth().isEnabled()).isTrue();
+            verify(userSnapshotCache).evict(user.getId());
         }
 
         @Test
@@ -226,19 +234,43 @@ class TwoFactorServiceTest {
     }
 
     @Nested
-    @DisplayName("verifyRecoveryCode")
-    class VerifyRecoveryCode {
+    @DisplayName("matchRecoveryCode")
+    class MatchRecoveryCode {
+
+        @Test
+        @DisplayName("should return the stored hash the recovery code matches")
+        void shouldReturnMatchingHash() {
+            String matching = passwordEncoder.encode("ABCD-EFGH-1234");
+            List<String> hashedCodes = List.of(passwordEncoder.encode("OTHER-CODE"), matching);
+
+            assertThat(twoFactorService.matchRecoveryCode(hashedCodes, "ABCD-EFGH-1234")).contains(matching);
+            verifyNoInteractions(userRepository);
+        }
+
+        @Test
+        @DisplayName("should return empty for invalid recovery code")
+        void shouldReturnEmptyForInvalidRecoveryCode() {
+            List<String> hashedCodes = List.of(passwordEncoder.encode("VALID-CODE"));
+
+            assertThat(twoFactorService.matchRecoveryCode(hashedCodes, "WRONG-CODE")).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("consumeRecoveryCode")
+    class ConsumeRecoveryCode {
 
         @Test
-        @DisplayName("should return true and consume valid recovery code")
-        void shouldReturnTrueAndConsumeValidRecoveryCode() {
+        @DisplayName("should remove the matched recovery code")
+        void shouldRemoveMatchedRecoveryCode() {
             String secret = secretGenerator.generate();
             String recoveryCode = "ABCD-EFGH-1234";
             User user = createAdminUserWithEnabled2FAAndRecoveryCode(secret, recoveryCode);
+            String hashedCode = user.getTwoFactorAuth().getRecoveryCodes().getFirst();
             when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
             when(userRepository.save(any(User.class))).thenAnswer(inv -> inv.getArgument(0));
 
-            boolean result = twoFactorService.verifyRecoveryCode(user.getId(), recoveryCode);
+            boolean result = twoFactorService.consumeRecoveryCode(user.getId(), hashedCode);
 
             assertThat(result).isTrue();
 
@@ -249,17 +281,13 @@ class TwoFactorServiceTest {
         }
 
         @Test
-        @DisplayName("should return false for invalid recovery code")
-        void shouldReturnFalseForInvalidRecoveryCode() {
+        @DisplayName("should return false when the code was already consumed")
+        void shouldReturnFalseWhenAlreadyConsumed() {
             String secret = secretGenerator.generate();
-            User user = createAdminUserWithEnabled2FA(secret);
-            // Add a hashed recovery code
-            user.getTwoFactorAuth().setRecoveryCodes(
-                new ArrayList<>(List.of(passwordEncoder.encode("VALID-CODE")))
-            );
+            User user = createAdminUserWithEnabled2FAAndRecoveryCode(secret, "ABCD-EFGH-1234");
             when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
 
-            boolean result = twoFactorService.verifyRecoveryCode(user.getId(), "WRONG-CODE");
+            boolean result = twoFactorService.consumeRecoveryCode(user.getId(), passwordEncoder.encode("ABCD-EFGH-1234"));
 
             assertThat(result).isFalse();
             verify(userRepository, never()).save(any());
@@ -289,6 +317,7 @@ class TwoFactorServiceTest {
             assertThat(twoFA.isEnabled()).isFalse();
             assertThat(twoFA.getSecret()).isNull();
             assertThat(twoFA.getRecoveryCodes()).isEmpty();
+            verify(userSnapshotCache).evict(user.getId());
         }
 
         @Test
@@ -312,7 +341,7 @@ class TwoFactorServiceTest {
         @DisplayName("should return true when 2FA is enabled")
         void shouldReturnTrueWhen2FAIsEnabled() {
             User user = createAdminUserWithEnabled2FA("secret");
-            when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+            when(userSnapshotCache.get(user.getId())).thenReturn(Optional.of(UserSnapshot.of(user)));
 
             boolean result = twoFactorService.is2FAEnabled(user.getId());
 
@@ -323,7 +352,7 @@ class TwoFactorServiceTest {
         @DisplayName("should return false when 2FA is not enabled")
         void shouldReturnFalseWhen2FAIsNotEnabled() {
             User user = createAdminUser();
-            when(userRepository.findById(user.getId())).thenReturn(Optional.of(user));
+            when(userSnapshotCache.get(user.getId())).thenReturn(Optional.of(UserSnapshot.of(user)));
 
             boolean result = twoFactorService.is2FAEnabled(user.getId());
 
@@ -334,7 +363,7 @@ class TwoFactorServiceTest {
         @DisplayName("should return false when user not found")
         void shouldReturnFalseWhenUserNotFound() {
             UUID userId = UUID.randomUUID();
-            when(userRepository.findById(userId)).thenReturn(Optional.empty());
+            when(userSnapshotCache.get(userId)).thenReturn(Optional.empty());
 
             boolean result = twoFactorService.is2FAEnabled(userId);
 
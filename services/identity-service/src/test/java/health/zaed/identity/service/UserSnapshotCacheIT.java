@@ -0,0 +1,146 @@
+package health.zaed.identity.service;
+
+import health.zaed.identity.IntegrationTestBase;
+import health.zaed.identity.config.UserCacheConfig;
+import health.zaed.identity.model.entity.User;
+import health.zaed.identity.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Integration tests for {@link UserSnapshotCache} against real Redis and PostgreSQL containers.
+ */
+@DisplayName("UserSnapshotCache Integration Tests")
+class UserSnapshotCacheIT extends IntegrationTestBase {
+
+    @Autowired
+    private UserSnapshotCache cache;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RedisConnectionFactory connectionFactory;
+
+    @Autowired
+    private UserCacheConfig config;
+
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO users (id, email, name, role) VALUES (?, ?, ?, ?)",
+            userId, "snapshot@example.com", "Snapshot Test", "PARTNER_NGO");
+    }
+
+    private void deactivate() {
+        jdbcTemplate.update("UPDATE users SET is_active = false WHERE id = ?", userId);
+    }
+
+    @Nested
+    @DisplayName("get")
+    class Get {
+
+        @Test
+        @DisplayName("should load from Postgres once and share the snapshot through Redis")
+        void shouldLoadOnceAndShare() {
+            UserSnapshot snapshot = cache.get(userId).orElseThrow();
+
+            assertThat(snapshot.email()).isEqualTo("snapshot@example.com");
+            assertThat(snapshot.active()).isTrue();
+            assertThat(snapshot.twoFactorEnabled()).isFalse();
+            assertThat(redisTemplate.opsForHash().entries(UserSnapshotCache.KEY_PREFIX + userId))
+                .containsEntry("role", "PARTNER_NGO")
+                .containsEntry("active", "1");
+
+            deactivate();
+            assertThat(cache.get(userId)).get().extracting(UserSnapshot::active).isEqualTo(true);
+        }
+
+        @Test
+        @DisplayName("should return empty for an unknown user without caching it")
+        void shouldReturnEmptyForUnknownUser() {
+            UUID unknown = UUID.randomUUID();
+
+            assertThat(cache.get(unknown)).isEmpty();
+            assertThat(redisTemplate.hasKey(UserSnapshotCache.KEY_PREFIX + unknown)).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("invalidation")
+    class Invalidation {
+
+        @Test
+        @DisplayName("should drop both levels on evict")
+        void shouldDropBothLevelsOnEvict() {
+            cache.get(userId);
+            deactivate();
+
+            cache.evict(userId);
+
+            assertThat(redisTemplate.hasKey(UserSnapshotCache.KEY_PREFIX + userId)).isFalse();
+            assertThat(cache.get(userId)).get().extracting(UserSnapshot::active).isEqualTo(false);
+        }
+
+        @Test
+        @DisplayName("should drop the local copy when another instance publishes an invalidation")
+        void shouldDropLocalCopyOnMessage() throws InterruptedException {
+            cache.get(userId);
+            deactivate();
+            // What evict() on another instance does
+            redisTemplate.delete(UserSnapshotCache.KEY_PREFIX + userId);
+            redisTemplate.convertAndSend(UserSnapshotCache.CHANNEL, userId + " " + System.currentTimeMillis());
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (cache.get(userId).orElseThrow().active() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+
+            assertThat(cache.get(userId)).get().extracting(UserSnapshot::active).isEqualTo(false);
+        }
+
+        @Test
+        @DisplayName("should not share a snapshot read before an eviction that lands during the load")
+        void shouldNotShareSnapshotReadBeforeEviction() {
+            // Another instance whose load reads the row, then the update commits and evicts
+            UserRepository slowRepository = mock(UserRepository.class);
+            when(slowRepository.findByIdWithCredentialAnd2FA(userId)).thenAnswer(invocation -> {
+                Optional<User> row = userRepository.findByIdWithCredentialAnd2FA(userId);
+                deactivate();
+                cache.evict(userId);
+                return row;
+            });
+            UserSnapshotCache otherInstance = new UserSnapshotCache(
+                slowRepository, redisTemplate, connectionFactory, config, new SimpleMeterRegistry());
+
+            assertThat(otherInstance.get(userId)).get().extracting(UserSnapshot::active).isEqualTo(true);
+
+            assertThat(redisTemplate.hasKey(UserSnapshotCache.KEY_PREFIX + userId)).isFalse();
+            assertThat(cache.get(userId)).get().extracting(UserSnapshot::active).isEqualTo(false);
+            assertThat(redisTemplate.opsForHash().entries(UserSnapshotCache.KEY_PREFIX + userId))
+                .containsEntry("active", "0");
+        }
+    }
+}